@@ -1,5 +1,12 @@
 -- Drop existing quoted tables if they exist
 BEGIN
+  EXECUTE IMMEDIATE 'DROP TABLE "REFRESH_TOKEN_FAMILY" CASCADE CONSTRAINTS';
+  EXECUTE IMMEDIATE 'DROP TABLE "STATS_MARK" CASCADE CONSTRAINTS';
+  EXECUTE IMMEDIATE 'DROP TABLE "BORROW_STAT" CASCADE CONSTRAINTS';
+  EXECUTE IMMEDIATE 'DROP TABLE "ORDER_EVENT" CASCADE CONSTRAINTS';
+  EXECUTE IMMEDIATE 'DROP TABLE "ORDER_ARCHIVE" CASCADE CONSTRAINTS';
+  EXECUTE IMMEDIATE 'DROP TABLE "SWEEP_MARK" CASCADE CONSTRAINTS';
+  EXECUTE IMMEDIATE 'DROP TABLE "RESERVATION" CASCADE CONSTRAINTS';
   EXECUTE IMMEDIATE 'DROP TABLE "ORDER" CASCADE CONSTRAINTS';
   EXECUTE IMMEDIATE 'DROP TABLE "USER" CASCADE CONSTRAINTS';
   EXECUTE IMMEDIATE 'DROP TABLE "BOOK" CASCADE CONSTRAINTS';
@@ -47,6 +54,9 @@ CREATE TABLE BOOK
   CONSTRAINT FK_BOOK_AUTHOR FOREIGN KEY (AUTHOR_ID) REFERENCES AUTHOR (ID) ON DELETE SET NULL
 );
 
+-- Foreign key index, also serves the books of an author
+CREATE INDEX IX_BOOK_AUTHOR ON BOOK (AUTHOR_ID);
+
 CREATE TABLE "USER"
 (
   ID         NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -54,7 +64,9 @@ CREATE TABLE "USER"
   UPDATED_AT TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
   EMAIL      VARCHAR2(255) UNIQUE                               NOT NULL,
   PASSWORD   VARCHAR2(255)                                      NOT NULL,
-  ROLE       VARCHAR2(20)             DEFAULT 'USER'            NOT NULL
+  ROLE       VARCHAR2(20)             DEFAULT 'USER'            NOT NULL,
+  -- Loans the user has out, raised and lowered only by conditional updates
+  ACTIVE_LOANS NUMBER(10)             DEFAULT 0                 NOT NULL
 );
 
 CREATE TABLE "ORDER"
@@ -65,10 +77,118 @@ CREATE TABLE "ORDER"
   NAME        VARCHAR2(255)                                      NOT NULL,
   BORROW_DATE TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
   RETURN_DATE TIMESTAMP WITH TIME ZONE,
+  DUE_DATE    TIMESTAMP WITH TIME ZONE,
+  OVERDUE_AT  TIMESTAMP WITH TIME ZONE,
   STATUS      VARCHAR2(20)             DEFAULT 'ACTIVE'          NOT NULL
     CHECK (STATUS IN ('ACTIVE', 'RETURNED', 'CANCELLED')),
   USER_ID     NUMBER,
   BOOK_ID     NUMBER,
   CONSTRAINT FK_ORDER_USER FOREIGN KEY (USER_ID) REFERENCES "USER" (ID) ON DELETE SET NULL,
   CONSTRAINT FK_ORDER_BOOK FOREIGN KEY (BOOK_ID) REFERENCES BOOK (ID) ON DELETE SET NULL
-);
\ No newline at end of file
+);
+
+-- Foreign key indexes. The book one also answers "does this book have an active
+-- order" from the index alone; Oracle has no partial indexes, and a CASE-based
+-- function index would only be used by queries repeating the same expression
+CREATE INDEX IX_ORDER_BOOK_STATUS ON "ORDER" (BOOK_ID, STATUS);
+-- Order history of a user, newest first
+CREATE INDEX IX_ORDER_USER ON "ORDER" (USER_ID, CREATED_AT);
+-- Serves the overdue sweep, which walks active orders by due date
+CREATE INDEX IX_ORDER_DUE ON "ORDER" (STATUS, DUE_DATE);
+
+-- Closed orders moved out of ORDER, same columns without the foreign keys
+CREATE TABLE ORDER_ARCHIVE
+(
+  ID          NUMBER PRIMARY KEY,
+  CREATED_AT  TIMESTAMP WITH TIME ZONE                           NOT NULL,
+  UPDATED_AT  TIMESTAMP WITH TIME ZONE                           NOT NULL,
+  NAME        VARCHAR2(255)                                      NOT NULL,
+  BORROW_DATE TIMESTAMP WITH TIME ZONE                           NOT NULL,
+  RETURN_DATE TIMESTAMP WITH TIME ZONE,
+  DUE_DATE    TIMESTAMP WITH TIME ZONE,
+  OVERDUE_AT  TIMESTAMP WITH TIME ZONE,
+  STATUS      VARCHAR2(20)                                       NOT NULL
+    CHECK (STATUS IN ('ACTIVE', 'RETURNED', 'CANCELLED')),
+  USER_ID     NUMBER,
+  BOOK_ID     NUMBER,
+  ARCHIVED_AT TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IX_ORDER_ARCHIVE_USER ON ORDER_ARCHIVE (USER_ID, CREATED_AT);
+
+CREATE TABLE RESERVATION
+(
+  ID         NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  CREATED_AT TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
+  UPDATED_AT TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
+  STATUS     VARCHAR2(20)             DEFAULT 'WAITING'         NOT NULL
+    CHECK (STATUS IN ('WAITING', 'HELD', 'FULFILLED', 'EXPIRED', 'CANCELLED')),
+  HOLD_UNTIL TIMESTAMP WITH TIME ZONE,
+  USER_ID    NUMBER                                             NOT NULL,
+  BOOK_ID    NUMBER                                             NOT NULL,
+  CONSTRAINT FK_RESERVATION_USER FOREIGN KEY (USER_ID) REFERENCES "USER" (ID) ON DELETE CASCADE,
+  CONSTRAINT FK_RESERVATION_BOOK FOREIGN KEY (BOOK_ID) REFERENCES BOOK (ID) ON DELETE CASCADE
+);
+
+-- Serves the per-book queue in reservation order
+CREATE INDEX IX_RESERVATION_QUEUE ON RESERVATION (BOOK_ID, STATUS, ID);
+CREATE INDEX IX_RESERVATION_USER ON RESERVATION (USER_ID);
+-- At most one open reservation per user and book, across every replica; closed rows are not indexed
+CREATE UNIQUE INDEX UX_RESERVATION_OPEN ON RESERVATION (
+  CASE WHEN STATUS IN ('WAITING', 'HELD') THEN USER_ID END,
+  CASE WHEN STATUS IN ('WAITING', 'HELD') THEN BOOK_ID END
+);
+
+CREATE TABLE SWEEP_MARK
+(
+  NAME       VARCHAR2(100) PRIMARY KEY,
+  DUE_DATE   TIMESTAMP WITH TIME ZONE                           NOT NULL,
+  ORDER_ID   NUMBER                                             NOT NULL,
+  VERSION    NUMBER,
+  UPDATED_AT TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+-- Append-only log of order state changes, never updated or deleted
+CREATE TABLE ORDER_EVENT
+(
+  ID          NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  ORDER_ID    NUMBER                   NOT NULL,
+  BOOK_ID     NUMBER,
+  USER_ID     NUMBER,
+  TYPE        VARCHAR2(20)             NOT NULL
+    CHECK (TYPE IN ('BORROWED', 'RETURNED', 'CANCELLED', 'DELETED')),
+  OCCURRED_AT TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IX_ORDER_EVENT_ORDER ON ORDER_EVENT (ORDER_ID, ID);
+CREATE INDEX IX_ORDER_EVENT_BOOK ON ORDER_EVENT (BOOK_ID, ID);
+CREATE INDEX IX_ORDER_EVENT_USER ON ORDER_EVENT (USER_ID, ID);
+-- Finds where the recent events start, to seed the trending lists on startup
+CREATE INDEX IX_ORDER_EVENT_OCCURRED ON ORDER_EVENT (OCCURRED_AT, ID);
+
+-- Borrows per book and month, rolled up from ORDER_EVENT
+CREATE TABLE BORROW_STAT
+(
+  ID           NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  BOOK_ID      NUMBER NOT NULL,
+  BORROW_MONTH NUMBER NOT NULL,
+  BORROWS      NUMBER NOT NULL,
+  CONSTRAINT UX_BORROW_STAT UNIQUE (BOOK_ID, BORROW_MONTH)
+);
+
+CREATE TABLE STATS_MARK
+(
+  NAME       VARCHAR2(100) PRIMARY KEY,
+  EVENT_ID   NUMBER                   NOT NULL,
+  UPDATED_AT TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE REFRESH_TOKEN_FAMILY
+(
+  FAMILY_ID  NUMBER PRIMARY KEY,
+  TOKEN_ID   NUMBER                   NOT NULL,
+  EXPIRES_AT TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Expired families are deleted periodically
+CREATE INDEX IX_REFRESH_TOKEN_FAMILY_EXPIRES ON REFRESH_TOKEN_FAMILY (EXPIRES_AT);
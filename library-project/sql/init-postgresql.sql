@@ -1,8 +1,13 @@
--- Enable Long extension
-CREATE EXTENSION IF NOT EXISTS "pgcrypto";
-
+-- Same schema as init-oracle-xe.sql. "user" and "order" are reserved words and
+-- quoted in lower case, as Hibernate's naming strategy sends them
+DROP TABLE IF EXISTS refresh_token_family;
+DROP TABLE IF EXISTS stats_mark;
+DROP TABLE IF EXISTS borrow_stat;
+DROP TABLE IF EXISTS order_event;
+DROP TABLE IF EXISTS order_archive;
+DROP TABLE IF EXISTS sweep_mark;
+DROP TABLE IF EXISTS reservation;
 DROP TABLE IF EXISTS "order";
-DROP TYPE IF EXISTS order_status;
 DROP TABLE IF EXISTS "user";
 DROP TABLE IF EXISTS book;
 DROP TABLE IF EXISTS author;
@@ -11,38 +16,38 @@ DROP TABLE IF EXISTS image;
 -- Table: image
 CREATE TABLE image
 (
-    id         Long PRIMARY KEY     DEFAULT gen_random_uuid(),
-    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
-    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
-    name       TEXT        NOT NULL,
-    path       TEXT        NOT NULL
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    name       TEXT                     NOT NULL,
+    path       TEXT                     NOT NULL
 );
 
 -- Table: author
 CREATE TABLE author
 (
-    id         Long PRIMARY KEY     DEFAULT gen_random_uuid(),
-    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
-    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
-    first_name TEXT        NOT NULL,
-    last_name  TEXT        NOT NULL,
-    age        INTEGER     NOT NULL
---     image_id   Long UNIQUE,
---     CONSTRAINT fk_author_image FOREIGN KEY (image_id) REFERENCES image (id) ON DELETE SET NULL
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    first_name TEXT                     NOT NULL,
+    last_name  TEXT                     NOT NULL,
+    age        INTEGER                  NOT NULL
 );
 
 -- Table: book
 CREATE TABLE book
 (
-    id          Long PRIMARY KEY     DEFAULT gen_random_uuid(),
-    created_at  TIMESTAMPTZ NOT NULL DEFAULT now(),
-    updated_at  TIMESTAMPTZ NOT NULL DEFAULT now(),
-    title       TEXT        NOT NULL,
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    created_at  TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    updated_at  TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    title       TEXT                     NOT NULL,
     description TEXT,
-    genre       TEXT        NOT NULL,
-    year        INTEGER     NOT NULL,
-    image_id    Long UNIQUE,
-    author_id   UUID,
+    genre       TEXT                     NOT NULL,
+    year        INTEGER                  NOT NULL,
+    image_id    BIGINT,
+    author_id   BIGINT,
+    status      TEXT                     DEFAULT 'ACTIVE'
+        CHECK (status IN ('ACTIVE', 'RETURNED', 'CANCELLED')),
     CONSTRAINT fk_book_image FOREIGN KEY (image_id) REFERENCES image (id) ON DELETE SET NULL,
     CONSTRAINT fk_book_author FOREIGN KEY (author_id) REFERENCES author (id) ON DELETE SET NULL
 );
@@ -50,29 +55,139 @@ CREATE TABLE book
 -- Table: "user"
 CREATE TABLE "user"
 (
-    id         Long PRIMARY KEY     DEFAULT gen_random_uuid(),
-    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
-    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
-    email      TEXT UNIQUE NOT NULL,
-    password   TEXT        NOT NULL,
-    role       TEXT        NOT NULL DEFAULT 'USER'
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    created_at   TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    updated_at   TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    email        TEXT UNIQUE              NOT NULL,
+    password     TEXT                     NOT NULL,
+    role         TEXT                     NOT NULL DEFAULT 'USER',
+    -- Loans the user has out, raised and lowered only by conditional updates
+    active_loans INTEGER                  NOT NULL DEFAULT 0
 );
 
--- Enum: order_status
-CREATE TYPE order_status AS ENUM ('ACTIVE', 'RETURNED', 'CANCELLED');
-
 -- Table: "order"
 CREATE TABLE "order"
 (
-    id          Long PRIMARY KEY      DEFAULT gen_random_uuid(),
-    created_at  TIMESTAMPTZ  NOT NULL DEFAULT now(),
-    updated_at  TIMESTAMPTZ  NOT NULL DEFAULT now(),
-    name        TEXT         NOT NULL,
-    borrow_date TIMESTAMPTZ  NOT NULL DEFAULT now(),
-    return_date TIMESTAMPTZ,
-    status      order_status NOT NULL DEFAULT 'ACTIVE',
-    user_id     UUID,
-    book_id     UUID,
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    created_at  TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    updated_at  TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    name        TEXT                     NOT NULL,
+    borrow_date TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    return_date TIMESTAMP WITH TIME ZONE,
+    due_date    TIMESTAMP WITH TIME ZONE,
+    overdue_at  TIMESTAMP WITH TIME ZONE,
+    status      TEXT                     NOT NULL DEFAULT 'ACTIVE'
+        CHECK (status IN ('ACTIVE', 'RETURNED', 'CANCELLED')),
+    user_id     BIGINT,
+    book_id     BIGINT,
     CONSTRAINT fk_order_user FOREIGN KEY (user_id) REFERENCES "user" (id) ON DELETE SET NULL,
     CONSTRAINT fk_order_book FOREIGN KEY (book_id) REFERENCES book (id) ON DELETE SET NULL
 );
+
+-- Indexes: foreign keys, so deleting a parent does not scan the child table
+CREATE INDEX ix_book_author ON book (author_id);
+CREATE INDEX ix_order_book ON "order" (book_id);
+-- Order history of a user, newest first
+CREATE INDEX ix_order_user ON "order" (user_id, created_at);
+-- Active orders only, checked on every borrow; closed orders never enter it
+CREATE INDEX ix_order_active_book ON "order" (book_id) WHERE status = 'ACTIVE';
+-- Serves the overdue sweep, which walks active orders by due date
+CREATE INDEX ix_order_due ON "order" (status, due_date);
+
+-- Closed orders moved out of "order", same columns without the foreign keys
+CREATE TABLE order_archive
+(
+    id          BIGINT PRIMARY KEY,
+    created_at  TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at  TIMESTAMP WITH TIME ZONE NOT NULL,
+    name        TEXT                     NOT NULL,
+    borrow_date TIMESTAMP WITH TIME ZONE NOT NULL,
+    return_date TIMESTAMP WITH TIME ZONE,
+    due_date    TIMESTAMP WITH TIME ZONE,
+    overdue_at  TIMESTAMP WITH TIME ZONE,
+    status      TEXT                     NOT NULL
+        CHECK (status IN ('ACTIVE', 'RETURNED', 'CANCELLED')),
+    user_id     BIGINT,
+    book_id     BIGINT,
+    archived_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE INDEX ix_order_archive_user ON order_archive (user_id, created_at);
+
+-- Table: reservation
+CREATE TABLE reservation
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    status     TEXT                     NOT NULL DEFAULT 'WAITING'
+        CHECK (status IN ('WAITING', 'HELD', 'FULFILLED', 'EXPIRED', 'CANCELLED')),
+    hold_until TIMESTAMP WITH TIME ZONE,
+    user_id    BIGINT                   NOT NULL,
+    book_id    BIGINT                   NOT NULL,
+    CONSTRAINT fk_reservation_user FOREIGN KEY (user_id) REFERENCES "user" (id) ON DELETE CASCADE,
+    CONSTRAINT fk_reservation_book FOREIGN KEY (book_id) REFERENCES book (id) ON DELETE CASCADE
+);
+
+-- Serves the per-book queue in reservation order
+CREATE INDEX ix_reservation_queue ON reservation (book_id, status, id);
+CREATE INDEX ix_reservation_user ON reservation (user_id);
+-- At most one open reservation per user and book, across every replica; closed rows are not indexed
+CREATE UNIQUE INDEX ux_reservation_open ON reservation (user_id, book_id) WHERE status IN ('WAITING', 'HELD');
+
+-- Table: sweep_mark
+CREATE TABLE sweep_mark
+(
+    name       TEXT PRIMARY KEY,
+    due_date   TIMESTAMP WITH TIME ZONE NOT NULL,
+    order_id   BIGINT                   NOT NULL,
+    version    BIGINT,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- Append-only log of order state changes, never updated or deleted
+CREATE TABLE order_event
+(
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_id    BIGINT                   NOT NULL,
+    book_id     BIGINT,
+    user_id     BIGINT,
+    type        TEXT                     NOT NULL
+        CHECK (type IN ('BORROWED', 'RETURNED', 'CANCELLED', 'DELETED')),
+    occurred_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX ix_order_event_order ON order_event (order_id, id);
+CREATE INDEX ix_order_event_book ON order_event (book_id, id);
+CREATE INDEX ix_order_event_user ON order_event (user_id, id);
+-- Finds where the recent events start, to seed the trending lists on startup
+CREATE INDEX ix_order_event_occurred ON order_event (occurred_at, id);
+
+-- Borrows per book and month, rolled up from order_event
+CREATE TABLE borrow_stat
+(
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    book_id      BIGINT                   NOT NULL,
+    borrow_month INTEGER                  NOT NULL,
+    borrows      BIGINT                   NOT NULL,
+    CONSTRAINT ux_borrow_stat UNIQUE (book_id, borrow_month)
+);
+
+-- Table: stats_mark
+CREATE TABLE stats_mark
+(
+    name       TEXT PRIMARY KEY,
+    event_id   BIGINT                   NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Table: refresh_token_family
+CREATE TABLE refresh_token_family
+(
+    family_id  BIGINT PRIMARY KEY,
+    token_id   BIGINT                   NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Expired families are deleted periodically
+CREATE INDEX ix_refresh_token_family_expires ON refresh_token_family (expires_at);
@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Arrays;
+import java.util.Map;
 
 @RestController
 @RequestMapping( "/api/v1/auth" )
@@ -60,21 +61,7 @@ public class AuthController {
   public TokenResponseDto refreshToken (
     HttpServletRequest request, HttpServletResponse response
   ) {
-    Cookie[] cookies = request.getCookies();
-    if ( cookies == null ) {
-      authService.removeRefreshTokenFromResponse( response );
-      throw new ResponseStatusException(
-        HttpStatus.UNAUTHORIZED,
-        "Refresh token not found"
-      );
-    }
-
-    String refreshToken = Arrays
-      .stream( cookies )
-      .filter( cookie -> refreshTokenName.equals( cookie.getName() ) )
-      .map( Cookie::getValue )
-      .findFirst()
-      .orElse( null );
+    String refreshToken = findRefreshToken( request );
 
     if ( refreshToken == null ) {
       authService.removeRefreshTokenFromResponse( response );
@@ -84,16 +71,27 @@ public class AuthController {
       );
     }
 
-    return authService.refreshToken( refreshToken );
+    return authService.refreshToken(
+      refreshToken,
+      response
+    );
   }
 
   @PostMapping( "/logout" )
   @ResponseStatus( HttpStatus.OK )
-  public ResponseEntity<String> logout ( HttpServletResponse response ) {
+  public ResponseEntity<String> logout (
+    HttpServletRequest request, HttpServletResponse response
+  ) {
+    authService.logout( findRefreshToken( request ) );
     authService.removeRefreshTokenFromResponse( response );
     return ResponseEntity.ok( "Logged out successfully" );
   }
 
+  @GetMapping( "/jwks" )
+  public Map<String, Object> getJwks () {
+    return authService.getJwks();
+  }
+
   @GetMapping( "/validate" )
   @ResponseStatus( HttpStatus.OK )
   public ResponseEntity<String> validateToken (
@@ -124,4 +122,18 @@ public class AuthController {
       );
     }
   }
+
+  private String findRefreshToken ( HttpServletRequest request ) {
+    Cookie[] cookies = request.getCookies();
+    if ( cookies == null ) {
+      return null;
+    }
+
+    return Arrays
+      .stream( cookies )
+      .filter( cookie -> refreshTokenName.equals( cookie.getName() ) )
+      .map( Cookie::getValue )
+      .findFirst()
+      .orElse( null );
+  }
 }
\ No newline at end of file
@@ -9,6 +9,8 @@ import org.library.auth.dto.LoginDto;
 import org.library.auth.dto.RegisterDto;
 import org.library.auth.dto.TokenResponseDto;
 import org.library.auth.service.JwtService;
+import org.library.auth.service.RefreshTokenId;
+import org.library.auth.service.RefreshTokenStore;
 import org.library.user.UserService;
 import org.library.user.dto.UserResponseDto;
 import org.library.user.model.User;
@@ -17,6 +19,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Map;
 import java.util.Optional;
 
 import static org.springframework.http.HttpStatus.*;
@@ -29,6 +32,7 @@ public class AuthService {
   private final UserService userService;
   private final JwtService jwtService;
   private final PasswordEncoder passwordEncoder;
+  private final RefreshTokenStore refreshTokenStore;
 
   @Value( "${jwt.refresh-token-name}" )
   private String refreshTokenName;
@@ -66,7 +70,12 @@ public class AuthService {
     );
   }
 
-  public TokenResponseDto refreshToken ( String refreshToken ) {
+  /**
+   * Exchanges a refresh token for a new access token and rotates the refresh
+   * token cookie. Each refresh token can be used once; using it again revokes
+   * every token issued since the login it came from.
+   */
+  public TokenResponseDto refreshToken ( String refreshToken, HttpServletResponse response ) {
     try {
       Long userId = jwtService.extractUserId( refreshToken );
       String role = jwtService.extractRole( refreshToken );
@@ -80,10 +89,27 @@ public class AuthService {
 
       UserResponseDto user = userService.getById( userId );
 
+      RefreshTokenId presented = jwtService.extractRefreshTokenId( refreshToken );
+      RefreshTokenId rotated = presented != null ? refreshTokenStore.rotate( presented ) : null;
+      if ( rotated == null ) {
+        throw new ResponseStatusException(
+          UNAUTHORIZED,
+          "Refresh token revoked"
+        );
+      }
+
       String newAccessToken = jwtService.generateAccessToken(
         userId,
         role
       );
+      addRefreshCookie(
+        response,
+        jwtService.generateRefreshToken(
+          userId,
+          role,
+          rotated
+        )
+      );
       return new TokenResponseDto( newAccessToken );
     } catch ( Exception e ) {
       throw new ResponseStatusException(
@@ -93,14 +119,42 @@ public class AuthService {
     }
   }
 
+  /**
+   * Revokes the login the refresh token belongs to. Invalid tokens are ignored,
+   * logging out always succeeds.
+   */
+  public void logout ( String refreshToken ) {
+    if ( refreshToken == null ) {
+      return;
+    }
+
+    try {
+      RefreshTokenId id = jwtService.extractRefreshTokenId( refreshToken );
+      if ( id != null ) {
+        refreshTokenStore.revoke( id.family() );
+      }
+    } catch ( Exception e ) {
+      log.debug(
+        "Ignoring invalid refresh token on logout",
+        e
+      );
+    }
+  }
+
   public void addRefreshTokenToResponse (
     HttpServletResponse response, Long userId, String role
   ) {
-    String refreshToken = jwtService.generateRefreshToken(
-      userId,
-      role
+    addRefreshCookie(
+      response,
+      jwtService.generateRefreshToken(
+        userId,
+        role,
+        refreshTokenStore.issue()
+      )
     );
+  }
 
+  private void addRefreshCookie ( HttpServletResponse response, String refreshToken ) {
     Cookie cookie = new Cookie(
       refreshTokenName,
       refreshToken
@@ -134,10 +188,17 @@ public class AuthService {
     response.addCookie( cookie );
   }
 
+  public Map<String, Object> getJwks () {
+    return Map.of(
+      "keys",
+      jwtService.getJwks()
+    );
+  }
+
   public boolean isValidToken ( String token ) {
     try {
-      Long userId = jwtService.extractUserId( token );
-      return !jwtService.isTokenExpired( token ) && userId != null;
+      Long userId = jwtService.extractAccessUserId( token );
+      return userId != null && !jwtService.isTokenExpired( token );
     } catch ( Exception e ) {
       return false;
     }
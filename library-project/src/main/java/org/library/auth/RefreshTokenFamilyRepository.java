@@ -0,0 +1,54 @@
+package org.library.auth;
+
+import org.library.auth.model.RefreshTokenFamily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, Long> {
+
+  /**
+   * Replaces the token of the family when {@code presented} is its current,
+   * unexpired token. Returns 0 otherwise; the row stays locked until commit,
+   * so of two replicas presenting the same token only one rotates it.
+   */
+  @Modifying
+  @Query( """
+    update RefreshTokenFamily f
+    set f.tokenId = :next, f.expiresAt = :expiresAt
+    where f.familyId = :familyId
+      and f.tokenId = :presented
+      and f.expiresAt > :now
+    """ )
+  int rotate (
+    @Param( "familyId" ) Long familyId,
+    @Param( "presented" ) Long presented,
+    @Param( "next" ) Long next,
+    @Param( "expiresAt" ) Instant expiresAt,
+    @Param( "now" ) Instant now
+  );
+
+  boolean existsByFamilyIdAndTokenIdAndExpiresAtAfter (
+    Long familyId,
+    Long tokenId,
+    Instant now
+  );
+
+  boolean existsByFamilyIdAndExpiresAtAfter (
+    Long familyId,
+    Instant now
+  );
+
+  @Modifying
+  @Query( "delete from RefreshTokenFamily f where f.familyId = :familyId" )
+  int revoke ( @Param( "familyId" ) Long familyId );
+
+  @Modifying
+  @Query( "delete from RefreshTokenFamily f where f.expiresAt <= :now" )
+  int deleteExpired ( @Param( "now" ) Instant now );
+}
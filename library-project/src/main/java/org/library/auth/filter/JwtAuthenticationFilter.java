@@ -6,6 +6,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.library.auth.service.JwtService;
+import org.library.user.UserCache;
 import org.library.user.UserService;
 import org.library.user.dto.UserResponseDto;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -24,6 +25,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
   private final JwtService jwtService;
   private final UserService userService;
+  private final UserCache userCache;
 
   @Override
   protected void doFilterInternal (
@@ -45,12 +47,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     jwt = authHeader.substring( 7 );
 
     try {
-      userId = jwtService.extractUserId( jwt );
+      // Usually verified already by the rate limit filter
+      userId = jwtService.extractAccessUserId(
+        request,
+        jwt
+      );
 
       if ( userId != null && SecurityContextHolder.getContext().getAuthentication() == null ) {
         UserResponseDto user;
         try {
-          user = userService.getById( userId );
+          user = userCache.get(
+            userId,
+            userService::getById
+          );
         } catch ( Exception e ) {
           filterChain.doFilter(
             request,
@@ -59,21 +68,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
           return;
         }
 
-        if ( jwtService.validateToken(
-          jwt,
-          userId
-        ) ) {
-          List<SimpleGrantedAuthority> authorities = List.of( new SimpleGrantedAuthority(
-            "ROLE_" + user.getRole() ) );
+        // The signature and expiry were checked when the user id was extracted
+        List<SimpleGrantedAuthority> authorities = List.of( new SimpleGrantedAuthority(
+          "ROLE_" + user.getRole() ) );
 
-          UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-            user,
-            null,
-            authorities
-          );
-          authToken.setDetails( new WebAuthenticationDetailsSource().buildDetails( request ) );
-          SecurityContextHolder.getContext().setAuthentication( authToken );
-        }
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+          user,
+          null,
+          authorities
+        );
+        authToken.setDetails( new WebAuthenticationDetailsSource().buildDetails( request ) );
+        SecurityContextHolder.getContext().setAuthentication( authToken );
       }
     } catch ( Exception e ) {
       logger.error(
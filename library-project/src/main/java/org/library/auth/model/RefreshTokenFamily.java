@@ -0,0 +1,32 @@
+package org.library.auth.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * One login and the refresh token currently issued for it. Every replica
+ * checks and rotates tokens against this row, so a token used once on any of
+ * them is spent on all.
+ */
+@Entity
+@Table(
+  name = "REFRESH_TOKEN_FAMILY",
+  indexes = @Index( name = "IX_REFRESH_TOKEN_FAMILY_EXPIRES", columnList = "EXPIRES_AT" )
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshTokenFamily {
+  @Id
+  @Column( name = "FAMILY_ID" )
+  private Long familyId;
+
+  @Column( name = "TOKEN_ID", nullable = false )
+  private Long tokenId;
+
+  @Column( name = "EXPIRES_AT", nullable = false )
+  private Instant expiresAt;
+}
@@ -0,0 +1,480 @@
+package org.library.auth.service;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keys used to sign and verify tokens, resolved by the {@code kid} header.
+ * <p>
+ * With {@code jwt.algorithm=HS256} tokens are signed with the shared secret as
+ * before. With {@code ES256} or {@code EdDSA} an asymmetric key pair signs new
+ * tokens and is replaced every {@code jwt.key-rotation-interval}; retired keys
+ * keep verifying until the longest-lived token they signed has expired. Each
+ * key is published one interval before it starts signing, so every replica and
+ * JWKS client already knows it when the first token signed with it arrives.
+ * <p>
+ * The keyring is persisted to {@code jwt.keyring-path}, readable by the owner
+ * only, and replicas pick up changes to that file. Replicas with rotation
+ * enabled rotate under a lock on the file and re-read it first, so the keyring
+ * is rotated once per interval however many of them run.
+ * <p>
+ * Lookups read an immutable snapshot, so rotation never blocks verification.
+ */
+@Component
+public class JwtKeyring extends LocatorAdapter<Key> {
+  private static final Logger logger = LoggerFactory.getLogger( JwtKeyring.class );
+  private static final String SHARED_SECRET_ID = "hs256";
+  private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString( "rw-------" );
+
+  private final String algorithm;
+  private final SecretKey sharedSecret;
+  private final boolean acceptSharedSecret;
+  private final Path keyringPath;
+  private final boolean rotationEnabled;
+  private final long rotationIntervalMillis;
+  private final long maxTokenLifetimeMillis;
+
+  private volatile Snapshot snapshot;
+  private long loadedModifiedAt;
+
+  public JwtKeyring (
+    @Value( "${jwt.algorithm}" ) String algorithm,
+    @Value( "${jwt.secret}" ) String secret,
+    @Value( "${jwt.accept-hs256}" ) boolean acceptSharedSecret,
+    @Value( "${jwt.keyring-path}" ) String keyringPath,
+    @Value( "${jwt.key-rotation-enabled}" ) boolean rotationEnabled,
+    @Value( "${jwt.key-rotation-interval}" ) long rotationIntervalMillis,
+    @Value( "${jwt.refresh-token-expiration}" ) long maxTokenLifetimeMillis
+  ) {
+    this.algorithm = algorithm;
+    this.sharedSecret = Keys.hmacShaKeyFor( secret.getBytes() );
+    this.acceptSharedSecret = acceptSharedSecret || isShared( algorithm );
+    this.keyringPath = Path.of( keyringPath );
+    this.rotationEnabled = rotationEnabled;
+    this.rotationIntervalMillis = rotationIntervalMillis;
+    this.maxTokenLifetimeMillis = maxTokenLifetimeMillis;
+  }
+
+  @PostConstruct
+  public synchronized void load () throws IOException {
+    if ( isShared( algorithm ) ) {
+      snapshot = new Snapshot(
+        new SigningKey(
+          SHARED_SECRET_ID,
+          Jwts.SIG.HS256,
+          sharedSecret,
+          null,
+          0
+        ),
+        List.of()
+      );
+      return;
+    }
+
+    long now = System.currentTimeMillis();
+    List<SigningKey> keys = Files.exists( keyringPath ) ? read() : List.of();
+    if ( isUsable(
+      keys,
+      now
+    ) ) {
+      publish(
+        keys,
+        now
+      );
+    } else {
+      withLock( () -> {
+        List<SigningKey> latest = Files.exists( keyringPath ) ? read() : List.of();
+        if ( isUsable(
+          latest,
+          now
+        ) ) {
+          publish(
+            latest,
+            now
+          );
+        } else {
+          rotate(
+            latest,
+            now
+          );
+        }
+      } );
+    }
+  }
+
+  /**
+   * Rotates the signing key when its successor has been published for an
+   * interval, or reloads the keyring written by another replica.
+   */
+  @Scheduled( fixedDelay = 60_000 )
+  public void refresh () throws IOException {
+    refresh( System.currentTimeMillis() );
+  }
+
+  synchronized void refresh ( long now ) throws IOException {
+    if ( isShared( algorithm ) ) {
+      return;
+    }
+
+    List<SigningKey> keys = snapshot.keys();
+    if ( Files.exists( keyringPath ) &&
+         Files.getLastModifiedTime( keyringPath ).toMillis() != loadedModifiedAt ) {
+      keys = read();
+    }
+
+    if ( rotationEnabled && isDue(
+      keys,
+      now
+    ) ) {
+      List<SigningKey> loaded = keys;
+      withLock( () -> {
+        // Another replica may have rotated since the keyring was last read
+        List<SigningKey> latest = Files.exists( keyringPath ) ? read() : loaded;
+        if ( isDue(
+          latest,
+          now
+        ) ) {
+          rotate(
+            latest,
+            now
+          );
+        } else {
+          publish(
+            latest,
+            now
+          );
+        }
+      } );
+    } else {
+      // The published key takes over from the current one once its time comes
+      publish(
+        keys,
+        now
+      );
+    }
+  }
+
+  public SigningKey current () {
+    return snapshot.current();
+  }
+
+  /**
+   * Public keys in JWK format, newest first.
+   */
+  public List<Map<String, ?>> jwks () {
+    List<Map<String, ?>> jwks = new ArrayList<>();
+    for ( SigningKey key : snapshot.keys() ) {
+      jwks.add( Jwks
+        .builder()
+        .key( key.publicKey() )
+        .id( key.id() )
+        .algorithm( key.algorithm().getId() )
+        .publicKeyUse( "sig" )
+        .build() );
+    }
+    return jwks;
+  }
+
+  @Override
+  protected Key locate ( JwsHeader header ) {
+    String keyId = header.getKeyId();
+    if ( keyId == null || SHARED_SECRET_ID.equals( keyId ) ) {
+      // Tokens issued before key ids were introduced carry no kid
+      if ( acceptSharedSecret ) {
+        return sharedSecret;
+      }
+      throw new UnsupportedJwtException( "Tokens signed with the shared secret are no longer accepted" );
+    }
+
+    Key key = snapshot.verificationKeys().get( keyId );
+    if ( key == null ) {
+      throw new UnsupportedJwtException( "Unknown signing key " + keyId );
+    }
+    return key;
+  }
+
+  /**
+   * Publishes a new key that starts signing one interval from now. The key
+   * published by the previous rotation signs from now on, unless the keyring
+   * had no key of the configured algorithm yet.
+   */
+  private void rotate ( List<SigningKey> keys, long now ) throws IOException {
+    List<SigningKey> started = new ArrayList<>();
+    for ( SigningKey key : keys ) {
+      // A key that never signed anything can be dropped at once
+      if ( key.activatesAt() <= now ) {
+        started.add( key );
+      }
+    }
+
+    List<SigningKey> candidates = new ArrayList<>();
+    long nextAt = rotationIntervalMillis > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + rotationIntervalMillis;
+    candidates.add( generate( nextAt ) );
+    if ( !isUsable(
+      started,
+      now
+    ) ) {
+      candidates.add( generate( now ) );
+    }
+    candidates.addAll( started );
+
+    // A key retired when its successor started signing still has tokens in
+    // flight for up to the longest token lifetime
+    List<SigningKey> rotated = new ArrayList<>();
+    for ( int i = 0; i < candidates.size(); i++ ) {
+      long successorAt = i == 0 ? Long.MAX_VALUE : candidates.get( i - 1 ).activatesAt();
+      if ( successorAt > now || now - successorAt < maxTokenLifetimeMillis ) {
+        rotated.add( candidates.get( i ) );
+      }
+    }
+
+    write( rotated );
+    publish(
+      rotated,
+      now
+    );
+    logger.info(
+      "Rotated JWT signing key, now {} with {} keys, {} signs from {}",
+      snapshot.current().id(),
+      rotated.size(),
+      rotated.get( 0 ).id(),
+      rotated.get( 0 ).activatesAt()
+    );
+  }
+
+  private SigningKey generate ( long activatesAt ) {
+    SignatureAlgorithm signature = asymmetric( algorithm );
+    // Plain EdDSA key generation defaults to Ed448, Ed25519 is the widely supported curve
+    KeyPair pair = signature == Jwts.SIG.EdDSA
+      ? Jwks.CRV.Ed25519.keyPair().build()
+      : signature.keyPair().build();
+    return new SigningKey(
+      UUID.randomUUID().toString(),
+      signature,
+      pair.getPrivate(),
+      pair.getPublic(),
+      activatesAt
+    );
+  }
+
+  /**
+   * Signs with the newest key whose time has come, keys are kept newest first.
+   */
+  private void publish ( List<SigningKey> keys, long now ) throws IOException {
+    SigningKey current = keys.get( keys.size() - 1 );
+    Map<String, Key> verificationKeys = new HashMap<>();
+    for ( SigningKey key : keys ) {
+      verificationKeys.put(
+        key.id(),
+        key.publicKey()
+      );
+      if ( key.activatesAt() <= now && key.activatesAt() > current.activatesAt() ) {
+        current = key;
+      }
+    }
+    snapshot = new Snapshot(
+      current,
+      List.copyOf( keys ),
+      Map.copyOf( verificationKeys )
+    );
+    loadedModifiedAt = Files.exists( keyringPath ) ? Files.getLastModifiedTime( keyringPath ).toMillis() : 0;
+  }
+
+  /**
+   * Whether the keyring has a key of the configured algorithm that signs now.
+   */
+  private boolean isUsable ( List<SigningKey> keys, long now ) {
+    for ( SigningKey key : keys ) {
+      if ( key.activatesAt() <= now ) {
+        return key.algorithm().getId().equals( algorithm );
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Rotation is due once no published key is waiting to start signing.
+   */
+  private static boolean isDue ( List<SigningKey> keys, long now ) {
+    return keys.isEmpty() || keys.get( 0 ).activatesAt() <= now;
+  }
+
+  /**
+   * Runs the action holding an exclusive lock next to the keyring file, which
+   * every replica sharing the file takes before rotating.
+   */
+  private void withLock ( KeyringAction action ) throws IOException {
+    if ( keyringPath.getParent() != null ) {
+      Files.createDirectories( keyringPath.getParent() );
+    }
+    try (
+      FileChannel channel = FileChannel.open(
+        keyringPath.resolveSibling( keyringPath.getFileName() + ".lock" ),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE
+      );
+      FileLock ignored = channel.lock()
+    ) {
+      action.run();
+    }
+  }
+
+  private List<SigningKey> read () throws IOException {
+    List<SigningKey> keys = new ArrayList<>();
+    for ( String line : Files.readAllLines( keyringPath ) ) {
+      if ( line.isBlank() ) {
+        continue;
+      }
+      String[] fields = line.split( " " );
+      try {
+        KeyFactory factory = KeyFactory.getInstance( fields[ 2 ] );
+        keys.add( new SigningKey(
+          fields[ 0 ],
+          asymmetric( fields[ 1 ] ),
+          factory.generatePrivate( new PKCS8EncodedKeySpec( Base64.getDecoder().decode( fields[ 4 ] ) ) ),
+          factory.generatePublic( new X509EncodedKeySpec( Base64.getDecoder().decode( fields[ 5 ] ) ) ),
+          Long.parseLong( fields[ 3 ] )
+        ) );
+      } catch ( GeneralSecurityException | RuntimeException e ) {
+        throw new IOException(
+          "Malformed key in " + keyringPath,
+          e
+        );
+      }
+    }
+    return keys;
+  }
+
+  private void write ( List<SigningKey> keys ) throws IOException {
+    StringBuilder content = new StringBuilder();
+    for ( SigningKey key : keys ) {
+      content
+        .append( key.id() )
+        .append( ' ' )
+        .append( key.algorithm().getId() )
+        .append( ' ' )
+        .append( key.publicKey().getAlgorithm() )
+        .append( ' ' )
+        .append( key.activatesAt() )
+        .append( ' ' )
+        .append( Base64.getEncoder().encodeToString( key.signingKey().getEncoded() ) )
+        .append( ' ' )
+        .append( Base64.getEncoder().encodeToString( key.publicKey().getEncoded() ) )
+        .append( '\n' );
+    }
+
+    if ( keyringPath.getParent() != null ) {
+      Files.createDirectories( keyringPath.getParent() );
+    }
+    Path temp = keyringPath.resolveSibling( keyringPath.getFileName() + ".tmp" );
+    Files.deleteIfExists( temp );
+    // Created owner-only, so the private keys are never readable by others
+    if ( FileSystems.getDefault().supportedFileAttributeViews().contains( "posix" ) ) {
+      Files.createFile(
+        temp,
+        PosixFilePermissions.asFileAttribute( OWNER_ONLY )
+      );
+    }
+    Files.writeString(
+      temp,
+      content,
+      StandardCharsets.US_ASCII
+    );
+    Files.move(
+      temp,
+      keyringPath,
+      StandardCopyOption.REPLACE_EXISTING,
+      StandardCopyOption.ATOMIC_MOVE
+    );
+  }
+
+  private static boolean isShared ( String algorithm ) {
+    return "HS256".equals( algorithm );
+  }
+
+  private static SignatureAlgorithm asymmetric ( String algorithm ) {
+    return switch ( algorithm ) {
+      case "ES256" -> Jwts.SIG.ES256;
+      case "EdDSA" -> Jwts.SIG.EdDSA;
+      default -> throw new IllegalArgumentException( "Unsupported JWT algorithm " + algorithm );
+    };
+  }
+
+  /**
+   * @param publicKey {@code null} for the shared secret
+   */
+  public record SigningKey(
+    String id,
+    SecureDigestAlgorithm<?, ?> algorithm,
+    Key signingKey,
+    PublicKey publicKey,
+    long activatesAt
+  ) {
+    @SuppressWarnings( "unchecked" )
+    public JwtBuilder sign ( JwtBuilder builder ) {
+      return builder
+        .header()
+        .keyId( id )
+        .and()
+        .signWith(
+          signingKey,
+          (SecureDigestAlgorithm<Key, ?>) algorithm
+        );
+    }
+  }
+
+  @FunctionalInterface
+  private interface KeyringAction {
+    void run () throws IOException;
+  }
+
+  private record Snapshot( SigningKey current, List<SigningKey> keys, Map<String, Key> verificationKeys ) {
+    Snapshot ( SigningKey current, List<SigningKey> keys ) {
+      this(
+        current,
+        keys,
+        Map.of()
+      );
+    }
+  }
+}
@@ -1,63 +1,87 @@
 package org.library.auth.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
-
-  @Value( "${jwt.secret}" )
-  private String secret;
-
-  @Value( "${jwt.access-token-expiration}" )
-  private long accessTokenExpiration;
-
-  @Value( "${jwt.refresh-token-expiration}" )
-  private long refreshTokenExpiration;
-
-  private SecretKey getSigningKey () {
-    return Keys.hmacShaKeyFor( secret.getBytes() );
+  private static final String FAMILY_CLAIM = "fam";
+  // Tells access tokens from refresh tokens, which must never authenticate a request
+  private static final String TYPE_CLAIM = "typ";
+  private static final String ACCESS_TYPE = "access";
+  private static final String REFRESH_TYPE = "refresh";
+  // Outcome of verifying the request's bearer token, so no filter verifies it twice
+  private static final String ACCESS_USER_ATTRIBUTE = JwtService.class.getName() + ".accessUserId";
+
+  private final JwtKeyring keyring;
+  private final JwtParser parser;
+  private final long accessTokenExpiration;
+  private final long refreshTokenExpiration;
+
+  public JwtService (
+    JwtKeyring keyring,
+    @Value( "${jwt.access-token-expiration}" ) long accessTokenExpiration,
+    @Value( "${jwt.refresh-token-expiration}" ) long refreshTokenExpiration
+  ) {
+    this.keyring = keyring;
+    // Built once; the keyring resolves the verification key per token by its kid
+    this.parser = Jwts
+      .parser()
+      .keyLocator( keyring )
+      .build();
+    this.accessTokenExpiration = accessTokenExpiration;
+    this.refreshTokenExpiration = refreshTokenExpiration;
   }
 
   public String generateAccessToken ( Long userId, String role ) {
     return generateToken(
       userId,
       role,
+      ACCESS_TYPE,
       accessTokenExpiration
-    );
+    ).compact();
   }
 
-  public String generateRefreshToken ( Long userId, String role ) {
+  public String generateRefreshToken ( Long userId, String role, RefreshTokenId id ) {
     return generateToken(
       userId,
       role,
+      REFRESH_TYPE,
       refreshTokenExpiration
-    );
+    )
+      .id( Long.toHexString( id.token() ) )
+      .claim(
+        FAMILY_CLAIM,
+        Long.toHexString( id.family() )
+      )
+      .compact();
   }
 
-  private String generateToken ( Long userId, String role, long expiration ) {
-    return Jwts
+  private JwtBuilder generateToken ( Long userId, String role, String type, long expiration ) {
+    return keyring.current().sign( Jwts
       .builder()
-      .setSubject( userId.toString() )
+      .subject( userId.toString() )
       .claim(
         "role",
         role
       )
-      .setIssuedAt( new Date() )
-      .setExpiration( new Date( System.currentTimeMillis() + expiration ) )
-      .signWith(
-        getSigningKey(),
-        SignatureAlgorithm.HS256
+      .claim(
+        TYPE_CLAIM,
+        type
       )
-      .compact();
+      .issuedAt( new Date() )
+      .expiration( new Date( System.currentTimeMillis() + expiration ) ) );
   }
 
   public Long extractUserId ( String token ) {
@@ -67,6 +91,75 @@ public class JwtService {
     ) );
   }
 
+  /**
+   * @return the user of an access token, or {@code null} for any other token,
+   * so a refresh token never works as an API credential
+   */
+  public Long extractAccessUserId ( String token ) {
+    Claims claims = extractAllClaims( token );
+    if ( !ACCESS_TYPE.equals( claims.get(
+      TYPE_CLAIM,
+      String.class
+    ) ) ) {
+      return null;
+    }
+    return Long.parseLong( claims.getSubject() );
+  }
+
+  /**
+   * Like {@link #extractAccessUserId} for the bearer token of a request, but the
+   * signature is checked once per request: the outcome is kept on the request
+   * for the filters that run after the first one.
+   *
+   * @return the user of a valid access token, or {@code null}
+   */
+  public Long extractAccessUserId ( HttpServletRequest request, String token ) {
+    Object verified = request.getAttribute( ACCESS_USER_ATTRIBUTE );
+    if ( verified != null ) {
+      return verified instanceof Long userId ? userId : null;
+    }
+
+    Long userId;
+    try {
+      userId = extractAccessUserId( token );
+    } catch ( JwtException | IllegalArgumentException e ) {
+      // Invalid, expired or not ours
+      userId = null;
+    }
+    request.setAttribute(
+      ACCESS_USER_ATTRIBUTE,
+      userId != null ? userId : Boolean.FALSE
+    );
+    return userId;
+  }
+
+  /**
+   * @return the family and token id of a refresh token, or {@code null} for any other token
+   */
+  public RefreshTokenId extractRefreshTokenId ( String token ) {
+    Claims claims = extractAllClaims( token );
+    String family = claims.get(
+      FAMILY_CLAIM,
+      String.class
+    );
+    if ( !REFRESH_TYPE.equals( claims.get(
+      TYPE_CLAIM,
+      String.class
+    ) ) || family == null || claims.getId() == null ) {
+      return null;
+    }
+    return new RefreshTokenId(
+      Long.parseUnsignedLong(
+        family,
+        16
+      ),
+      Long.parseUnsignedLong(
+        claims.getId(),
+        16
+      )
+    );
+  }
+
   public String extractRole ( String token ) {
     return extractClaim(
       token,
@@ -90,13 +183,20 @@ public class JwtService {
   }
 
   private Claims extractAllClaims ( String token ) {
-    return Jwts.parser().setSigningKey( getSigningKey() ).build().parseClaimsJws( token ).getBody();
+    return parser.parseSignedClaims( token ).getPayload();
   }
 
   public Boolean isTokenExpired ( String token ) {
     return extractExpiration( token ).before( new Date() );
   }
 
+  /**
+   * Public keys that verify our tokens, for services that only need to check them.
+   */
+  public List<Map<String, ?>> getJwks () {
+    return keyring.jwks();
+  }
+
   public Boolean validateToken ( String token, Long userId ) {
     final Long tokenUserId = extractUserId( token );
     return ( tokenUserId.equals( userId ) && !isTokenExpired( token ) );
@@ -0,0 +1,8 @@
+package org.library.auth.service;
+
+/**
+ * Identifies one refresh token: the login session it belongs to and its position
+ * in that session's rotation.
+ */
+public record RefreshTokenId( long family, long token ) {
+}
@@ -0,0 +1,133 @@
+package org.library.auth.service;
+
+import org.library.auth.RefreshTokenFamilyRepository;
+import org.library.auth.model.RefreshTokenFamily;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+
+/**
+ * Tracks refresh-token families. Logging in starts a family; every refresh rotates
+ * it to a new token id and the previous one stops working. Presenting a token id
+ * that is no longer current means the token was copied, so the whole family is
+ * revoked. Logout revokes the family as well.
+ * <p>
+ * Families are rows of REFRESH_TOKEN_FAMILY, shared by every replica. A rotation
+ * is one conditional update of the row by primary key, so a token replayed on
+ * another replica is caught like one replayed on this one. The store is only
+ * touched on login, refresh and logout; expired families are deleted
+ * periodically.
+ */
+@Component
+public class RefreshTokenStore {
+  private static final Logger logger = LoggerFactory.getLogger( RefreshTokenStore.class );
+
+  private final SecureRandom random = new SecureRandom();
+  private final RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+  private final long expirationMillis;
+
+  public RefreshTokenStore (
+    RefreshTokenFamilyRepository refreshTokenFamilyRepository,
+    @Value( "${jwt.refresh-token-expiration}" ) long expirationMillis
+  ) {
+    this.refreshTokenFamilyRepository = refreshTokenFamilyRepository;
+    this.expirationMillis = expirationMillis;
+  }
+
+  /**
+   * Starts a family for a new login.
+   */
+  @Transactional
+  public RefreshTokenId issue () {
+    RefreshTokenId issued = new RefreshTokenId(
+      nextId(),
+      nextId()
+    );
+    refreshTokenFamilyRepository.save( RefreshTokenFamily
+      .builder()
+      .familyId( issued.family() )
+      .tokenId( issued.token() )
+      .expiresAt( Instant.now().plusMillis( expirationMillis ) )
+      .build() );
+    return issued;
+  }
+
+  /**
+   * Replaces the presented token with a new one of the same family.
+   *
+   * @return the new token id, or {@code null} when the presented one is not current
+   */
+  @Transactional
+  public RefreshTokenId rotate ( RefreshTokenId presented ) {
+    Instant now = Instant.now();
+    long token = nextId();
+
+    if ( refreshTokenFamilyRepository.rotate(
+      presented.family(),
+      presented.token(),
+      token,
+      now.plusMillis( expirationMillis ),
+      now
+    ) == 1 ) {
+      return new RefreshTokenId(
+        presented.family(),
+        token
+      );
+    }
+    if ( refreshTokenFamilyRepository.existsByFamilyIdAndExpiresAtAfter(
+      presented.family(),
+      now
+    ) ) {
+      logger.warn(
+        "Refresh token reuse detected, revoking family {}",
+        Long.toHexString( presented.family() )
+      );
+      refreshTokenFamilyRepository.revoke( presented.family() );
+    }
+    return null;
+  }
+
+  @Transactional
+  public void revoke ( long family ) {
+    refreshTokenFamilyRepository.revoke( family );
+  }
+
+  @Transactional( readOnly = true )
+  public boolean isCurrent ( RefreshTokenId id ) {
+    return refreshTokenFamilyRepository.existsByFamilyIdAndTokenIdAndExpiresAtAfter(
+      id.family(),
+      id.token(),
+      Instant.now()
+    );
+  }
+
+  /**
+   * Deletes the families whose last token has expired.
+   *
+   * @return how many were deleted
+   */
+  @Scheduled( fixedDelayString = "${jwt.refresh-token-cleanup-interval}" )
+  @Transactional
+  public int removeExpired () {
+    int removed = refreshTokenFamilyRepository.deleteExpired( Instant.now() );
+    logger.debug(
+      "Removed {} expired refresh token families",
+      removed
+    );
+    return removed;
+  }
+
+  private long nextId () {
+    long id;
+    do {
+      id = random.nextLong();
+    } while ( id == 0 );
+    return id;
+  }
+}
@@ -8,9 +8,12 @@ import org.library.author.dto.CreateAuthorDto;
 import org.library.author.dto.UpdateAuthorDto;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
 @RestController
 @RequestMapping( "/api/v1/author" )
 @RequiredArgsConstructor
@@ -23,13 +26,31 @@ public class AuthorController {
   }
 
   @GetMapping
-  public ResponseEntity<List<AuthorResponseDto>> getAll () {
-    return ResponseEntity.ok( authorService.getAll() );
+  public ResponseEntity<List<AuthorResponseDto>> getAll (
+    @RequestParam( required = false ) String include
+  ) {
+    if ( include == null ) {
+      return ResponseEntity.ok( authorService.getAll() );
+    }
+    checkInclude(
+      include,
+      "bookCount"
+    );
+    return ResponseEntity.ok( authorService.getAllWithBookCounts() );
   }
 
   @GetMapping( "/{id}" )
-  public ResponseEntity<AuthorResponseDto> getById ( @PathVariable Long id ) {
-    return ResponseEntity.ok( authorService.getById( id ) );
+  public ResponseEntity<AuthorResponseDto> getById (
+    @PathVariable Long id, @RequestParam( required = false ) String include
+  ) {
+    if ( include == null ) {
+      return ResponseEntity.ok( authorService.getById( id ) );
+    }
+    checkInclude(
+      include,
+      "books"
+    );
+    return ResponseEntity.ok( authorService.getByIdWithBooks( id ) );
   }
 
   @PatchMapping( "/{id}" )
@@ -47,4 +68,13 @@ public class AuthorController {
     authorService.delete( id );
     return ResponseEntity.ok().build();
   }
+
+  private void checkInclude ( String include, String supported ) {
+    if ( !supported.equals( include ) ) {
+      throw new ResponseStatusException(
+        BAD_REQUEST,
+        "Unsupported include: " + include
+      );
+    }
+  }
 }
@@ -1,9 +1,15 @@
 package org.library.author;
 
+import org.library.author.dto.AuthorBookDto;
+import org.library.author.dto.AuthorResponseDto;
 import org.library.author.model.Author;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +17,32 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
   Optional<Author> findByFirstNameAndLastName (
     String firstName, String lastName
   );
+
+  @Query( """
+    select new org.library.author.dto.AuthorResponseDto(
+      a.id, a.firstName, a.lastName, a.age
+    )
+    from Author a
+    order by a.id
+    """ )
+  List<AuthorResponseDto> findAllRows ();
+
+  @Query( """
+    select new org.library.author.dto.AuthorResponseDto(
+      a.id, a.firstName, a.lastName, a.age
+    )
+    from Author a
+    where a.id in :ids
+    """ )
+  List<AuthorResponseDto> findRowsByIdIn ( @Param( "ids" ) Collection<Long> ids );
+
+  @Query( """
+    select new org.library.author.dto.AuthorBookDto(
+      b.id, b.title, b.genre, b.year, b.status
+    )
+    from Book b
+    where b.author.id = :authorId
+    order by b.id
+    """ )
+  List<AuthorBookDto> findBooksByAuthorId ( @Param( "authorId" ) Long authorId );
 }
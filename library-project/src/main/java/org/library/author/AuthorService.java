@@ -1,18 +1,28 @@
 package org.library.author;
 
-import jakarta.transaction.Transactional;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.hibernate.annotations.NotFound;
+import org.library.author.dto.AuthorBookDto;
 import org.library.author.dto.AuthorDto;
 import org.library.author.dto.AuthorResponseDto;
 import org.library.author.dto.CreateAuthorDto;
 import org.library.author.dto.UpdateAuthorDto;
 import org.library.author.model.Author;
+import org.library.book.BookCatalog;
+import org.library.book.BookRepository;
+import org.library.coordination.CacheInvalidator;
+import org.library.coordination.CacheRegion;
+import org.library.exception.ErrorCode;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.springframework.http.HttpStatus.*;
@@ -21,6 +31,25 @@ import static org.springframework.http.HttpStatus.*;
 @RequiredArgsConstructor
 public class AuthorService {
   private final AuthorRepository authorRepository;
+  private final BookCatalog bookCatalog;
+  private final BookRepository bookRepository;
+  private final CacheInvalidator cacheInvalidator;
+
+  @PostConstruct
+  void subscribeToInvalidations () {
+    cacheInvalidator.register(
+      CacheRegion.AUTHOR,
+      // An author another replica deleted is gone, its books lose the reference
+      id -> authorRepository
+        .findById( id )
+        .map( this::toAuthorDto )
+        .ifPresentOrElse(
+          bookCatalog::updateAuthor,
+          bookCatalog::invalidate
+        ),
+      bookCatalog::invalidate
+    );
+  }
 
   @Transactional
   public AuthorResponseDto create ( CreateAuthorDto dto ) {
@@ -46,33 +75,69 @@ public class AuthorService {
     }
   }
 
+  @Transactional( readOnly = true )
   public List<AuthorResponseDto> getAll () {
-    return authorRepository
-      .findAll()
-      .stream()
-      .map( this::toResponseDto )
-      .toList();
+    return authorRepository.findAllRows();
   }
 
+  @Transactional( readOnly = true )
   public AuthorResponseDto getById ( Long id ) {
     Author author = authorRepository
       .findById( id )
-      .orElseThrow( () -> new ResponseStatusException(
-        NOT_FOUND,
-        "Author not found with id: " + id
-      ) );
+      .orElseThrow( () -> ErrorCode.AUTHOR_NOT_FOUND.exception( id ) );
 
     return toResponseDto( author );
   }
 
+  @Transactional( readOnly = true )
+  public Map<Long, AuthorResponseDto> getAllByIds ( Collection<Long> ids ) {
+    Map<Long, AuthorResponseDto> authors = new HashMap<>();
+    if ( ids.isEmpty() ) {
+      return authors;
+    }
+
+    for ( AuthorResponseDto author : authorRepository.findRowsByIdIn( ids ) ) {
+      authors.put(
+        author.getId(),
+        author
+      );
+    }
+    return authors;
+  }
+
+  /**
+   * Counts books from the catalog read model, so listing authors with their
+   * counts costs the same single query as listing them without.
+   */
+  @Transactional( readOnly = true )
+  public List<AuthorResponseDto> getAllWithBookCounts () {
+    Map<Long, Long> counts = bookCatalog.bookCountsByAuthor( bookRepository::findAllRows );
+    List<AuthorResponseDto> authors = authorRepository.findAllRows();
+    for ( AuthorResponseDto author : authors ) {
+      author.setBookCount( counts.getOrDefault(
+        author.getId(),
+        0L
+      ) );
+    }
+    return authors;
+  }
+
+  @Transactional( readOnly = true )
+  public AuthorResponseDto getByIdWithBooks ( Long id ) {
+    AuthorResponseDto author = getById( id );
+    List<AuthorBookDto> books = authorRepository.findBooksByAuthorId( id );
+
+    author.setBooks( books );
+    author.setBookCount( (long) books.size() );
+    return author;
+  }
+
+  @Transactional( readOnly = true )
   public Author getFullById ( Long id ) {
     Optional<Author> author = authorRepository.findById( id );
 
     if ( !author.isPresent() ) {
-      throw new ResponseStatusException(
-        NOT_FOUND,
-        "Author not found with id: " + id
-      );
+      throw ErrorCode.AUTHOR_NOT_FOUND.exception( id );
     }
 
     return author.get();
@@ -95,7 +160,13 @@ public class AuthorService {
     }
 
     try {
-      return toResponseDto( authorRepository.save( author ) );
+      Author saved = authorRepository.save( author );
+      bookCatalog.updateAuthor( toAuthorDto( saved ) );
+      cacheInvalidator.invalidate(
+        CacheRegion.AUTHOR,
+        id
+      );
+      return toResponseDto( saved );
     } catch ( DataIntegrityViolationException e ) {
       throw new ResponseStatusException(
         BAD_REQUEST,
@@ -110,6 +181,12 @@ public class AuthorService {
 
     try {
       authorRepository.delete( author );
+      // Books of a deleted author lose their reference, reload them on next read
+      bookCatalog.invalidate();
+      cacheInvalidator.invalidate(
+        CacheRegion.AUTHOR,
+        id
+      );
     } catch ( Exception e ) {
       throw new ResponseStatusException(
         BAD_REQUEST,
@@ -121,10 +198,7 @@ public class AuthorService {
   private Author getByIdInternal ( Long id ) {
     return authorRepository
       .findById( id )
-      .orElseThrow( () -> new ResponseStatusException(
-        NOT_FOUND,
-        "Author not found with id: " + id
-      ) );
+      .orElseThrow( () -> ErrorCode.AUTHOR_NOT_FOUND.exception( id ) );
   }
 
   private void checkAuthorDuplicate ( String firstName, String lastName ) {
@@ -134,19 +208,14 @@ public class AuthorService {
     );
 
     if ( existing.isPresent() ) {
-      throw new ResponseStatusException(
-        CONFLICT,
-        "Author with the same name already exists"
-      );
+      throw ErrorCode.AUTHOR_DUPLICATE.exception();
     }
   }
 
+  @Transactional( readOnly = true )
   public void checkAuthorExists ( Long id ) {
     if ( !authorRepository.existsById( id ) ) {
-      throw new ResponseStatusException(
-        NOT_FOUND,
-        "Author not found with id: " + id
-      );
+      throw ErrorCode.AUTHOR_NOT_FOUND.exception( id );
     }
   }
 
@@ -0,0 +1,15 @@
+package org.library.author.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.library.order.enums.OrderStatus;
+
+@Data
+@AllArgsConstructor
+public class AuthorBookDto {
+  private Long id;
+  private String title;
+  private String genre;
+  private int year;
+  private OrderStatus status;
+}
@@ -1,13 +1,41 @@
 package org.library.author.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 @AllArgsConstructor
+@JsonInclude( JsonInclude.Include.NON_NULL )
 public class AuthorResponseDto {
   private Long id;
   private String firstName;
   private String lastName;
   private Integer age;
-}
\ No newline at end of file
+  private Long bookCount;
+  private List<AuthorBookDto> books;
+
+  public AuthorResponseDto ( Long id, String firstName, String lastName, Integer age ) {
+    this(
+      id,
+      firstName,
+      lastName,
+      age,
+      null,
+      null
+    );
+  }
+
+  public AuthorResponseDto ( Long id, String firstName, String lastName, Integer age, Long bookCount ) {
+    this(
+      id,
+      firstName,
+      lastName,
+      age,
+      bookCount,
+      null
+    );
+  }
+}
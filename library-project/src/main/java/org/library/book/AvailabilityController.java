@@ -0,0 +1,21 @@
+package org.library.book;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping( "/api/v1/book/availability" )
+@RequiredArgsConstructor
+public class AvailabilityController {
+  private final AvailabilityFeed availabilityFeed;
+
+  @GetMapping( value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE )
+  public SseEmitter stream ( @RequestHeader( value = "Last-Event-ID", required = false ) String lastEventId ) {
+    return availabilityFeed.subscribe( lastEventId );
+  }
+}
@@ -0,0 +1,401 @@
+package org.library.book;
+
+import org.library.book.dto.AvailabilityChangeDto;
+import org.library.coordination.CoordinationStore;
+import org.library.order.enums.OrderStatus;
+import org.library.transaction.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-Sent Events feed of book availability changes.
+ * <p>
+ * Subscribers are async requests, so an idle connection holds no thread. Each
+ * subscriber has its own bounded queue drained by one broadcaster task at a
+ * time, which keeps its events in order while a slow connection only ever
+ * holds up itself. A subscriber whose queue overflows loses the queued events
+ * and gets a {@value #RESET} event instead. The last
+ * {@code availability.buffer-size} events stay in a ring buffer, so a client
+ * reconnecting with {@code Last-Event-ID} gets what it missed; one that fell
+ * further behind gets a reset as well and should reload the book list.
+ * <p>
+ * Changes are broadcast through the {@link CoordinationStore}, so subscribers
+ * of every replica see changes made on any of them. Each replica numbers the
+ * events it sends on its own, and event ids carry a token of the replica and
+ * its start; an id from another replica or an earlier start gets a reset.
+ */
+@Component
+public class AvailabilityFeed {
+  static final String CHANGE = "availability";
+  static final String RESET = "reset";
+  static final String CHANNEL = "library:availability";
+
+  private static final Logger logger = LoggerFactory.getLogger( AvailabilityFeed.class );
+
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final Map<Long, Boolean> availability = new HashMap<>();
+  private final Event[] buffer;
+  private final int queueSize;
+  private final long timeoutMillis;
+  private final Executor broadcaster;
+  private final CoordinationStore coordinationStore;
+  private final String epoch = Long.toString(
+    UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE,
+    36
+  );
+
+  private long lastId;
+
+  public AvailabilityFeed (
+    @Value( "${availability.buffer-size}" ) int bufferSize,
+    @Value( "${availability.queue-size}" ) int queueSize,
+    @Value( "${availability.timeout}" ) long timeoutMillis,
+    @Qualifier( "availabilityExecutor" ) Executor broadcaster,
+    CoordinationStore coordinationStore
+  ) {
+    this.buffer = new Event[ bufferSize ];
+    this.queueSize = queueSize;
+    this.timeoutMillis = timeoutMillis;
+    this.broadcaster = broadcaster;
+    this.coordinationStore = coordinationStore;
+    coordinationStore.subscribe(
+      CHANNEL,
+      this::onMessage
+    );
+  }
+
+  /**
+   * Announces the new status of a book once the current transaction commits.
+   * Changes that leave the book as available as it was are not sent.
+   */
+  public void publish ( Long bookId, OrderStatus status ) {
+    publishAll(
+      List.of( bookId ),
+      status
+    );
+  }
+
+  /**
+   * Like {@link #publish}, with one commit hook and one broadcast for every
+   * book that a bulk change moved to the same status.
+   */
+  public void publishAll ( Collection<Long> bookIds, OrderStatus status ) {
+    if ( bookIds.isEmpty() ) {
+      return;
+    }
+    List<Long> ids = List.copyOf( bookIds );
+    boolean available = status != OrderStatus.ACTIVE;
+    TransactionHooks.afterCommit( () -> {
+      for ( Long id : ids ) {
+        append( new AvailabilityChangeDto(
+          id,
+          available
+        ) );
+      }
+      broadcast(
+        ids,
+        available
+      );
+    } );
+  }
+
+  /**
+   * @param lastEventId id of the last event the client received, from the
+   *                    {@code Last-Event-ID} header; {@code null} for new clients
+   */
+  public SseEmitter subscribe ( String lastEventId ) {
+    SseEmitter emitter = new SseEmitter( timeoutMillis );
+    Subscriber subscriber = new Subscriber(
+      emitter,
+      queueSize
+    );
+    emitter.onCompletion( () -> subscribers.remove( subscriber ) );
+    emitter.onTimeout( emitter::complete );
+    emitter.onError( e -> subscribers.remove( subscriber ) );
+
+    synchronized ( this ) {
+      catchUp(
+        subscriber,
+        resumeFrom( lastEventId )
+      );
+      subscribers.add( subscriber );
+    }
+    schedule( subscriber );
+    return emitter;
+  }
+
+  public int subscriberCount () {
+    return subscribers.size();
+  }
+
+  /**
+   * Comments keep idle connections open through proxies and find the ones
+   * whose clients went away. Subscribers with events still queued skip it.
+   */
+  @Scheduled( fixedDelayString = "${availability.heartbeat}" )
+  public void heartbeat () {
+    for ( Subscriber subscriber : subscribers ) {
+      subscriber.heartbeatDue = true;
+      schedule( subscriber );
+    }
+  }
+
+  private void broadcast ( List<Long> bookIds, boolean available ) {
+    StringBuilder message = new StringBuilder()
+      .append( epoch )
+      .append( ' ' );
+    for ( Long id : bookIds ) {
+      message
+        .append( id )
+        .append( ',' );
+    }
+    message.setLength( message.length() - 1 );
+    message
+      .append( ' ' )
+      .append( available );
+    try {
+      coordinationStore.publish(
+        CHANNEL,
+        message.toString()
+      );
+    } catch ( RuntimeException e ) {
+      // Local subscribers already have it; other replicas miss this change
+      logger.error(
+        "Failed to broadcast availability change {}",
+        message,
+        e
+      );
+    }
+  }
+
+  private void onMessage ( String message ) {
+    String[] parts = message.split( " " );
+    if ( parts.length != 3 || epoch.equals( parts[ 0 ] ) ) {
+      return;
+    }
+    boolean available = Boolean.parseBoolean( parts[ 2 ] );
+    for ( String id : parts[ 1 ].split( "," ) ) {
+      append( new AvailabilityChangeDto(
+        Long.parseLong( id ),
+        available
+      ) );
+    }
+  }
+
+  private void append ( AvailabilityChangeDto change ) {
+    synchronized ( this ) {
+      Boolean previous = availability.put(
+        change.getBookId(),
+        change.isAvailable()
+      );
+      if ( previous != null && previous == change.isAvailable() ) {
+        return;
+      }
+      lastId++;
+      Event event = new Event(
+        lastId,
+        change
+      );
+      buffer[ (int) ( lastId % buffer.length ) ] = event;
+      // Queued under the lock, so every queue holds events in id order
+      for ( Subscriber subscriber : subscribers ) {
+        subscriber.offer( event );
+      }
+    }
+    for ( Subscriber subscriber : subscribers ) {
+      schedule( subscriber );
+    }
+  }
+
+  String eventId ( long id ) {
+    return epoch + "-" + id;
+  }
+
+  private long resumeFrom ( String lastEventId ) {
+    if ( lastEventId == null ) {
+      return lastId;
+    }
+    String id = lastEventId.trim();
+    int separator = id.lastIndexOf( '-' );
+    // Numbered by another replica or before this one restarted
+    if ( separator < 0 || !epoch.equals( id.substring(
+      0,
+      separator
+    ) ) ) {
+      return -1;
+    }
+    try {
+      return Long.parseLong( id.substring( separator + 1 ) );
+    } catch ( NumberFormatException e ) {
+      return -1;
+    }
+  }
+
+  /**
+   * Queues every buffered event after the one the client got last, or a reset
+   * when those are gone. Called with the feed locked.
+   */
+  private void catchUp ( Subscriber subscriber, long resumeId ) {
+    long oldest = Math.max(
+      1,
+      lastId - buffer.length + 1
+    );
+    // Ids already evicted from the buffer cannot be resumed
+    if ( resumeId < oldest - 1 || resumeId > lastId ) {
+      subscriber.resetDue = true;
+      return;
+    }
+    for ( long id = resumeId + 1; id <= lastId; id++ ) {
+      subscriber.offer( buffer[ (int) ( id % buffer.length ) ] );
+    }
+  }
+
+  private void schedule ( Subscriber subscriber ) {
+    if ( subscriber.scheduled.compareAndSet(
+      false,
+      true
+    ) ) {
+      broadcaster.execute( () -> drain( subscriber ) );
+    }
+  }
+
+  /**
+   * Sends what is queued for one subscriber. Only one drain per subscriber runs
+   * at a time, so its events go out in order.
+   */
+  private void drain ( Subscriber subscriber ) {
+    try {
+      while ( subscribers.contains( subscriber ) ) {
+        long resetId = takeReset( subscriber );
+        if ( resetId >= 0 ) {
+          if ( !send(
+            subscriber,
+            SseEmitter
+              .event()
+              .id( eventId( resetId ) )
+              .name( RESET )
+              .data( "" )
+          ) ) {
+            return;
+          }
+          continue;
+        }
+
+        Event event = subscriber.pending.poll();
+        if ( event != null ) {
+          if ( !send(
+            subscriber,
+            event
+          ) ) {
+            return;
+          }
+        } else if ( subscriber.heartbeatDue ) {
+          subscriber.heartbeatDue = false;
+          if ( !send(
+            subscriber,
+            SseEmitter.event().comment( "" )
+          ) ) {
+            return;
+          }
+        } else {
+          break;
+        }
+      }
+    } finally {
+      subscriber.scheduled.set( false );
+    }
+    // Events queued after the last poll but before the flag was cleared
+    if ( !subscriber.pending.isEmpty() || subscriber.resetDue ) {
+      schedule( subscriber );
+    }
+  }
+
+  /**
+   * Drops what the subscriber still had queued and returns the id its reset
+   * event carries, or -1 when no reset is due. Events queued afterwards are
+   * newer than that id.
+   */
+  private synchronized long takeReset ( Subscriber subscriber ) {
+    if ( !subscriber.resetDue ) {
+      return -1;
+    }
+    subscriber.resetDue = false;
+    subscriber.pending.clear();
+    return lastId;
+  }
+
+  private boolean send ( Subscriber subscriber, Event event ) {
+    return send(
+      subscriber,
+      SseEmitter
+        .event()
+        .id( eventId( event.id() ) )
+        .name( CHANGE )
+        .data(
+          event.change(),
+          MediaType.APPLICATION_JSON
+        )
+    );
+  }
+
+  private boolean send ( Subscriber subscriber, SseEmitter.SseEventBuilder event ) {
+    try {
+      subscriber.emitter.send( event );
+      return true;
+    } catch ( IOException | IllegalStateException e ) {
+      logger.debug(
+        "Dropping availability subscriber: {}",
+        e.getMessage()
+      );
+      subscribers.remove( subscriber );
+      subscriber.emitter.complete();
+      return false;
+    }
+  }
+
+  private record Event( long id, AvailabilityChangeDto change ) {
+  }
+
+  private static final class Subscriber {
+    private final SseEmitter emitter;
+    private final Queue<Event> pending;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    // Set and cleared with the feed locked
+    private volatile boolean resetDue;
+    private volatile boolean heartbeatDue;
+
+    Subscriber ( SseEmitter emitter, int queueSize ) {
+      this.emitter = emitter;
+      this.pending = new ArrayBlockingQueue<>( queueSize );
+    }
+
+    /**
+     * Called with the feed locked. A full queue never blocks the publisher;
+     * the subscriber is reset instead.
+     */
+    void offer ( Event event ) {
+      if ( !resetDue && !pending.offer( event ) ) {
+        resetDue = true;
+      }
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package org.library.book;
+
+import org.library.author.dto.AuthorDto;
+import org.library.book.dto.BookResponseDto;
+import org.library.order.enums.OrderStatus;
+import org.library.transaction.TransactionHooks;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Denormalized read model of the catalog. Holds every book already joined with
+ * its author in the exact {@link BookResponseDto} shape, ordered by id, so catalog
+ * reads never touch the database or hydrate entities.
+ * <p>
+ * The model is loaded once on first read and afterwards kept in sync by the book
+ * and author write paths. Changes made inside a transaction are applied only
+ * after it commits. Loading and writes are serialized, reads are lock-free.
+ */
+@Component
+public class BookCatalog {
+  private final ConcurrentSkipListMap<Long, BookResponseDto> books = new ConcurrentSkipListMap<>();
+
+  private volatile boolean loaded;
+  private volatile long version;
+  private volatile Snapshot snapshot;
+  private volatile AuthorCounts authorCounts;
+
+  public List<BookResponseDto> findAll ( Supplier<List<BookResponseDto>> loader ) {
+    ensureLoaded( loader );
+
+    long currentVersion = version;
+    Snapshot current = snapshot;
+    if ( current != null && current.version() == currentVersion ) {
+      return current.books();
+    }
+
+    List<BookResponseDto> copy = List.copyOf( books.values() );
+    snapshot = new Snapshot(
+      currentVersion,
+      copy
+    );
+    return copy;
+  }
+
+  public Optional<BookResponseDto> findById ( Long id, Supplier<List<BookResponseDto>> loader ) {
+    ensureLoaded( loader );
+    return Optional.ofNullable( books.get( id ) );
+  }
+
+  /**
+   * Number of books per author id. Counted once per change of the catalog, not
+   * per read; authors without books are absent.
+   */
+  public Map<Long, Long> bookCountsByAuthor ( Supplier<List<BookResponseDto>> loader ) {
+    ensureLoaded( loader );
+
+    long currentVersion = version;
+    AuthorCounts current = authorCounts;
+    if ( current != null && current.version() == currentVersion ) {
+      return current.counts();
+    }
+
+    Map<Long, Long> counts = new HashMap<>();
+    for ( BookResponseDto book : books.values() ) {
+      if ( book.getAuthor() != null ) {
+        counts.merge(
+          book.getAuthor().getId(),
+          1L,
+          Long::sum
+        );
+      }
+    }
+    Map<Long, Long> copy = Map.copyOf( counts );
+    authorCounts = new AuthorCounts(
+      currentVersion,
+      copy
+    );
+    return copy;
+  }
+
+  public void put ( BookResponseDto book ) {
+    TransactionHooks.afterCommit( () -> apply( () -> books.put(
+      book.getId(),
+      book
+    ) ) );
+  }
+
+  public void remove ( Long id ) {
+    TransactionHooks.afterCommit( () -> apply( () -> books.remove( id ) ) );
+  }
+
+  public void updateStatus ( Long id, OrderStatus status ) {
+    TransactionHooks.afterCommit( () -> apply( () -> books.computeIfPresent(
+      id,
+      ( key, book ) -> new BookResponseDto(
+        book.getId(),
+        book.getTitle(),
+        book.getDescription(),
+        book.getGenre(),
+        book.getYear(),
+        status,
+        book.getAuthor()
+      )
+    ) ) );
+  }
+
+  public void updateAuthor ( AuthorDto author ) {
+    // Entries of a ConcurrentSkipListMap are snapshots and cannot be set
+    TransactionHooks.afterCommit( () -> apply( () -> books.replaceAll( ( id, book ) -> {
+      if ( book.getAuthor() == null || !author.getId().equals( book.getAuthor().getId() ) ) {
+        return book;
+      }
+      return new BookResponseDto(
+        book.getId(),
+        book.getTitle(),
+        book.getDescription(),
+        book.getGenre(),
+        book.getYear(),
+        book.getStatus(),
+        author
+      );
+    } ) ) );
+  }
+
+  /**
+   * Replaces the book with its current database state, or drops it when it no
+   * longer exists. Used for changes made by other replicas.
+   */
+  public void refresh ( Long id, Optional<BookResponseDto> book ) {
+    apply( () -> book.ifPresentOrElse(
+      row -> books.put(
+        id,
+        row
+      ),
+      () -> books.remove( id )
+    ) );
+  }
+
+  /**
+   * Drops the current contents once the current transaction commits; the next
+   * read reloads from the database.
+   */
+  public void invalidate () {
+    TransactionHooks.afterCommit( this::clear );
+  }
+
+  private synchronized void clear () {
+    loaded = false;
+    version++;
+    books.clear();
+  }
+
+  private void ensureLoaded ( Supplier<List<BookResponseDto>> loader ) {
+    if ( loaded ) {
+      return;
+    }
+
+    synchronized ( this ) {
+      if ( !loaded ) {
+        books.clear();
+        for ( BookResponseDto book : loader.get() ) {
+          books.put(
+            book.getId(),
+            book
+          );
+        }
+        version++;
+        loaded = true;
+      }
+    }
+  }
+
+  private synchronized void apply ( Runnable change ) {
+    if ( !loaded ) {
+      // Nothing cached yet, the first read picks the change up from the database
+      return;
+    }
+    change.run();
+    version++;
+  }
+
+  private record Snapshot( long version, List<BookResponseDto> books ) {
+  }
+
+  private record AuthorCounts( long version, Map<Long, Long> counts ) {
+  }
+}
@@ -1,12 +1,50 @@
 package org.library.book;
 
+import org.library.book.dto.BookResponseDto;
 import org.library.book.model.Book;
+import org.library.order.enums.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
   Optional<Book> findByTitle ( String title );
+
+  @Query( """
+    select new org.library.book.dto.BookResponseDto(
+      b.id, b.title, b.description, b.genre, b.year, b.status,
+      a.id, a.firstName, a.lastName, a.age
+    )
+    from Book b
+    left join b.author a
+    order by b.id
+    """ )
+  List<BookResponseDto> findAllRows ();
+
+  @Query( """
+    select new org.library.book.dto.BookResponseDto(
+      b.id, b.title, b.description, b.genre, b.year, b.status,
+      a.id, a.firstName, a.lastName, a.age
+    )
+    from Book b
+    left join b.author a
+    where b.id = :id
+    """ )
+  Optional<BookResponseDto> findRowById ( @Param( "id" ) Long id );
+
+  @Modifying
+  @Query( "update Book b set b.status = :status, b.updatedAt = :now where b.id in :ids" )
+  int updateStatusByIdIn (
+    @Param( "ids" ) Collection<Long> ids,
+    @Param( "status" ) OrderStatus status,
+    @Param( "now" ) Instant now
+  );
 }
@@ -1,6 +1,6 @@
 package org.library.book;
 
-import jakarta.transaction.Transactional;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.library.author.AuthorService;
 import org.library.author.dto.AuthorDto;
@@ -9,13 +9,21 @@ import org.library.book.dto.BookResponseDto;
 import org.library.book.dto.CreateBookDto;
 import org.library.book.dto.UpdateBookDto;
 import org.library.book.model.Book;
+import org.library.coordination.CacheInvalidator;
+import org.library.coordination.CacheRegion;
+import org.library.exception.ErrorCode;
 import org.library.order.enums.OrderStatus;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 import static org.springframework.http.HttpStatus.*;
 
@@ -24,6 +32,21 @@ import static org.springframework.http.HttpStatus.*;
 public class BookService {
   private final BookRepository bookRepository;
   private final AuthorService authorService;
+  private final BookCatalog bookCatalog;
+  private final CacheInvalidator cacheInvalidator;
+  private final AvailabilityFeed availabilityFeed;
+
+  @PostConstruct
+  void subscribeToInvalidations () {
+    cacheInvalidator.register(
+      CacheRegion.BOOK,
+      id -> bookCatalog.refresh(
+        id,
+        bookRepository.findRowById( id )
+      ),
+      bookCatalog::invalidate
+    );
+  }
 
   @Transactional
   public BookResponseDto create ( CreateBookDto dto ) {
@@ -43,7 +66,13 @@ public class BookService {
       .build();
 
     try {
-      return toResponseDto( bookRepository.save( book ) );
+      BookResponseDto created = toResponseDto( bookRepository.save( book ) );
+      bookCatalog.put( created );
+      cacheInvalidator.invalidate(
+        CacheRegion.BOOK,
+        created.getId()
+      );
+      return created;
     } catch ( DataIntegrityViolationException e ) {
       throw new ResponseStatusException(
         BAD_REQUEST,
@@ -53,24 +82,19 @@ public class BookService {
     }
   }
 
-  @Transactional
+  @Transactional( readOnly = true )
   public List<BookResponseDto> getAll () {
-    return bookRepository
-      .findAll()
-      .stream()
-      .map( this::toResponseDto )
-      .toList();
+    return bookCatalog.findAll( this::loadCatalog );
   }
 
-  @Transactional
+  @Transactional( readOnly = true )
   public BookResponseDto getById ( Long id ) {
-    Book book = bookRepository
-      .findById( id )
-      .orElseThrow( () -> new ResponseStatusException(
-        NOT_FOUND,
-        "Book not found with id: " + id
-      ) );
-    return toResponseDto( book );
+    return bookCatalog
+      .findById(
+        id,
+        this::loadCatalog
+      )
+      .orElseThrow( () -> ErrorCode.BOOK_NOT_FOUND.exception( id ) );
   }
 
   @Transactional
@@ -95,7 +119,13 @@ public class BookService {
     }
 
     try {
-      return toResponseDto( bookRepository.save( book ) );
+      BookResponseDto updated = toResponseDto( bookRepository.save( book ) );
+      bookCatalog.put( updated );
+      cacheInvalidator.invalidate(
+        CacheRegion.BOOK,
+        id
+      );
+      return updated;
     } catch ( DataIntegrityViolationException e ) {
       throw new ResponseStatusException(
         BAD_REQUEST,
@@ -109,6 +139,11 @@ public class BookService {
     Book book = getByIdInternal( id );
     try {
       bookRepository.delete( book );
+      bookCatalog.remove( id );
+      cacheInvalidator.invalidate(
+        CacheRegion.BOOK,
+        id
+      );
     } catch ( Exception e ) {
       throw new ResponseStatusException(
         BAD_REQUEST,
@@ -124,6 +159,15 @@ public class BookService {
 
     try {
       bookRepository.save(book);
+      bookCatalog.updateStatus( id, bookStatus );
+      cacheInvalidator.invalidate(
+        CacheRegion.BOOK,
+        id
+      );
+      availabilityFeed.publish(
+        id,
+        bookStatus
+      );
     } catch (DataIntegrityViolationException e) {
       throw new ResponseStatusException(
         BAD_REQUEST,
@@ -133,30 +177,90 @@ public class BookService {
   }
 
 
+  /**
+   * Sets the status of all given books with one UPDATE. The caller has already
+   * checked that they exist.
+   */
+  @Transactional
+  public void updateStatuses ( Collection<Long> ids, OrderStatus bookStatus ) {
+    bookRepository.updateStatusByIdIn(
+      ids,
+      bookStatus,
+      Instant.now()
+    );
+    for ( Long id : ids ) {
+      bookCatalog.updateStatus(
+        id,
+        bookStatus
+      );
+    }
+    cacheInvalidator.invalidateAll(
+      CacheRegion.BOOK,
+      ids
+    );
+    availabilityFeed.publishAll(
+      ids,
+      bookStatus
+    );
+  }
+
+  @Transactional( readOnly = true )
+  public Map<Long, BookResponseDto> getAllByIds ( Collection<Long> ids ) {
+    Map<Long, BookResponseDto> books = new HashMap<>();
+    for ( Long id : ids ) {
+      bookCatalog
+        .findById(
+          id,
+          this::loadCatalog
+        )
+        .ifPresent( book -> books.put(
+          id,
+          book
+        ) );
+    }
+    return books;
+  }
+
+  /**
+   * Groups catalog books by author. Authors without books map to an empty list.
+   */
+  @Transactional( readOnly = true )
+  public Map<Long, List<BookResponseDto>> getAllByAuthorIds ( Collection<Long> authorIds ) {
+    Map<Long, List<BookResponseDto>> books = new HashMap<>();
+    for ( Long authorId : authorIds ) {
+      books.put(
+        authorId,
+        new ArrayList<>()
+      );
+    }
+    for ( BookResponseDto book : getAll() ) {
+      if ( book.getAuthor() != null && books.containsKey( book.getAuthor().getId() ) ) {
+        books.get( book.getAuthor().getId() ).add( book );
+      }
+    }
+    return books;
+  }
+
+  private List<BookResponseDto> loadCatalog () {
+    return bookRepository.findAllRows();
+  }
+
   private Book getByIdInternal ( Long id ) {
     return bookRepository
       .findById( id )
-      .orElseThrow( () -> new ResponseStatusException(
-        NOT_FOUND,
-        "Book not found with id: " + id
-      ) );
+      .orElseThrow( () -> ErrorCode.BOOK_NOT_FOUND.exception( id ) );
   }
 
   private void checkBookDuplicate ( String title ) {
     if ( bookRepository.findByTitle( title ).isPresent() ) {
-      throw new ResponseStatusException(
-        CONFLICT,
-        "Book with the same title already exists"
-      );
+      throw ErrorCode.BOOK_DUPLICATE.exception();
     }
   }
 
+  @Transactional( readOnly = true )
   public void checkBookExists ( Long bookId ) {
     if ( !bookRepository.existsById( bookId ) ) {
-      throw new ResponseStatusException(
-        NOT_FOUND,
-        "Book not found with id: " + bookId
-      );
+      throw ErrorCode.BOOK_NOT_FOUND.exception( bookId );
     }
   }
 
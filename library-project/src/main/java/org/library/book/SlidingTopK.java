@@ -0,0 +1,247 @@
+package org.library.book;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Approximate most frequent ids over a sliding time window, in bounded memory
+ * and without locks.
+ * <p>
+ * The window is a ring of buckets, each covering an equal slice of time. A
+ * bucket counts ids in a Count-Min sketch and keeps the heaviest ones it has
+ * seen in a small open-addressing table, so the ids worth ranking are known
+ * without storing every id. Counts are only ever overestimated, by at most
+ * {@code e / width} of the bucket's total with probability {@code 1 - e^-depth}.
+ * A reader sums the estimates of the candidates over the live buckets, so the
+ * window reaches back up to one bucket further than its length. Expired
+ * buckets are replaced by the first writer of the new slice.
+ */
+final class SlidingTopK {
+  // Probes per candidate insert before the weakest probed candidate is replaced
+  private static final int PROBES = 8;
+  private static final long[] SEEDS = {
+    0x9E3779B97F4A7C15L,
+    0xC2B2AE3D27D4EB4FL,
+    0x165667B19E3779F9L,
+    0xD6E8FEB86659FD93L,
+    0xFF51AFD7ED558CCDL,
+    0xC4CEB9FE1A85EC53L,
+    0x27D4EB2F165667C5L,
+    0x94D049BB133111EBL
+  };
+
+  private final long bucketMillis;
+  private final int width;
+  private final int depth;
+  private final int slots;
+  private final AtomicReferenceArray<Bucket> ring;
+
+  /**
+   * @param width counters per sketch row, rounded up to a power of two
+   * @param candidates ids kept per bucket, rounded up to a power of two
+   */
+  SlidingTopK ( long windowMillis, int buckets, int width, int depth, int candidates ) {
+    if ( depth < 1 || depth > SEEDS.length ) {
+      throw new IllegalArgumentException( "Sketch depth must be between 1 and " + SEEDS.length );
+    }
+    this.bucketMillis = windowMillis / buckets;
+    this.width = powerOfTwo( width );
+    this.depth = depth;
+    this.slots = powerOfTwo( candidates );
+    this.ring = new AtomicReferenceArray<>( buckets );
+  }
+
+  void record ( long id, long nowMillis ) {
+    bucket( nowMillis / bucketMillis ).add( id );
+  }
+
+  /**
+   * The {@code k} ids with the highest estimated count in the window ending at
+   * {@code nowMillis}, highest first, each as {@code { id, estimate }}.
+   */
+  List<long[]> top ( int k, long nowMillis ) {
+    long epoch = nowMillis / bucketMillis;
+    List<Bucket> live = new ArrayList<>( ring.length() );
+    Set<Long> candidates = new HashSet<>();
+    for ( int slot = 0; slot < ring.length(); slot++ ) {
+      Bucket bucket = ring.get( slot );
+      if ( bucket != null && bucket.epoch > epoch - ring.length() && bucket.epoch <= epoch ) {
+        live.add( bucket );
+        bucket.collect( candidates );
+      }
+    }
+
+    PriorityQueue<long[]> top = new PriorityQueue<>(
+      k + 1,
+      Comparator
+        .<long[]>comparingLong( entry -> entry[ 1 ] )
+        .thenComparing(
+          entry -> entry[ 0 ],
+          Comparator.reverseOrder()
+        )
+    );
+    for ( Long id : candidates ) {
+      long estimate = 0;
+      for ( Bucket bucket : live ) {
+        estimate += bucket.estimate( id );
+      }
+      top.add( new long[] { id, estimate } );
+      if ( top.size() > k ) {
+        top.poll();
+      }
+    }
+
+    List<long[]> ranked = new ArrayList<>( top );
+    ranked.sort( top
+      .comparator()
+      .reversed() );
+    return ranked;
+  }
+
+  private Bucket bucket ( long epoch ) {
+    int slot = (int) Math.floorMod(
+      epoch,
+      (long) ring.length()
+    );
+    while ( true ) {
+      Bucket current = ring.get( slot );
+      // A writer that read the clock just before a newer bucket replaced its own counts there
+      if ( current != null && current.epoch >= epoch ) {
+        return current;
+      }
+      Bucket fresh = new Bucket( epoch );
+      if ( ring.compareAndSet(
+        slot,
+        current,
+        fresh
+      ) ) {
+        return fresh;
+      }
+    }
+  }
+
+  private static int powerOfTwo ( int value ) {
+    return Integer.highestOneBit( Math.max(
+      value - 1,
+      1
+    ) ) << 1;
+  }
+
+  private final class Bucket {
+    private final long epoch;
+    private final AtomicLongArray counts = new AtomicLongArray( width * depth );
+    // Candidate ids, 0 for a free slot
+    private final AtomicLongArray ids = new AtomicLongArray( slots );
+
+    Bucket ( long epoch ) {
+      this.epoch = epoch;
+    }
+
+    void add ( long id ) {
+      long estimate = Long.MAX_VALUE;
+      for ( int row = 0; row < depth; row++ ) {
+        estimate = Math.min(
+          estimate,
+          counts.incrementAndGet( index(
+            id,
+            row
+          ) )
+        );
+      }
+      offer(
+        id,
+        estimate
+      );
+    }
+
+    long estimate ( long id ) {
+      long estimate = Long.MAX_VALUE;
+      for ( int row = 0; row < depth; row++ ) {
+        estimate = Math.min(
+          estimate,
+          counts.get( index(
+            id,
+            row
+          ) )
+        );
+      }
+      return estimate;
+    }
+
+    void collect ( Set<Long> candidates ) {
+      for ( int slot = 0; slot < slots; slot++ ) {
+        long id = ids.get( slot );
+        if ( id != 0 ) {
+          candidates.add( id );
+        }
+      }
+    }
+
+    /**
+     * Keeps the id as a candidate when a probed slot is free or holds a lighter
+     * id. Losing a race only means one of the two ids is not kept this time; its
+     * next borrow offers it again.
+     */
+    private void offer ( long id, long estimate ) {
+      int start = (int) ( mix( id ) >>> 32 ) & ( slots - 1 );
+      int weakestSlot = -1;
+      long weakestId = 0;
+      long weakestEstimate = estimate;
+      for ( int probe = 0; probe < PROBES; probe++ ) {
+        int slot = ( start + probe ) & ( slots - 1 );
+        long held = ids.get( slot );
+        if ( held == id ) {
+          return;
+        }
+        if ( held == 0 ) {
+          if ( ids.compareAndSet(
+            slot,
+            0,
+            id
+          ) ) {
+            return;
+          }
+          held = ids.get( slot );
+          if ( held == id ) {
+            return;
+          }
+        }
+        long heldEstimate = estimate( held );
+        if ( heldEstimate < weakestEstimate ) {
+          weakestSlot = slot;
+          weakestId = held;
+          weakestEstimate = heldEstimate;
+        }
+      }
+      if ( weakestSlot >= 0 ) {
+        ids.compareAndSet(
+          weakestSlot,
+          weakestId,
+          id
+        );
+      }
+    }
+
+    private int index ( long id, int row ) {
+      return row * width + ( (int) ( mix( id ^ SEEDS[ row ] ) >>> 32 ) & ( width - 1 ) );
+    }
+  }
+
+  /**
+   * Finalizer of MurmurHash3, spreads every input bit over the whole result.
+   */
+  private static long mix ( long value ) {
+    value ^= value >>> 33;
+    value *= 0xFF51AFD7ED558CCDL;
+    value ^= value >>> 33;
+    value *= 0xC4CEB9FE1A85EC53L;
+    value ^= value >>> 33;
+    return value;
+  }
+}
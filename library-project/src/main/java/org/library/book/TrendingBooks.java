@@ -0,0 +1,233 @@
+package org.library.book;
+
+import jakarta.annotation.PostConstruct;
+import org.library.book.dto.BookResponseDto;
+import org.library.book.dto.TrendingBookDto;
+import org.library.book.enums.TrendingWindow;
+import org.library.order.OrderEventRepository;
+import org.library.order.OrderEventTailer;
+import org.library.order.enums.OrderEventType;
+import org.library.transaction.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Most borrowed books of the last hour, day and week, for the trending list.
+ * <p>
+ * Every committed borrow is counted in one {@link SlidingTopK} per window, with
+ * atomic updates only, so recording costs the borrow path no lock and memory
+ * stays fixed however many books are borrowed. The counts are of this replica's
+ * borrows; with requests spread over the replicas the ranking is the same. A
+ * ranking is reused for {@code trending.refresh} milliseconds, as many readers
+ * ask for the same list.
+ * <p>
+ * The sketches live in memory only, so on startup they are seeded with the
+ * BORROWED events of the last week from the order event log, read
+ * {@code trending.seed-batch-size} at a time. Those are the borrows of every
+ * replica, which only scales the counts until the seeded buckets age out.
+ */
+@Component
+public class TrendingBooks {
+  private static final Logger logger = LoggerFactory.getLogger( TrendingBooks.class );
+  static final int MAX_LIMIT = 100;
+
+  private final Map<TrendingWindow, SlidingTopK> windows = new EnumMap<>( TrendingWindow.class );
+  private final Map<TrendingWindow, Ranking> rankings = new EnumMap<>( TrendingWindow.class );
+  private final BookService bookService;
+  private final OrderEventRepository orderEventRepository;
+  private final OrderEventTailer tailer;
+  private final long refresh;
+
+  public TrendingBooks (
+    BookService bookService,
+    OrderEventRepository orderEventRepository,
+    PlatformTransactionManager transactionManager,
+    @Value( "${trending.width}" ) int width,
+    @Value( "${trending.depth}" ) int depth,
+    @Value( "${trending.candidates}" ) int candidates,
+    @Value( "${trending.refresh}" ) long refresh,
+    @Value( "${trending.seed-batch-size}" ) int seedBatchSize
+  ) {
+    this.bookService = bookService;
+    this.orderEventRepository = orderEventRepository;
+    this.tailer = new OrderEventTailer(
+      orderEventRepository,
+      transactionManager,
+      seedBatchSize,
+      0
+    );
+    this.refresh = refresh;
+    for ( TrendingWindow window : TrendingWindow.values() ) {
+      windows.put(
+        window,
+        new SlidingTopK(
+          window.length().toMillis(),
+          window.buckets(),
+          width,
+          depth,
+          candidates
+        )
+      );
+    }
+  }
+
+  /**
+   * Counts the borrows of the last week from the order event log, each into the
+   * windows that still cover it. Runs before the replica takes requests; if the
+   * log cannot be read the lists start empty, as they did before.
+   */
+  @PostConstruct
+  void seed () {
+    long now = System.currentTimeMillis();
+    Instant since = Instant.ofEpochMilli( now ).minus( TrendingWindow.WEEK.length() );
+    try {
+      Long first = orderEventRepository.findFirstIdSince( since );
+      if ( first == null ) {
+        return;
+      }
+      int seeded = tailer.advance(
+        first - 1,
+        Long.MAX_VALUE,
+        event -> {
+          if ( event.getType() == OrderEventType.BORROWED && event.getBookId() != null ) {
+            seed(
+              event.getBookId(),
+              event.getOccurredAt().toEpochMilli(),
+              now
+            );
+          }
+        }
+      );
+      logger.info(
+        "Seeded trending books from {} order events",
+        seeded
+      );
+    } catch ( DataAccessException e ) {
+      logger.warn(
+        "Could not seed trending books from the order event log",
+        e
+      );
+    }
+  }
+
+  /**
+   * Counts a borrow of each book once the current transaction commits.
+   */
+  public void recordBorrows ( Collection<Long> bookIds ) {
+    List<Long> borrowed = List.copyOf( bookIds );
+    TransactionHooks.afterCommit( () -> {
+      long now = System.currentTimeMillis();
+      for ( Long bookId : borrowed ) {
+        record(
+          bookId,
+          now
+        );
+      }
+    } );
+  }
+
+  /**
+   * The {@code limit} most borrowed books of the window that are still in the
+   * catalog, most borrowed first. At most {@value #MAX_LIMIT}.
+   */
+  public List<TrendingBookDto> getTrending ( TrendingWindow window, int limit ) {
+    List<long[]> ranked = ranking(
+      window,
+      System.currentTimeMillis()
+    );
+    Map<Long, BookResponseDto> books = bookService.getAllByIds( ranked
+      .stream()
+      .map( entry -> entry[ 0 ] )
+      .toList() );
+
+    int size = Math.max(
+      1,
+      Math.min(
+        limit,
+        MAX_LIMIT
+      )
+    );
+    List<TrendingBookDto> result = new ArrayList<>( size );
+    for ( long[] entry : ranked ) {
+      BookResponseDto book = books.get( entry[ 0 ] );
+      if ( book != null ) {
+        result.add( new TrendingBookDto(
+          book,
+          entry[ 1 ]
+        ) );
+        if ( result.size() == size ) {
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  void record ( long bookId, long nowMillis ) {
+    for ( SlidingTopK window : windows.values() ) {
+      window.record(
+        bookId,
+        nowMillis
+      );
+    }
+  }
+
+  /**
+   * Counts a past borrow only in the windows that still cover it, since a
+   * bucket reused by a newer period would absorb it.
+   */
+  void seed ( long bookId, long atMillis, long nowMillis ) {
+    for ( Map.Entry<TrendingWindow, SlidingTopK> window : windows.entrySet() ) {
+      if ( nowMillis - atMillis < window.getKey().length().toMillis() ) {
+        window.getValue().record(
+          bookId,
+          atMillis
+        );
+      }
+    }
+  }
+
+  /**
+   * The top {@value #MAX_LIMIT} of the window, plus room for books deleted since,
+   * computed at most once per {@code trending.refresh}.
+   */
+  List<long[]> ranking ( TrendingWindow window, long nowMillis ) {
+    synchronized ( rankings ) {
+      Ranking ranking = rankings.get( window );
+      if ( ranking != null && nowMillis - ranking.computedAt() < refresh && nowMillis >= ranking.computedAt() ) {
+        return ranking.entries();
+      }
+    }
+
+    List<long[]> entries = windows
+      .get( window )
+      .top(
+        MAX_LIMIT * 2,
+        nowMillis
+      );
+    synchronized ( rankings ) {
+      rankings.put(
+        window,
+        new Ranking(
+          nowMillis,
+          entries
+        )
+      );
+    }
+    return entries;
+  }
+
+  private record Ranking( long computedAt, List<long[]> entries ) {
+  }
+}
@@ -0,0 +1,29 @@
+package org.library.book;
+
+import lombok.RequiredArgsConstructor;
+import org.library.book.dto.TrendingBookDto;
+import org.library.book.enums.TrendingWindow;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping( "/api/v1/book/trending" )
+@RequiredArgsConstructor
+public class TrendingController {
+  private final TrendingBooks trendingBooks;
+
+  @GetMapping
+  public List<TrendingBookDto> getTrending (
+    @RequestParam( defaultValue = "DAY" ) TrendingWindow window,
+    @RequestParam( defaultValue = "10" ) int limit
+  ) {
+    return trendingBooks.getTrending(
+      window,
+      limit
+    );
+  }
+}
@@ -0,0 +1,11 @@
+package org.library.book.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AvailabilityChangeDto {
+  private Long bookId;
+  private boolean available;
+}
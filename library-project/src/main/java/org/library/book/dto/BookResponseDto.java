@@ -3,7 +3,6 @@ package org.library.book.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.library.author.dto.AuthorDto;
-import org.library.author.model.Author;
 import org.library.order.enums.OrderStatus;
 
 
@@ -17,4 +16,36 @@ public class BookResponseDto {
   private int year;
   private OrderStatus status;
   private AuthorDto author;
+
+  /**
+   * Flat constructor used by JPQL constructor expressions, so a book row and
+   * its author can be read in one projection without hydrating entities.
+   */
+  public BookResponseDto (
+    Long id,
+    String title,
+    String description,
+    String genre,
+    int year,
+    OrderStatus status,
+    Long authorId,
+    String authorFirstName,
+    String authorLastName,
+    Integer authorAge
+  ) {
+    this(
+      id,
+      title,
+      description,
+      genre,
+      year,
+      status,
+      authorId != null ? new AuthorDto(
+        authorId,
+        authorFirstName,
+        authorLastName,
+        authorAge
+      ) : null
+    );
+  }
 }
@@ -0,0 +1,14 @@
+package org.library.book.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TrendingBookDto {
+  private BookResponseDto book;
+  /**
+   * Estimated borrows in the window, never less than the real count.
+   */
+  private long borrows;
+}
@@ -0,0 +1,29 @@
+package org.library.book.enums;
+
+import java.time.Duration;
+
+/**
+ * Windows the trending list is kept for, each split into buckets that expire
+ * one at a time.
+ */
+public enum TrendingWindow {
+  HOUR( Duration.ofHours( 1 ), 12 ),
+  DAY( Duration.ofDays( 1 ), 24 ),
+  WEEK( Duration.ofDays( 7 ), 28 );
+
+  private final Duration length;
+  private final int buckets;
+
+  TrendingWindow ( Duration length, int buckets ) {
+    this.length = length;
+    this.buckets = buckets;
+  }
+
+  public Duration length () {
+    return length;
+  }
+
+  public int buckets () {
+    return buckets;
+  }
+}
@@ -10,7 +10,10 @@ import org.library.order.enums.OrderStatus;
 import java.time.Instant;
 
 @Entity
-@Table( name = "BOOK" )
+@Table(
+  name = "BOOK",
+  indexes = @Index( name = "IX_BOOK_AUTHOR", columnList = "AUTHOR_ID" )
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,85 @@
+package org.library.catalog;
+
+import org.library.author.AuthorService;
+import org.library.author.dto.AuthorResponseDto;
+import org.library.book.BookService;
+import org.library.book.dto.BookResponseDto;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Opt-in asynchronous variant of the public catalog reads. Requests are handed
+ * off to the bounded catalog executor so servlet threads are released while the
+ * database is being queried. When the pool and its queue are full the read is
+ * answered with 503 rather than waiting on a request thread.
+ * <p>
+ * The reads stay on JDBC: the catalog is served by the same JPA repositories,
+ * read models and transactions as the rest of the app, which an R2DBC driver
+ * such as oracle-r2dbc could not share.
+ */
+@RestController
+@RequestMapping( "/api/v1/catalog" )
+@ConditionalOnProperty( name = "catalog.async.enabled", havingValue = "true" )
+public class CatalogController {
+  private final BookService bookService;
+  private final AuthorService authorService;
+  private final ThreadPoolTaskExecutor catalogExecutor;
+
+  public CatalogController (
+    BookService bookService,
+    AuthorService authorService,
+    @Qualifier( "catalogExecutor" ) ThreadPoolTaskExecutor catalogExecutor
+  ) {
+    this.bookService = bookService;
+    this.authorService = authorService;
+    this.catalogExecutor = catalogExecutor;
+  }
+
+  @GetMapping( "/book" )
+  public CompletableFuture<ResponseEntity<List<BookResponseDto>>> getAllBooks () {
+    return async( () -> ResponseEntity.ok( bookService.getAll() ) );
+  }
+
+  @GetMapping( "/book/{id}" )
+  public CompletableFuture<ResponseEntity<BookResponseDto>> getBookById ( @PathVariable Long id ) {
+    return async( () -> ResponseEntity.ok( bookService.getById( id ) ) );
+  }
+
+  @GetMapping( "/author" )
+  public CompletableFuture<ResponseEntity<List<AuthorResponseDto>>> getAllAuthors () {
+    return async( () -> ResponseEntity.ok( authorService.getAll() ) );
+  }
+
+  @GetMapping( "/author/{id}" )
+  public CompletableFuture<ResponseEntity<AuthorResponseDto>> getAuthorById ( @PathVariable Long id ) {
+    return async( () -> ResponseEntity.ok( authorService.getById( id ) ) );
+  }
+
+  private <T> CompletableFuture<T> async ( Supplier<T> supplier ) {
+    try {
+      return CompletableFuture.supplyAsync(
+        supplier,
+        catalogExecutor
+      );
+    } catch ( TaskRejectedException e ) {
+      return CompletableFuture.failedFuture( new ResponseStatusException(
+        SERVICE_UNAVAILABLE,
+        "Catalog is busy, please retry later"
+      ) );
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package org.library.compression;
+
+import com.github.luben.zstd.Zstd;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content codings we can produce, in order of preference. Both use moderate
+ * levels: a catalog change recompresses every cached variant while requests
+ * wait, and the strongest levels cost many times the CPU for a few percent less.
+ */
+public enum ContentCoding {
+  ZSTD( "zstd" ) {
+    @Override
+    byte[] encode ( byte[] body ) {
+      return Zstd.compress(
+        body,
+        6
+      );
+    }
+  },
+  GZIP( "gzip" ) {
+    @Override
+    byte[] encode ( byte[] body ) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream( body.length / 4 );
+      try ( GZIPOutputStream gzip = new GZIPOutputStream( out ) {
+        {
+          def.setLevel( 6 );
+        }
+      } ) {
+        gzip.write( body );
+      } catch ( IOException e ) {
+        throw new UncheckedIOException( e );
+      }
+      return out.toByteArray();
+    }
+  };
+
+  private final String token;
+
+  ContentCoding ( String token ) {
+    this.token = token;
+  }
+
+  public String token () {
+    return token;
+  }
+
+  abstract byte[] encode ( byte[] body );
+
+  /**
+   * Picks the preferred coding the client accepts, or {@code null} for identity.
+   */
+  public static ContentCoding negotiate ( String acceptEncoding ) {
+    if ( acceptEncoding == null || acceptEncoding.isBlank() ) {
+      return null;
+    }
+
+    for ( ContentCoding coding : values() ) {
+      if ( accepts(
+        acceptEncoding,
+        coding.token
+      ) ) {
+        return coding;
+      }
+    }
+    return null;
+  }
+
+  private static boolean accepts ( String acceptEncoding, String token ) {
+    Boolean wildcard = null;
+    for ( String part : acceptEncoding.split( "," ) ) {
+      String[] params = part.trim().split( ";" );
+      String name = params[ 0 ].trim();
+      boolean allowed = true;
+      for ( int i = 1; i < params.length; i++ ) {
+        String param = params[ i ].trim();
+        if ( param.startsWith( "q=" ) ) {
+          try {
+            allowed = Double.parseDouble( param.substring( 2 ) ) > 0;
+          } catch ( NumberFormatException e ) {
+            allowed = false;
+          }
+        }
+      }
+
+      if ( name.equalsIgnoreCase( token ) ) {
+        return allowed;
+      }
+      if ( "*".equals( name ) ) {
+        wildcard = allowed;
+      }
+    }
+    return Boolean.TRUE.equals( wildcard );
+  }
+}
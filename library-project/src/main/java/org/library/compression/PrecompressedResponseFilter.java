@@ -0,0 +1,223 @@
+package org.library.compression;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves the public catalog lists from compressed bytes computed once.
+ * <p>
+ * The response is still rendered, but when its body is identical to the one
+ * compressed last time for the same URL, representation and coding, the stored
+ * compressed bytes are sent instead of compressing again. Comparing bodies keeps
+ * the cache correct without hooking into every write path or replica. Other
+ * responses are compressed on the fly by the server ({@code server.compression}).
+ * <p>
+ * Only the parameters in {@code compression.cache-parameters} are part of the
+ * key, so arbitrary query strings cannot fill the cache with copies of the same
+ * list. Concurrent requests missing the same key wait for one compression.
+ */
+@Component
+public class PrecompressedResponseFilter extends OncePerRequestFilter {
+  private final Map<Key, Variant> variants = new ConcurrentHashMap<>();
+  private final Map<Key, CompletableFuture<Variant>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong compressions = new AtomicLong();
+  private final List<String> paths;
+  private final List<String> parameters;
+  private final int minSize;
+  private final int maxVariants;
+
+  public PrecompressedResponseFilter (
+    @Value( "${compression.precompressed-paths}" ) List<String> paths,
+    @Value( "${compression.cache-parameters}" ) List<String> parameters,
+    @Value( "${server.compression.min-response-size}" ) int minSize,
+    @Value( "${compression.max-variants}" ) int maxVariants
+  ) {
+    this.paths = paths;
+    this.parameters = parameters.stream().sorted().toList();
+    this.minSize = minSize;
+    this.maxVariants = maxVariants;
+  }
+
+  @Override
+  protected boolean shouldNotFilter ( HttpServletRequest request ) {
+    return !"GET".equals( request.getMethod() ) || !paths.contains( request.getRequestURI() );
+  }
+
+  @Override
+  protected void doFilterInternal (
+    HttpServletRequest request, HttpServletResponse response, FilterChain filterChain
+  ) throws ServletException, IOException {
+    // The list is also negotiated as JSON, CBOR or Smile
+    response.addHeader(
+      HttpHeaders.VARY,
+      HttpHeaders.ACCEPT
+    );
+    response.addHeader(
+      HttpHeaders.VARY,
+      HttpHeaders.ACCEPT_ENCODING
+    );
+
+    ContentCoding coding = ContentCoding.negotiate( request.getHeader( HttpHeaders.ACCEPT_ENCODING ) );
+    if ( coding == null ) {
+      filterChain.doFilter(
+        request,
+        response
+      );
+      return;
+    }
+
+    ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper( response );
+    filterChain.doFilter(
+      request,
+      wrapper
+    );
+
+    byte[] body = wrapper.getContentAsByteArray();
+    if ( wrapper.getStatus() != HttpServletResponse.SC_OK || body.length < minSize ||
+         wrapper.getHeader( HttpHeaders.CONTENT_ENCODING ) != null ) {
+      wrapper.copyBodyToResponse();
+      return;
+    }
+
+    Key key = new Key(
+      request.getRequestURI(),
+      cachedParameters( request ),
+      wrapper.getContentType(),
+      coding
+    );
+    Variant variant = variants.get( key );
+    if ( variant == null || !Arrays.equals(
+      variant.body(),
+      body
+    ) ) {
+      variant = compress(
+        key,
+        body
+      );
+    }
+
+    wrapper.resetBuffer();
+    response.setHeader(
+      HttpHeaders.CONTENT_ENCODING,
+      coding.token()
+    );
+    response.setContentLength( variant.compressed().length );
+    response.getOutputStream().write( variant.compressed() );
+  }
+
+  /**
+   * Compresses the body, or waits for the request already compressing it under
+   * the same key.
+   */
+  private Variant compress ( Key key, byte[] body ) {
+    CompletableFuture<Variant> mine = new CompletableFuture<>();
+    CompletableFuture<Variant> running = inFlight.putIfAbsent(
+      key,
+      mine
+    );
+    if ( running != null ) {
+      try {
+        Variant variant = running.join();
+        if ( Arrays.equals(
+          variant.body(),
+          body
+        ) ) {
+          return variant;
+        }
+      } catch ( CompletionException e ) {
+        // Compress it here instead
+      }
+      return encode(
+        key,
+        body
+      );
+    }
+
+    try {
+      // The previous holder may have stored this very body since it was looked up
+      Variant variant = variants.get( key );
+      if ( variant == null || !Arrays.equals(
+        variant.body(),
+        body
+      ) ) {
+        variant = encode(
+          key,
+          body
+        );
+      }
+      mine.complete( variant );
+      return variant;
+    } catch ( RuntimeException e ) {
+      mine.completeExceptionally( e );
+      throw e;
+    } finally {
+      inFlight.remove(
+        key,
+        mine
+      );
+    }
+  }
+
+  private Variant encode ( Key key, byte[] body ) {
+    Variant variant = new Variant(
+      body,
+      key.coding().encode( body )
+    );
+    compressions.incrementAndGet();
+    if ( variants.size() < maxVariants || variants.containsKey( key ) ) {
+      variants.put(
+        key,
+        variant
+      );
+    }
+    return variant;
+  }
+
+  /**
+   * The known parameters of the request in a fixed order; anything else in the
+   * query string does not change the list.
+   */
+  private String cachedParameters ( HttpServletRequest request ) {
+    StringBuilder query = new StringBuilder();
+    for ( String name : parameters ) {
+      String[] values = request.getParameterValues( name );
+      if ( values == null ) {
+        continue;
+      }
+      for ( String value : values ) {
+        query
+          .append( name )
+          .append( '=' )
+          .append( value )
+          .append( '&' );
+      }
+    }
+    return query.toString();
+  }
+
+  long compressions () {
+    return compressions.get();
+  }
+
+  private record Key( String path, String parameters, String contentType, ContentCoding coding ) {
+  }
+
+  private record Variant( byte[] body, byte[] compressed ) {
+  }
+}
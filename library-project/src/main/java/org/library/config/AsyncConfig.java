@@ -0,0 +1,118 @@
+package org.library.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig implements WebMvcConfigurer {
+
+  @Value( "${catalog.async.pool-size}" )
+  private int catalogPoolSize;
+
+  @Value( "${catalog.async.queue-capacity}" )
+  private int catalogQueueCapacity;
+
+  @Value( "${streaming.pool-size}" )
+  private int streamingPoolSize;
+
+  @Value( "${streaming.timeout}" )
+  private long streamingTimeout;
+
+  @Value( "${order.overdue.parallelism}" )
+  private int overduePoolSize;
+
+  @Value( "${availability.writers}" )
+  private int availabilityPoolSize;
+
+  /**
+   * Bounded pool for catalog reads. The pool size caps concurrent database work,
+   * the queue absorbs bursts and anything beyond it is rejected instead of piling
+   * up on request threads.
+   */
+  @Bean( name = "catalogExecutor" )
+  public ThreadPoolTaskExecutor catalogExecutor () {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize( catalogPoolSize );
+    executor.setMaxPoolSize( catalogPoolSize );
+    executor.setQueueCapacity( catalogQueueCapacity );
+    executor.setThreadNamePrefix( "catalog-" );
+    executor.initialize();
+    return executor;
+  }
+
+  /**
+   * Writes streamed response bodies. Each task holds a database cursor for the
+   * duration of the response, so the pool size also caps open cursors.
+   */
+  @Bean( name = "streamingExecutor" )
+  public ThreadPoolTaskExecutor streamingExecutor () {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize( streamingPoolSize );
+    executor.setMaxPoolSize( streamingPoolSize );
+    executor.setQueueCapacity( streamingPoolSize * 4 );
+    executor.setThreadNamePrefix( "streaming-" );
+    executor.initialize();
+    return executor;
+  }
+
+  /**
+   * Flags overdue orders in the background. Sized by the sweep parallelism, which
+   * is also how many connections it may take from the pool, and runs below normal
+   * priority so request threads go first.
+   */
+  @Bean( name = "overdueExecutor" )
+  public ThreadPoolTaskExecutor overdueExecutor () {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize( overduePoolSize );
+    executor.setMaxPoolSize( overduePoolSize );
+    executor.setQueueCapacity( overduePoolSize );
+    executor.setThreadPriority( Thread.MIN_PRIORITY );
+    executor.setThreadNamePrefix( "overdue-" );
+    executor.initialize();
+    return executor;
+  }
+
+  /**
+   * Writes availability events to feed subscribers. Each subscriber is drained
+   * by one task at a time, so a connection stuck in a write holds one of these
+   * threads and never the others; the connections themselves are async requests
+   * and hold none.
+   */
+  @Bean( name = "availabilityExecutor" )
+  public ThreadPoolTaskExecutor availabilityExecutor () {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize( availabilityPoolSize );
+    executor.setMaxPoolSize( availabilityPoolSize );
+    executor.setThreadNamePrefix( "availability-" );
+    executor.initialize();
+    return executor;
+  }
+
+  /**
+   * Builds the co-borrow graph from the whole order log, which takes long enough
+   * to starve the other scheduled jobs if it ran on a scheduler thread. Only one
+   * build runs at a time.
+   */
+  @Bean( name = "recommendationExecutor" )
+  public ThreadPoolTaskExecutor recommendationExecutor () {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize( 1 );
+    executor.setMaxPoolSize( 1 );
+    executor.setThreadPriority( Thread.MIN_PRIORITY );
+    executor.setThreadNamePrefix( "recommendation-" );
+    executor.initialize();
+    return executor;
+  }
+
+  @Override
+  public void configureAsyncSupport ( AsyncSupportConfigurer configurer ) {
+    configurer.setTaskExecutor( streamingExecutor() );
+    configurer.setDefaultTimeout( streamingTimeout );
+  }
+}
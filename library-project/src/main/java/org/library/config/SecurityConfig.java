@@ -3,6 +3,7 @@ package org.library.config;
 import lombok.RequiredArgsConstructor;
 import org.library.auth.enums.Role;
 import org.library.auth.filter.JwtAuthenticationFilter;
+import org.library.ratelimit.RateLimitFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -15,6 +16,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.logout.LogoutFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -28,7 +30,7 @@ public class SecurityConfig {
 
   @Bean
   public SecurityFilterChain filterChain (
-    HttpSecurity http, JwtAuthenticationFilter jwtAuthenticationFilter
+    HttpSecurity http, JwtAuthenticationFilter jwtAuthenticationFilter, RateLimitFilter rateLimitFilter
     // inject here instead of via field
   ) throws Exception {
     http
@@ -48,6 +50,14 @@ public class SecurityConfig {
           "/api/v1/author/**"
         )
         .permitAll()
+        .requestMatchers(
+          HttpMethod.GET,
+          "/api/v1/catalog/**"
+        )
+        .permitAll()
+        // Queries on orders and the current user are checked per field
+        .requestMatchers( "/graphql" )
+        .permitAll()
         .requestMatchers(
           HttpMethod.POST,
           "/api/v1/book/**"
@@ -88,10 +98,17 @@ public class SecurityConfig {
           "/api/v1/author/**"
         )
         .hasRole( Role.ADMIN.name() )
+        // Borrow statistics for management
+        .requestMatchers(
+          HttpMethod.GET,
+          "/api/v1/stats/**"
+        )
+        .hasRole( Role.ADMIN.name() )
         // Admin-only order endpoints
         .requestMatchers(
           HttpMethod.GET,
-          "/api/v1/order"
+          "/api/v1/order",
+          "/api/v1/order/*/history"
         )
         .hasRole( Role.ADMIN.name() )
         .requestMatchers(
@@ -105,6 +122,12 @@ public class SecurityConfig {
           "/api/v1/order/borrow/**"
         )
         .authenticated()
+        .requestMatchers(
+          HttpMethod.POST,
+          "/api/v1/order/borrow:batch",
+          "/api/v1/order/return:batch"
+        )
+        .authenticated()
         .requestMatchers(
           HttpMethod.PATCH,
           "/api/v1/order/return/**"
@@ -120,6 +143,9 @@ public class SecurityConfig {
           "/api/v1/order/my-orders/**"
         )
         .authenticated()
+        // Reservations of the current user
+        .requestMatchers( "/api/v1/reservation/**" )
+        .authenticated()
         .requestMatchers( "/api/v1/user/**" )
         .authenticated()
         .anyRequest()
@@ -127,6 +153,10 @@ public class SecurityConfig {
       .addFilterBefore(
         jwtAuthenticationFilter,
         UsernamePasswordAuthenticationFilter.class
+      )
+      .addFilterBefore(
+        rateLimitFilter,
+        LogoutFilter.class
       );
 
     return http.build();
@@ -1,12 +1,20 @@
 package org.library.config;
 
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import lombok.RequiredArgsConstructor;
 import org.library.auth.resolver.CurrentUserArgumentResolver;
 import org.library.logging.RequestLoggingInterceptor;
+import org.library.streaming.StreamingListWriter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 
 import java.util.List;
 
@@ -20,6 +28,35 @@ public class WebConfig implements WebMvcConfigurer {
     registry.addInterceptor( new RequestLoggingInterceptor() );
   }
 
+  /**
+   * JSON, CBOR ({@code application/cbor}) and Smile ({@code application/x-jackson-smile})
+   * are all served by the default Jackson converters and picked by the Accept header.
+   * Blackbird replaces their reflective property access with generated accessors.
+   */
+  @Override
+  public void extendMessageConverters ( List<HttpMessageConverter<?>> converters ) {
+    for ( HttpMessageConverter<?> converter : converters ) {
+      if ( converter instanceof AbstractJackson2HttpMessageConverter jackson ) {
+        jackson.getObjectMapper().registerModule( new BlackbirdModule() );
+      }
+    }
+  }
+
+  /**
+   * Uses the handler adapter's converters, so streamed lists are negotiated and
+   * serialized exactly like regular responses.
+   */
+  @Bean
+  public StreamingListWriter streamingListWriter (
+    ObjectProvider<RequestMappingHandlerAdapter> handlerAdapter,
+    @Value( "${streaming.page-size}" ) int pageSize
+  ) {
+    return new StreamingListWriter(
+      () -> handlerAdapter.getObject().getMessageConverters(),
+      pageSize
+    );
+  }
+
   @Override
   public void addArgumentResolvers ( List<HandlerMethodArgumentResolver> resolvers ) {
     resolvers.add( currentUserArgumentResolver );
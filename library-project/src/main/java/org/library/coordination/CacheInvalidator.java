@@ -0,0 +1,129 @@
+package org.library.coordination;
+
+import org.library.transaction.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+/**
+ * Tells the other replicas that a cached entry changed. The replica making the
+ * change updates its own caches directly and ignores its own broadcasts. When
+ * the store may have dropped broadcasts, every region is resynchronized.
+ */
+@Component
+public class CacheInvalidator {
+  static final String CHANNEL = "library:invalidate";
+
+  private static final Logger logger = LoggerFactory.getLogger( CacheInvalidator.class );
+
+  private final CoordinationStore coordinationStore;
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Map<CacheRegion, LongConsumer> handlers = new EnumMap<>( CacheRegion.class );
+  private final Map<CacheRegion, Runnable> resyncs = new EnumMap<>( CacheRegion.class );
+
+  public CacheInvalidator ( CoordinationStore coordinationStore ) {
+    this.coordinationStore = coordinationStore;
+    coordinationStore.subscribe(
+      CHANNEL,
+      this::onMessage
+    );
+    coordinationStore.onResubscribe( this::resync );
+  }
+
+  /**
+   * Registers what this replica does when another one changes an entry of the
+   * region, and how it drops the whole region when changes may have been missed.
+   */
+  public synchronized void register ( CacheRegion region, LongConsumer handler, Runnable resync ) {
+    handlers.put(
+      region,
+      handler
+    );
+    resyncs.put(
+      region,
+      resync
+    );
+  }
+
+  /**
+   * Broadcasts the change once the current transaction commits, so other replicas
+   * reading the entry again already see the new state.
+   */
+  public void invalidate ( CacheRegion region, Long id ) {
+    String message = nodeId + " " + region + " " + id;
+    TransactionHooks.afterCommit( () -> publish( message ) );
+  }
+
+  /**
+   * Like {@link #invalidate}, with one commit hook and one broadcast for every
+   * entry that a bulk change touched.
+   */
+  public void invalidateAll ( CacheRegion region, Collection<Long> ids ) {
+    if ( ids.isEmpty() ) {
+      return;
+    }
+    StringBuilder message = new StringBuilder()
+      .append( nodeId )
+      .append( ' ' )
+      .append( region )
+      .append( ' ' );
+    for ( Long id : ids ) {
+      message
+        .append( id )
+        .append( ',' );
+    }
+    message.setLength( message.length() - 1 );
+    TransactionHooks.afterCommit( () -> publish( message.toString() ) );
+  }
+
+  private void publish ( String message ) {
+    try {
+      coordinationStore.publish(
+        CHANNEL,
+        message
+      );
+    } catch ( RuntimeException e ) {
+      // The change is committed; other replicas keep the old entry until it expires or changes again
+      logger.error(
+        "Failed to broadcast invalidation {}",
+        message,
+        e
+      );
+    }
+  }
+
+  private void resync () {
+    List<Runnable> regions;
+    synchronized ( this ) {
+      regions = List.copyOf( resyncs.values() );
+    }
+    logger.warn( "Invalidations may have been missed, dropping every cached region" );
+    for ( Runnable region : regions ) {
+      region.run();
+    }
+  }
+
+  private void onMessage ( String message ) {
+    String[] parts = message.split( " " );
+    if ( parts.length != 3 || nodeId.equals( parts[ 0 ] ) ) {
+      return;
+    }
+
+    LongConsumer handler;
+    synchronized ( this ) {
+      handler = handlers.get( CacheRegion.valueOf( parts[ 1 ] ) );
+    }
+    if ( handler != null ) {
+      for ( String id : parts[ 2 ].split( "," ) ) {
+        handler.accept( Long.parseLong( id ) );
+      }
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package org.library.coordination;
+
+public enum CacheRegion {
+  USER,
+  BOOK,
+  AUTHOR,
+  RESERVATION,
+  LOAN
+}
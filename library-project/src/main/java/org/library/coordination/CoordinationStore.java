@@ -0,0 +1,37 @@
+package org.library.coordination;
+
+import java.util.function.Consumer;
+
+/**
+ * State shared by all replicas of the application. Implementations must be safe
+ * to call from any thread.
+ */
+public interface CoordinationStore {
+
+  /**
+   * Increments a counter that resets {@code windowMillis} after its first increment.
+   */
+  WindowCount incrementWindow ( String key, long windowMillis );
+
+  /**
+   * Takes back increments that did not happen after all. Does nothing once the
+   * window has reset, and never takes the count below zero.
+   */
+  void decrementWindow ( String key, long count );
+
+  /**
+   * Sends a message to every subscriber of the channel, on every replica.
+   */
+  void publish ( String channel, String message );
+
+  void subscribe ( String channel, Consumer<String> listener );
+
+  /**
+   * Runs the listener each time subscriptions are re-established after they
+   * were lost. Messages published in between were not delivered.
+   */
+  void onResubscribe ( Runnable listener );
+
+  record WindowCount( long count, long resetMillis ) {
+  }
+}
@@ -0,0 +1,101 @@
+package org.library.coordination;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Single-process store, used when the application runs as one replica and in tests.
+ */
+@Component
+@ConditionalOnProperty( name = "coordination.store", havingValue = "memory", matchIfMissing = true )
+public class InMemoryCoordinationStore implements CoordinationStore {
+  private static final Logger logger = LoggerFactory.getLogger( InMemoryCoordinationStore.class );
+
+  private final Map<String, Window> windows = new ConcurrentHashMap<>();
+  private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+  @Override
+  public WindowCount incrementWindow ( String key, long windowMillis ) {
+    long now = System.currentTimeMillis();
+    Window window = windows.compute(
+      key,
+      ( k, current ) -> {
+        if ( current == null || current.resetAt() <= now ) {
+          return new Window(
+            1,
+            now + windowMillis
+          );
+        }
+        return new Window(
+          current.count() + 1,
+          current.resetAt()
+        );
+      }
+    );
+    return new WindowCount(
+      window.count(),
+      window.resetAt() - now
+    );
+  }
+
+  @Override
+  public void decrementWindow ( String key, long count ) {
+    long now = System.currentTimeMillis();
+    windows.computeIfPresent(
+      key,
+      ( k, current ) -> current.resetAt() <= now ? current : new Window(
+        Math.max(
+          0,
+          current.count() - count
+        ),
+        current.resetAt()
+      )
+    );
+  }
+
+  @Override
+  public void onResubscribe ( Runnable listener ) {
+    // Subscriptions live in this process and are never lost
+  }
+
+  @Override
+  public void publish ( String channel, String message ) {
+    for ( Consumer<String> listener : listeners.getOrDefault( channel, List.of() ) ) {
+      try {
+        listener.accept( message );
+      } catch ( Exception e ) {
+        logger.error(
+          "Listener of channel {} failed",
+          channel,
+          e
+        );
+      }
+    }
+  }
+
+  @Override
+  public void subscribe ( String channel, Consumer<String> listener ) {
+    listeners.computeIfAbsent(
+      channel,
+      key -> new CopyOnWriteArrayList<>()
+    ).add( listener );
+  }
+
+  @Scheduled( fixedDelay = 60_000 )
+  public void evictExpired () {
+    long now = System.currentTimeMillis();
+    windows.values().removeIf( window -> window.resetAt() <= now );
+  }
+
+  private record Window( long count, long resetAt ) {
+  }
+}
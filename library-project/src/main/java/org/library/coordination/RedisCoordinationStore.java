@@ -0,0 +1,219 @@
+package org.library.coordination;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Store backed by Redis, through the connection Spring Boot configures from
+ * {@code spring.data.redis.*}. Window counters are updated by one script, so
+ * the increment and its expiry are atomic. Subscriptions share one connection
+ * that the driver re-establishes, with all its channels, whenever it drops;
+ * once every channel is subscribed again the {@link #onResubscribe} listeners
+ * run, since messages sent meanwhile are lost.
+ */
+@Component
+@ConditionalOnProperty( name = "coordination.store", havingValue = "redis" )
+public class RedisCoordinationStore implements CoordinationStore, MessageListener, SubscriptionListener {
+  private static final Logger logger = LoggerFactory.getLogger( RedisCoordinationStore.class );
+
+  /**
+   * Increments the counter and starts its window if it has none, which is the
+   * case for a new counter. Returns the count and the milliseconds left.
+   */
+  @SuppressWarnings( "rawtypes" )
+  static final RedisScript<List> INCREMENT_WINDOW = RedisScript.of(
+    """
+      local count = redis.call('INCR', KEYS[1])
+      local ttl = redis.call('PTTL', KEYS[1])
+      if ttl < 0 then
+        ttl = tonumber(ARGV[1])
+        redis.call('PEXPIRE', KEYS[1], ttl)
+      end
+      return { count, ttl }
+      """,
+    List.class
+  );
+
+  /**
+   * Decrements a counter that has not expired yet, down to zero at most.
+   */
+  static final RedisScript<Long> DECREMENT_WINDOW = RedisScript.of(
+    """
+      local count = tonumber(redis.call('GET', KEYS[1]))
+      if not count then
+        return 0
+      end
+      local taken = math.min(count, tonumber(ARGV[1]))
+      return redis.call('DECRBY', KEYS[1], taken)
+      """,
+    Long.class
+  );
+
+  private final StringRedisTemplate redis;
+  private final RedisMessageListenerContainer container;
+  private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+  private final Set<String> subscribedBefore = ConcurrentHashMap.newKeySet();
+  private final List<Runnable> resubscribeListeners = new CopyOnWriteArrayList<>();
+
+  @Autowired
+  public RedisCoordinationStore ( StringRedisTemplate redis, RedisConnectionFactory connectionFactory ) {
+    this(
+      redis,
+      listenerContainer( connectionFactory )
+    );
+  }
+
+  RedisCoordinationStore ( StringRedisTemplate redis, RedisMessageListenerContainer container ) {
+    this.redis = redis;
+    this.container = container;
+  }
+
+  @Override
+  public WindowCount incrementWindow ( String key, long windowMillis ) {
+    List<?> replies = redis.execute(
+      INCREMENT_WINDOW,
+      List.of( key ),
+      String.valueOf( windowMillis )
+    );
+    return new WindowCount(
+      (Long) replies.get( 0 ),
+      (Long) replies.get( 1 )
+    );
+  }
+
+  @Override
+  public void decrementWindow ( String key, long count ) {
+    redis.execute(
+      DECREMENT_WINDOW,
+      List.of( key ),
+      String.valueOf( count )
+    );
+  }
+
+  @Override
+  public void publish ( String channel, String message ) {
+    redis.convertAndSend(
+      channel,
+      message
+    );
+  }
+
+  @Override
+  public void subscribe ( String channel, Consumer<String> listener ) {
+    boolean added = listeners.putIfAbsent(
+      channel,
+      new CopyOnWriteArrayList<>()
+    ) == null;
+    listeners.get( channel ).add( listener );
+    if ( added ) {
+      container.addMessageListener(
+        this,
+        new ChannelTopic( channel )
+      );
+    }
+  }
+
+  @Override
+  public void onResubscribe ( Runnable listener ) {
+    resubscribeListeners.add( listener );
+  }
+
+  @Override
+  public void onMessage ( Message message, byte[] pattern ) {
+    String channel = new String(
+      message.getChannel(),
+      StandardCharsets.UTF_8
+    );
+    String body = new String(
+      message.getBody(),
+      StandardCharsets.UTF_8
+    );
+    for ( Consumer<String> listener : listeners.getOrDefault( channel, List.of() ) ) {
+      try {
+        listener.accept( body );
+      } catch ( Exception e ) {
+        logger.error(
+          "Listener of channel {} failed",
+          channel,
+          e
+        );
+      }
+    }
+  }
+
+  /**
+   * Called for each channel the server confirms. A channel confirmed a second
+   * time was subscribed again after the connection dropped, and once the count
+   * covers every channel all of them are back.
+   */
+  @Override
+  public void onChannelSubscribed ( byte[] channel, long count ) {
+    String name = new String(
+      channel,
+      StandardCharsets.UTF_8
+    );
+    if ( !subscribedBefore.add( name ) && count == listeners.size() ) {
+      logger.info( "Subscriptions re-established" );
+      resubscribed();
+    }
+  }
+
+  @PreDestroy
+  public void close () throws Exception {
+    container.destroy();
+  }
+
+  private void resubscribed () {
+    for ( Runnable listener : resubscribeListeners ) {
+      try {
+        listener.run();
+      } catch ( Exception e ) {
+        logger.error(
+          "Resubscribe listener failed",
+          e
+        );
+      }
+    }
+  }
+
+  /**
+   * Messages are handled one at a time and in order on a thread of their own,
+   * as listeners may block and must not hold up the driver's I/O threads.
+   */
+  private static RedisMessageListenerContainer listenerContainer ( RedisConnectionFactory connectionFactory ) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize( 1 );
+    executor.setMaxPoolSize( 1 );
+    executor.setThreadNamePrefix( "coordination-subscriber-" );
+    executor.setDaemon( true );
+    executor.initialize();
+
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory( connectionFactory );
+    container.setTaskExecutor( executor );
+    container.afterPropertiesSet();
+    container.start();
+    return container;
+  }
+}
@@ -0,0 +1,42 @@
+package org.library.exception;
+
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Expected business error such as a missing or duplicate entity. These are
+ * thrown on hot paths (including by clients probing random ids), so no stack
+ * trace is captured and the response body is reused where the message is fixed.
+ */
+public class DomainException extends ResponseStatusException {
+  private final ErrorCode errorCode;
+  private final transient ErrorResponseDto response;
+
+  DomainException ( ErrorCode errorCode, String reason, ErrorResponseDto response ) {
+    super(
+      errorCode.getStatus(),
+      reason
+    );
+    this.errorCode = errorCode;
+    this.response = response;
+  }
+
+  public ErrorCode getErrorCode () {
+    return errorCode;
+  }
+
+  public ErrorResponseDto toErrorResponse () {
+    if ( response != null ) {
+      return response;
+    }
+    return new ErrorResponseDto(
+      getStatusCode().value(),
+      getReason(),
+      null
+    );
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace () {
+    return this;
+  }
+}
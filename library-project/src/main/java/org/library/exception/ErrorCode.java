@@ -0,0 +1,64 @@
+package org.library.exception;
+
+import org.springframework.http.HttpStatus;
+
+import static org.springframework.http.HttpStatus.*;
+
+/**
+ * Cached status and message templates for the expected error paths. Codes
+ * without a detail part carry a preallocated response body.
+ */
+public enum ErrorCode {
+  BOOK_NOT_FOUND( NOT_FOUND, "Book not found with id: ", "" ),
+  BOOK_DUPLICATE( CONFLICT, "Book with the same title already exists", null ),
+  AUTHOR_NOT_FOUND( NOT_FOUND, "Author not found with id: ", "" ),
+  AUTHOR_DUPLICATE( CONFLICT, "Author with the same name already exists", null ),
+  USER_NOT_FOUND( NOT_FOUND, "User not found with id: ", "" ),
+  USER_NOT_FOUND_BY_EMAIL( NOT_FOUND, "User not found with email: ", "" ),
+  USER_DUPLICATE( CONFLICT, "User with the email ", " already exists" ),
+  PROFILE_NOT_FOUND( NOT_FOUND, "Such user doesn't exist", null ),
+  ORDER_NOT_FOUND( NOT_FOUND, "Order not found", null ),
+  RESERVATION_NOT_FOUND( NOT_FOUND, "Reservation not found", null ),
+  RESERVATION_DUPLICATE( CONFLICT, "You already have a reservation for this book", null ),
+  LOAN_LIMIT_REACHED( BAD_REQUEST, "You have reached your limit of active loans", null ),
+  BORROW_RATE_EXCEEDED( TOO_MANY_REQUESTS, "You are borrowing too often, please try again later", null );
+
+  private final HttpStatus status;
+  private final String prefix;
+  private final String suffix;
+  private final ErrorResponseDto response;
+
+  ErrorCode ( HttpStatus status, String prefix, String suffix ) {
+    this.status = status;
+    this.prefix = prefix;
+    this.suffix = suffix;
+    this.response = suffix == null ? new ErrorResponseDto(
+      status.value(),
+      prefix,
+      null
+    ) : null;
+  }
+
+  public HttpStatus getStatus () {
+    return status;
+  }
+
+  public DomainException exception () {
+    return new DomainException(
+      this,
+      prefix,
+      response
+    );
+  }
+
+  public DomainException exception ( Object detail ) {
+    if ( suffix == null ) {
+      return exception();
+    }
+    return new DomainException(
+      this,
+      prefix + detail + suffix,
+      null
+    );
+  }
+}
@@ -0,0 +1,16 @@
+package org.library.exception;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+@JsonInclude( JsonInclude.Include.NON_NULL )
+public class ErrorResponseDto {
+  private final int status;
+  private final String message;
+  private final Map<String, String> errors;
+}
@@ -17,39 +17,35 @@ import java.util.Map;
 public class GlobalExceptionHandler {
 
   @ExceptionHandler(MethodArgumentNotValidException.class)
-  public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
+  public ResponseEntity<ErrorResponseDto> handleValidationExceptions(MethodArgumentNotValidException ex) {
     BindingResult bindingResult = ex.getBindingResult();
     List<FieldError> fieldErrors = bindingResult.getFieldErrors();
 
-    Map<String, Object> errorResponse = new HashMap<>();
-    errorResponse.put("status", HttpStatus.BAD_REQUEST.value());
-
     Map<String, String> errorMap = new HashMap<>();
     for (FieldError fieldError : fieldErrors) {
       String errorMessage = fieldError.getDefaultMessage() != null ? fieldError.getDefaultMessage() : "Invalid value for " + fieldError.getField();
       errorMap.put(fieldError.getField(), errorMessage);
     }
 
-    errorResponse.put("errors", errorMap);
-    return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    return new ResponseEntity<>(new ErrorResponseDto(HttpStatus.BAD_REQUEST.value(), null, errorMap), HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(DomainException.class)
+  public ResponseEntity<ErrorResponseDto> handleDomainException(DomainException ex) {
+    return new ResponseEntity<>(ex.toErrorResponse(), ex.getStatusCode());
   }
 
   @ExceptionHandler(ResponseStatusException.class)
-  public ResponseEntity<Map<String, Object>> handleResponseStatusException(ResponseStatusException ex) {
-    Map<String, Object> errorResponse = new HashMap<>();
-    errorResponse.put("status", ex.getStatusCode().value());
-    errorResponse.put("message", ex.getReason() != null ? ex.getReason() :
-                                 "An unexpected error occurred");
+  public ResponseEntity<ErrorResponseDto> handleResponseStatusException(ResponseStatusException ex) {
+    String message = ex.getReason() != null ? ex.getReason() : "An unexpected error occurred";
 
-    return new ResponseEntity<>(errorResponse, ex.getStatusCode());
+    return new ResponseEntity<>(new ErrorResponseDto(ex.getStatusCode().value(), message, null), ex.getStatusCode());
   }
 
   @ExceptionHandler(Exception.class)
-  public ResponseEntity<Map<String, Object>> handleException(Exception ex) {
-    Map<String, Object> errorResponse = new HashMap<>();
-    errorResponse.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
-    errorResponse.put("message", ex.getMessage() != null ? ex.getMessage() : "An unexpected error occurred");
+  public ResponseEntity<ErrorResponseDto> handleException(Exception ex) {
+    String message = ex.getMessage() != null ? ex.getMessage() : "An unexpected error occurred";
 
-    return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+    return new ResponseEntity<>(new ErrorResponseDto(HttpStatus.INTERNAL_SERVER_ERROR.value(), message, null), HttpStatus.INTERNAL_SERVER_ERROR);
   }
 }
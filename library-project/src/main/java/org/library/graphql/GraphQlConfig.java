@@ -0,0 +1,47 @@
+package org.library.graphql;
+
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Rejects queries before execution when they nest too deep or would resolve too
+ * many fields. Every list field returns at most its {@code first} argument
+ * elements, so its selection costs that many times over.
+ */
+@Configuration
+public class GraphQlConfig {
+
+  @Value( "${graphql.limits.max-depth}" )
+  private int maxDepth;
+
+  @Value( "${graphql.limits.max-complexity}" )
+  private int maxComplexity;
+
+  @Bean
+  public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation () {
+    return new MaxQueryDepthInstrumentation( maxDepth );
+  }
+
+  @Bean
+  public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation () {
+    return new MaxQueryComplexityInstrumentation(
+      maxComplexity,
+      ( environment, childComplexity ) -> {
+        if ( !( environment.getArguments().get( "first" ) instanceof Integer first ) ) {
+          return 1 + childComplexity;
+        }
+        // Capped just above the limit, so huge pages cannot overflow the sum
+        return (int) Math.min(
+          1 + (long) childComplexity * Math.max(
+            first,
+            0
+          ),
+          maxComplexity + 1L
+        );
+      }
+    );
+  }
+}
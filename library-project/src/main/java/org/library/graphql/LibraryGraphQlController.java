@@ -0,0 +1,167 @@
+package org.library.graphql;
+
+import org.dataloader.DataLoader;
+import org.library.author.AuthorService;
+import org.library.author.dto.AuthorResponseDto;
+import org.library.book.BookService;
+import org.library.book.dto.BookResponseDto;
+import org.library.order.OrderService;
+import org.library.order.dto.OrderRowDto;
+import org.library.user.UserService;
+import org.library.user.dto.UserResponseDto;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * GraphQL reads over the existing services. Nested users, books, authors and
+ * author books are resolved through per-request data loaders, so each of them
+ * costs one batched lookup per request no matter how many parents reference
+ * them, and an id already loaded in the request is not loaded again. Lists
+ * return their first {@code first} elements.
+ */
+@Controller
+public class LibraryGraphQlController {
+  private final BookService bookService;
+  private final AuthorService authorService;
+  private final UserService userService;
+  private final OrderService orderService;
+
+  public LibraryGraphQlController (
+    BookService bookService,
+    AuthorService authorService,
+    UserService userService,
+    OrderService orderService,
+    BatchLoaderRegistry registry
+  ) {
+    this.bookService = bookService;
+    this.authorService = authorService;
+    this.userService = userService;
+    this.orderService = orderService;
+
+    registry
+      .forTypePair(
+        Long.class,
+        UserResponseDto.class
+      )
+      .registerMappedBatchLoader( ( ids, environment ) -> Mono.fromCallable( () -> userService.getAllByIds( ids ) ) );
+    registry
+      .forTypePair(
+        Long.class,
+        BookResponseDto.class
+      )
+      .registerMappedBatchLoader( ( ids, environment ) -> Mono.fromCallable( () -> bookService.getAllByIds( ids ) ) );
+    registry
+      .forTypePair(
+        Long.class,
+        AuthorResponseDto.class
+      )
+      .registerMappedBatchLoader( ( ids, environment ) -> Mono.fromCallable( () -> authorService.getAllByIds( ids ) ) );
+    registry
+      .<Long, List<BookResponseDto>>forName( "booksByAuthor" )
+      .registerMappedBatchLoader( ( ids, environment ) -> Mono.fromCallable( () -> bookService.getAllByAuthorIds( ids ) ) );
+  }
+
+  @QueryMapping
+  public List<BookResponseDto> books ( @Argument int first ) {
+    return page(
+      bookService.getAll(),
+      first
+    );
+  }
+
+  @QueryMapping
+  public BookResponseDto book ( @Argument Long id ) {
+    return bookService.getById( id );
+  }
+
+  @QueryMapping
+  public List<AuthorResponseDto> authors ( @Argument int first ) {
+    return page(
+      authorService.getAll(),
+      first
+    );
+  }
+
+  @QueryMapping
+  public AuthorResponseDto author ( @Argument Long id ) {
+    return authorService.getById( id );
+  }
+
+  @QueryMapping
+  @PreAuthorize( "isAuthenticated()" )
+  public UserResponseDto me ( @AuthenticationPrincipal UserResponseDto currentUser ) {
+    return currentUser;
+  }
+
+  @QueryMapping
+  @PreAuthorize( "isAuthenticated()" )
+  public List<OrderRowDto> myOrders ( @AuthenticationPrincipal UserResponseDto currentUser, @Argument int first ) {
+    return orderService.getRowsByUserId(
+      currentUser.getId(),
+      Math.max(
+        first,
+        0
+      )
+    );
+  }
+
+  @QueryMapping
+  @PreAuthorize( "hasRole('ADMIN')" )
+  public List<OrderRowDto> orders ( @Argument int first ) {
+    return orderService.getAllRows( Math.max(
+      first,
+      0
+    ) );
+  }
+
+  @SchemaMapping( typeName = "Order", field = "user" )
+  public CompletableFuture<UserResponseDto> orderUser ( OrderRowDto order, DataLoader<Long, UserResponseDto> users ) {
+    return order.getUserId() != null ? users.load( order.getUserId() ) : CompletableFuture.completedFuture( null );
+  }
+
+  @SchemaMapping( typeName = "Order", field = "book" )
+  public CompletableFuture<BookResponseDto> orderBook ( OrderRowDto order, DataLoader<Long, BookResponseDto> books ) {
+    return order.getBookId() != null ? books.load( order.getBookId() ) : CompletableFuture.completedFuture( null );
+  }
+
+  @SchemaMapping( typeName = "Book", field = "author" )
+  public CompletableFuture<AuthorResponseDto> bookAuthor ( BookResponseDto book, DataLoader<Long, AuthorResponseDto> authors ) {
+    return book.getAuthor() != null ? authors.load( book.getAuthor().getId() ) : CompletableFuture.completedFuture( null );
+  }
+
+  @SchemaMapping( typeName = "Author", field = "books" )
+  public CompletableFuture<List<BookResponseDto>> authorBooks (
+    AuthorResponseDto author,
+    @Argument int first,
+    DataLoader<Long, List<BookResponseDto>> booksByAuthor
+  ) {
+    return booksByAuthor
+      .load( author.getId() )
+      .thenApply( books -> page(
+        books,
+        first
+      ) );
+  }
+
+  private static <T> List<T> page ( List<T> elements, int first ) {
+    if ( elements == null || elements.size() <= first ) {
+      return elements;
+    }
+    return elements.subList(
+      0,
+      Math.max(
+        first,
+        0
+      )
+    );
+  }
+}
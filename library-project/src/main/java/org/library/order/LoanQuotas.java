@@ -0,0 +1,515 @@
+package org.library.order;
+
+import jakarta.annotation.PostConstruct;
+import org.library.auth.enums.Role;
+import org.library.coordination.CacheInvalidator;
+import org.library.coordination.CacheRegion;
+import org.library.coordination.CoordinationStore;
+import org.library.exception.ErrorCode;
+import org.library.order.dto.UserLoanCountDto;
+import org.library.ratelimit.TokenBucket;
+import org.library.transaction.TransactionHooks;
+import org.library.user.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-role limits on how many books a reader may have out at once and how often
+ * they may borrow.
+ * <p>
+ * Active loans are counted in memory per user, loaded with one query on first
+ * use, so a borrow over the limit is refused without touching the database. A
+ * borrow reserves its slots under the user's lock before the order is written;
+ * they become loans when the transaction commits and are given back when it
+ * rolls back. Returned, cancelled and deleted loans are released after commit,
+ * and other replicas reload the count of a user when it changes here.
+ * <p>
+ * The memory only rejects early. The authoritative count is the user's
+ * {@code ACTIVE_LOANS} column, which a borrow raises with one conditional
+ * update in its own transaction, so borrows of one user on different replicas
+ * can never exceed the limit together. The
+ * borrow rate is a {@link TokenBucket} per user and replica in front of a daily
+ * window shared through the {@link CoordinationStore}, like the request rate
+ * limit. Borrows that end up not being made, because they are refused, given
+ * back or rolled back, return what they took from both.
+ */
+@Component
+public class LoanQuotas {
+  private static final Logger logger = LoggerFactory.getLogger( LoanQuotas.class );
+  private static final long RATE_WINDOW_MILLIS = TimeUnit.DAYS.toMillis( 1 );
+
+  private final Map<Long, Loans> loans = new ConcurrentHashMap<>();
+  private final Map<Role, Policy> policies = new EnumMap<>( Role.class );
+  private final UserRepository userRepository;
+  private final CacheInvalidator cacheInvalidator;
+  private final CoordinationStore coordinationStore;
+
+  private volatile boolean loaded;
+
+  public LoanQuotas (
+    UserRepository userRepository,
+    CacheInvalidator cacheInvalidator,
+    CoordinationStore coordinationStore,
+    @Value( "${order.quota.user.max-active}" ) int userMaxActive,
+    @Value( "${order.quota.user.borrows-per-day}" ) long userBorrowsPerDay,
+    @Value( "${order.quota.admin.max-active}" ) int adminMaxActive,
+    @Value( "${order.quota.admin.borrows-per-day}" ) long adminBorrowsPerDay
+  ) {
+    this.userRepository = userRepository;
+    this.cacheInvalidator = cacheInvalidator;
+    this.coordinationStore = coordinationStore;
+    policies.put(
+      Role.USER,
+      new Policy(
+        userMaxActive,
+        userBorrowsPerDay
+      )
+    );
+    policies.put(
+      Role.ADMIN,
+      new Policy(
+        adminMaxActive,
+        adminBorrowsPerDay
+      )
+    );
+  }
+
+  @PostConstruct
+  void subscribeToInvalidations () {
+    cacheInvalidator.register(
+      CacheRegion.LOAN,
+      userId -> {
+        if ( loaded ) {
+          loansOf( userId ).refresh( userRepository
+            .findActiveLoansById( userId )
+            .orElse( 0 ) );
+        }
+      },
+      this::invalidate
+    );
+  }
+
+  /**
+   * Reserves up to {@code requested} loans for the user in the current
+   * transaction, as many as both limits allow. Locks the user's row until the
+   * transaction ends when anything is granted.
+   */
+  public Grant acquire ( Long userId, String role, int requested ) {
+    ensureLoaded();
+    Policy policy = policyOf( role );
+    Loans userLoans = loansOf( userId );
+
+    int granted;
+    ErrorCode refusal = null;
+    synchronized ( userLoans ) {
+      granted = Math.min(
+        requested,
+        Math.max(
+          0,
+          policy.maxActive() - userLoans.active - userLoans.pending
+        )
+      );
+      if ( granted < requested ) {
+        refusal = ErrorCode.LOAN_LIMIT_REACHED;
+      }
+
+      TokenBucket rate = userLoans.rate( policy );
+      long now = System.nanoTime();
+      for ( int taken = 0; taken < granted; taken++ ) {
+        if ( rate.tryAcquire( now ) > 0 ) {
+          granted = taken;
+          refusal = ErrorCode.BORROW_RATE_EXCEEDED;
+          break;
+        }
+      }
+      userLoans.pending += granted;
+    }
+
+    Grant grant = new Grant(
+      this,
+      userId,
+      userLoans,
+      granted,
+      refusal
+    );
+    if ( granted > 0 ) {
+      TransactionHooks.afterCompletion( grant::settle );
+      enforce(
+        userId,
+        policy,
+        grant
+      );
+      cacheInvalidator.invalidate(
+        CacheRegion.LOAN,
+        userId
+      );
+    }
+    return grant;
+  }
+
+  /**
+   * Ends {@code count} loans of the user in the current transaction. The
+   * counters in memory follow once it commits.
+   */
+  public void release ( Long userId, int count ) {
+    userRepository.removeActiveLoans(
+      userId,
+      count
+    );
+    TransactionHooks.afterCommit( () -> {
+      if ( !loaded ) {
+        // Nothing counted yet, the first use loads the committed state
+        return;
+      }
+      Loans userLoans = loansOf( userId );
+      synchronized ( userLoans ) {
+        userLoans.active = Math.max(
+          0,
+          userLoans.active - count
+        );
+      }
+    } );
+    cacheInvalidator.invalidate(
+      CacheRegion.LOAN,
+      userId
+    );
+  }
+
+  public int activeLoans ( Long userId ) {
+    ensureLoaded();
+    Loans userLoans = loansOf( userId );
+    synchronized ( userLoans ) {
+      return userLoans.active;
+    }
+  }
+
+  /**
+   * Checks the grant against the borrows of the user counted by every replica
+   * today, and against the loans committed on all of them.
+   */
+  private void enforce ( Long userId, Policy policy, Grant grant ) {
+    countBorrows(
+      userId,
+      policy,
+      grant
+    );
+
+    // Borrows of the user on other replicas wait on the updated row until this transaction ends
+    int allowed = grant.granted();
+    while ( allowed > 0 && userRepository.addActiveLoans(
+      userId,
+      allowed,
+      policy.maxActive()
+    ) == 0 ) {
+      int active = userRepository
+        .findActiveLoansById( userId )
+        .orElse( policy.maxActive() );
+      allowed = Math.min(
+        allowed - 1,
+        Math.max(
+          0,
+          policy.maxActive() - active
+        )
+      );
+    }
+    if ( allowed < grant.granted() ) {
+      grant.refuse(
+        grant.granted() - allowed,
+        ErrorCode.LOAN_LIMIT_REACHED
+      );
+    }
+    grant.book( allowed );
+  }
+
+  private void countBorrows ( Long userId, Policy policy, Grant grant ) {
+    try {
+      while ( grant.counted() < grant.granted() ) {
+        if ( coordinationStore.incrementWindow(
+          rateKey( userId ),
+          RATE_WINDOW_MILLIS
+        ).count() > policy.borrowsPerDay() ) {
+          // A refused borrow does not use up the window
+          uncount(
+            userId,
+            1
+          );
+          break;
+        }
+        grant.count();
+      }
+    } catch ( RuntimeException e ) {
+      logger.warn(
+        "Shared borrow rate unavailable, applying the local limit only",
+        e
+      );
+      return;
+    }
+    if ( grant.counted() < grant.granted() ) {
+      grant.refuse(
+        grant.granted() - grant.counted(),
+        ErrorCode.BORROW_RATE_EXCEEDED
+      );
+    }
+  }
+
+  /**
+   * Takes loans that were not made out of the user's count in the current
+   * transaction.
+   */
+  private void unbook ( Long userId, int count ) {
+    if ( count > 0 ) {
+      userRepository.removeActiveLoans(
+        userId,
+        count
+      );
+    }
+  }
+
+  /**
+   * Takes back borrows counted in the shared window that were not made.
+   */
+  private void uncount ( Long userId, int count ) {
+    if ( count == 0 ) {
+      return;
+    }
+    try {
+      coordinationStore.decrementWindow(
+        rateKey( userId ),
+        count
+      );
+    } catch ( RuntimeException e ) {
+      logger.warn(
+        "Could not give back {} borrows of user {} to the shared borrow rate",
+        count,
+        userId,
+        e
+      );
+    }
+  }
+
+  private static String rateKey ( Long userId ) {
+    return "loan-rate:" + userId;
+  }
+
+  /**
+   * Forgets the counted loans; the next use counts them again. Reserved loans of
+   * running transactions are kept.
+   */
+  private synchronized void invalidate () {
+    loaded = false;
+  }
+
+  private void ensureLoaded () {
+    if ( loaded ) {
+      return;
+    }
+
+    synchronized ( this ) {
+      if ( !loaded ) {
+        for ( Loans userLoans : loans.values() ) {
+          userLoans.refresh( 0 );
+        }
+        for ( UserLoanCountDto count : userRepository.findActiveLoanCounts() ) {
+          loansOf( count.getUserId() ).refresh( count.getActiveLoans() );
+        }
+        loaded = true;
+      }
+    }
+  }
+
+  private Loans loansOf ( Long userId ) {
+    return loans.computeIfAbsent(
+      userId,
+      id -> new Loans()
+    );
+  }
+
+  private Policy policyOf ( String role ) {
+    for ( Role candidate : Role.values() ) {
+      if ( candidate.name().equals( role ) ) {
+        return policies.get( candidate );
+      }
+    }
+    return policies.get( Role.USER );
+  }
+
+  /**
+   * Loans reserved for one transaction. They turn into active loans when it
+   * commits and are given back when it rolls back. Each granted loan holds a
+   * token of the user's bucket, the first {@code counted} are also counted in
+   * the shared window and the first {@code booked} in the user's row; all are
+   * returned with the loan, the row by the rollback itself.
+   */
+  public static final class Grant {
+    private final LoanQuotas quotas;
+    private final Long userId;
+    private final Loans loans;
+    private ErrorCode refusal;
+    private int granted;
+    private int counted;
+    private int booked;
+    private boolean settled;
+
+    Grant ( LoanQuotas quotas, Long userId, Loans loans, int granted, ErrorCode refusal ) {
+      this.quotas = quotas;
+      this.userId = userId;
+      this.loans = loans;
+      this.granted = granted;
+      this.refusal = refusal;
+    }
+
+    public int granted () {
+      synchronized ( loans ) {
+        return granted;
+      }
+    }
+
+    /**
+     * The limit that was reached when fewer loans were granted than requested.
+     */
+    public ErrorCode refusal () {
+      synchronized ( loans ) {
+        return refusal;
+      }
+    }
+
+    /**
+     * Gives back reserved loans that the transaction will not use after all.
+     */
+    public void giveBack ( int count ) {
+      int uncounted;
+      int unbooked;
+      synchronized ( loans ) {
+        uncounted = take( count );
+        unbooked = Math.max(
+          0,
+          booked - granted
+        );
+        booked -= unbooked;
+      }
+      quotas.unbook(
+        userId,
+        unbooked
+      );
+      quotas.uncount(
+        userId,
+        uncounted
+      );
+    }
+
+    private int counted () {
+      synchronized ( loans ) {
+        return counted;
+      }
+    }
+
+    private void count () {
+      synchronized ( loans ) {
+        counted++;
+      }
+    }
+
+    private void book ( int count ) {
+      synchronized ( loans ) {
+        booked = count;
+      }
+    }
+
+    private void refuse ( int count, ErrorCode reason ) {
+      int uncounted;
+      synchronized ( loans ) {
+        uncounted = take( count );
+        refusal = reason;
+      }
+      quotas.uncount(
+        userId,
+        uncounted
+      );
+    }
+
+    private void settle ( boolean committed ) {
+      int uncounted = 0;
+      synchronized ( loans ) {
+        if ( committed ) {
+          loans.pending -= granted;
+          loans.active += granted;
+        } else {
+          uncounted = take( granted );
+          booked = 0;
+        }
+        settled = true;
+      }
+      quotas.uncount(
+        userId,
+        uncounted
+      );
+    }
+
+    /**
+     * Drops up to {@code count} granted loans and returns their tokens. Returns
+     * how many of them were counted in the shared window, which the caller
+     * takes back outside the lock.
+     */
+    private int take ( int count ) {
+      int returned = Math.min(
+        count,
+        granted
+      );
+      if ( returned == 0 ) {
+        return 0;
+      }
+      granted -= returned;
+      if ( !settled ) {
+        loans.pending -= returned;
+      } else {
+        // Outside a transaction the loans were counted right away
+        loans.active -= returned;
+      }
+      loans.rate.giveBack( returned );
+
+      int uncounted = Math.max(
+        0,
+        counted - granted
+      );
+      counted -= uncounted;
+      return uncounted;
+    }
+  }
+
+  private record Policy( int maxActive, long borrowsPerDay ) {
+    TokenBucket newBucket () {
+      return new TokenBucket(
+        borrowsPerDay,
+        TimeUnit.DAYS.toNanos( 1 ) / borrowsPerDay
+      );
+    }
+  }
+
+  /**
+   * Loans of one user. {@code active} are committed, {@code pending} reserved by
+   * transactions still running.
+   */
+  private static final class Loans {
+    private int active;
+    private int pending;
+    private TokenBucket rate;
+
+    synchronized TokenBucket rate ( Policy policy ) {
+      if ( rate == null ) {
+        rate = policy.newBucket();
+      }
+      return rate;
+    }
+
+    synchronized void refresh ( int count ) {
+      active = count;
+    }
+  }
+}
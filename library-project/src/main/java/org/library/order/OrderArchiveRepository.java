@@ -0,0 +1,63 @@
+package org.library.order;
+
+import jakarta.persistence.QueryHint;
+import org.library.order.dto.OrderRowDto;
+import org.library.order.model.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface OrderArchiveRepository extends JpaRepository<ArchivedOrder, Long> {
+
+  @Query( """
+    select new org.library.order.dto.OrderRowDto(
+      a.id, a.name, a.borrowDate, a.returnDate, a.dueDate, a.status, a.userId, a.bookId
+    )
+    from ArchivedOrder a
+    order by a.createdAt desc
+    """ )
+  @QueryHints( @QueryHint( name = HINT_FETCH_SIZE, value = "500" ) )
+  Stream<OrderRowDto> streamAllRows ();
+
+  @Query( """
+    select new org.library.order.dto.OrderRowDto(
+      a.id, a.name, a.borrowDate, a.returnDate, a.dueDate, a.status, a.userId, a.bookId
+    )
+    from ArchivedOrder a
+    where a.userId = :userId
+    order by a.createdAt desc
+    """ )
+  @QueryHints( @QueryHint( name = HINT_FETCH_SIZE, value = "500" ) )
+  Stream<OrderRowDto> streamRowsByUserId ( @Param( "userId" ) Long userId );
+
+  /**
+   * Copies the given orders into the archive in a single INSERT ... SELECT.
+   * Returns how many rows were copied.
+   */
+  @Modifying
+  @Query( """
+    insert into ArchivedOrder (
+      id, createdAt, updatedAt, name, borrowDate, returnDate, dueDate, overdueAt, status, userId, bookId, archivedAt
+    )
+    select o.id, o.createdAt, o.updatedAt, o.name, o.borrowDate, o.returnDate, o.dueDate, o.overdueAt, o.status,
+      u.id, b.id, :now
+    from Order o
+    left join o.user u
+    left join o.book b
+    where o.id in :ids
+    """ )
+  int copyOrders (
+    @Param( "ids" ) Collection<Long> ids,
+    @Param( "now" ) Instant now
+  );
+}
@@ -0,0 +1,107 @@
+package org.library.order;
+
+import org.library.order.enums.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Moves returned and cancelled orders older than {@code order.archive.age} from
+ * ORDER to ORDER_ARCHIVE, so lookups on the hot table only pay for orders that
+ * can still change.
+ * <p>
+ * Orders are moved in chunks of {@code order.archive.batch-size}, each copied and
+ * deleted in its own transaction. A run can stop at any point and the next one
+ * simply picks up the orders that are still there.
+ */
+@Component
+public class OrderArchiver {
+  private static final List<OrderStatus> CLOSED = List.of(
+    OrderStatus.RETURNED,
+    OrderStatus.CANCELLED
+  );
+
+  private static final Logger logger = LoggerFactory.getLogger( OrderArchiver.class );
+
+  private final OrderRepository orderRepository;
+  private final OrderArchiveRepository orderArchiveRepository;
+  private final TransactionTemplate transaction;
+  private final long ageMillis;
+  private final int batchSize;
+
+  public OrderArchiver (
+    OrderRepository orderRepository,
+    OrderArchiveRepository orderArchiveRepository,
+    PlatformTransactionManager transactionManager,
+    @Value( "${order.archive.age}" ) long ageMillis,
+    @Value( "${order.archive.batch-size}" ) int batchSize
+  ) {
+    this.orderRepository = orderRepository;
+    this.orderArchiveRepository = orderArchiveRepository;
+    this.transaction = new TransactionTemplate( transactionManager );
+    this.ageMillis = ageMillis;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * @return how many orders this run archived
+   */
+  @Scheduled( fixedDelayString = "${order.archive.interval}" )
+  public int archive () {
+    Instant before = Instant.now().minusMillis( ageMillis );
+    int archived = 0;
+    while ( true ) {
+      Integer moved;
+      try {
+        moved = transaction.execute( status -> moveBatch( before ) );
+      } catch ( ConcurrencyFailureException | DataIntegrityViolationException e ) {
+        // Another replica archived some of the same orders, the next run goes on
+        logger.debug( "Order archiving stopped, another replica moved the same orders" );
+        break;
+      }
+      archived += moved;
+      if ( moved < batchSize ) {
+        break;
+      }
+    }
+
+    if ( archived > 0 ) {
+      logger.info(
+        "Archived {} closed orders",
+        archived
+      );
+    }
+    return archived;
+  }
+
+  private int moveBatch ( Instant before ) {
+    List<Long> ids = orderRepository.findIdsClosedBefore(
+      CLOSED,
+      before,
+      Limit.of( batchSize )
+    );
+    if ( ids.isEmpty() ) {
+      return 0;
+    }
+
+    int copied = orderArchiveRepository.copyOrders(
+      ids,
+      Instant.now()
+    );
+    int deleted = orderRepository.deleteByIds( ids );
+    if ( copied != ids.size() || deleted != ids.size() ) {
+      throw new ConcurrencyFailureException( "Orders changed while they were archived" );
+    }
+    return ids.size();
+  }
+}
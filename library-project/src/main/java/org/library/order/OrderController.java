@@ -1,11 +1,19 @@
 package org.library.order;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.library.auth.annotations.CurrentUser;
+import org.library.order.dto.OrderBatchDto;
+import org.library.order.dto.OrderBatchResultDto;
+import org.library.order.dto.OrderEventRowDto;
 import org.library.order.dto.OrderResponseDto;
+import org.library.streaming.StreamingListWriter;
 import org.library.user.dto.UserResponseDto;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -14,6 +22,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderController {
   private final OrderService orderService;
+  private final StreamingListWriter streamingListWriter;
 
   @PostMapping( "/borrow/{bookId}" )
   @ResponseStatus( HttpStatus.OK )
@@ -24,6 +33,22 @@ public class OrderController {
     );
   }
 
+  @PostMapping( "/borrow:batch" )
+  public List<OrderBatchResultDto> borrowBooks (
+    @CurrentUser UserResponseDto currentUser,
+    @RequestBody @Valid OrderBatchDto dto
+  ) {
+    return orderService.borrowBooks(
+      currentUser.getId(),
+      dto.getIds()
+    );
+  }
+
+  @PostMapping( "/return:batch" )
+  public List<OrderBatchResultDto> returnBooks ( @RequestBody @Valid OrderBatchDto dto ) {
+    return orderService.returnBooks( dto.getIds() );
+  }
+
   @PatchMapping( "/return/{orderId}" )
   @ResponseStatus( HttpStatus.OK )
   public void returnBook ( @PathVariable Long orderId ) {
@@ -37,13 +62,38 @@ public class OrderController {
   }
 
   @GetMapping
-  public List<OrderResponseDto> getAllOrders () {
-    return orderService.getAllOrders();
+  public ResponseEntity<StreamingResponseBody> getAllOrders (
+    @RequestParam( defaultValue = "false" ) boolean archived,
+    @RequestHeader( value = HttpHeaders.ACCEPT, required = false ) String accept
+  ) {
+    return streamingListWriter.<OrderResponseDto>write(
+      accept,
+      sink -> orderService.streamAllOrders(
+        archived,
+        sink
+      )
+    );
   }
 
   @GetMapping( "/my-orders" )
-  public List<OrderResponseDto> getOrdersByUser ( @CurrentUser UserResponseDto currentUser ) {
-    return orderService.getOrdersByUserId( currentUser.getId() );
+  public ResponseEntity<StreamingResponseBody> getOrdersByUser (
+    @CurrentUser UserResponseDto currentUser,
+    @RequestParam( defaultValue = "false" ) boolean archived,
+    @RequestHeader( value = HttpHeaders.ACCEPT, required = false ) String accept
+  ) {
+    return streamingListWriter.<OrderResponseDto>write(
+      accept,
+      sink -> orderService.streamOrdersByUserId(
+        currentUser.getId(),
+        archived,
+        sink
+      )
+    );
+  }
+
+  @GetMapping( "/{orderId}/history" )
+  public List<OrderEventRowDto> getHistory ( @PathVariable Long orderId ) {
+    return orderService.getHistory( orderId );
   }
 
   @DeleteMapping( "/{orderId}" )
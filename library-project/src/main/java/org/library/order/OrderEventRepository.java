@@ -0,0 +1,111 @@
+package org.library.order;
+
+import jakarta.persistence.QueryHint;
+import org.library.order.dto.OrderEventRowDto;
+import org.library.order.enums.OrderEventType;
+import org.library.order.enums.OrderStatus;
+import org.library.order.model.OrderEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+  /**
+   * Appends a {@code type} event for each of the given orders in a single
+   * INSERT ... SELECT. Returns how many events were appended.
+   */
+  @Modifying
+  @Query( """
+    insert into OrderEvent ( orderId, bookId, userId, type, occurredAt )
+    select o.id, o.book.id, o.user.id, :type, :now
+    from Order o
+    where o.id in :ids
+    """ )
+  int appendForOrders (
+    @Param( "ids" ) Collection<Long> ids,
+    @Param( "type" ) OrderEventType type,
+    @Param( "now" ) Instant now
+  );
+
+  /**
+   * Appends a {@code type} event for the order of each book that is in
+   * {@code status}, for orders created in bulk whose ids are not known yet.
+   */
+  @Modifying
+  @Query( """
+    insert into OrderEvent ( orderId, bookId, userId, type, occurredAt )
+    select o.id, o.book.id, o.user.id, :type, :now
+    from Order o
+    where o.book.id in :bookIds
+      and o.status = :status
+    """ )
+  int appendForBooks (
+    @Param( "bookIds" ) Collection<Long> bookIds,
+    @Param( "status" ) OrderStatus status,
+    @Param( "type" ) OrderEventType type,
+    @Param( "now" ) Instant now
+  );
+
+  @Query( """
+    select new org.library.order.dto.OrderEventRowDto(
+      e.id, e.orderId, e.bookId, e.userId, e.type, e.occurredAt
+    )
+    from OrderEvent e
+    where e.orderId = :orderId
+    order by e.id
+    """ )
+  List<OrderEventRowDto> findRowsByOrderId ( @Param( "orderId" ) Long orderId );
+
+  /**
+   * Next page of the log after {@code afterId}, in id order.
+   */
+  @Query( """
+    select new org.library.order.dto.OrderEventRowDto(
+      e.id, e.orderId, e.bookId, e.userId, e.type, e.occurredAt
+    )
+    from OrderEvent e
+    where e.id > :afterId
+    order by e.id
+    """ )
+  @QueryHints( @QueryHint( name = HINT_FETCH_SIZE, value = "1000" ) )
+  List<OrderEventRowDto> findRowsAfter (
+    @Param( "afterId" ) Long afterId,
+    Limit limit
+  );
+
+  /**
+   * The events among {@code ids} that exist, in id order.
+   */
+  @Query( """
+    select new org.library.order.dto.OrderEventRowDto(
+      e.id, e.orderId, e.bookId, e.userId, e.type, e.occurredAt
+    )
+    from OrderEvent e
+    where e.id in :ids
+    order by e.id
+    """ )
+  List<OrderEventRowDto> findRowsByIdIn ( @Param( "ids" ) Collection<Long> ids );
+
+  /**
+   * Id of the first event that occurred at or after {@code since}, or null when
+   * there is none.
+   */
+  @Query( """
+    select min(e.id)
+    from OrderEvent e
+    where e.occurredAt >= :since
+    """ )
+  Long findFirstIdSince ( @Param( "since" ) Instant since );
+}
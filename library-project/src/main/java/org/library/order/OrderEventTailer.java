@@ -0,0 +1,174 @@
+package org.library.order;
+
+import org.library.order.dto.OrderEventRowDto;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads the order event log forward for the projections built from it.
+ * <p>
+ * Events are read {@code batchSize} at a time by primary key, each page in its
+ * own read-only transaction. Events younger than {@code settle} milliseconds
+ * are left for the next call: ids are handed out before commit, so a newer id
+ * can become visible before an older one and reading too close to the head
+ * would skip it.
+ * <p>
+ * A transaction that takes longer than {@code settle} to commit still leaves a
+ * hole behind the position. A projection that follows the log passes its own
+ * {@link Gaps}, which remember the ids missing between recent events; every
+ * call reads them again and passes on those that have committed since. After
+ * {@link #GAP_HORIZON} a missing id is given up on, as it belonged to a
+ * transaction that rolled back or to a range of ids the database skipped.
+ */
+public class OrderEventTailer {
+  static final Duration GAP_HORIZON = Duration.ofMinutes( 10 );
+  // One IN list of ids, which is as many as Oracle takes
+  static final int MAX_GAPS = 1000;
+
+  private final OrderEventRepository orderEventRepository;
+  private final TransactionTemplate readOnlyTransaction;
+  private final int batchSize;
+  private final long settle;
+
+  public OrderEventTailer (
+    OrderEventRepository orderEventRepository,
+    PlatformTransactionManager transactionManager,
+    int batchSize,
+    long settle
+  ) {
+    this.orderEventRepository = orderEventRepository;
+    this.readOnlyTransaction = new TransactionTemplate( transactionManager );
+    this.readOnlyTransaction.setReadOnly( true );
+    this.batchSize = batchSize;
+    this.settle = settle;
+  }
+
+  /**
+   * Passes the settled events after {@code lastId}, up to and including
+   * {@code upTo}, to {@code consumer} in id order, for a one-off read of the
+   * log that does not come back for late events.
+   *
+   * @return how many events were passed on
+   */
+  public int advance ( long lastId, long upTo, Consumer<OrderEventRowDto> consumer ) {
+    return advance(
+      lastId,
+      upTo,
+      new Gaps(),
+      consumer
+    );
+  }
+
+  /**
+   * Passes the events missing from {@code gaps} that have committed since,
+   * then the settled events after {@code lastId}, up to and including
+   * {@code upTo}, in id order. Ids the read skips are added to {@code gaps}.
+   *
+   * @return how many events were passed on
+   */
+  public int advance ( long lastId, long upTo, Gaps gaps, Consumer<OrderEventRowDto> consumer ) {
+    Instant now = Instant.now();
+    int applied = refill(
+      gaps,
+      now,
+      consumer
+    );
+
+    Instant settled = now.minusMillis( settle );
+    Instant recent = now.minus( GAP_HORIZON );
+    long after = lastId;
+    while ( true ) {
+      long from = after;
+      List<OrderEventRowDto> page = readOnlyTransaction.execute( status -> orderEventRepository.findRowsAfter(
+        from,
+        Limit.of( batchSize )
+      ) );
+
+      int settledCount = 0;
+      while ( settledCount < page.size() && page.get( settledCount ).getId() <= upTo && !page
+        .get( settledCount )
+        .getOccurredAt()
+        .isAfter( settled ) ) {
+        OrderEventRowDto event = page.get( settledCount );
+        if ( event.getOccurredAt().isAfter( recent ) ) {
+          gaps.skipped(
+            after,
+            event.getId(),
+            now
+          );
+        }
+        consumer.accept( event );
+        after = event.getId();
+        settledCount++;
+      }
+      applied += settledCount;
+      if ( settledCount < batchSize ) {
+        return applied;
+      }
+    }
+  }
+
+  /**
+   * Reads the missing ids again, passes on the events found and forgets them,
+   * along with the ids missing for longer than {@link #GAP_HORIZON}.
+   */
+  private int refill ( Gaps gaps, Instant now, Consumer<OrderEventRowDto> consumer ) {
+    gaps.expire( now.minus( GAP_HORIZON ) );
+    if ( gaps.missing.isEmpty() ) {
+      return 0;
+    }
+    List<Long> ids = List.copyOf( gaps.missing.keySet() );
+    List<OrderEventRowDto> found = readOnlyTransaction.execute( status -> orderEventRepository.findRowsByIdIn( ids ) );
+    for ( OrderEventRowDto event : found ) {
+      gaps.missing.remove( event.getId() );
+      consumer.accept( event );
+    }
+    return found.size();
+  }
+
+  /**
+   * Ids missing behind the position of one projection, with when each was
+   * first missed. Belongs to the projection it was filled for, and is used by
+   * one caller at a time.
+   */
+  public static final class Gaps {
+    private final Map<Long, Instant> missing = new LinkedHashMap<>();
+
+    public int size () {
+      return missing.size();
+    }
+
+    /**
+     * Records the ids between two events read one after the other, keeping
+     * the {@link #MAX_GAPS} most recent.
+     */
+    void skipped ( long after, long next, Instant now ) {
+      for ( long id = Math.max( after + 1, next - MAX_GAPS ); id < next; id++ ) {
+        missing.putIfAbsent(
+          id,
+          now
+        );
+      }
+      Iterator<Long> oldest = missing.keySet().iterator();
+      while ( missing.size() > MAX_GAPS ) {
+        oldest.next();
+        oldest.remove();
+      }
+    }
+
+    void expire ( Instant before ) {
+      missing
+        .values()
+        .removeIf( since -> since.isBefore( before ) );
+    }
+  }
+}
@@ -1,19 +1,211 @@
 package org.library.order;
 
+import jakarta.persistence.QueryHint;
+import org.library.order.dto.BookAvailabilityDto;
+import org.library.order.dto.OrderRowDto;
 import org.library.order.enums.OrderStatus;
 import org.library.order.model.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-  boolean existsByBookIdAndStatus ( Long bookId, OrderStatus status );
+  // Written out because the derived query joins BOOK and filters on its id,
+  // which keeps the database from using the (BOOK_ID, STATUS) index
+  @Query( "select count( o ) > 0 from Order o where o.book.id = :bookId and o.status = :status" )
+  boolean existsByBookIdAndStatus (
+    @Param( "bookId" ) Long bookId,
+    @Param( "status" ) OrderStatus status
+  );
+
+  @Query( """
+    select count( o ) > 0
+    from Order o
+    where o.book.id = :bookId
+      and o.user.id = :userId
+      and o.status = :status
+    """ )
+  boolean existsByBookIdAndUserIdAndStatus (
+    @Param( "bookId" ) Long bookId,
+    @Param( "userId" ) Long userId,
+    @Param( "status" ) OrderStatus status
+  );
 
   List<Order> findByUserId ( Long userId );
 
-  List<Order> findAllByOrderByCreatedAtDesc();
-  List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
+  @Query( """
+    select new org.library.order.dto.OrderRowDto(
+      o.id, o.name, o.borrowDate, o.returnDate, o.dueDate, o.status, o.user.id, o.book.id
+    )
+    from Order o
+    order by o.createdAt desc
+    """ )
+  @QueryHints( @QueryHint( name = HINT_FETCH_SIZE, value = "500" ) )
+  Stream<OrderRowDto> streamAllRows ();
+
+  @Query( """
+    select new org.library.order.dto.OrderRowDto(
+      o.id, o.name, o.borrowDate, o.returnDate, o.dueDate, o.status, o.user.id, o.book.id
+    )
+    from Order o
+    where o.user.id = :userId
+    order by o.createdAt desc
+    """ )
+  @QueryHints( @QueryHint( name = HINT_FETCH_SIZE, value = "500" ) )
+  Stream<OrderRowDto> streamRowsByUserId ( @Param( "userId" ) Long userId );
+
+  @Query( """
+    select new org.library.order.dto.OrderRowDto(
+      o.id, o.name, o.borrowDate, o.returnDate, o.dueDate, o.status, o.user.id, o.book.id
+    )
+    from Order o
+    where o.id in :ids
+    """ )
+  List<OrderRowDto> findRowsByIdIn ( @Param( "ids" ) Collection<Long> ids );
+
+  /**
+   * Returns a row for every existing book among {@code bookIds} with the number of
+   * its orders in {@code status}; missing books have no row.
+   */
+  @Query( """
+    select new org.library.order.dto.BookAvailabilityDto( b.id, count( o.id ) )
+    from Book b
+    left join Order o on o.book = b and o.status = :status
+    where b.id in :bookIds
+    group by b.id
+    """ )
+  List<BookAvailabilityDto> findBookAvailability (
+    @Param( "bookIds" ) Collection<Long> bookIds,
+    @Param( "status" ) OrderStatus status
+  );
+
+  /**
+   * Creates one active order per book in a single INSERT ... SELECT. Books that got
+   * an active order in the meantime are skipped, so the returned count is lower.
+   */
+  @Modifying
+  @Query( """
+    insert into Order ( name, borrowDate, dueDate, status, user, book, createdAt, updatedAt )
+    select concat( :namePrefix, cast( b.id as String ) ), :now, :dueDate, :status, u, b, :now, :now
+    from Book b, User u
+    where b.id in :bookIds
+      and u.id = :userId
+      and not exists ( select 1 from Order o where o.book = b and o.status = :status )
+    """ )
+  int insertOrders (
+    @Param( "userId" ) Long userId,
+    @Param( "bookIds" ) Collection<Long> bookIds,
+    @Param( "namePrefix" ) String namePrefix,
+    @Param( "status" ) OrderStatus status,
+    @Param( "now" ) Instant now,
+    @Param( "dueDate" ) Instant dueDate
+  );
+
+  /**
+   * Moves the orders that are still in {@code expected} to {@code status}, setting
+   * the return date. Returns how many rows were changed.
+   */
+  @Modifying
+  @Query( """
+    update Order o
+    set o.status = :status, o.returnDate = :now, o.updatedAt = :now
+    where o.id in :ids
+      and o.status = :expected
+    """ )
+  int completeOrders (
+    @Param( "ids" ) Collection<Long> ids,
+    @Param( "expected" ) OrderStatus expected,
+    @Param( "status" ) OrderStatus status,
+    @Param( "now" ) Instant now
+  );
+
+  /**
+   * Next page of orders in {@code status} that fell due by {@code now}, in
+   * (due date, id) order after the given position. Served by the
+   * (STATUS, DUE_DATE) index, so a sweep never reads orders it has already seen.
+   */
+  @Query( """
+    select new org.library.order.dto.OrderRowDto(
+      o.id, o.name, o.borrowDate, o.returnDate, o.dueDate, o.status, o.user.id, o.book.id
+    )
+    from Order o
+    where o.status = :status
+      and o.dueDate <= :now
+      and ( o.dueDate > :afterDueDate or ( o.dueDate = :afterDueDate and o.id > :afterId ) )
+    order by o.dueDate, o.id
+    """ )
+  List<OrderRowDto> findDueRowsAfter (
+    @Param( "status" ) OrderStatus status,
+    @Param( "now" ) Instant now,
+    @Param( "afterDueDate" ) Instant afterDueDate,
+    @Param( "afterId" ) Long afterId,
+    Limit limit
+  );
+
+  /**
+   * Flags the orders that are still in {@code status} and not flagged yet as
+   * overdue. Returns how many rows were changed.
+   */
+  @Modifying
+  @Query( """
+    update Order o
+    set o.overdueAt = :now, o.updatedAt = :now
+    where o.id in :ids
+      and o.status = :status
+      and o.overdueAt is null
+    """ )
+  int flagOverdue (
+    @Param( "ids" ) Collection<Long> ids,
+    @Param( "status" ) OrderStatus status,
+    @Param( "now" ) Instant now
+  );
+
+  /**
+   * Which of {@code ids} were flagged overdue at {@code overdueAt}, that is by
+   * the {@link #flagOverdue} call made earlier in the same transaction.
+   */
+  @Query( """
+    select o.id
+    from Order o
+    where o.id in :ids
+      and o.overdueAt = :overdueAt
+    order by o.id
+    """ )
+  List<Long> findIdsFlaggedAt (
+    @Param( "ids" ) Collection<Long> ids,
+    @Param( "overdueAt" ) Instant overdueAt
+  );
+
+  /**
+   * Ids of the oldest orders in one of {@code statuses} last changed before
+   * {@code before}, at most {@code limit} of them.
+   */
+  @Query( """
+    select o.id
+    from Order o
+    where o.status in :statuses
+      and o.updatedAt < :before
+    order by o.id
+    """ )
+  List<Long> findIdsClosedBefore (
+    @Param( "statuses" ) Collection<OrderStatus> statuses,
+    @Param( "before" ) Instant before,
+    Limit limit
+  );
 
+  @Modifying
+  @Query( "delete from Order o where o.id in :ids" )
+  int deleteByIds ( @Param( "ids" ) Collection<Long> ids );
 }
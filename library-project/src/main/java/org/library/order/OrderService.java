@@ -1,28 +1,59 @@
 package org.library.order;
 
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.library.book.BookService;
+import org.library.book.TrendingBooks;
+import org.library.book.dto.BookResponseDto;
 import org.library.book.model.Book;
+import org.library.exception.ErrorCode;
+import org.library.order.dto.BookAvailabilityDto;
+import org.library.order.dto.OrderBatchResultDto;
+import org.library.order.dto.OrderEventRowDto;
 import org.library.order.dto.OrderResponseDto;
+import org.library.order.dto.OrderRowDto;
+import org.library.order.enums.OrderEventType;
 import org.library.order.enums.OrderStatus;
 import org.library.order.model.Order;
+import org.library.order.model.OrderEvent;
+import org.library.reservation.ReservationService;
 import org.library.user.UserService;
+import org.library.user.dto.UserResponseDto;
 import org.library.user.model.User;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.springframework.http.HttpStatus.*;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
+  static final int PAGE_SIZE = 500;
+
   private final OrderRepository orderRepository;
+  private final OrderArchiveRepository orderArchiveRepository;
+  private final OrderEventRepository orderEventRepository;
   private final BookService bookService;
   private final UserService userService;
+  private final ReservationService reservationService;
+  private final LoanQuotas loanQuotas;
+  private final TrendingBooks trendingBooks;
+
+  @Value( "${order.loan-period}" )
+  private long loanPeriod;
 
   @Transactional
   public void borrowBook ( Long userId, Long bookId ) {
@@ -40,12 +71,28 @@ public class OrderService {
         "This book is currently unavailable"
       );
     }
+    LoanQuotas.Grant grant = loanQuotas.acquire(
+      userId,
+      userService.getRole( userId ),
+      1
+    );
+    if ( grant.granted() == 0 ) {
+      throw grant.refusal().exception();
+    }
+    if ( !reservationService.claim(
+      userId,
+      List.of( bookId )
+    ).isEmpty() ) {
+      throw reservedForAnother();
+    }
 
+    Instant now = Instant.now();
     Order order = Order
       .builder()
       .name( "order-" + System.currentTimeMillis() + "-" +
              (int) ( Math.random() * 1000 ) )
-      .borrowDate( Instant.now() )
+      .borrowDate( now )
+      .dueDate( now.plusMillis( loanPeriod ) )
       .status( OrderStatus.ACTIVE )
       .user( User.builder().id( userId ).build() )
       .book( Book.builder().id( bookId ).build() )
@@ -57,24 +104,255 @@ public class OrderService {
     );
 
     orderRepository.save( order );
+    record(
+      order,
+      OrderEventType.BORROWED
+    );
+    trendingBooks.recordBorrows( List.of( bookId ) );
   }
 
-  public List<OrderResponseDto> getAllOrders() {
-    return orderRepository
-      .findAllByOrderByCreatedAtDesc()
-      .stream()
-      .map(this::toResponseDto)
-      .toList();
+  /**
+   * Feeds every order to {@code sink} while the rows are read from the cursor,
+   * {@value #PAGE_SIZE} at a time, so the whole list is never held in memory.
+   * With {@code archived} the archived orders follow the current ones.
+   */
+  @Transactional( readOnly = true )
+  public void streamAllOrders ( boolean archived, Consumer<OrderResponseDto> sink ) {
+    try ( Stream<OrderRowDto> rows = orderRepository.streamAllRows() ) {
+      forEachPage(
+        rows,
+        sink
+      );
+    }
+    if ( archived ) {
+      try ( Stream<OrderRowDto> rows = orderArchiveRepository.streamAllRows() ) {
+        forEachPage(
+          rows,
+          sink
+        );
+      }
+    }
   }
 
-  public List<OrderResponseDto> getOrdersByUserId(Long userId) {
-    userService.checkUserExists(userId);
+  @Transactional( readOnly = true )
+  public void streamOrdersByUserId ( Long userId, boolean archived, Consumer<OrderResponseDto> sink ) {
+    userService.checkUserExists( userId );
 
-    return orderRepository
-      .findByUserIdOrderByCreatedAtDesc(userId)
-      .stream()
-      .map(this::toResponseDto)
-      .toList();
+    try ( Stream<OrderRowDto> rows = orderRepository.streamRowsByUserId( userId ) ) {
+      forEachPage(
+        rows,
+        sink
+      );
+    }
+    if ( archived ) {
+      try ( Stream<OrderRowDto> rows = orderArchiveRepository.streamRowsByUserId( userId ) ) {
+        forEachPage(
+          rows,
+          sink
+        );
+      }
+    }
+  }
+
+  /**
+   * Borrows every available book in {@code bookIds} for the user. Availability is
+   * read in one query and the orders are created with one INSERT, so the cost
+   * barely grows with the batch. Unknown, taken, reserved or repeated books, and
+   * those over the user's loan quota, are reported per item and do not fail the
+   * others.
+   */
+  @Transactional
+  public List<OrderBatchResultDto> borrowBooks ( Long userId, List<Long> bookIds ) {
+    userService.checkUserExists( userId );
+
+    Map<Long, Long> activeOrders = new HashMap<>();
+    for ( BookAvailabilityDto book : orderRepository.findBookAvailability(
+      new HashSet<>( bookIds ),
+      OrderStatus.ACTIVE
+    ) ) {
+      activeOrders.put(
+        book.getBookId(),
+        book.getActiveOrders()
+      );
+    }
+
+    // The quota goes to the free books in the order they were requested
+    Set<Long> free = new LinkedHashSet<>();
+    for ( Long bookId : bookIds ) {
+      Long active = activeOrders.get( bookId );
+      if ( active != null && active == 0 ) {
+        free.add( bookId );
+      }
+    }
+    LoanQuotas.Grant grant = loanQuotas.acquire(
+      userId,
+      userService.getRole( userId ),
+      free.size()
+    );
+    Set<Long> overQuota = new HashSet<>();
+    Set<Long> allowed = new HashSet<>();
+    for ( Long bookId : free ) {
+      ( allowed.size() < grant.granted() ? allowed : overQuota ).add( bookId );
+    }
+    Set<Long> reserved = reservationService.claim(
+      userId,
+      allowed
+    );
+    grant.giveBack( reserved.size() );
+
+    List<OrderBatchResultDto> results = new ArrayList<>( bookIds.size() );
+    Set<Long> accepted = new LinkedHashSet<>();
+    for ( Long bookId : bookIds ) {
+      Long active = activeOrders.get( bookId );
+      if ( active == null ) {
+        results.add( failed(
+          bookId,
+          ErrorCode.BOOK_NOT_FOUND.exception( bookId )
+        ) );
+      } else if ( active > 0 || !accepted.add( bookId ) ) {
+        results.add( new OrderBatchResultDto(
+          bookId,
+          BAD_REQUEST.value(),
+          "This book is currently unavailable"
+        ) );
+      } else if ( reserved.contains( bookId ) ) {
+        accepted.remove( bookId );
+        results.add( failed(
+          bookId,
+          reservedForAnother()
+        ) );
+      } else if ( overQuota.contains( bookId ) ) {
+        accepted.remove( bookId );
+        results.add( failed(
+          bookId,
+          grant.refusal().exception()
+        ) );
+      } else {
+        results.add( succeeded( bookId ) );
+      }
+    }
+
+    if ( !accepted.isEmpty() ) {
+      Instant now = Instant.now();
+      int inserted = orderRepository.insertOrders(
+        userId,
+        accepted,
+        "order-" + now.toEpochMilli() + "-",
+        OrderStatus.ACTIVE,
+        now,
+        now.plusMillis( loanPeriod )
+      );
+      if ( inserted != accepted.size() ) {
+        throw concurrentChange();
+      }
+      orderEventRepository.appendForBooks(
+        accepted,
+        OrderStatus.ACTIVE,
+        OrderEventType.BORROWED,
+        now
+      );
+      bookService.updateStatuses(
+        accepted,
+        OrderStatus.ACTIVE
+      );
+      trendingBooks.recordBorrows( accepted );
+    }
+    return results;
+  }
+
+  /**
+   * Returns every active order in {@code orderIds}, reading them in one query and
+   * updating orders and books with one UPDATE each. Unknown, inactive or repeated
+   * orders are reported per item and do not fail the others.
+   */
+  @Transactional
+  public List<OrderBatchResultDto> returnBooks ( List<Long> orderIds ) {
+    Map<Long, OrderRowDto> orders = new HashMap<>();
+    for ( OrderRowDto order : orderRepository.findRowsByIdIn( new HashSet<>( orderIds ) ) ) {
+      orders.put(
+        order.getId(),
+        order
+      );
+    }
+
+    List<OrderBatchResultDto> results = new ArrayList<>( orderIds.size() );
+    Set<Long> accepted = new LinkedHashSet<>();
+    Set<Long> bookIds = new LinkedHashSet<>();
+    Map<Long, Integer> loansByUser = new HashMap<>();
+    for ( Long orderId : orderIds ) {
+      OrderRowDto order = orders.get( orderId );
+      if ( order == null ) {
+        results.add( failed(
+          orderId,
+          ErrorCode.ORDER_NOT_FOUND.exception()
+        ) );
+      } else if ( order.getStatus() != OrderStatus.ACTIVE || !accepted.add( orderId ) ) {
+        results.add( new OrderBatchResultDto(
+          orderId,
+          BAD_REQUEST.value(),
+          "Only active orders can be returned"
+        ) );
+      } else {
+        bookIds.add( order.getBookId() );
+        if ( order.getUserId() != null ) {
+          loansByUser.merge(
+            order.getUserId(),
+            1,
+            Integer::sum
+          );
+        }
+        results.add( succeeded( orderId ) );
+      }
+    }
+
+    if ( !accepted.isEmpty() ) {
+      Instant now = Instant.now();
+      int updated = orderRepository.completeOrders(
+        accepted,
+        OrderStatus.ACTIVE,
+        OrderStatus.RETURNED,
+        now
+      );
+      if ( updated != accepted.size() ) {
+        throw concurrentChange();
+      }
+      orderEventRepository.appendForOrders(
+        accepted,
+        OrderEventType.RETURNED,
+        now
+      );
+      bookService.updateStatuses(
+        bookIds,
+        OrderStatus.RETURNED
+      );
+      bookIds.forEach( reservationService::promoteNext );
+      loansByUser.forEach( loanQuotas::release );
+    }
+    return results;
+  }
+
+  /**
+   * The newest {@code limit} order rows with only the user and book ids, for
+   * callers that resolve those themselves in batches.
+   */
+  @Transactional( readOnly = true )
+  public List<OrderRowDto> getAllRows ( int limit ) {
+    try ( Stream<OrderRowDto> rows = orderRepository.streamAllRows() ) {
+      return rows
+        .limit( limit )
+        .toList();
+    }
+  }
+
+  @Transactional( readOnly = true )
+  public List<OrderRowDto> getRowsByUserId ( Long userId, int limit ) {
+    userService.checkUserExists( userId );
+
+    try ( Stream<OrderRowDto> rows = orderRepository.streamRowsByUserId( userId ) ) {
+      return rows
+        .limit( limit )
+        .toList();
+    }
   }
 
   @Transactional
@@ -95,6 +373,13 @@ public class OrderService {
     order.setStatus( OrderStatus.RETURNED );
     order.setReturnDate( Instant.now() );
     orderRepository.save( order );
+    record(
+      order,
+      OrderEventType.RETURNED
+    );
+
+    reservationService.promoteNext( order.getBook().getId() );
+    releaseLoan( order );
   }
 
   @Transactional
@@ -114,6 +399,13 @@ public class OrderService {
 
     order.setStatus( OrderStatus.CANCELLED );
     orderRepository.save( order );
+    record(
+      order,
+      OrderEventType.CANCELLED
+    );
+
+    reservationService.promoteNext( order.getBook().getId() );
+    releaseLoan( order );
   }
 
   @Transactional
@@ -126,26 +418,135 @@ public class OrderService {
     );
 
     orderRepository.deleteById( orderId );
+    record(
+      order,
+      OrderEventType.DELETED
+    );
+
+    if ( order.getStatus() == OrderStatus.ACTIVE ) {
+      reservationService.promoteNext( order.getBook().getId() );
+      releaseLoan( order );
+    }
+  }
+
+  /**
+   * Every state change of the order, oldest first. Still available after the
+   * order was archived or deleted.
+   */
+  @Transactional( readOnly = true )
+  public List<OrderEventRowDto> getHistory ( Long orderId ) {
+    List<OrderEventRowDto> events = orderEventRepository.findRowsByOrderId( orderId );
+    if ( events.isEmpty() ) {
+      throw ErrorCode.ORDER_NOT_FOUND.exception();
+    }
+    return events;
   }
 
+  @Transactional( readOnly = true )
   public Order checkOrderExists ( Long orderId ) {
     return orderRepository
       .findById( orderId )
-      .orElseThrow( () -> new ResponseStatusException(
-        NOT_FOUND,
-        "Order not found"
-      ) );
+      .orElseThrow( () -> ErrorCode.ORDER_NOT_FOUND.exception() );
+  }
+
+  private void record ( Order order, OrderEventType type ) {
+    orderEventRepository.save( OrderEvent
+      .builder()
+      .orderId( order.getId() )
+      .bookId( order.getBook() != null ? order.getBook().getId() : null )
+      .userId( order.getUser() != null ? order.getUser().getId() : null )
+      .type( type )
+      .occurredAt( Instant.now() )
+      .build() );
+  }
+
+  private void releaseLoan ( Order order ) {
+    if ( order.getUser() != null ) {
+      loanQuotas.release(
+        order.getUser().getId(),
+        1
+      );
+    }
+  }
+
+  private static OrderBatchResultDto succeeded ( Long id ) {
+    return new OrderBatchResultDto(
+      id,
+      OK.value(),
+      null
+    );
+  }
+
+  private static OrderBatchResultDto failed ( Long id, ResponseStatusException e ) {
+    return new OrderBatchResultDto(
+      id,
+      e.getStatusCode().value(),
+      e.getReason()
+    );
   }
 
-  private OrderResponseDto toResponseDto ( Order order ) {
-    return new OrderResponseDto(
-      order.getId(),
-      order.getName(),
-      order.getBorrowDate(),
-      order.getReturnDate(),
-      order.getStatus(),
-      userService.getById( order.getUser().getId() ),
-      bookService.getById( order.getBook().getId() )
+  /**
+   * Rolls the whole batch back when rows changed between the validating read and
+   * the bulk write, so the reported results never disagree with the database.
+   */
+  private static ResponseStatusException concurrentChange () {
+    return new ResponseStatusException(
+      CONFLICT,
+      "Some of the orders changed concurrently, please retry"
     );
   }
+
+  private static ResponseStatusException reservedForAnother () {
+    return new ResponseStatusException(
+      BAD_REQUEST,
+      "This book is reserved by another reader"
+    );
+  }
+
+  private void forEachPage ( Stream<OrderRowDto> rows, Consumer<OrderResponseDto> sink ) {
+    List<OrderRowDto> page = new ArrayList<>( PAGE_SIZE );
+    Iterator<OrderRowDto> iterator = rows.iterator();
+    while ( iterator.hasNext() ) {
+      page.add( iterator.next() );
+      if ( page.size() == PAGE_SIZE || !iterator.hasNext() ) {
+        toResponseDtos( page ).forEach( sink );
+        page.clear();
+      }
+    }
+  }
+
+  /**
+   * Resolves users in one batched query and books from the catalog, instead of
+   * two lookups per order.
+   */
+  private List<OrderResponseDto> toResponseDtos ( List<OrderRowDto> rows ) {
+    Set<Long> userIds = new HashSet<>();
+    Set<Long> bookIds = new HashSet<>();
+    for ( OrderRowDto row : rows ) {
+      if ( row.getUserId() != null ) {
+        userIds.add( row.getUserId() );
+      }
+      if ( row.getBookId() != null ) {
+        bookIds.add( row.getBookId() );
+      }
+    }
+
+    Map<Long, UserResponseDto> users = userService.getAllByIds( userIds );
+    Map<Long, BookResponseDto> books = bookService.getAllByIds( bookIds );
+
+    List<OrderResponseDto> result = new ArrayList<>( rows.size() );
+    for ( OrderRowDto row : rows ) {
+      result.add( new OrderResponseDto(
+        row.getId(),
+        row.getName(),
+        row.getBorrowDate(),
+        row.getReturnDate(),
+        row.getDueDate(),
+        row.getStatus(),
+        users.get( row.getUserId() ),
+        books.get( row.getBookId() )
+      ) );
+    }
+    return result;
+  }
 }
\ No newline at end of file
@@ -0,0 +1,190 @@
+package org.library.order;
+
+import org.library.order.dto.OrderRowDto;
+import org.library.order.enums.OrderStatus;
+import org.library.order.model.SweepMark;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Flags active orders past their due date and notifies their readers.
+ * <p>
+ * Each run continues from the persisted {@link SweepMark}: orders are read in
+ * (due date, id) order through the (STATUS, DUE_DATE) index, so a run only
+ * touches orders that fell due since the previous one. Every page is split into
+ * batches of {@code order.overdue.batch-size} that are flagged in their own
+ * short transactions on at most {@code order.overdue.parallelism} low-priority
+ * threads, and the mark is saved after each page, so an interrupted run loses
+ * at most one page of progress.
+ */
+@Component
+public class OverdueOrderScanner {
+  static final String SWEEP = "overdue-orders";
+
+  private static final Logger logger = LoggerFactory.getLogger( OverdueOrderScanner.class );
+
+  private final OrderRepository orderRepository;
+  private final SweepMarkRepository sweepMarkRepository;
+  private final TransactionTemplate transaction;
+  private final TransactionTemplate readOnlyTransaction;
+  private final Executor executor;
+  private final int batchSize;
+  private final int parallelism;
+
+  public OverdueOrderScanner (
+    OrderRepository orderRepository,
+    SweepMarkRepository sweepMarkRepository,
+    PlatformTransactionManager transactionManager,
+    @Qualifier( "overdueExecutor" ) Executor executor,
+    @Value( "${order.overdue.batch-size}" ) int batchSize,
+    @Value( "${order.overdue.parallelism}" ) int parallelism
+  ) {
+    this.orderRepository = orderRepository;
+    this.sweepMarkRepository = sweepMarkRepository;
+    this.transaction = new TransactionTemplate( transactionManager );
+    this.readOnlyTransaction = new TransactionTemplate( transactionManager );
+    this.readOnlyTransaction.setReadOnly( true );
+    this.executor = executor;
+    this.batchSize = batchSize;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * @return how many orders this run flagged
+   */
+  @Scheduled( fixedDelayString = "${order.overdue.interval}" )
+  public int sweep () {
+    // Stored exactly, so the flagged rows can be found again by it
+    Instant now = Instant.now().truncatedTo( ChronoUnit.MILLIS );
+    int pageSize = batchSize * parallelism;
+    SweepMark mark = readOnlyTransaction.execute( status -> sweepMarkRepository
+      .findById( SWEEP )
+      .orElseGet( () -> SweepMark
+        .builder()
+        .name( SWEEP )
+        .dueDate( Instant.EPOCH )
+        .orderId( 0L )
+        .build() ) );
+
+    int flagged = 0;
+    while ( true ) {
+      SweepMark position = mark;
+      List<OrderRowDto> page = readOnlyTransaction.execute( status -> orderRepository.findDueRowsAfter(
+        OrderStatus.ACTIVE,
+        now,
+        position.getDueDate(),
+        position.getOrderId(),
+        Limit.of( pageSize )
+      ) );
+      if ( page.isEmpty() ) {
+        break;
+      }
+
+      List<CompletableFuture<List<Long>>> batches = new ArrayList<>( parallelism );
+      for ( int from = 0; from < page.size(); from += batchSize ) {
+        List<OrderRowDto> batch = page.subList(
+          from,
+          Math.min(
+            from + batchSize,
+            page.size()
+          )
+        );
+        batches.add( CompletableFuture.supplyAsync(
+          () -> flag(
+            batch,
+            now
+          ),
+          executor
+        ) );
+      }
+      for ( CompletableFuture<List<Long>> batch : batches ) {
+        flagged += batch.join().size();
+      }
+
+      OrderRowDto last = page.get( page.size() - 1 );
+      position.setDueDate( last.getDueDate() );
+      position.setOrderId( last.getId() );
+      try {
+        mark = transaction.execute( status -> sweepMarkRepository.save( position ) );
+      } catch ( OptimisticLockingFailureException | DataIntegrityViolationException e ) {
+        // Another replica is sweeping the same orders, let it finish
+        logger.debug( "Overdue sweep stopped, another replica moved the mark" );
+        break;
+      }
+      if ( page.size() < pageSize ) {
+        break;
+      }
+    }
+
+    if ( flagged > 0 ) {
+      logger.info(
+        "Flagged {} overdue orders",
+        flagged
+      );
+    }
+    return flagged;
+  }
+
+  /**
+   * Flags the batch and notifies the readers of the orders this call flagged.
+   * Orders returned or flagged by another replica since the page was read are
+   * left out.
+   *
+   * @return ids of the orders flagged
+   */
+  List<Long> flag ( List<OrderRowDto> batch, Instant now ) {
+    List<Long> ids = batch
+      .stream()
+      .map( OrderRowDto::getId )
+      .toList();
+    List<Long> flagged = transaction.execute( status -> orderRepository.flagOverdue(
+      ids,
+      OrderStatus.ACTIVE,
+      now
+    ) == 0 ? List.of() : orderRepository.findIdsFlaggedAt(
+      ids,
+      now
+    ) );
+    if ( flagged == null || flagged.isEmpty() ) {
+      return List.of();
+    }
+
+    Set<Long> flaggedIds = Set.copyOf( flagged );
+    Map<Long, List<Long>> ordersByUser = new LinkedHashMap<>();
+    for ( OrderRowDto order : batch ) {
+      if ( order.getUserId() != null && flaggedIds.contains( order.getId() ) ) {
+        ordersByUser
+          .computeIfAbsent(
+            order.getUserId(),
+            id -> new ArrayList<>()
+          )
+          .add( order.getId() );
+      }
+    }
+    ordersByUser.forEach( ( userId, orderIds ) -> logger.info(
+      "User {} has overdue orders {}",
+      userId,
+      orderIds
+    ) );
+    return flagged;
+  }
+}
@@ -0,0 +1,9 @@
+package org.library.order;
+
+import org.library.order.model.SweepMark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SweepMarkRepository extends JpaRepository<SweepMark, String> {
+}
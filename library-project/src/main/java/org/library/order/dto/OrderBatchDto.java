@@ -0,0 +1,17 @@
+package org.library.order.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class OrderBatchDto {
+  public static final int MAX_SIZE = 200;
+
+  @NotEmpty( message = "At least one id is required" )
+  @Size( max = MAX_SIZE, message = "At most " + MAX_SIZE + " ids per batch" )
+  private List<@NotNull( message = "Ids must not be null" ) Long> ids;
+}
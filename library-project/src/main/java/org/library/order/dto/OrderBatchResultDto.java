@@ -0,0 +1,19 @@
+package org.library.order.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Outcome of one item of a batch request. {@code id} is the requested book id
+ * for borrows and the order id for returns, {@code status} the HTTP status the
+ * single-item endpoint would have answered with.
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude( JsonInclude.Include.NON_NULL )
+public class OrderBatchResultDto {
+  private Long id;
+  private int status;
+  private String message;
+}
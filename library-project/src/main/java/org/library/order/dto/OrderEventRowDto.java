@@ -0,0 +1,18 @@
+package org.library.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.library.order.enums.OrderEventType;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class OrderEventRowDto {
+  private Long id;
+  private Long orderId;
+  private Long bookId;
+  private Long userId;
+  private OrderEventType type;
+  private Instant occurredAt;
+}
@@ -15,6 +15,7 @@ public class OrderResponseDto {
   private String name;
   private Instant borrowDate;
   private Instant returnDate;
+  private Instant dueDate;
   private OrderStatus status;
   private UserResponseDto user;
   private BookResponseDto book;
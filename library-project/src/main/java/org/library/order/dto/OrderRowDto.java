@@ -0,0 +1,20 @@
+package org.library.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.library.order.enums.OrderStatus;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class OrderRowDto {
+  private Long id;
+  private String name;
+  private Instant borrowDate;
+  private Instant returnDate;
+  private Instant dueDate;
+  private OrderStatus status;
+  private Long userId;
+  private Long bookId;
+}
@@ -0,0 +1,11 @@
+package org.library.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UserLoanCountDto {
+  private Long userId;
+  private Integer activeLoans;
+}
@@ -0,0 +1,8 @@
+package org.library.order.enums;
+
+public enum OrderEventType {
+  BORROWED,
+  RETURNED,
+  CANCELLED,
+  DELETED
+}
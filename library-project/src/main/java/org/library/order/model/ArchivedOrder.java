@@ -0,0 +1,59 @@
+package org.library.order.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.library.order.enums.OrderStatus;
+
+import java.time.Instant;
+
+/**
+ * Closed order moved out of the ORDER table by the archiver. Keeps the original
+ * id and timestamps; user and book are plain ids so deleting either does not
+ * touch the archive.
+ */
+@Entity
+@Table(
+  name = "ORDER_ARCHIVE",
+  indexes = @Index( name = "IX_ORDER_ARCHIVE_USER", columnList = "USER_ID, CREATED_AT" )
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedOrder {
+  @Id
+  private Long id;
+
+  @Column( name = "CREATED_AT", nullable = false )
+  private Instant createdAt;
+
+  @Column( name = "UPDATED_AT", nullable = false )
+  private Instant updatedAt;
+
+  private String name;
+
+  @Column( name = "BORROW_DATE", nullable = false )
+  private Instant borrowDate;
+
+  @Column( name = "RETURN_DATE" )
+  private Instant returnDate;
+
+  @Column( name = "DUE_DATE" )
+  private Instant dueDate;
+
+  @Column( name = "OVERDUE_AT" )
+  private Instant overdueAt;
+
+  @Enumerated( EnumType.STRING )
+  @Column( name = "STATUS", nullable = false, length = 20 )
+  private OrderStatus status;
+
+  @Column( name = "USER_ID" )
+  private Long userId;
+
+  @Column( name = "BOOK_ID" )
+  private Long bookId;
+
+  @Column( name = "ARCHIVED_AT", nullable = false )
+  private Instant archivedAt;
+}
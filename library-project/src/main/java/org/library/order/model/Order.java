@@ -11,7 +11,14 @@ import org.library.order.enums.OrderStatus;
 import java.time.Instant;
 
 @Entity
-@Table( name = "\"ORDER\"" )
+@Table(
+  name = "\"ORDER\"",
+  indexes = {
+    @Index( name = "IX_ORDER_BOOK_STATUS", columnList = "BOOK_ID, STATUS" ),
+    @Index( name = "IX_ORDER_USER", columnList = "USER_ID, CREATED_AT" ),
+    @Index( name = "IX_ORDER_DUE", columnList = "STATUS, DUE_DATE" )
+  }
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -37,6 +44,12 @@ public class Order {
   @Column( name = "RETURN_DATE" )
   private Instant returnDate;
 
+  @Column( name = "DUE_DATE" )
+  private Instant dueDate;
+
+  @Column( name = "OVERDUE_AT" )
+  private Instant overdueAt;
+
   @Enumerated(EnumType.STRING)
   @Column(name = "STATUS", nullable = false, columnDefinition = "ORDER_STATUS")
   private OrderStatus status;
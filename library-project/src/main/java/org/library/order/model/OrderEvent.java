@@ -0,0 +1,48 @@
+package org.library.order.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.library.order.enums.OrderEventType;
+
+import java.time.Instant;
+
+/**
+ * One state change of an order. Events are only ever appended, in the same
+ * transaction as the change to ORDER, so the log keeps every transition that
+ * the ORDER row overwrites. User and book are plain ids, like in the archive.
+ */
+@Entity
+@Table(
+  name = "ORDER_EVENT",
+  indexes = {
+    @Index( name = "IX_ORDER_EVENT_ORDER", columnList = "ORDER_ID, ID" ),
+    @Index( name = "IX_ORDER_EVENT_BOOK", columnList = "BOOK_ID, ID" ),
+    @Index( name = "IX_ORDER_EVENT_USER", columnList = "USER_ID, ID" ),
+    @Index( name = "IX_ORDER_EVENT_OCCURRED", columnList = "OCCURRED_AT, ID" )
+  }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderEvent {
+  @Id
+  @GeneratedValue( strategy = GenerationType.IDENTITY )
+  private Long id;
+
+  @Column( name = "ORDER_ID", nullable = false, updatable = false )
+  private Long orderId;
+
+  @Column( name = "BOOK_ID", updatable = false )
+  private Long bookId;
+
+  @Column( name = "USER_ID", updatable = false )
+  private Long userId;
+
+  @Enumerated( EnumType.STRING )
+  @Column( name = "TYPE", nullable = false, updatable = false, length = 20 )
+  private OrderEventType type;
+
+  @Column( name = "OCCURRED_AT", nullable = false, updatable = false )
+  private Instant occurredAt;
+}
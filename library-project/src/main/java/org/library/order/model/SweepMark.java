@@ -0,0 +1,37 @@
+package org.library.order.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
+
+/**
+ * Position a background sweep has reached, so the next run continues from there
+ * instead of rescanning. The version lets only one replica advance it at a time.
+ */
+@Entity
+@Table( name = "SWEEP_MARK" )
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SweepMark {
+  @Id
+  @Column( name = "NAME", length = 100 )
+  private String name;
+
+  @Column( name = "DUE_DATE", nullable = false )
+  private Instant dueDate;
+
+  @Column( name = "ORDER_ID", nullable = false )
+  private Long orderId;
+
+  @Version
+  @Column( name = "VERSION" )
+  private Long version;
+
+  @UpdateTimestamp
+  @Column( name = "UPDATED_AT", nullable = false )
+  private Instant updatedAt;
+}
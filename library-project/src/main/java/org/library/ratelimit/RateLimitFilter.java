@@ -0,0 +1,157 @@
+package org.library.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.library.auth.service.JwtService;
+import org.library.exception.ErrorResponseDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+
+/**
+ * Rejects requests over the limit of their route group before authentication
+ * runs. Authenticated clients are limited per user, everyone else per IP.
+ * <p>
+ * Behind a load balancer the remote address is the balancer's, so requests from
+ * the addresses or CIDR ranges in {@code rate-limit.trusted-proxies} are keyed by
+ * the nearest untrusted hop of their {@code X-Forwarded-For} header instead. The
+ * header is ignored from anyone else, so clients cannot pick their own key.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+  private static final ErrorResponseDto TOO_MANY_REQUESTS_RESPONSE = new ErrorResponseDto(
+    TOO_MANY_REQUESTS.value(),
+    "Too many requests, please retry later",
+    null
+  );
+
+  private final RateLimiter rateLimiter;
+  private final JwtService jwtService;
+  private final ObjectMapper objectMapper;
+  private final boolean enabled;
+  private final List<IpAddressMatcher> trustedProxies;
+
+  public RateLimitFilter (
+    RateLimiter rateLimiter,
+    JwtService jwtService,
+    ObjectMapper objectMapper,
+    @Value( "${rate-limit.enabled}" ) boolean enabled,
+    @Value( "${rate-limit.trusted-proxies}" ) List<String> trustedProxies
+  ) {
+    this.rateLimiter = rateLimiter;
+    this.jwtService = jwtService;
+    this.objectMapper = objectMapper;
+    this.enabled = enabled;
+    this.trustedProxies = trustedProxies
+      .stream()
+      .map( String::strip )
+      .filter( proxy -> !proxy.isEmpty() )
+      .map( IpAddressMatcher::new )
+      .toList();
+  }
+
+  @Override
+  protected void doFilterInternal (
+    HttpServletRequest request, HttpServletResponse response, FilterChain filterChain
+  ) throws ServletException, IOException {
+    RateLimitGroup group = enabled ? RateLimitGroup.of( request ) : null;
+    if ( group == null ) {
+      filterChain.doFilter(
+        request,
+        response
+      );
+      return;
+    }
+
+    long waitNanos = rateLimiter.tryAcquire(
+      group,
+      clientKey( request )
+    );
+    if ( waitNanos == 0 ) {
+      filterChain.doFilter(
+        request,
+        response
+      );
+      return;
+    }
+
+    response.setStatus( TOO_MANY_REQUESTS.value() );
+    response.setHeader(
+      HttpHeaders.RETRY_AFTER,
+      String.valueOf( Math.max(
+        1,
+        TimeUnit.NANOSECONDS.toSeconds( waitNanos + TimeUnit.SECONDS.toNanos( 1 ) - 1 )
+      ) )
+    );
+    response.setContentType( MediaType.APPLICATION_JSON_VALUE );
+    objectMapper.writeValue(
+      response.getOutputStream(),
+      TOO_MANY_REQUESTS_RESPONSE
+    );
+  }
+
+  String clientKey ( HttpServletRequest request ) {
+    String authHeader = request.getHeader( "Authorization" );
+    if ( authHeader != null && authHeader.startsWith( "Bearer " ) ) {
+      // Verified once here and reused by authentication; an invalid or expired
+      // token is limited by address like any anonymous client
+      Long userId = jwtService.extractAccessUserId(
+        request,
+        authHeader.substring( 7 )
+      );
+      if ( userId != null ) {
+        return "user:" + userId;
+      }
+    }
+    return "ip:" + clientAddress( request );
+  }
+
+  private String clientAddress ( HttpServletRequest request ) {
+    String address = request.getRemoteAddr();
+    String forwardedFor = request.getHeader( "X-Forwarded-For" );
+    if ( forwardedFor == null || !isTrustedProxy( address ) ) {
+      return address;
+    }
+
+    // Each proxy appends the address it received the request from, so hops left
+    // of the nearest untrusted one may have been made up by the client
+    String[] hops = forwardedFor.split( "," );
+    for ( int i = hops.length - 1; i >= 0; i-- ) {
+      String hop = hops[ i ].strip();
+      if ( hop.isEmpty() ) {
+        continue;
+      }
+      address = hop;
+      if ( !isTrustedProxy( hop ) ) {
+        break;
+      }
+    }
+    return address;
+  }
+
+  private boolean isTrustedProxy ( String address ) {
+    for ( IpAddressMatcher proxy : trustedProxies ) {
+      try {
+        if ( proxy.matches( address ) ) {
+          return true;
+        }
+      } catch ( IllegalArgumentException e ) {
+        // Not an IP address, so not one of ours
+        return false;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,32 @@
+package org.library.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+public enum RateLimitGroup {
+  AUTH,
+  CATALOG_READ,
+  ORDER_WRITE;
+
+  public static RateLimitGroup of ( HttpServletRequest request ) {
+    String path = request.getRequestURI();
+    boolean read = "GET".equals( request.getMethod() );
+
+    if ( path.startsWith( "/api/v1/auth/" ) ) {
+      return AUTH;
+    }
+    if ( read && ( path.startsWith( "/api/v1/book" ) ||
+                   path.startsWith( "/api/v1/author" ) ||
+                   path.startsWith( "/api/v1/catalog" ) ) ) {
+      return CATALOG_READ;
+    }
+    if ( path.equals( "/graphql" ) ) {
+      // Queries only, deep or wide ones are rejected by the GraphQL cost limits
+      return CATALOG_READ;
+    }
+    if ( !read && ( path.startsWith( "/api/v1/order" ) ||
+                    path.startsWith( "/api/v1/reservation" ) ) ) {
+      return ORDER_WRITE;
+    }
+    return null;
+  }
+}
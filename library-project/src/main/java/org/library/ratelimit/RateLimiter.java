@@ -0,0 +1,178 @@
+package org.library.ratelimit;
+
+import org.library.coordination.CoordinationStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds one {@link TokenBucket} per client and route group.
+ * <p>
+ * Buckets that have refilled completely are indistinguishable from new ones and
+ * are evicted periodically. When a group still reaches {@code max-buckets}, new
+ * clients are spread by key over a fixed set of overflow buckets, so memory stays
+ * bounded without letting them through unlimited, and a noisy client throttles
+ * only the few new clients that share its overflow bucket.
+ * <p>
+ * With {@code rate-limit.cluster.enabled} each request that passes the local bucket
+ * is also counted in a per-minute window of the shared {@link CoordinationStore},
+ * capped at the group's refill rate, so the limit holds across replicas. If the
+ * store is unreachable only the local limit applies.
+ */
+@Component
+public class RateLimiter {
+  private static final Logger logger = LoggerFactory.getLogger( RateLimiter.class );
+  private static final long CLUSTER_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis( 1 );
+  private static final int OVERFLOW_BUCKETS = 1024;
+
+  private final Map<RateLimitGroup, Policy> policies = new EnumMap<>( RateLimitGroup.class );
+  private final Map<RateLimitGroup, ConcurrentHashMap<String, TokenBucket>> buckets = new EnumMap<>( RateLimitGroup.class );
+  private final Map<RateLimitGroup, TokenBucket[]> overflow = new EnumMap<>( RateLimitGroup.class );
+  private final int maxBuckets;
+  private final CoordinationStore coordinationStore;
+  private final boolean cluster;
+
+  public RateLimiter (
+    @Value( "${rate-limit.auth.capacity}" ) long authCapacity,
+    @Value( "${rate-limit.auth.refill-per-minute}" ) long authRefillPerMinute,
+    @Value( "${rate-limit.catalog.capacity}" ) long catalogCapacity,
+    @Value( "${rate-limit.catalog.refill-per-minute}" ) long catalogRefillPerMinute,
+    @Value( "${rate-limit.order.capacity}" ) long orderCapacity,
+    @Value( "${rate-limit.order.refill-per-minute}" ) long orderRefillPerMinute,
+    @Value( "${rate-limit.max-buckets}" ) int maxBuckets,
+    @Value( "${rate-limit.cluster.enabled}" ) boolean cluster,
+    CoordinationStore coordinationStore
+  ) {
+    this.maxBuckets = maxBuckets;
+    this.cluster = cluster;
+    this.coordinationStore = coordinationStore;
+    register(
+      RateLimitGroup.AUTH,
+      authCapacity,
+      authRefillPerMinute
+    );
+    register(
+      RateLimitGroup.CATALOG_READ,
+      catalogCapacity,
+      catalogRefillPerMinute
+    );
+    register(
+      RateLimitGroup.ORDER_WRITE,
+      orderCapacity,
+      orderRefillPerMinute
+    );
+  }
+
+  /**
+   * Takes a token for the client.
+   *
+   * @return 0 when the request may proceed, otherwise the nanos until it may be retried
+   */
+  public long tryAcquire ( RateLimitGroup group, String clientKey ) {
+    long waitNanos = bucketFor(
+      group,
+      clientKey
+    ).tryAcquire( System.nanoTime() );
+    if ( waitNanos > 0 || !cluster ) {
+      return waitNanos;
+    }
+    return tryAcquireShared(
+      group,
+      clientKey
+    );
+  }
+
+  @Scheduled( fixedDelayString = "${rate-limit.eviction-interval}" )
+  public void evictIdle () {
+    long now = System.nanoTime();
+    for ( ConcurrentHashMap<String, TokenBucket> groupBuckets : buckets.values() ) {
+      groupBuckets.values().removeIf( bucket -> bucket.isIdle( now ) );
+    }
+  }
+
+  private long tryAcquireShared ( RateLimitGroup group, String clientKey ) {
+    CoordinationStore.WindowCount window;
+    try {
+      window = coordinationStore.incrementWindow(
+        "rate-limit:" + group + ":" + clientKey,
+        CLUSTER_WINDOW_MILLIS
+      );
+    } catch ( RuntimeException e ) {
+      logger.warn(
+        "Shared rate limit unavailable, applying the local limit only",
+        e
+      );
+      return 0;
+    }
+
+    if ( window.count() <= policies.get( group ).refillPerMinute() ) {
+      return 0;
+    }
+    return TimeUnit.MILLISECONDS.toNanos( Math.max(
+      1,
+      window.resetMillis()
+    ) );
+  }
+
+  int size ( RateLimitGroup group ) {
+    return buckets.get( group ).size();
+  }
+
+  private TokenBucket bucketFor ( RateLimitGroup group, String clientKey ) {
+    ConcurrentHashMap<String, TokenBucket> groupBuckets = buckets.get( group );
+
+    TokenBucket bucket = groupBuckets.get( clientKey );
+    if ( bucket != null ) {
+      return bucket;
+    }
+    if ( groupBuckets.size() >= maxBuckets ) {
+      return overflow.get( group )[ Math.floorMod(
+        clientKey.hashCode(),
+        OVERFLOW_BUCKETS
+      ) ];
+    }
+    return groupBuckets.computeIfAbsent(
+      clientKey,
+      key -> policies.get( group ).newBucket()
+    );
+  }
+
+  private void register ( RateLimitGroup group, long capacity, long refillPerMinute ) {
+    Policy policy = new Policy(
+      capacity,
+      refillPerMinute
+    );
+    policies.put(
+      group,
+      policy
+    );
+    buckets.put(
+      group,
+      new ConcurrentHashMap<>()
+    );
+    TokenBucket[] groupOverflow = new TokenBucket[ OVERFLOW_BUCKETS ];
+    for ( int i = 0; i < OVERFLOW_BUCKETS; i++ ) {
+      groupOverflow[ i ] = policy.newBucket();
+    }
+    overflow.put(
+      group,
+      groupOverflow
+    );
+  }
+
+  private record Policy( long capacity, long refillPerMinute ) {
+    TokenBucket newBucket () {
+      return new TokenBucket(
+        capacity,
+        TimeUnit.MINUTES.toNanos( 1 ) / refillPerMinute
+      );
+    }
+  }
+}
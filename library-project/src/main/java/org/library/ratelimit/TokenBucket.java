@@ -0,0 +1,93 @@
+package org.library.ratelimit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Lock-free token bucket implemented as a generic cell rate algorithm: the whole
+ * state is a single "theoretical arrival time" updated with CAS, so buckets are
+ * small and never block.
+ */
+public class TokenBucket {
+  private static final VarHandle ARRIVAL;
+
+  static {
+    try {
+      ARRIVAL = MethodHandles
+        .lookup()
+        .findVarHandle(
+          TokenBucket.class,
+          "theoreticalArrival",
+          long.class
+        );
+    } catch ( ReflectiveOperationException e ) {
+      throw new ExceptionInInitializerError( e );
+    }
+  }
+
+  private final long intervalNanos;
+  private final long burstNanos;
+
+  @SuppressWarnings( "unused" )
+  private volatile long theoreticalArrival = Long.MIN_VALUE;
+
+  /**
+   * @param capacity      number of requests that may be made in a burst
+   * @param intervalNanos time it takes to refill one token
+   */
+  public TokenBucket ( long capacity, long intervalNanos ) {
+    this.intervalNanos = intervalNanos;
+    this.burstNanos = capacity * intervalNanos;
+  }
+
+  /**
+   * Takes one token.
+   *
+   * @return 0 when the token was granted, otherwise the nanos until one is available
+   */
+  public long tryAcquire ( long nowNanos ) {
+    while ( true ) {
+      long arrival = (long) ARRIVAL.getVolatile( this );
+      long next = Math.max(
+        arrival,
+        nowNanos
+      ) + intervalNanos;
+      long wait = next - burstNanos - nowNanos;
+
+      if ( wait > 0 ) {
+        return wait;
+      }
+      if ( ARRIVAL.compareAndSet(
+        this,
+        arrival,
+        next
+      ) ) {
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * Returns tokens taken for work that did not happen after all. The bucket
+   * never holds more than its capacity, however many are returned.
+   */
+  public void giveBack ( long count ) {
+    while ( count > 0 ) {
+      long arrival = (long) ARRIVAL.getVolatile( this );
+      if ( arrival == Long.MIN_VALUE || ARRIVAL.compareAndSet(
+        this,
+        arrival,
+        arrival - count * intervalNanos
+      ) ) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * A bucket is idle once it has refilled completely; dropping it then loses no state.
+   */
+  public boolean isIdle ( long nowNanos ) {
+    return (long) ARRIVAL.getVolatile( this ) <= nowNanos;
+  }
+}
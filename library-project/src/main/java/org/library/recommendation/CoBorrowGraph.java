@@ -0,0 +1,448 @@
+package org.library.recommendation;
+
+import org.library.order.OrderEventTailer;
+import org.library.order.dto.OrderEventRowDto;
+import org.library.order.enums.OrderEventType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Which books the same readers borrowed, folded from the order event log.
+ * <p>
+ * Every reader's history is the distinct books they borrowed, in the order of
+ * their first borrow. Two books are borrowed together when they are at most
+ * {@code window} places apart in one history, so a reader with a long history
+ * does not pair everything with everything. Books are numbered densely and
+ * each book keeps a row of its neighbours and co-borrow counts in plain int
+ * arrays.
+ * <p>
+ * Events applied before {@link #rebuild} only extend the histories. The rebuild
+ * counts every row from them in parallel and keeps the {@code keep} best
+ * neighbours of each book. Events applied after it update the rows in place.
+ * A neighbour dropped by the last rebuild starts again from its next
+ * co-borrow, until the next rebuild counts it in full. Not thread-safe,
+ * {@link CoBorrowProjector} guards it.
+ */
+final class CoBorrowGraph {
+  private final int window;
+  private final int keep;
+  private final Map<Long, Integer> index = new HashMap<>();
+  private final Map<Long, History> histories = new HashMap<>();
+
+  private long[] bookIds = new long[ 1024 ];
+  // Distinct readers per book
+  private int[] readers = new int[ 1024 ];
+  private Row[] rows = new Row[ 1024 ];
+  private int books;
+  private boolean built;
+  private final OrderEventTailer.Gaps gaps = new OrderEventTailer.Gaps();
+  private long lastEventId;
+
+  CoBorrowGraph ( int window, int keep ) {
+    this.window = window;
+    this.keep = keep;
+  }
+
+  void apply ( OrderEventRowDto event ) {
+    if ( event.getType() == OrderEventType.BORROWED && event.getBookId() != null && event.getUserId() != null ) {
+      borrow(
+        event.getUserId(),
+        event.getBookId()
+      );
+    }
+    // Late events are passed on behind the position
+    lastEventId = Math.max(
+      lastEventId,
+      event.getId()
+    );
+  }
+
+  /**
+   * Ids missing behind the position, for the tailer to read again.
+   */
+  OrderEventTailer.Gaps gaps () {
+    return gaps;
+  }
+
+  long lastEventId () {
+    return lastEventId;
+  }
+
+  int books () {
+    return books;
+  }
+
+  /**
+   * Counts the rows of all books from the histories on {@code parallelism}
+   * threads, each book's row on one of them.
+   */
+  void rebuild ( int parallelism ) {
+    History[] users = histories
+      .values()
+      .toArray( new History[ 0 ] );
+
+    // Every place each book has in a history, grouped by book
+    int[] offsets = new int[ books + 1 ];
+    for ( History history : users ) {
+      for ( int i = 0; i < history.size; i++ ) {
+        offsets[ history.books[ i ] + 1 ]++;
+      }
+    }
+    for ( int book = 0; book < books; book++ ) {
+      offsets[ book + 1 ] += offsets[ book ];
+    }
+    int[] postingUsers = new int[ offsets[ books ] ];
+    int[] postingPlaces = new int[ offsets[ books ] ];
+    int[] next = Arrays.copyOf(
+      offsets,
+      books
+    );
+    for ( int user = 0; user < users.length; user++ ) {
+      History history = users[ user ];
+      for ( int i = 0; i < history.size; i++ ) {
+        int posting = next[ history.books[ i ] ]++;
+        postingUsers[ posting ] = user;
+        postingPlaces[ posting ] = i;
+      }
+    }
+
+    Row[] counted = new Row[ rows.length ];
+    try ( ForkJoinPool pool = new ForkJoinPool( parallelism ) ) {
+      pool.invoke( new RowTask(
+        users,
+        offsets,
+        postingUsers,
+        postingPlaces,
+        counted,
+        0,
+        books,
+        Math.max(
+          16,
+          books / ( parallelism * 8 )
+        )
+      ) );
+    }
+    rows = counted;
+    built = true;
+  }
+
+  /**
+   * Up to {@code limit} books most often borrowed by readers of the book, each
+   * as {@code { bookId, coBorrows }}. Ranked by co-borrows over the square root
+   * of both books' readers, so a book everyone borrows does not top every list.
+   */
+  List<long[]> related ( long bookId, int limit ) {
+    Integer book = index.get( bookId );
+    if ( book == null || rows[ book ] == null ) {
+      return List.of();
+    }
+
+    Row row = rows[ book ];
+    List<Integer> slots = new ArrayList<>( row.size );
+    for ( int slot = 0; slot < row.size; slot++ ) {
+      slots.add( slot );
+    }
+    slots.sort( Comparator
+      .<Integer>comparingDouble( slot -> -score(
+        row.counts[ slot ],
+        row.neighbours[ slot ]
+      ) )
+      .thenComparingLong( slot -> bookIds[ row.neighbours[ slot ] ] ) );
+
+    List<long[]> related = new ArrayList<>( Math.min(
+      limit,
+      row.size
+    ) );
+    for ( int slot : slots.subList(
+      0,
+      Math.min(
+        limit,
+        row.size
+      )
+    ) ) {
+      related.add( new long[] { bookIds[ row.neighbours[ slot ] ], row.counts[ slot ] } );
+    }
+    return related;
+  }
+
+  private void borrow ( long userId, long bookId ) {
+    int book = indexOf( bookId );
+    History history = histories.computeIfAbsent(
+      userId,
+      id -> new History()
+    );
+    if ( history.contains( book ) ) {
+      return;
+    }
+
+    readers[ book ]++;
+    if ( built ) {
+      for ( int i = Math.max(
+        0,
+        history.size - window
+      ); i < history.size; i++ ) {
+        int other = history.books[ i ];
+        row( book ).increment( other );
+        row( other ).increment( book );
+      }
+    }
+    history.add( book );
+  }
+
+  private int indexOf ( long bookId ) {
+    Integer book = index.get( bookId );
+    if ( book != null ) {
+      return book;
+    }
+
+    if ( books == bookIds.length ) {
+      bookIds = Arrays.copyOf(
+        bookIds,
+        books * 2
+      );
+      readers = Arrays.copyOf(
+        readers,
+        books * 2
+      );
+      rows = Arrays.copyOf(
+        rows,
+        books * 2
+      );
+    }
+    bookIds[ books ] = bookId;
+    index.put(
+      bookId,
+      books
+    );
+    return books++;
+  }
+
+  private Row row ( int book ) {
+    if ( rows[ book ] == null ) {
+      rows[ book ] = new Row(
+        new int[ 4 ],
+        new int[ 4 ],
+        0
+      );
+    }
+    return rows[ book ];
+  }
+
+  /**
+   * Co-borrows against the neighbour's readers; the book's own readers are the
+   * same for its whole row, so they do not change the order.
+   */
+  private double score ( int coBorrows, int neighbour ) {
+    return coBorrows / Math.sqrt( readers[ neighbour ] );
+  }
+
+  /**
+   * Counts the rows of a range of books, splitting it while it is larger than
+   * the threshold. A leaf counts into one array as wide as the catalog and
+   * clears only the cells it touched, so a row costs its co-borrows and not
+   * the catalog size.
+   */
+  private final class RowTask extends RecursiveAction {
+    private final History[] users;
+    private final int[] offsets;
+    private final int[] postingUsers;
+    private final int[] postingPlaces;
+    private final Row[] target;
+    private final int from;
+    private final int to;
+    private final int threshold;
+
+    RowTask (
+      History[] users,
+      int[] offsets,
+      int[] postingUsers,
+      int[] postingPlaces,
+      Row[] target,
+      int from,
+      int to,
+      int threshold
+    ) {
+      this.users = users;
+      this.offsets = offsets;
+      this.postingUsers = postingUsers;
+      this.postingPlaces = postingPlaces;
+      this.target = target;
+      this.from = from;
+      this.to = to;
+      this.threshold = threshold;
+    }
+
+    @Override
+    protected void compute () {
+      if ( to - from > threshold ) {
+        int middle = ( from + to ) >>> 1;
+        invokeAll(
+          new RowTask(
+            users,
+            offsets,
+            postingUsers,
+            postingPlaces,
+            target,
+            from,
+            middle,
+            threshold
+          ),
+          new RowTask(
+            users,
+            offsets,
+            postingUsers,
+            postingPlaces,
+            target,
+            middle,
+            to,
+            threshold
+          )
+        );
+        return;
+      }
+
+      int[] counts = new int[ books ];
+      int[] touched = new int[ books ];
+      for ( int book = from; book < to; book++ ) {
+        int size = 0;
+        for ( int posting = offsets[ book ]; posting < offsets[ book + 1 ]; posting++ ) {
+          History history = users[ postingUsers[ posting ] ];
+          int place = postingPlaces[ posting ];
+          int last = Math.min(
+            history.size - 1,
+            place + window
+          );
+          for ( int i = Math.max(
+            0,
+            place - window
+          ); i <= last; i++ ) {
+            int other = history.books[ i ];
+            if ( i != place && counts[ other ]++ == 0 ) {
+              touched[ size++ ] = other;
+            }
+          }
+        }
+        if ( size > 0 ) {
+          target[ book ] = best(
+            counts,
+            touched,
+            size
+          );
+        }
+        for ( int i = 0; i < size; i++ ) {
+          counts[ touched[ i ] ] = 0;
+        }
+      }
+    }
+
+    /**
+     * The {@code keep} neighbours with the highest score. Scores are positive,
+     * so their float bits order like the scores; the low half breaks ties
+     * towards the lower index.
+     */
+    private Row best ( int[] counts, int[] touched, int size ) {
+      int kept = Math.min(
+        size,
+        keep
+      );
+      int[] neighbours = new int[ kept ];
+      int[] coBorrows = new int[ kept ];
+      if ( size <= keep ) {
+        for ( int i = 0; i < size; i++ ) {
+          neighbours[ i ] = touched[ i ];
+          coBorrows[ i ] = counts[ touched[ i ] ];
+        }
+      } else {
+        long[] keys = new long[ size ];
+        for ( int i = 0; i < size; i++ ) {
+          int other = touched[ i ];
+          keys[ i ] = (long) Float.floatToIntBits( (float) score(
+            counts[ other ],
+            other
+          ) ) << 32 | ( Integer.MAX_VALUE - other );
+        }
+        Arrays.sort( keys );
+        for ( int i = 0; i < kept; i++ ) {
+          int other = Integer.MAX_VALUE - (int) keys[ size - 1 - i ];
+          neighbours[ i ] = other;
+          coBorrows[ i ] = counts[ other ];
+        }
+      }
+      return new Row(
+        neighbours,
+        coBorrows,
+        kept
+      );
+    }
+  }
+
+  /**
+   * Distinct books of one reader, in the order of their first borrow.
+   */
+  private static final class History {
+    private int[] books = new int[ 4 ];
+    private int size;
+
+    boolean contains ( int book ) {
+      for ( int i = 0; i < size; i++ ) {
+        if ( books[ i ] == book ) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void add ( int book ) {
+      if ( size == books.length ) {
+        books = Arrays.copyOf(
+          books,
+          size * 2
+        );
+      }
+      books[ size++ ] = book;
+    }
+  }
+
+  private static final class Row {
+    private int[] neighbours;
+    private int[] counts;
+    private int size;
+
+    Row ( int[] neighbours, int[] counts, int size ) {
+      this.neighbours = neighbours;
+      this.counts = counts;
+      this.size = size;
+    }
+
+    void increment ( int neighbour ) {
+      for ( int i = 0; i < size; i++ ) {
+        if ( neighbours[ i ] == neighbour ) {
+          counts[ i ]++;
+          return;
+        }
+      }
+      if ( size == neighbours.length ) {
+        neighbours = Arrays.copyOf(
+          neighbours,
+          Math.max(
+            4,
+            size * 2
+          )
+        );
+        counts = Arrays.copyOf(
+          counts,
+          neighbours.length
+        );
+      }
+      neighbours[ size ] = neighbour;
+      counts[ size++ ] = 1;
+    }
+  }
+}
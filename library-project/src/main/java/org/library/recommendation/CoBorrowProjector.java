@@ -0,0 +1,181 @@
+package org.library.recommendation;
+
+import org.library.order.OrderEventRepository;
+import org.library.order.OrderEventTailer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a {@link CoBorrowGraph} up to date from the order event log, for
+ * "readers who borrowed this also borrowed".
+ * <p>
+ * The first run reads the whole log and counts the graph on a fork-join pool
+ * of {@code recommendations.parallelism} threads. Later runs apply the settled
+ * events after the last one applied, and those that committed late behind it,
+ * through an {@link OrderEventTailer}, and once a night the graph is built
+ * again from the log, which counts in full the neighbours the incremental
+ * updates only approximate. Full builds run on the
+ * {@code recommendationExecutor}, so they never hold a scheduler thread. Until
+ * the first build finishes no book has related books. Every replica builds its
+ * own graph.
+ */
+@Component
+public class CoBorrowProjector {
+  private static final Logger logger = LoggerFactory.getLogger( CoBorrowProjector.class );
+
+  private final OrderEventTailer tailer;
+  private final int window;
+  private final int keep;
+  private final int parallelism;
+  private final Executor builder;
+  private final AtomicBoolean building = new AtomicBoolean();
+
+  private volatile CoBorrowGraph graph;
+
+  public CoBorrowProjector (
+    OrderEventRepository orderEventRepository,
+    PlatformTransactionManager transactionManager,
+    @Value( "${recommendations.batch-size}" ) int batchSize,
+    @Value( "${recommendations.settle}" ) long settle,
+    @Value( "${recommendations.window}" ) int window,
+    @Value( "${recommendations.keep}" ) int keep,
+    @Value( "${recommendations.parallelism}" ) int parallelism,
+    @Qualifier( "recommendationExecutor" ) Executor builder
+  ) {
+    this.tailer = new OrderEventTailer(
+      orderEventRepository,
+      transactionManager,
+      batchSize,
+      settle
+    );
+    this.window = window;
+    this.keep = keep;
+    this.parallelism = parallelism;
+    this.builder = builder;
+  }
+
+  /**
+   * Applies the events written since the previous run, or starts building the
+   * graph when this replica has none yet.
+   *
+   * @return how many events this run applied
+   */
+  @Scheduled( fixedDelayString = "${recommendations.interval}" )
+  public synchronized int catchUp () {
+    CoBorrowGraph current = graph;
+    if ( current == null ) {
+      startBuild();
+      return 0;
+    }
+    return advance( current );
+  }
+
+  /**
+   * Starts building the graph again from the whole log, to be swapped in when
+   * done. Reads and catch-ups use the previous graph meanwhile.
+   */
+  @Scheduled( cron = "${recommendations.rebuild-cron}" )
+  public void rebuild () {
+    startBuild();
+  }
+
+  /**
+   * Up to {@code limit} books related to the book, best first, each as
+   * {@code { bookId, coBorrows }}.
+   */
+  public List<long[]> related ( Long bookId, int limit ) {
+    CoBorrowGraph current = graph;
+    if ( current == null ) {
+      return List.of();
+    }
+    synchronized ( current ) {
+      return current.related(
+        bookId,
+        limit
+      );
+    }
+  }
+
+  /**
+   * Id of the last event the graph reflects.
+   */
+  public long position () {
+    CoBorrowGraph current = graph;
+    if ( current == null ) {
+      return 0;
+    }
+    synchronized ( current ) {
+      return current.lastEventId();
+    }
+  }
+
+  private void startBuild () {
+    if ( !building.compareAndSet(
+      false,
+      true
+    ) ) {
+      return;
+    }
+    try {
+      builder.execute( () -> {
+        try {
+          graph = build();
+        } catch ( RuntimeException e ) {
+          logger.error(
+            "Co-borrow graph build failed",
+            e
+          );
+        } finally {
+          building.set( false );
+        }
+      } );
+    } catch ( TaskRejectedException e ) {
+      building.set( false );
+      throw e;
+    }
+  }
+
+  private CoBorrowGraph build () {
+    long start = System.nanoTime();
+    CoBorrowGraph built = new CoBorrowGraph(
+      window,
+      keep
+    );
+    int events = advance( built );
+    built.rebuild( parallelism );
+    logger.info(
+      "Co-borrow graph of {} books built from {} events in {} ms",
+      built.books(),
+      events,
+      ( System.nanoTime() - start ) / 1_000_000
+    );
+    return built;
+  }
+
+  private int advance ( CoBorrowGraph target ) {
+    long after;
+    synchronized ( target ) {
+      after = target.lastEventId();
+    }
+    return tailer.advance(
+      after,
+      Long.MAX_VALUE,
+      target.gaps(),
+      event -> {
+        synchronized ( target ) {
+          target.apply( event );
+        }
+      }
+    );
+  }
+}
@@ -0,0 +1,29 @@
+package org.library.recommendation;
+
+import lombok.RequiredArgsConstructor;
+import org.library.recommendation.dto.RelatedBookDto;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping( "/api/v1/book" )
+@RequiredArgsConstructor
+public class RecommendationController {
+  private final RecommendationService recommendationService;
+
+  @GetMapping( "/{id}/related" )
+  public List<RelatedBookDto> getRelated (
+    @PathVariable Long id,
+    @RequestParam( defaultValue = "10" ) int limit
+  ) {
+    return recommendationService.getRelated(
+      id,
+      limit
+    );
+  }
+}
@@ -0,0 +1,63 @@
+package org.library.recommendation;
+
+import lombok.RequiredArgsConstructor;
+import org.library.book.BookService;
+import org.library.book.dto.BookResponseDto;
+import org.library.recommendation.dto.RelatedBookDto;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Books borrowed by readers of a book, from the in-memory graph of the
+ * {@link CoBorrowProjector} and the catalog, so no request reads ORDER.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecommendationService {
+  static final int MAX_LIMIT = 50;
+
+  private final CoBorrowProjector coBorrowProjector;
+  private final BookService bookService;
+
+  /**
+   * The {@code limit} books most related to the book that are still in the
+   * catalog, best first. At most {@value #MAX_LIMIT}.
+   */
+  public List<RelatedBookDto> getRelated ( Long bookId, int limit ) {
+    bookService.getById( bookId );
+    int size = Math.max(
+      1,
+      Math.min(
+        limit,
+        MAX_LIMIT
+      )
+    );
+    // Room for books deleted since
+    List<long[]> related = coBorrowProjector.related(
+      bookId,
+      size * 2
+    );
+    Map<Long, BookResponseDto> books = bookService.getAllByIds( related
+      .stream()
+      .map( entry -> entry[ 0 ] )
+      .toList() );
+
+    List<RelatedBookDto> result = new ArrayList<>( size );
+    for ( long[] entry : related ) {
+      BookResponseDto book = books.get( entry[ 0 ] );
+      if ( book != null ) {
+        result.add( new RelatedBookDto(
+          book,
+          entry[ 1 ]
+        ) );
+        if ( result.size() == size ) {
+          break;
+        }
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,15 @@
+package org.library.recommendation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.library.book.dto.BookResponseDto;
+
+@Data
+@AllArgsConstructor
+public class RelatedBookDto {
+  private BookResponseDto book;
+  /**
+   * Readers who borrowed both books.
+   */
+  private long coBorrowers;
+}
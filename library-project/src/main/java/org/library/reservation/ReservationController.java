@@ -0,0 +1,39 @@
+package org.library.reservation;
+
+import lombok.RequiredArgsConstructor;
+import org.library.auth.annotations.CurrentUser;
+import org.library.reservation.dto.ReservationResponseDto;
+import org.library.user.dto.UserResponseDto;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping( "/api/v1/reservation" )
+@RequiredArgsConstructor
+public class ReservationController {
+  private final ReservationService reservationService;
+
+  @PostMapping( "/{bookId}" )
+  public ReservationResponseDto reserve ( @CurrentUser UserResponseDto currentUser, @PathVariable Long bookId ) {
+    return reservationService.reserve(
+      currentUser.getId(),
+      bookId
+    );
+  }
+
+  @GetMapping( "/my" )
+  public List<ReservationResponseDto> getMyReservations ( @CurrentUser UserResponseDto currentUser ) {
+    return reservationService.getByUserId( currentUser.getId() );
+  }
+
+  @DeleteMapping( "/{reservationId}" )
+  @ResponseStatus( HttpStatus.OK )
+  public void cancel ( @CurrentUser UserResponseDto currentUser, @PathVariable Long reservationId ) {
+    reservationService.cancel(
+      currentUser.getId(),
+      reservationId
+    );
+  }
+}
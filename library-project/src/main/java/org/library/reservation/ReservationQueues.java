@@ -0,0 +1,236 @@
+package org.library.reservation;
+
+import org.library.reservation.dto.ReservationRowDto;
+import org.library.reservation.enums.ReservationStatus;
+import org.library.transaction.TransactionHooks;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory mirror of the waiting and held reservations, one FIFO queue per
+ * book ordered by reservation id. Answers "who is next for this book" without
+ * touching the database, which is asked on every borrow and return.
+ * <p>
+ * Every book has its own lock, so readers queueing for different books never
+ * contend. Like {@code BookCatalog}, the mirror is loaded on first read and
+ * changes made inside a transaction are applied only after it commits.
+ */
+@Component
+public class ReservationQueues {
+  private final Map<Long, BookQueue> queues = new ConcurrentHashMap<>();
+
+  private volatile boolean loaded;
+
+  public ReservationRowDto head ( Long bookId, Supplier<List<ReservationRowDto>> loader ) {
+    return head(
+      bookId,
+      null,
+      loader
+    );
+  }
+
+  /**
+   * First reservation of the book other than {@code skipId}, which lets a
+   * transaction look past the reservation it has just closed but not committed.
+   */
+  public ReservationRowDto head ( Long bookId, Long skipId, Supplier<List<ReservationRowDto>> loader ) {
+    ensureLoaded( loader );
+    BookQueue queue = queues.get( bookId );
+    return queue != null ? queue.head( skipId ) : null;
+  }
+
+  /**
+   * @return 1-based position of the reservation, or 0 when it is not queued
+   */
+  public int position ( Long bookId, Long reservationId, Supplier<List<ReservationRowDto>> loader ) {
+    ensureLoaded( loader );
+    BookQueue queue = queues.get( bookId );
+    return queue != null ? queue.position( reservationId ) : 0;
+  }
+
+  public boolean contains ( Long bookId, Long userId, Supplier<List<ReservationRowDto>> loader ) {
+    ensureLoaded( loader );
+    BookQueue queue = queues.get( bookId );
+    return queue != null && queue.containsUser( userId );
+  }
+
+  public int size ( Long bookId, Supplier<List<ReservationRowDto>> loader ) {
+    ensureLoaded( loader );
+    BookQueue queue = queues.get( bookId );
+    return queue != null ? queue.size() : 0;
+  }
+
+  public void add ( ReservationRowDto reservation ) {
+    TransactionHooks.afterCommit( () -> apply( () -> queues
+      .computeIfAbsent(
+        reservation.getBookId(),
+        id -> new BookQueue()
+      )
+      .add( reservation ) ) );
+  }
+
+  public void hold ( Long bookId, Long reservationId, Instant holdUntil ) {
+    TransactionHooks.afterCommit( () -> apply( () -> {
+      BookQueue queue = queues.get( bookId );
+      if ( queue != null ) {
+        queue.hold(
+          reservationId,
+          holdUntil
+        );
+      }
+    } ) );
+  }
+
+  public void remove ( Long bookId, Long reservationId ) {
+    TransactionHooks.afterCommit( () -> apply( () -> {
+      BookQueue queue = queues.get( bookId );
+      if ( queue != null ) {
+        queue.remove( reservationId );
+      }
+    } ) );
+  }
+
+  /**
+   * Replaces the queue of a book with its current database state. Used for
+   * changes made by other replicas and to recover from a stale head.
+   */
+  public void refresh ( Long bookId, List<ReservationRowDto> rows ) {
+    apply( () -> queues
+      .computeIfAbsent(
+        bookId,
+        id -> new BookQueue()
+      )
+      .replaceWith( rows ) );
+  }
+
+  /**
+   * Drops every queue; the next read loads them again.
+   */
+  public synchronized void invalidate () {
+    loaded = false;
+  }
+
+  private void ensureLoaded ( Supplier<List<ReservationRowDto>> loader ) {
+    if ( loaded ) {
+      return;
+    }
+
+    synchronized ( this ) {
+      if ( !loaded ) {
+        queues.clear();
+        for ( ReservationRowDto reservation : loader.get() ) {
+          queues
+            .computeIfAbsent(
+              reservation.getBookId(),
+              id -> new BookQueue()
+            )
+            .add( reservation );
+        }
+        loaded = true;
+      }
+    }
+  }
+
+  private void apply ( Runnable change ) {
+    if ( !loaded ) {
+      // Waits for a load in progress, it may have read the database before this change
+      synchronized ( this ) {
+        if ( !loaded ) {
+          // Nothing mirrored yet, the first read picks the change up from the database
+          return;
+        }
+      }
+    }
+    change.run();
+  }
+
+  /**
+   * Queue of one book. Reservations usually commit in id order and are appended;
+   * one that commits late is moved back past the newer ones so the queue stays
+   * ordered by id, which is the order readers reserved in.
+   */
+  private static final class BookQueue {
+    private final ArrayDeque<ReservationRowDto> entries = new ArrayDeque<>();
+
+    synchronized ReservationRowDto head ( Long skipId ) {
+      for ( ReservationRowDto entry : entries ) {
+        if ( !entry.getId().equals( skipId ) ) {
+          return entry;
+        }
+      }
+      return null;
+    }
+
+    synchronized void add ( ReservationRowDto reservation ) {
+      ArrayDeque<ReservationRowDto> newer = new ArrayDeque<>();
+      while ( !entries.isEmpty() && entries.peekLast().getId() > reservation.getId() ) {
+        newer.push( entries.pollLast() );
+      }
+      if ( entries.isEmpty() || !entries.peekLast().getId().equals( reservation.getId() ) ) {
+        entries.addLast( reservation );
+      }
+      entries.addAll( newer );
+    }
+
+    synchronized void replaceWith ( List<ReservationRowDto> rows ) {
+      entries.clear();
+      rows.forEach( this::add );
+    }
+
+    synchronized void hold ( Long reservationId, Instant holdUntil ) {
+      ArrayDeque<ReservationRowDto> updated = new ArrayDeque<>( entries.size() );
+      for ( ReservationRowDto entry : entries ) {
+        updated.addLast( entry.getId().equals( reservationId ) ? new ReservationRowDto(
+          entry.getId(),
+          entry.getBookId(),
+          entry.getUserId(),
+          ReservationStatus.HELD,
+          holdUntil
+        ) : entry );
+      }
+      entries.clear();
+      entries.addAll( updated );
+    }
+
+    synchronized void remove ( Long reservationId ) {
+      Iterator<ReservationRowDto> iterator = entries.iterator();
+      while ( iterator.hasNext() ) {
+        if ( iterator.next().getId().equals( reservationId ) ) {
+          iterator.remove();
+          return;
+        }
+      }
+    }
+
+    synchronized int position ( Long reservationId ) {
+      int position = 1;
+      for ( ReservationRowDto entry : entries ) {
+        if ( entry.getId().equals( reservationId ) ) {
+          return position;
+        }
+        position++;
+      }
+      return 0;
+    }
+
+    synchronized boolean containsUser ( Long userId ) {
+      for ( ReservationRowDto entry : entries ) {
+        if ( entry.getUserId().equals( userId ) ) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    synchronized int size () {
+      return entries.size();
+    }
+  }
+}
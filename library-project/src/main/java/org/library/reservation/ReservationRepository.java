@@ -0,0 +1,100 @@
+package org.library.reservation;
+
+import org.library.reservation.dto.ReservationRowDto;
+import org.library.reservation.enums.ReservationStatus;
+import org.library.reservation.model.Reservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+  @Query( """
+    select new org.library.reservation.dto.ReservationRowDto(
+      r.id, r.book.id, r.user.id, r.status, r.holdUntil
+    )
+    from Reservation r
+    where r.status in (
+      org.library.reservation.enums.ReservationStatus.WAITING,
+      org.library.reservation.enums.ReservationStatus.HELD
+    )
+    order by r.id
+    """ )
+  List<ReservationRowDto> findQueuedRows ();
+
+  @Query( """
+    select new org.library.reservation.dto.ReservationRowDto(
+      r.id, r.book.id, r.user.id, r.status, r.holdUntil
+    )
+    from Reservation r
+    where r.book.id = :bookId
+      and r.status in (
+        org.library.reservation.enums.ReservationStatus.WAITING,
+        org.library.reservation.enums.ReservationStatus.HELD
+      )
+    order by r.id
+    """ )
+  List<ReservationRowDto> findQueuedRowsByBookId ( @Param( "bookId" ) Long bookId );
+
+  @Query( """
+    select new org.library.reservation.dto.ReservationRowDto(
+      r.id, r.book.id, r.user.id, r.status, r.holdUntil
+    )
+    from Reservation r
+    where r.user.id = :userId
+      and r.status in (
+        org.library.reservation.enums.ReservationStatus.WAITING,
+        org.library.reservation.enums.ReservationStatus.HELD
+      )
+    order by r.id
+    """ )
+  List<ReservationRowDto> findQueuedRowsByUserId ( @Param( "userId" ) Long userId );
+
+  @Query( """
+    select new org.library.reservation.dto.ReservationRowDto(
+      r.id, r.book.id, r.user.id, r.status, r.holdUntil
+    )
+    from Reservation r
+    where r.id = :id
+    """ )
+  Optional<ReservationRowDto> findRowById ( @Param( "id" ) Long id );
+
+  @Query( """
+    select new org.library.reservation.dto.ReservationRowDto(
+      r.id, r.book.id, r.user.id, r.status, r.holdUntil
+    )
+    from Reservation r
+    where r.status = org.library.reservation.enums.ReservationStatus.HELD
+      and r.holdUntil < :now
+    order by r.id
+    """ )
+  List<ReservationRowDto> findExpiredHolds ( @Param( "now" ) Instant now );
+
+  /**
+   * Moves the given reservations from {@code expected} to {@code status}, setting
+   * the hold deadline. Returns how many rows were changed, rows another
+   * transaction already moved are skipped.
+   */
+  @Modifying
+  @Query( """
+    update Reservation r
+    set r.status = :status, r.holdUntil = :holdUntil, r.updatedAt = :now
+    where r.id in :ids
+      and r.status in :expected
+    """ )
+  int updateStatus (
+    @Param( "ids" ) Collection<Long> ids,
+    @Param( "expected" ) Collection<ReservationStatus> expected,
+    @Param( "status" ) ReservationStatus status,
+    @Param( "holdUntil" ) Instant holdUntil,
+    @Param( "now" ) Instant now
+  );
+}
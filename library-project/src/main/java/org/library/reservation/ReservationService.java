@@ -0,0 +1,341 @@
+package org.library.reservation;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.library.book.BookService;
+import org.library.book.model.Book;
+import org.library.coordination.CacheInvalidator;
+import org.library.coordination.CacheRegion;
+import org.library.exception.ErrorCode;
+import org.library.order.OrderRepository;
+import org.library.order.enums.OrderStatus;
+import org.library.reservation.dto.ReservationResponseDto;
+import org.library.reservation.dto.ReservationRowDto;
+import org.library.reservation.enums.ReservationStatus;
+import org.library.reservation.model.Reservation;
+import org.library.user.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.http.HttpStatus.*;
+
+/**
+ * Waitlist for books that are out. Readers queue per book in reservation order;
+ * whenever a book comes back the reader at the head gets a hold for
+ * {@code reservation.hold-window} during which only they can borrow it. An
+ * expired hold passes the book on to the next reader.
+ * <p>
+ * The database is the source of truth, {@link ReservationQueues} mirrors it so
+ * borrows and returns of books nobody waits for cost no extra query. Status
+ * changes are conditional UPDATEs, so replicas racing on the same reservation
+ * cannot both win.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReservationService {
+  private static final List<ReservationStatus> QUEUED = List.of(
+    ReservationStatus.WAITING,
+    ReservationStatus.HELD
+  );
+
+  private final ReservationRepository reservationRepository;
+  private final OrderRepository orderRepository;
+  private final BookService bookService;
+  private final ReservationQueues reservationQueues;
+  private final CacheInvalidator cacheInvalidator;
+
+  @Value( "${reservation.hold-window}" )
+  private long holdWindow;
+
+  @PostConstruct
+  void subscribeToInvalidations () {
+    cacheInvalidator.register(
+      CacheRegion.RESERVATION,
+      bookId -> reservationQueues.refresh(
+        bookId,
+        reservationRepository.findQueuedRowsByBookId( bookId )
+      ),
+      reservationQueues::invalidate
+    );
+  }
+
+  @Transactional
+  public ReservationResponseDto reserve ( Long userId, Long bookId ) {
+    bookService.checkBookExists( bookId );
+
+    if ( reservationQueues.head(
+      bookId,
+      this::loadQueues
+    ) == null && !orderRepository.existsByBookIdAndStatus(
+      bookId,
+      OrderStatus.ACTIVE
+    ) ) {
+      throw new ResponseStatusException(
+        BAD_REQUEST,
+        "This book is available, borrow it instead"
+      );
+    }
+    if ( orderRepository.existsByBookIdAndUserIdAndStatus(
+      bookId,
+      userId,
+      OrderStatus.ACTIVE
+    ) ) {
+      throw new ResponseStatusException(
+        BAD_REQUEST,
+        "You already have this book"
+      );
+    }
+    if ( reservationQueues.contains(
+      bookId,
+      userId,
+      this::loadQueues
+    ) ) {
+      throw ErrorCode.RESERVATION_DUPLICATE.exception();
+    }
+
+    Reservation saved;
+    try {
+      saved = reservationRepository.save( Reservation
+        .builder()
+        .status( ReservationStatus.WAITING )
+        .user( User.builder().id( userId ).build() )
+        .book( Book.builder().id( bookId ).build() )
+        .build() );
+    } catch ( DataIntegrityViolationException e ) {
+      // Another replica queued the same user first; UX_RESERVATION_OPEN rejected this one
+      throw ErrorCode.RESERVATION_DUPLICATE.exception();
+    }
+
+    int position = reservationQueues.size(
+      bookId,
+      this::loadQueues
+    ) + 1;
+    reservationQueues.add( new ReservationRowDto(
+      saved.getId(),
+      bookId,
+      userId,
+      ReservationStatus.WAITING,
+      null
+    ) );
+    cacheInvalidator.invalidate(
+      CacheRegion.RESERVATION,
+      bookId
+    );
+
+    return new ReservationResponseDto(
+      saved.getId(),
+      bookId,
+      ReservationStatus.WAITING,
+      position,
+      null
+    );
+  }
+
+  @Transactional( readOnly = true )
+  public List<ReservationResponseDto> getByUserId ( Long userId ) {
+    List<ReservationResponseDto> result = new ArrayList<>();
+    for ( ReservationRowDto row : reservationRepository.findQueuedRowsByUserId( userId ) ) {
+      int position = reservationQueues.position(
+        row.getBookId(),
+        row.getId(),
+        this::loadQueues
+      );
+      result.add( new ReservationResponseDto(
+        row.getId(),
+        row.getBookId(),
+        row.getStatus(),
+        position > 0 ? position : null,
+        row.getHoldUntil()
+      ) );
+    }
+    return result;
+  }
+
+  @Transactional
+  public void cancel ( Long userId, Long reservationId ) {
+    ReservationRowDto reservation = reservationRepository
+      .findRowById( reservationId )
+      .filter( row -> row.getUserId().equals( userId ) )
+      .orElseThrow( () -> ErrorCode.RESERVATION_NOT_FOUND.exception() );
+
+    if ( !QUEUED.contains( reservation.getStatus() ) ) {
+      throw new ResponseStatusException(
+        BAD_REQUEST,
+        "Only waiting or held reservations can be cancelled"
+      );
+    }
+    if ( close(
+      reservation,
+      ReservationStatus.CANCELLED
+    ) && reservation.getStatus() == ReservationStatus.HELD ) {
+      promoteNext(
+        reservation.getBookId(),
+        reservation.getId()
+      );
+    }
+  }
+
+  /**
+   * Gives the next reader in line a hold on a book that has just become free.
+   * Does nothing, and runs no query, when nobody waits for it.
+   */
+  @Transactional
+  public void promoteNext ( Long bookId ) {
+    promoteNext(
+      bookId,
+      null
+    );
+  }
+
+  /**
+   * Checks that none of the books is queued for another reader. Where the user is
+   * at the head of the queue their reservation is fulfilled, so the caller can
+   * go on and create the order.
+   *
+   * @return the books that are reserved for someone else
+   */
+  @Transactional
+  public Set<Long> claim ( Long userId, Collection<Long> bookIds ) {
+    Set<Long> blocked = new HashSet<>();
+    List<ReservationRowDto> fulfilled = new ArrayList<>();
+    for ( Long bookId : bookIds ) {
+      ReservationRowDto head = reservationQueues.head(
+        bookId,
+        this::loadQueues
+      );
+      if ( head == null ) {
+        continue;
+      }
+      if ( head.getUserId().equals( userId ) ) {
+        fulfilled.add( head );
+      } else {
+        blocked.add( bookId );
+      }
+    }
+
+    if ( !fulfilled.isEmpty() ) {
+      int updated = reservationRepository.updateStatus(
+        fulfilled
+          .stream()
+          .map( ReservationRowDto::getId )
+          .toList(),
+        QUEUED,
+        ReservationStatus.FULFILLED,
+        null,
+        Instant.now()
+      );
+      if ( updated != fulfilled.size() ) {
+        throw new ResponseStatusException(
+          CONFLICT,
+          "Your reservation changed concurrently, please retry"
+        );
+      }
+      for ( ReservationRowDto reservation : fulfilled ) {
+        reservationQueues.remove(
+          reservation.getBookId(),
+          reservation.getId()
+        );
+        cacheInvalidator.invalidate(
+          CacheRegion.RESERVATION,
+          reservation.getBookId()
+        );
+      }
+    }
+    return blocked;
+  }
+
+  /**
+   * Expires holds that were not picked up in time and passes each book on.
+   * Safe to run on every replica, a hold is expired by exactly one of them.
+   */
+  @Scheduled( fixedDelayString = "${reservation.expiry-interval}" )
+  @Transactional
+  public void expireHolds () {
+    for ( ReservationRowDto hold : reservationRepository.findExpiredHolds( Instant.now() ) ) {
+      if ( close(
+        hold,
+        ReservationStatus.EXPIRED
+      ) ) {
+        promoteNext(
+          hold.getBookId(),
+          hold.getId()
+        );
+      }
+    }
+  }
+
+  private void promoteNext ( Long bookId, Long closedId ) {
+    // A second attempt after reloading the queue, in case another replica moved it
+    for ( int attempt = 0; attempt < 2; attempt++ ) {
+      ReservationRowDto head = reservationQueues.head(
+        bookId,
+        closedId,
+        this::loadQueues
+      );
+      if ( head == null || head.getStatus() == ReservationStatus.HELD ) {
+        return;
+      }
+
+      Instant now = Instant.now();
+      Instant holdUntil = now.plusMillis( holdWindow );
+      if ( reservationRepository.updateStatus(
+        List.of( head.getId() ),
+        List.of( ReservationStatus.WAITING ),
+        ReservationStatus.HELD,
+        holdUntil,
+        now
+      ) == 1 ) {
+        reservationQueues.hold(
+          bookId,
+          head.getId(),
+          holdUntil
+        );
+        cacheInvalidator.invalidate(
+          CacheRegion.RESERVATION,
+          bookId
+        );
+        return;
+      }
+      reservationQueues.refresh(
+        bookId,
+        reservationRepository.findQueuedRowsByBookId( bookId )
+      );
+    }
+  }
+
+  private boolean close ( ReservationRowDto reservation, ReservationStatus status ) {
+    if ( reservationRepository.updateStatus(
+      List.of( reservation.getId() ),
+      List.of( reservation.getStatus() ),
+      status,
+      null,
+      Instant.now()
+    ) == 0 ) {
+      return false;
+    }
+    reservationQueues.remove(
+      reservation.getBookId(),
+      reservation.getId()
+    );
+    cacheInvalidator.invalidate(
+      CacheRegion.RESERVATION,
+      reservation.getBookId()
+    );
+    return true;
+  }
+
+  private List<ReservationRowDto> loadQueues () {
+    return reservationRepository.findQueuedRows();
+  }
+}
@@ -0,0 +1,23 @@
+package org.library.reservation.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.library.reservation.enums.ReservationStatus;
+
+import java.time.Instant;
+
+/**
+ * {@code position} is 1 for the reader at the head of the queue. A held
+ * reservation can be turned into an order until {@code holdUntil}.
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude( JsonInclude.Include.NON_NULL )
+public class ReservationResponseDto {
+  private Long id;
+  private Long bookId;
+  private ReservationStatus status;
+  private Integer position;
+  private Instant holdUntil;
+}
@@ -0,0 +1,17 @@
+package org.library.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.library.reservation.enums.ReservationStatus;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class ReservationRowDto {
+  private Long id;
+  private Long bookId;
+  private Long userId;
+  private ReservationStatus status;
+  private Instant holdUntil;
+}
@@ -0,0 +1,9 @@
+package org.library.reservation.enums;
+
+public enum ReservationStatus {
+  WAITING,
+  HELD,
+  FULFILLED,
+  EXPIRED,
+  CANCELLED
+}
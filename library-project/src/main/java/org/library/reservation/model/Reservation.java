@@ -0,0 +1,52 @@
+package org.library.reservation.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.library.book.model.Book;
+import org.library.reservation.enums.ReservationStatus;
+import org.library.user.model.User;
+
+import java.time.Instant;
+
+@Entity
+@Table(
+  name = "RESERVATION",
+  indexes = {
+    @Index( name = "IX_RESERVATION_QUEUE", columnList = "BOOK_ID, STATUS, ID" ),
+    @Index( name = "IX_RESERVATION_USER", columnList = "USER_ID" )
+  }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Reservation {
+  @Id
+  @GeneratedValue( strategy = GenerationType.IDENTITY )
+  private Long id;
+
+  @CreationTimestamp
+  @Column( name = "CREATED_AT", nullable = false, updatable = false )
+  private Instant createdAt;
+
+  @UpdateTimestamp
+  @Column( name = "UPDATED_AT", nullable = false )
+  private Instant updatedAt;
+
+  @Enumerated( EnumType.STRING )
+  @Column( name = "STATUS", nullable = false, length = 20 )
+  private ReservationStatus status;
+
+  @Column( name = "HOLD_UNTIL" )
+  private Instant holdUntil;
+
+  @ManyToOne( fetch = FetchType.LAZY )
+  @JoinColumn( name = "USER_ID", nullable = false )
+  private User user;
+
+  @ManyToOne( fetch = FetchType.LAZY )
+  @JoinColumn( name = "BOOK_ID", nullable = false )
+  private Book book;
+}
@@ -0,0 +1,202 @@
+package org.library.stats;
+
+import org.library.order.OrderEventTailer;
+import org.library.order.dto.OrderEventRowDto;
+import org.library.order.enums.OrderEventType;
+import org.library.stats.model.BorrowStat;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Borrow counts per book and month, folded from the order event log, with the
+ * totals per book and per month kept alongside so no read has to sum the
+ * months up. Months are yyyyMM in UTC. Not thread-safe,
+ * {@link BorrowStatsProjector} guards it.
+ */
+final class BorrowRollup {
+  private final Map<Integer, Map<Long, Long>> byMonth = new HashMap<>();
+  private final Map<Long, Long> byBook = new HashMap<>();
+  private final TreeMap<Integer, Long> months = new TreeMap<>();
+  // Cells changed since the last write
+  private final Set<Cell> dirty = new HashSet<>();
+
+  private final OrderEventTailer.Gaps gaps = new OrderEventTailer.Gaps();
+  private long lastEventId;
+
+  void apply ( OrderEventRowDto event ) {
+    if ( event.getType() == OrderEventType.BORROWED && event.getBookId() != null ) {
+      ZonedDateTime at = event.getOccurredAt().atZone( ZoneOffset.UTC );
+      add(
+        event.getBookId(),
+        at.getYear() * 100 + at.getMonthValue(),
+        1
+      );
+    }
+    // Late events are passed on behind the position
+    lastEventId = Math.max(
+      lastEventId,
+      event.getId()
+    );
+  }
+
+  /**
+   * Loads one persisted row; {@link #position} sets the event it is current to.
+   */
+  void restore ( BorrowStat row ) {
+    add(
+      row.getBookId(),
+      row.getMonth(),
+      row.getBorrows()
+    );
+  }
+
+  void position ( long eventId ) {
+    lastEventId = eventId;
+  }
+
+  /**
+   * Ids missing behind the position, for the tailer to read again.
+   */
+  OrderEventTailer.Gaps gaps () {
+    return gaps;
+  }
+
+  long lastEventId () {
+    return lastEventId;
+  }
+
+  /**
+   * Borrows per book, over all months or in one.
+   */
+  Map<Long, Long> byBook ( Integer month ) {
+    if ( month == null ) {
+      return new HashMap<>( byBook );
+    }
+    return new HashMap<>( byMonth.getOrDefault(
+      month,
+      Map.of()
+    ) );
+  }
+
+  Map<Integer, Long> byMonth () {
+    return new TreeMap<>( months );
+  }
+
+  int dirtyCount () {
+    return dirty.size();
+  }
+
+  /**
+   * Rows of every cell changed since the last call to {@link #clearDirty()},
+   * all as of {@link #lastEventId()}.
+   */
+  List<BorrowStat> dirtyRows () {
+    List<BorrowStat> rows = new ArrayList<>( dirty.size() );
+    for ( Cell cell : dirty ) {
+      rows.add( row( cell ) );
+    }
+    return rows;
+  }
+
+  List<BorrowStat> allRows () {
+    List<BorrowStat> rows = new ArrayList<>();
+    byMonth.forEach( ( month, books ) -> books.forEach( ( bookId, borrows ) -> rows.add( BorrowStat
+      .builder()
+      .bookId( bookId )
+      .month( month )
+      .borrows( borrows )
+      .build() ) ) );
+    return rows;
+  }
+
+  void clearDirty () {
+    dirty.clear();
+  }
+
+  /**
+   * How many cells differ between the two rollups.
+   */
+  int differences ( BorrowRollup other ) {
+    Set<Cell> cells = new HashSet<>();
+    collect(
+      this,
+      cells
+    );
+    collect(
+      other,
+      cells
+    );
+    int differences = 0;
+    for ( Cell cell : cells ) {
+      if ( !Objects.equals(
+        borrows( cell ),
+        other.borrows( cell )
+      ) ) {
+        differences++;
+      }
+    }
+    return differences;
+  }
+
+  private void add ( Long bookId, int month, long borrows ) {
+    byMonth
+      .computeIfAbsent(
+        month,
+        key -> new HashMap<>()
+      )
+      .merge(
+        bookId,
+        borrows,
+        Long::sum
+      );
+    byBook.merge(
+      bookId,
+      borrows,
+      Long::sum
+    );
+    months.merge(
+      month,
+      borrows,
+      Long::sum
+    );
+    dirty.add( new Cell(
+      bookId,
+      month
+    ) );
+  }
+
+  private Long borrows ( Cell cell ) {
+    Map<Long, Long> books = byMonth.get( cell.month() );
+    return books != null ? books.get( cell.bookId() ) : null;
+  }
+
+  private BorrowStat row ( Cell cell ) {
+    return BorrowStat
+      .builder()
+      .bookId( cell.bookId() )
+      .month( cell.month() )
+      .borrows( borrows( cell ) )
+      .build();
+  }
+
+  private static void collect ( BorrowRollup rollup, Set<Cell> cells ) {
+    rollup.byMonth.forEach( ( month, books ) -> books
+      .keySet()
+      .forEach( bookId -> cells.add( new Cell(
+        bookId,
+        month
+      ) ) ) );
+  }
+
+  private record Cell( Long bookId, int month ) {
+  }
+}
@@ -0,0 +1,29 @@
+package org.library.stats;
+
+import org.library.stats.model.BorrowStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BorrowStatRepository extends JpaRepository<BorrowStat, Long> {
+
+  /**
+   * Sets the count of an existing row. Returns 0 when the book has no row for
+   * the month yet.
+   */
+  @Modifying
+  @Query( """
+    update BorrowStat s
+    set s.borrows = :borrows
+    where s.bookId = :bookId
+      and s.month = :month
+    """ )
+  int setBorrows (
+    @Param( "bookId" ) Long bookId,
+    @Param( "month" ) Integer month,
+    @Param( "borrows" ) Long borrows
+  );
+}
@@ -0,0 +1,281 @@
+package org.library.stats;
+
+import org.library.order.OrderEventRepository;
+import org.library.order.OrderEventTailer;
+import org.library.stats.model.BorrowStat;
+import org.library.stats.model.StatsMark;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps a {@link BorrowRollup} of borrows per book and month up to date from the
+ * order event log, so statistics are read from memory instead of grouping over
+ * ORDER and BOOK.
+ * <p>
+ * Each run applies the settled events after the last one applied, and those
+ * that committed late behind it, through an {@link OrderEventTailer}, and
+ * writes the changed cells to BORROW_STAT together with the {@link StatsMark}
+ * in one transaction. A replica that is behind the mark, or loses the race for
+ * it, keeps its changes for a later run. A new replica starts from those rows,
+ * without the ids the previous one was still waiting for. Once a night the
+ * whole log is replayed and the rows are replaced with the result, which
+ * repairs any drift.
+ */
+@Component
+public class BorrowStatsProjector {
+  private static final Logger logger = LoggerFactory.getLogger( BorrowStatsProjector.class );
+
+  private final BorrowStatRepository borrowStatRepository;
+  private final StatsMarkRepository statsMarkRepository;
+  private final TransactionTemplate transaction;
+  private final TransactionTemplate readOnlyTransaction;
+  private final OrderEventTailer tailer;
+
+  private volatile BorrowRollup rollup;
+
+  public BorrowStatsProjector (
+    OrderEventRepository orderEventRepository,
+    BorrowStatRepository borrowStatRepository,
+    StatsMarkRepository statsMarkRepository,
+    PlatformTransactionManager transactionManager,
+    @Value( "${stats.batch-size}" ) int batchSize,
+    @Value( "${stats.settle}" ) long settle
+  ) {
+    this.borrowStatRepository = borrowStatRepository;
+    this.statsMarkRepository = statsMarkRepository;
+    this.transaction = new TransactionTemplate( transactionManager );
+    this.readOnlyTransaction = new TransactionTemplate( transactionManager );
+    this.readOnlyTransaction.setReadOnly( true );
+    this.tailer = new OrderEventTailer(
+      orderEventRepository,
+      transactionManager,
+      batchSize,
+      settle
+    );
+  }
+
+  /**
+   * Applies the events written since the previous run and writes the changed
+   * cells, restoring the persisted rows first when this replica has none yet.
+   *
+   * @return how many events this run applied
+   */
+  @Scheduled( fixedDelayString = "${stats.interval}" )
+  public synchronized int catchUp () {
+    if ( rollup == null ) {
+      rollup = restore();
+    }
+    int applied = advance(
+      rollup,
+      Long.MAX_VALUE
+    );
+    if ( rollup.dirtyCount() > 0 ) {
+      write(
+        rollup,
+        false
+      );
+    }
+    return applied;
+  }
+
+  /**
+   * Replays the whole log up to the current position into a new rollup, swaps
+   * it in and replaces the persisted rows with it.
+   *
+   * @return how many cells the replay corrected
+   */
+  @Scheduled( cron = "${stats.reconcile-cron}" )
+  public synchronized int reconcile () {
+    catchUp();
+    BorrowRollup current = rollup;
+    BorrowRollup rebuilt = new BorrowRollup();
+    advance(
+      rebuilt,
+      current.lastEventId()
+    );
+    rebuilt.position( current.lastEventId() );
+
+    int corrected = rebuilt.differences( current );
+    if ( corrected > 0 ) {
+      logger.warn(
+        "Borrow statistics drifted from the order log in {} cells, corrected",
+        corrected
+      );
+    }
+    rollup = rebuilt;
+    write(
+      rebuilt,
+      true
+    );
+    return corrected;
+  }
+
+  /**
+   * Borrows per book, over all months or in one month (yyyyMM).
+   */
+  public Map<Long, Long> borrowsByBook ( Integer month ) {
+    BorrowRollup current = current();
+    synchronized ( current ) {
+      return current.byBook( month );
+    }
+  }
+
+  /**
+   * Borrows per month (yyyyMM), oldest first.
+   */
+  public Map<Integer, Long> borrowsByMonth () {
+    BorrowRollup current = current();
+    synchronized ( current ) {
+      return current.byMonth();
+    }
+  }
+
+  /**
+   * Id of the last event the statistics reflect.
+   */
+  public long position () {
+    BorrowRollup current = current();
+    synchronized ( current ) {
+      return current.lastEventId();
+    }
+  }
+
+  private BorrowRollup current () {
+    BorrowRollup current = rollup;
+    if ( current == null ) {
+      catchUp();
+      current = rollup;
+    }
+    return current;
+  }
+
+  private int advance ( BorrowRollup target, long upTo ) {
+    long after;
+    synchronized ( target ) {
+      after = target.lastEventId();
+    }
+    return tailer.advance(
+      after,
+      upTo,
+      target.gaps(),
+      event -> {
+        synchronized ( target ) {
+          target.apply( event );
+        }
+      }
+    );
+  }
+
+  /**
+   * Loads the persisted rows. The mark is read before and after them and the
+   * read repeated when a writer committed in between, so the rows are current
+   * to the mark the rollup continues from.
+   */
+  private BorrowRollup restore () {
+    while ( true ) {
+      BorrowRollup restored = new BorrowRollup();
+      boolean consistent = Boolean.TRUE.equals( readOnlyTransaction.execute( status -> {
+        long before = markedEventId();
+        borrowStatRepository
+          .findAll()
+          .forEach( restored::restore );
+        long after = markedEventId();
+        restored.position( after );
+        return before == after;
+      } ) );
+      if ( consistent ) {
+        restored.clearDirty();
+        logger.info(
+          "Borrow statistics restored at event {}",
+          restored.lastEventId()
+        );
+        return restored;
+      }
+    }
+  }
+
+  private long markedEventId () {
+    return statsMarkRepository
+      .findById( StatsMark.BORROWS )
+      .map( StatsMark::getEventId )
+      .orElse( 0L );
+  }
+
+  /**
+   * Writes the changed cells, or with {@code replace} all of them, and moves the
+   * mark in one transaction. Moving the mark locks it, so writers take turns and
+   * one that is behind writes nothing.
+   */
+  private void write ( BorrowRollup source, boolean replace ) {
+    long eventId;
+    List<BorrowStat> rows;
+    synchronized ( source ) {
+      eventId = source.lastEventId();
+      rows = replace ? source.allRows() : source.dirtyRows();
+    }
+
+    try {
+      boolean written = Boolean.TRUE.equals( transaction.execute( status -> {
+        Instant now = Instant.now();
+        Optional<StatsMark> mark = statsMarkRepository.findById( StatsMark.BORROWS );
+        if ( mark.isEmpty() ) {
+          statsMarkRepository.save( StatsMark
+            .builder()
+            .name( StatsMark.BORROWS )
+            .eventId( eventId )
+            .updatedAt( now )
+            .build() );
+        } else if ( mark.get().getEventId() > eventId || statsMarkRepository.advance(
+          StatsMark.BORROWS,
+          mark.get().getEventId(),
+          eventId,
+          now
+        ) == 0 ) {
+          return false;
+        }
+
+        if ( replace ) {
+          borrowStatRepository.deleteAllInBatch();
+          borrowStatRepository.saveAll( rows );
+          return true;
+        }
+        for ( BorrowStat row : rows ) {
+          if ( borrowStatRepository.setBorrows(
+            row.getBookId(),
+            row.getMonth(),
+            row.getBorrows()
+          ) == 0 ) {
+            borrowStatRepository.save( row );
+          }
+        }
+        return true;
+      } ) );
+      if ( written ) {
+        synchronized ( source ) {
+          source.clearDirty();
+        }
+        logger.debug(
+          "Wrote {} borrow statistics at event {}",
+          rows.size(),
+          eventId
+        );
+      }
+    } catch ( DataIntegrityViolationException e ) {
+      logger.debug(
+        "Borrow statistics at event {} lost the race for the mark",
+        eventId
+      );
+    }
+  }
+}
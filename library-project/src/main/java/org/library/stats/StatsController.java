@@ -0,0 +1,44 @@
+package org.library.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.library.stats.dto.AuthorBorrowsDto;
+import org.library.stats.dto.BookBorrowsDto;
+import org.library.stats.dto.GenreBorrowsDto;
+import org.library.stats.dto.MonthBorrowsDto;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@RequestMapping( "/api/v1/stats" )
+@RequiredArgsConstructor
+public class StatsController {
+  private final StatsService statsService;
+
+  @GetMapping( "/genres" )
+  public List<GenreBorrowsDto> getBorrowsByGenre ( @RequestParam( required = false ) YearMonth month ) {
+    return statsService.getBorrowsByGenre( month );
+  }
+
+  @GetMapping( "/authors" )
+  public List<AuthorBorrowsDto> getBorrowsByAuthor ( @RequestParam( required = false ) YearMonth month ) {
+    return statsService.getBorrowsByAuthor( month );
+  }
+
+  @GetMapping( "/months" )
+  public List<MonthBorrowsDto> getBorrowsByMonth () {
+    return statsService.getBorrowsByMonth();
+  }
+
+  @GetMapping( "/books/top" )
+  public List<BookBorrowsDto> getTopBooks (
+    @RequestParam( required = false ) YearMonth month,
+    @RequestParam( defaultValue = "10" ) int limit
+  ) {
+    return statsService.getTopBooks(
+      month,
+      limit
+    );
+  }
+}
@@ -0,0 +1,33 @@
+package org.library.stats;
+
+import org.library.stats.model.StatsMark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface StatsMarkRepository extends JpaRepository<StatsMark, String> {
+
+  /**
+   * Moves the mark from {@code expected} to {@code eventId}. Returns 0 when
+   * another replica moved it first; the row stays locked until commit, so
+   * concurrent writers take turns.
+   */
+  @Modifying
+  @Query( """
+    update StatsMark m
+    set m.eventId = :eventId, m.updatedAt = :now
+    where m.name = :name
+      and m.eventId = :expected
+    """ )
+  int advance (
+    @Param( "name" ) String name,
+    @Param( "expected" ) Long expected,
+    @Param( "eventId" ) Long eventId,
+    @Param( "now" ) Instant now
+  );
+}
@@ -0,0 +1,175 @@
+package org.library.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.library.author.dto.AuthorDto;
+import org.library.book.BookService;
+import org.library.book.dto.BookResponseDto;
+import org.library.stats.dto.AuthorBorrowsDto;
+import org.library.stats.dto.BookBorrowsDto;
+import org.library.stats.dto.GenreBorrowsDto;
+import org.library.stats.dto.MonthBorrowsDto;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
+
+/**
+ * Borrow statistics for management. Counts come from the in-memory rollup of
+ * the {@link BorrowStatsProjector} and books from the catalog, so no request
+ * reads ORDER, whatever its size. Months are in UTC; without one the counts
+ * cover all time.
+ */
+@Service
+@RequiredArgsConstructor
+public class StatsService {
+  static final int MAX_TOP = 100;
+
+  // Ties go to the lower book id
+  private static final Comparator<Map.Entry<Long, Long>> BY_BORROWS = Map.Entry
+    .<Long, Long>comparingByValue()
+    .thenComparing( Map.Entry.<Long, Long>comparingByKey().reversed() );
+
+  private final BorrowStatsProjector borrowStatsProjector;
+  private final BookService bookService;
+
+  public List<GenreBorrowsDto> getBorrowsByGenre ( YearMonth month ) {
+    Map<String, Long> byGenre = new HashMap<>();
+    forEachBook(
+      month,
+      ( book, borrows ) -> byGenre.merge(
+        book.getGenre(),
+        borrows,
+        Long::sum
+      )
+    );
+
+    List<GenreBorrowsDto> result = new ArrayList<>( byGenre.size() );
+    byGenre.forEach( ( genre, borrows ) -> result.add( new GenreBorrowsDto(
+      genre,
+      borrows
+    ) ) );
+    result.sort( Comparator
+      .comparingLong( GenreBorrowsDto::getBorrows )
+      .reversed()
+      .thenComparing(
+        GenreBorrowsDto::getGenre,
+        Comparator.nullsLast( Comparator.naturalOrder() )
+      ) );
+    return result;
+  }
+
+  public List<AuthorBorrowsDto> getBorrowsByAuthor ( YearMonth month ) {
+    Map<Long, AuthorDto> authors = new HashMap<>();
+    Map<Long, Long> byAuthor = new HashMap<>();
+    forEachBook(
+      month,
+      ( book, borrows ) -> {
+        AuthorDto author = book.getAuthor();
+        if ( author != null ) {
+          authors.put(
+            author.getId(),
+            author
+          );
+          byAuthor.merge(
+            author.getId(),
+            borrows,
+            Long::sum
+          );
+        }
+      }
+    );
+
+    List<AuthorBorrowsDto> result = new ArrayList<>( byAuthor.size() );
+    byAuthor.forEach( ( authorId, borrows ) -> result.add( new AuthorBorrowsDto(
+      authors.get( authorId ),
+      borrows
+    ) ) );
+    result.sort( Comparator
+      .comparingLong( AuthorBorrowsDto::getBorrows )
+      .reversed()
+      .thenComparing( dto -> dto.getAuthor().getId() ) );
+    return result;
+  }
+
+  public List<MonthBorrowsDto> getBorrowsByMonth () {
+    List<MonthBorrowsDto> result = new ArrayList<>();
+    borrowStatsProjector
+      .borrowsByMonth()
+      .forEach( ( month, borrows ) -> result.add( new MonthBorrowsDto(
+        YearMonth
+          .of(
+            month / 100,
+            month % 100
+          )
+          .toString(),
+        borrows
+      ) ) );
+    return result;
+  }
+
+  /**
+   * The {@code limit} most borrowed books, at most {@value #MAX_TOP}. Only the
+   * top books are kept while counting, and only they are looked up.
+   */
+  public List<BookBorrowsDto> getTopBooks ( YearMonth month, int limit ) {
+    int size = Math.max(
+      1,
+      Math.min(
+        limit,
+        MAX_TOP
+      )
+    );
+    PriorityQueue<Map.Entry<Long, Long>> top = new PriorityQueue<>(
+      size + 1,
+      BY_BORROWS
+    );
+    for ( Map.Entry<Long, Long> entry : borrowStatsProjector
+      .borrowsByBook( key( month ) )
+      .entrySet() ) {
+      top.add( entry );
+      if ( top.size() > size ) {
+        top.poll();
+      }
+    }
+
+    List<Map.Entry<Long, Long>> ranked = new ArrayList<>( top );
+    ranked.sort( BY_BORROWS.reversed() );
+    Map<Long, BookResponseDto> books = bookService.getAllByIds( ranked
+      .stream()
+      .map( Map.Entry::getKey )
+      .toList() );
+
+    List<BookBorrowsDto> result = new ArrayList<>( ranked.size() );
+    for ( Map.Entry<Long, Long> entry : ranked ) {
+      BookResponseDto book = books.get( entry.getKey() );
+      result.add( new BookBorrowsDto(
+        entry.getKey(),
+        book != null ? book.getTitle() : null,
+        entry.getValue()
+      ) );
+    }
+    return result;
+  }
+
+  /**
+   * Passes every book still in the catalog with its borrows.
+   */
+  private void forEachBook ( YearMonth month, BiConsumer<BookResponseDto, Long> action ) {
+    Map<Long, Long> borrows = borrowStatsProjector.borrowsByBook( key( month ) );
+    Map<Long, BookResponseDto> books = bookService.getAllByIds( borrows.keySet() );
+    books.forEach( ( bookId, book ) -> action.accept(
+      book,
+      borrows.get( bookId )
+    ) );
+  }
+
+  private static Integer key ( YearMonth month ) {
+    return month != null ? month.getYear() * 100 + month.getMonthValue() : null;
+  }
+}
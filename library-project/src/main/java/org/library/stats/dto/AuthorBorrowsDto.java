@@ -0,0 +1,12 @@
+package org.library.stats.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.library.author.dto.AuthorDto;
+
+@Data
+@AllArgsConstructor
+public class AuthorBorrowsDto {
+  private AuthorDto author;
+  private long borrows;
+}
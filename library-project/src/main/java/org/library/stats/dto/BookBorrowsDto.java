@@ -0,0 +1,15 @@
+package org.library.stats.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BookBorrowsDto {
+  private Long bookId;
+  /**
+   * Null when the book was deleted since.
+   */
+  private String title;
+  private long borrows;
+}
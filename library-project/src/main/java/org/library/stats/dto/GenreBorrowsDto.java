@@ -0,0 +1,11 @@
+package org.library.stats.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class GenreBorrowsDto {
+  private String genre;
+  private long borrows;
+}
@@ -0,0 +1,14 @@
+package org.library.stats.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class MonthBorrowsDto {
+  /**
+   * yyyy-MM, in UTC.
+   */
+  private String month;
+  private long borrows;
+}
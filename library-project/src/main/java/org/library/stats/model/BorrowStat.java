@@ -0,0 +1,36 @@
+package org.library.stats.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * How many times one book was borrowed in one month, as of the event the
+ * {@link StatsMark} points at. Written by the {@code BorrowStatsProjector}, so
+ * the statistics never group over ORDER.
+ */
+@Entity
+@Table(
+  name = "BORROW_STAT",
+  uniqueConstraints = @UniqueConstraint( name = "UX_BORROW_STAT", columnNames = { "BOOK_ID", "BORROW_MONTH" } )
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BorrowStat {
+  @Id
+  @GeneratedValue( strategy = GenerationType.IDENTITY )
+  private Long id;
+
+  @Column( name = "BOOK_ID", nullable = false )
+  private Long bookId;
+
+  /**
+   * Month as yyyyMM, in UTC.
+   */
+  @Column( name = "BORROW_MONTH", nullable = false )
+  private Integer month;
+
+  @Column( name = "BORROWS", nullable = false )
+  private Long borrows;
+}
@@ -0,0 +1,30 @@
+package org.library.stats.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Last order event the {@link BorrowStat} rows reflect. Only the replica that
+ * moves it may write the rows, so they are always current to one event.
+ */
+@Entity
+@Table( name = "STATS_MARK" )
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatsMark {
+  public static final String BORROWS = "borrows";
+
+  @Id
+  @Column( name = "NAME", length = 100 )
+  private String name;
+
+  @Column( name = "EVENT_ID", nullable = false )
+  private Long eventId;
+
+  @Column( name = "UPDATED_AT", nullable = false )
+  private Instant updatedAt;
+}
@@ -0,0 +1,150 @@
+package org.library.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.library.exception.ErrorResponseDto;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Writes list responses element by element as they are produced, instead of
+ * collecting them into a {@code List} for Jackson first. Output is flushed every
+ * {@code page-size} elements, so memory stays bounded by one page and clients
+ * receive the first page while the rest is still being read.
+ * <p>
+ * The format is negotiated from the Accept header against the application's own
+ * Jackson converters, so JSON, CBOR and Smile behave as for any other endpoint.
+ * <p>
+ * The 200 status goes out with the first few kilobytes, long before the list is
+ * complete, so a failing producer cannot turn the response into an error. The
+ * body then ends with an {@code {"error": ...}} element and no closing bracket,
+ * and the exception is rethrown, so clients see an incomplete array instead of
+ * a shorter list.
+ */
+public class StreamingListWriter {
+  private static final ErrorResponseDto FAILURE = new ErrorResponseDto(
+    HttpStatus.INTERNAL_SERVER_ERROR.value(),
+    "The list could not be completed",
+    null
+  );
+
+  private final Supplier<List<HttpMessageConverter<?>>> converters;
+  private final int pageSize;
+
+  public StreamingListWriter ( Supplier<List<HttpMessageConverter<?>>> converters, int pageSize ) {
+    this.converters = converters;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * @param producer called on the response thread with a sink for the elements;
+   *                 runs after the handler returns, so it must open its own transaction
+   */
+  public <T> ResponseEntity<StreamingResponseBody> write ( String accept, Consumer<Consumer<T>> producer ) {
+    AbstractJackson2HttpMessageConverter converter = null;
+    MediaType mediaType = MediaType.APPLICATION_JSON;
+
+    List<MediaType> accepted = MediaType.parseMediaTypes( accept != null ? accept : MediaType.ALL_VALUE );
+    MimeTypeUtils.sortBySpecificity( accepted );
+    for ( MediaType candidate : accepted ) {
+      converter = find( candidate );
+      if ( converter != null ) {
+        mediaType = candidate.isConcrete() ? candidate.removeQualityValue() : converter.getSupportedMediaTypes().get( 0 );
+        break;
+      }
+    }
+    if ( converter == null ) {
+      converter = find( MediaType.APPLICATION_JSON );
+    }
+
+    ObjectWriter writer = converter
+      .getObjectMapper()
+      .writer()
+      .without( SerializationFeature.FLUSH_AFTER_WRITE_VALUE )
+      .without( JsonGenerator.Feature.AUTO_CLOSE_TARGET );
+
+    StreamingResponseBody body = out -> {
+      JsonGenerator generator = writer.createGenerator( out );
+      generator.writeStartArray();
+      int[] pending = { 0 };
+      try {
+        producer.accept( element -> {
+          try {
+            writer.writeValue(
+              generator,
+              element
+            );
+            if ( ++pending[ 0 ] == pageSize ) {
+              generator.flush();
+              pending[ 0 ] = 0;
+            }
+          } catch ( IOException e ) {
+            throw new UncheckedIOException( e );
+          }
+        } );
+      } catch ( RuntimeException e ) {
+        writeFailure(
+          writer,
+          generator,
+          e
+        );
+        throw e;
+      }
+      generator.writeEndArray();
+      generator.close();
+    };
+
+    return ResponseEntity
+      .ok()
+      .header(
+        HttpHeaders.CONTENT_TYPE,
+        mediaType.toString()
+      )
+      .body( body );
+  }
+
+  /**
+   * Ends the body with the error element, leaving the array open. Nothing more
+   * can be done when the connection itself has failed.
+   */
+  private static void writeFailure ( ObjectWriter writer, JsonGenerator generator, RuntimeException failure ) {
+    try {
+      writer.writeValue(
+        generator,
+        Map.of(
+          "error",
+          FAILURE
+        )
+      );
+      generator.flush();
+    } catch ( IOException | RuntimeException e ) {
+      failure.addSuppressed( e );
+    }
+  }
+
+  private AbstractJackson2HttpMessageConverter find ( MediaType mediaType ) {
+    for ( HttpMessageConverter<?> converter : converters.get() ) {
+      if ( converter instanceof AbstractJackson2HttpMessageConverter jackson && jackson.canWrite(
+        List.class,
+        mediaType
+      ) ) {
+        return jackson;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,50 @@
+package org.library.transaction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Runs work when the current transaction ends. Outside a transaction the work
+ * runs right away, as if the change had just committed.
+ */
+public final class TransactionHooks {
+
+  private TransactionHooks () {
+  }
+
+  /**
+   * Runs the action once the current transaction commits; nothing runs on rollback.
+   */
+  public static void afterCommit ( Runnable action ) {
+    if ( !TransactionSynchronizationManager.isSynchronizationActive() ) {
+      action.run();
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+      @Override
+      public void afterCommit () {
+        action.run();
+      }
+    } );
+  }
+
+  /**
+   * Passes whether the current transaction committed once it has ended.
+   */
+  public static void afterCompletion ( Consumer<Boolean> action ) {
+    if ( !TransactionSynchronizationManager.isSynchronizationActive() ) {
+      action.accept( true );
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+      @Override
+      public void afterCompletion ( int status ) {
+        action.accept( status == STATUS_COMMITTED );
+      }
+    } );
+  }
+}
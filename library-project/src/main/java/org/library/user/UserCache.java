@@ -0,0 +1,143 @@
+package org.library.user;
+
+import org.library.coordination.CacheInvalidator;
+import org.library.coordination.CacheRegion;
+import org.library.transaction.TransactionHooks;
+import org.library.user.dto.UserResponseDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Caches the principals resolved for access tokens, so authenticating a request
+ * does not query the users table every time. Entries expire after {@code ttl}
+ * and are evicted on every replica when the user changes. A full cache first
+ * drops its expired entries and then the tenth loaded longest ago, so it keeps
+ * caching the users active now.
+ * <p>
+ * A user evicted while being loaded is not cached: every eviction bumps the
+ * generation of the id's stripe, and a load that sees a newer generation after
+ * storing its entry takes it out again.
+ */
+@Component
+public class UserCache {
+  private static final int STRIPES = 256;
+
+  private final Map<Long, Entry> users = new ConcurrentHashMap<>();
+  private final AtomicLongArray generations = new AtomicLongArray( STRIPES );
+  private final AtomicLong clears = new AtomicLong();
+  private final CacheInvalidator cacheInvalidator;
+  private final long ttlMillis;
+  private final int maxSize;
+
+  public UserCache (
+    CacheInvalidator cacheInvalidator,
+    @Value( "${user.cache.ttl}" ) long ttlMillis,
+    @Value( "${user.cache.max-size}" ) int maxSize
+  ) {
+    this.cacheInvalidator = cacheInvalidator;
+    this.ttlMillis = ttlMillis;
+    this.maxSize = maxSize;
+    cacheInvalidator.register(
+      CacheRegion.USER,
+      this::remove,
+      this::clear
+    );
+  }
+
+  public UserResponseDto get ( Long id, Function<Long, UserResponseDto> loader ) {
+    long now = System.currentTimeMillis();
+    Entry entry = users.get( id );
+    if ( entry != null && entry.expiresAt() > now ) {
+      return entry.user();
+    }
+
+    long generation = generations.get( stripe( id ) );
+    long cleared = clears.get();
+    UserResponseDto user = loader.apply( id );
+    if ( users.size() >= maxSize ) {
+      makeRoom( now );
+    }
+    Entry loaded = new Entry(
+      user,
+      now + ttlMillis
+    );
+    users.put(
+      id,
+      loaded
+    );
+    if ( generations.get( stripe( id ) ) != generation || clears.get() != cleared ) {
+      // Evicted while loading, the user may have been read before the change
+      users.remove(
+        id,
+        loaded
+      );
+    }
+    return user;
+  }
+
+  /**
+   * Drops the user here once the current transaction commits and on the other replicas.
+   */
+  public void evict ( Long id ) {
+    TransactionHooks.afterCommit( () -> remove( id ) );
+    cacheInvalidator.invalidate(
+      CacheRegion.USER,
+      id
+    );
+  }
+
+  int size () {
+    return users.size();
+  }
+
+  // The generation moves before the entry goes, so a load storing in between
+  // sees it and takes its entry out again
+  private void remove ( Long id ) {
+    generations.incrementAndGet( stripe( id ) );
+    users.remove( id );
+  }
+
+  private void clear () {
+    clears.incrementAndGet();
+    users.clear();
+  }
+
+  private static int stripe ( Long id ) {
+    return Long.hashCode( id ) & ( STRIPES - 1 );
+  }
+
+  private synchronized void makeRoom ( long now ) {
+    if ( users.size() < maxSize ) {
+      // Another miss made room meanwhile
+      return;
+    }
+    users
+      .values()
+      .removeIf( entry -> entry.expiresAt() <= now );
+
+    int excess = users.size() - maxSize * 9 / 10;
+    if ( excess > 0 ) {
+      // All entries live equally long, so the first to expire were loaded first
+      users
+        .entrySet()
+        .stream()
+        .sorted( Comparator.comparingLong( entry -> entry
+          .getValue()
+          .expiresAt() ) )
+        .limit( excess )
+        .map( Map.Entry::getKey )
+        .toList()
+        .forEach( users::remove );
+    }
+  }
+
+  private record Entry( UserResponseDto user, long expiresAt ) {
+  }
+}
@@ -1,12 +1,68 @@
 package org.library.user;
 
+import org.library.order.dto.UserLoanCountDto;
+import org.library.user.dto.UserResponseDto;
 import org.library.user.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
   Optional<User> findByEmail(String email);
-}
\ No newline at end of file
+
+  @Query( """
+    select new org.library.user.dto.UserResponseDto( u.id, u.email, u.role )
+    from User u
+    where u.id in :ids
+    """ )
+  List<UserResponseDto> findRowsByIdIn ( @Param( "ids" ) Collection<Long> ids );
+
+  /**
+   * Adds {@code count} active loans to the user unless that takes them past
+   * {@code max}. Returns 0 when it would; the row stays locked until commit, so
+   * borrows of the user on every replica take turns.
+   */
+  @Modifying
+  @Query( """
+    update User u
+    set u.activeLoans = u.activeLoans + :count
+    where u.id = :id
+      and u.activeLoans + :count <= :max
+    """ )
+  int addActiveLoans (
+    @Param( "id" ) Long id,
+    @Param( "count" ) int count,
+    @Param( "max" ) int max
+  );
+
+  @Modifying
+  @Query( """
+    update User u
+    set u.activeLoans = case when u.activeLoans > :count then u.activeLoans - :count else 0 end
+    where u.id = :id
+    """ )
+  int removeActiveLoans (
+    @Param( "id" ) Long id,
+    @Param( "count" ) int count
+  );
+
+  @Query( "select u.activeLoans from User u where u.id = :id" )
+  Optional<Integer> findActiveLoansById ( @Param( "id" ) Long id );
+
+  /**
+   * Active loans of every user that has any.
+   */
+  @Query( """
+    select new org.library.order.dto.UserLoanCountDto( u.id, u.activeLoans )
+    from User u
+    where u.activeLoans > 0
+    """ )
+  List<UserLoanCountDto> findActiveLoanCounts ();
+}
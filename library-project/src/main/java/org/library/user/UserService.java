@@ -1,17 +1,21 @@
 package org.library.user;
 
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.library.auth.dto.RegisterDto;
 import org.library.auth.enums.Role;
+import org.library.exception.ErrorCode;
 import org.library.user.dto.UpdateUserDto;
 import org.library.user.dto.UserResponseDto;
 import org.library.user.model.User;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.springframework.http.HttpStatus.*;
@@ -21,6 +25,7 @@ import static org.springframework.http.HttpStatus.*;
 public class UserService {
   private final PasswordEncoder passwordEncoder;
   private final UserRepository userRepository;
+  private final UserCache userCache;
 
   @Transactional
   public UserResponseDto create ( RegisterDto dto ) {
@@ -46,20 +51,15 @@ public class UserService {
     }
   }
 
+  @Transactional( readOnly = true )
   public UserResponseDto getProfile ( Long id ) {
-    User user = userRepository.findById( id ).orElseThrow( () -> new ResponseStatusException(
-      NOT_FOUND,
-      "Such user doesn't exist"
-    ) );
+    User user = userRepository.findById( id ).orElseThrow( () -> ErrorCode.PROFILE_NOT_FOUND.exception() );
     return toResponseDto( user );
   }
 
   @Transactional
   public UserResponseDto update ( Long id, UpdateUserDto dto ) {
-    User user = userRepository.findById( id ).orElseThrow( () -> new ResponseStatusException(
-      NOT_FOUND,
-      "User not found"
-    ) );
+    User user = userRepository.findById( id ).orElseThrow( () -> ErrorCode.USER_NOT_FOUND.exception( id ) );
 
     if ( dto.getEmail() != null ) {
       user.setEmail( dto.getEmail().trim() );
@@ -70,52 +70,74 @@ public class UserService {
       user.setPassword( hashedPassword );
     }
 
-    return toResponseDto( userRepository.save( user ) );
+    UserResponseDto updated = toResponseDto( userRepository.save( user ) );
+    userCache.evict( id );
+    return updated;
   }
 
+  @Transactional( readOnly = true )
   public void checkUserExists ( Long userId ) {
     if ( !userRepository.existsById( userId ) ) {
-      throw new ResponseStatusException(
-        NOT_FOUND,
-        "User not found with id: " + userId
-      );
+      throw ErrorCode.USER_NOT_FOUND.exception( userId );
     }
   }
 
+  @Transactional( readOnly = true )
   public UserResponseDto getById ( Long id ) {
-    User user = userRepository.findById( id ).orElseThrow( () -> new ResponseStatusException(
-      NOT_FOUND,
-      "User not found with id: " + id
-    ) );
+    User user = userRepository.findById( id ).orElseThrow( () -> ErrorCode.USER_NOT_FOUND.exception( id ) );
     return toResponseDto( user );
   }
 
+  /**
+   * The role of the user, read through the profile cache.
+   */
+  @Transactional( readOnly = true )
+  public String getRole ( Long id ) {
+    return userCache
+      .get(
+        id,
+        this::getById
+      )
+      .getRole();
+  }
+
+  @Transactional( readOnly = true )
+  public Map<Long, UserResponseDto> getAllByIds ( Collection<Long> ids ) {
+    Map<Long, UserResponseDto> users = new HashMap<>();
+    if ( ids.isEmpty() ) {
+      return users;
+    }
+
+    for ( UserResponseDto user : userRepository.findRowsByIdIn( ids ) ) {
+      users.put(
+        user.getId(),
+        user
+      );
+    }
+    return users;
+  }
+
+  @Transactional( readOnly = true )
   public UserResponseDto getByEmail ( String email ) {
-    User user = userRepository.findByEmail( email ).orElseThrow( () -> new ResponseStatusException(
-      NOT_FOUND,
-      "User not found with email: " + email
-    ) );
+    User user = userRepository.findByEmail( email ).orElseThrow( () -> ErrorCode.USER_NOT_FOUND_BY_EMAIL.exception( email ) );
     return toResponseDto( user );
   }
 
+  @Transactional( readOnly = true )
   public Optional<User> getByEmailWithoutException ( String email ) {
     return userRepository.findByEmail( email );
   }
 
+  @Transactional( readOnly = true )
   public User getByEmailInternal ( String email ) {
-    User user = userRepository.findByEmail( email ).orElseThrow( () -> new ResponseStatusException(
-      NOT_FOUND,
-      "User not found with email: " + email
-    ) );
+    User user = userRepository.findByEmail( email ).orElseThrow( () -> ErrorCode.USER_NOT_FOUND_BY_EMAIL.exception( email ) );
     return user;
   }
 
+  @Transactional( readOnly = true )
   public void checkUserDuplicateByEmail ( String email ) {
     if ( userRepository.findByEmail( email ).isPresent() ) {
-      throw new ResponseStatusException(
-        CONFLICT,
-        "User with the email " + email + " already exists"
-      );
+      throw ErrorCode.USER_DUPLICATE.exception( email );
     }
   }
 
@@ -37,4 +37,9 @@ public class User {
 
   @Column(name = "ROLE", nullable = false)
   private String role;
+
+  // Only changed by the conditional updates of UserRepository, never by saving the entity
+  @Builder.Default
+  @Column(name = "ACTIVE_LOANS", nullable = false, updatable = false)
+  private int activeLoans = 0;
 }
\ No newline at end of file
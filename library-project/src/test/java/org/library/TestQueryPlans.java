@@ -0,0 +1,221 @@
+package org.library;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.library.author.AuthorRepository;
+import org.library.order.OrderRepository;
+import org.library.order.enums.OrderStatus;
+import org.library.reservation.ReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the hot repository queries on the embedded database, then has it
+ * explain the exact SQL Hibernate sent against the schema of each script in
+ * sql/, loaded into H2 in the matching compatibility mode, and checks that the
+ * index the script names for the query is used.
+ * <p>
+ * H2 cannot run everything in the scripts, so they are adapted on load:
+ * <ul>
+ *   <li>Oracle's PL/SQL drop block and its CASE-based unique index are skipped.</li>
+ *   <li>Foreign keys are left out, as H2 would give each an index of its own that
+ *   neither Oracle nor PostgreSQL creates.</li>
+ *   <li>A partial index gets the column of its condition as a trailing column,
+ *   since H2 has no partial indexes.</li>
+ * </ul>
+ * Hibernate quotes ORDER and USER in lower case, while the Oracle script
+ * creates them in upper case, so that schema compares names ignoring case.
+ */
+@DataJpaTest( properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=org.library.TestQueryPlans$RecordingInspector" )
+@ActiveProfiles( "test" )
+public class TestQueryPlans {
+
+  @Autowired
+  private OrderRepository orderRepository;
+
+  @Autowired
+  private AuthorRepository authorRepository;
+
+  @Autowired
+  private ReservationRepository reservationRepository;
+
+  private static Connection oracle;
+  private static Connection postgresql;
+
+  @BeforeAll
+  static void loadScripts () throws IOException, SQLException {
+    oracle = load(
+      "jdbc:h2:mem:plans-oracle;MODE=Oracle;NON_KEYWORDS=YEAR;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+      Path.of( "sql/init-oracle-xe.sql" )
+    );
+    postgresql = load(
+      "jdbc:h2:mem:plans-postgresql;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR",
+      Path.of( "sql/init-postgresql.sql" )
+    );
+  }
+
+  @AfterAll
+  static void closeScripts () throws SQLException {
+    oracle.close();
+    postgresql.close();
+  }
+
+  @Test
+  public void testActiveOrderLookup_UsesBookStatusIndex () throws SQLException {
+    assertPlanUses(
+      () -> orderRepository.existsByBookIdAndStatus(
+        1L,
+        OrderStatus.ACTIVE
+      ),
+      "IX_ORDER_BOOK_STATUS",
+      "ix_order_active_book"
+    );
+  }
+
+  @Test
+  public void testOrderHistory_UsesUserIndex () throws SQLException {
+    assertPlanUses(
+      () -> {
+        try ( Stream<?> rows = orderRepository.streamRowsByUserId( 1L ) ) {
+          rows.count();
+        }
+      },
+      "IX_ORDER_USER",
+      "ix_order_user"
+    );
+  }
+
+  @Test
+  public void testOverdueSweep_UsesDueIndex () throws SQLException {
+    assertPlanUses(
+      () -> orderRepository.findDueRowsAfter(
+        OrderStatus.ACTIVE,
+        Instant.now(),
+        Instant.EPOCH,
+        0L,
+        Limit.of( 10 )
+      ),
+      "IX_ORDER_DUE",
+      "ix_order_due"
+    );
+  }
+
+  @Test
+  public void testBooksOfAuthor_UseAuthorIndex () throws SQLException {
+    assertPlanUses(
+      () -> authorRepository.findBooksByAuthorId( 1L ),
+      "IX_BOOK_AUTHOR",
+      "ix_book_author"
+    );
+  }
+
+  @Test
+  public void testReservationQueue_UsesQueueIndex () throws SQLException {
+    assertPlanUses(
+      () -> reservationRepository.findQueuedRowsByBookId( 1L ),
+      "IX_RESERVATION_QUEUE",
+      "ix_reservation_queue"
+    );
+  }
+
+  private void assertPlanUses ( Runnable query, String oracleIndex, String postgresqlIndex ) throws SQLException {
+    RecordingInspector.statements.clear();
+    query.run();
+    assertFalse( RecordingInspector.statements.isEmpty() );
+    String sql = RecordingInspector.statements.get( RecordingInspector.statements.size() - 1 );
+
+    assertPlanUses(
+      oracle,
+      sql,
+      oracleIndex
+    );
+    assertPlanUses(
+      postgresql,
+      sql,
+      postgresqlIndex
+    );
+  }
+
+  private static void assertPlanUses ( Connection connection, String sql, String index ) throws SQLException {
+    String plan = explain(
+      connection,
+      sql
+    );
+    assertFalse(
+      plan.contains( "tableScan" ),
+      "Table scan in the plan of " + sql + "\n" + plan
+    );
+    assertTrue(
+      plan.contains( index ),
+      "Expected " + index + " in the plan of " + sql + "\n" + plan
+    );
+  }
+
+  private static String explain ( Connection connection, String sql ) throws SQLException {
+    try ( PreparedStatement statement = connection.prepareStatement( "EXPLAIN " + sql ) ) {
+      // The plan does not depend on the values, only on which columns are compared
+      for ( int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++ ) {
+        statement.setObject(
+          i,
+          null
+        );
+      }
+      try ( ResultSet result = statement.executeQuery() ) {
+        StringBuilder plan = new StringBuilder();
+        while ( result.next() ) {
+          plan.append( result.getString( 1 ) );
+        }
+        return plan.toString();
+      }
+    }
+  }
+
+  private static Connection load ( String url, Path script ) throws IOException, SQLException {
+    String sql = Files
+      .readString( script )
+      .replaceAll( "(?s)BEGIN.*?END;\\s*/", "" )
+      .replaceAll( "--[^\\n]*", "" )
+      .replaceAll( ",\\s*CONSTRAINT \\w+ FOREIGN KEY[^,)]*\\([^)]*\\)[^,)]*\\([^)]*\\)[^,)]*", "" )
+      .replaceAll( "\\(([^()]*)\\) WHERE (\\w+) (=|IN)[^;]*", "($1, $2)" );
+
+    Connection connection = DriverManager.getConnection( url );
+    try ( Statement statement = connection.createStatement() ) {
+      for ( String command : sql.split( ";" ) ) {
+        if ( !command.isBlank() && !command.contains( "CASE WHEN" ) ) {
+          statement.execute( command );
+        }
+      }
+    }
+    return connection;
+  }
+
+  public static class RecordingInspector implements StatementInspector {
+    static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect ( String sql ) {
+      statements.add( sql );
+      return sql;
+    }
+  }
+}
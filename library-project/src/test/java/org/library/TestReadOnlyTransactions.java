@@ -0,0 +1,210 @@
+package org.library;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.hibernate.cfg.AvailableSettings;
+import org.library.auth.annotations.CurrentUser;
+import org.library.exception.GlobalExceptionHandler;
+import org.library.user.dto.UserResponseDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Calls every GET endpoint of every REST controller in the application context
+ * and fails if any of them opens a read-write transaction. Controllers are found
+ * by a classpath scan, so a new one is covered without touching this test.
+ */
+@SpringBootTest( properties = "catalog.async.enabled=true" )
+@ActiveProfiles( "test" )
+public class TestReadOnlyTransactions {
+
+  private static final List<String> readWrite = Collections.synchronizedList( new ArrayList<>() );
+
+  @TempDir
+  static Path dataDir;
+
+  @Autowired
+  private ApplicationContext context;
+
+  private List<Class<?>> controllers;
+  private MockMvc mockMvc;
+
+  @DynamicPropertySource
+  static void dataFiles ( DynamicPropertyRegistry registry ) {
+    registry.add(
+      "jwt.keyring-path",
+      () -> dataDir.resolve( "jwt-keyring" ).toString()
+    );
+  }
+
+  @BeforeEach
+  void setUp () throws ClassNotFoundException {
+    ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider( false );
+    scanner.addIncludeFilter( new AnnotationTypeFilter( RestController.class ) );
+    controllers = new ArrayList<>();
+    for ( BeanDefinition candidate : scanner.findCandidateComponents( LibraryProjectApplication.class.getPackageName() ) ) {
+      controllers.add( Class.forName( candidate.getBeanClassName() ) );
+    }
+
+    mockMvc = MockMvcBuilders
+      .standaloneSetup( controllers
+        .stream()
+        .map( context::getBean )
+        .toArray() )
+      .setCustomArgumentResolvers( new FixedCurrentUserResolver() )
+      .setControllerAdvice( new GlobalExceptionHandler() )
+      .build();
+  }
+
+  @Test
+  public void testGetEndpoints_OpenOnlyReadOnlyTransactions () throws Exception {
+    List<Method> endpoints = getEndpoints();
+    assertFalse( endpoints.isEmpty() );
+
+    for ( Method endpoint : endpoints ) {
+      String path = path( endpoint );
+      readWrite.clear();
+
+      MvcResult result = mockMvc.perform( get( path ) ).andReturn();
+      // Event streams stay open, their transactions all ran before the handler returned
+      if ( result.getRequest().isAsyncStarted() && !ResponseBodyEmitter.class.isAssignableFrom( endpoint.getReturnType() ) ) {
+        mockMvc.perform( asyncDispatch( result ) );
+      }
+
+      assertEquals(
+        List.of(),
+        readWrite,
+        "GET " + path + " opened read-write transactions"
+      );
+    }
+  }
+
+  private List<Method> getEndpoints () {
+    List<Method> endpoints = new ArrayList<>();
+    for ( Class<?> controller : controllers ) {
+      for ( Method method : controller.getDeclaredMethods() ) {
+        if ( AnnotatedElementUtils.hasAnnotation(
+          method,
+          GetMapping.class
+        ) ) {
+          endpoints.add( method );
+        }
+      }
+    }
+    return endpoints;
+  }
+
+  private static String path ( Method endpoint ) {
+    RequestMapping base = AnnotatedElementUtils.findMergedAnnotation(
+      endpoint.getDeclaringClass(),
+      RequestMapping.class
+    );
+    GetMapping mapping = AnnotatedElementUtils.findMergedAnnotation(
+      endpoint,
+      GetMapping.class
+    );
+    String prefix = base != null && base.value().length > 0 ? base.value()[ 0 ] : "";
+    String suffix = mapping.value().length > 0 ? mapping.value()[ 0 ] : "";
+    return ( prefix + suffix ).replaceAll(
+      "\\{[^}]+}",
+      "1"
+    );
+  }
+
+  @TestConfiguration
+  static class RecordingConfig {
+    /**
+     * AppConfig builds its own entity manager factory, which does not read the
+     * spring.jpa properties of the test profile.
+     */
+    @Bean
+    static BeanPostProcessor schemaCreator () {
+      return new BeanPostProcessor() {
+        @Override
+        public Object postProcessBeforeInitialization ( Object bean, String beanName ) {
+          if ( bean instanceof LocalContainerEntityManagerFactoryBean factory ) {
+            factory.getJpaPropertyMap().put(
+              AvailableSettings.HBM2DDL_AUTO,
+              "create-drop"
+            );
+          }
+          return bean;
+        }
+      };
+    }
+
+    /**
+     * Applied to the transaction manager by Spring Boot. Scheduled jobs run on
+     * their own threads next to the requests and are left out.
+     */
+    @Bean
+    TransactionExecutionListener readWriteRecorder () {
+      return new TransactionExecutionListener() {
+        @Override
+        public void beforeBegin ( TransactionExecution transaction ) {
+          if ( !transaction.isReadOnly() && !Thread.currentThread().getName().startsWith( "scheduling-" ) ) {
+            readWrite.add( transaction.getTransactionName() );
+          }
+        }
+      };
+    }
+  }
+
+  private static class FixedCurrentUserResolver implements HandlerMethodArgumentResolver {
+    @Override
+    public boolean supportsParameter ( MethodParameter parameter ) {
+      return parameter.hasParameterAnnotation( CurrentUser.class );
+    }
+
+    @Override
+    public Object resolveArgument (
+      MethodParameter parameter,
+      ModelAndViewContainer mavContainer,
+      NativeWebRequest webRequest,
+      WebDataBinderFactory binderFactory
+    ) {
+      return new UserResponseDto(
+        1L,
+        "reader@example.com",
+        "USER"
+      );
+    }
+  }
+}
@@ -0,0 +1,387 @@
+package org.library.auth.service;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class TestJwtService {
+
+  private static final Logger logger = LoggerFactory.getLogger( TestJwtService.class );
+
+  private static final String SECRET = "b29fa2e3162d2a3bb6b29f752c774a4e7cdcad4265d8d7cd";
+  private static final int ITERATIONS = 1_000;
+  private static final long INTERVAL = 86_400_000;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void testAccessToken_RoundTripsWithEveryAlgorithm () throws Exception {
+    for ( String algorithm : List.of( "HS256", "ES256", "EdDSA" ) ) {
+      JwtService jwtService = newJwtService( newKeyring(
+        algorithm,
+        true,
+        true,
+        Long.MAX_VALUE
+      ) );
+
+      String token = jwtService.generateAccessToken(
+        7L,
+        "USER"
+      );
+
+      assertEquals( 7L, jwtService.extractUserId( token ), algorithm );
+      assertEquals( "USER", jwtService.extractRole( token ), algorithm );
+    }
+  }
+
+  @Test
+  public void testRefreshToken_IsNeverAnAccessToken () throws Exception {
+    JwtService jwtService = newJwtService( newKeyring(
+      "ES256",
+      false,
+      false,
+      Long.MAX_VALUE
+    ) );
+    String access = jwtService.generateAccessToken(
+      7L,
+      "USER"
+    );
+    String refresh = jwtService.generateRefreshToken(
+      7L,
+      "USER",
+      new RefreshTokenId( 1L, 2L )
+    );
+
+    assertEquals( 7L, jwtService.extractAccessUserId( access ) );
+    assertNull( jwtService.extractAccessUserId( refresh ) );
+    assertEquals( new RefreshTokenId( 1L, 2L ), jwtService.extractRefreshTokenId( refresh ) );
+    assertNull( jwtService.extractRefreshTokenId( access ) );
+  }
+
+  @Test
+  public void testAccessUserIdOfRequest_IsVerifiedOncePerRequest () throws Exception {
+    JwtService jwtService = newJwtService( newKeyring(
+      "ES256",
+      false,
+      false,
+      Long.MAX_VALUE
+    ) );
+    String access = jwtService.generateAccessToken(
+      7L,
+      "USER"
+    );
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    assertEquals( 7L, jwtService.extractAccessUserId( request, access ) );
+    // Served from the request, the token is not parsed again
+    assertEquals( 7L, jwtService.extractAccessUserId( request, "not-a-token" ) );
+
+    MockHttpServletRequest invalid = new MockHttpServletRequest();
+    assertNull( jwtService.extractAccessUserId( invalid, "not-a-token" ) );
+    assertNull( jwtService.extractAccessUserId( invalid, access ) );
+  }
+
+  @Test
+  public void testRotation_KeepsVerifyingTokensOfRetiredKeys () throws Exception {
+    JwtKeyring keyring = newKeyring(
+      "ES256",
+      true,
+      true,
+      INTERVAL
+    );
+    JwtService jwtService = newJwtService( keyring );
+    String before = jwtService.generateAccessToken(
+      1L,
+      "USER"
+    );
+    String beforeKeyId = keyring.current().id();
+
+    keyring.refresh( System.currentTimeMillis() + INTERVAL );
+
+    assertNotEquals( beforeKeyId, keyring.current().id() );
+    assertEquals( 1L, jwtService.extractUserId( before ) );
+    // The retired key, the signing key and the next one
+    assertEquals( 3, jwtService.getJwks().size() );
+  }
+
+  @Test
+  public void testRotation_PublishesTheNextKeyAnIntervalAhead () throws Exception {
+    JwtKeyring rotating = newKeyring(
+      "EdDSA",
+      true,
+      true,
+      INTERVAL
+    );
+    JwtKeyring replica = newKeyring(
+      "EdDSA",
+      true,
+      false,
+      INTERVAL
+    );
+    Object nextKeyId = rotating.jwks().get( 0 ).get( "kid" );
+    assertNotEquals( nextKeyId, rotating.current().id() );
+    assertEquals( 2, replica.jwks().size() );
+
+    rotating.refresh( System.currentTimeMillis() + INTERVAL );
+
+    // The replica has not re-read the keyring, yet already knows the new key
+    assertEquals( nextKeyId, rotating.current().id() );
+    String token = newJwtService( rotating ).generateAccessToken(
+      3L,
+      "ADMIN"
+    );
+    assertEquals( 3L, newJwtService( replica ).extractUserId( token ) );
+  }
+
+  @Test
+  public void testRotation_HappensOnceAcrossRotatingReplicas () throws Exception {
+    JwtKeyring first = newKeyring(
+      "ES256",
+      true,
+      true,
+      INTERVAL
+    );
+    JwtKeyring second = newKeyring(
+      "ES256",
+      true,
+      true,
+      INTERVAL
+    );
+    assertEquals( first.current().id(), second.current().id() );
+
+    Thread.sleep( 20 );
+    long later = System.currentTimeMillis() + INTERVAL;
+    first.refresh( later );
+    second.refresh( later );
+
+    assertEquals( first.current().id(), second.current().id() );
+    assertEquals( first.jwks(), second.jwks() );
+    assertEquals( 3, Files.readAllLines( directory.resolve( "keyring" ) ).size() );
+  }
+
+  @Test
+  public void testReplica_PicksUpRotatedKeyring () throws Exception {
+    JwtKeyring rotating = newKeyring(
+      "EdDSA",
+      true,
+      true,
+      INTERVAL
+    );
+    JwtKeyring replica = newKeyring(
+      "EdDSA",
+      true,
+      false,
+      INTERVAL
+    );
+
+    Thread.sleep( 20 );
+    long later = System.currentTimeMillis() + INTERVAL;
+    rotating.refresh( later );
+    replica.refresh( later );
+
+    assertEquals( rotating.current().id(), replica.current().id() );
+    assertEquals( rotating.jwks(), replica.jwks() );
+  }
+
+  @Test
+  public void testKeyring_IsReadableByTheOwnerOnly () throws Exception {
+    assumeTrue( FileSystems.getDefault().supportedFileAttributeViews().contains( "posix" ) );
+    JwtKeyring keyring = newKeyring(
+      "ES256",
+      false,
+      true,
+      INTERVAL
+    );
+    keyring.refresh( System.currentTimeMillis() + INTERVAL );
+
+    assertEquals(
+      PosixFilePermissions.fromString( "rw-------" ),
+      Files.getPosixFilePermissions( directory.resolve( "keyring" ) )
+    );
+  }
+
+  @Test
+  public void testExtract_RejectsUnknownKeyId () throws Exception {
+    JwtService issuer = newJwtService( newKeyring(
+      "ES256",
+      true,
+      true,
+      Long.MAX_VALUE
+    ) );
+    String token = issuer.generateAccessToken(
+      1L,
+      "USER"
+    );
+    directory = directory.resolve( "other" );
+    JwtService verifier = newJwtService( newKeyring(
+      "ES256",
+      true,
+      true,
+      Long.MAX_VALUE
+    ) );
+
+    assertThrows(
+      Exception.class,
+      () -> verifier.extractUserId( token )
+    );
+  }
+
+  @Test
+  public void testExtract_LegacyTokensWithoutKeyIdFollowAcceptFlag () throws Exception {
+    String legacy = Jwts
+      .builder()
+      .subject( "5" )
+      .expiration( new Date( System.currentTimeMillis() + 60_000 ) )
+      .signWith(
+        Keys.hmacShaKeyFor( SECRET.getBytes() ),
+        Jwts.SIG.HS256
+      )
+      .compact();
+
+    JwtService accepting = newJwtService( newKeyring(
+      "ES256",
+      true,
+      true,
+      Long.MAX_VALUE
+    ) );
+    JwtService rejecting = newJwtService( newKeyring(
+      "ES256",
+      false,
+      true,
+      Long.MAX_VALUE
+    ) );
+
+    assertEquals( 5L, accepting.extractUserId( legacy ) );
+    assertThrows(
+      Exception.class,
+      () -> rejecting.extractUserId( legacy )
+    );
+  }
+
+  @Test
+  public void testJwks_PublishesPublicKeysOnly () throws Exception {
+    JwtService jwtService = newJwtService( newKeyring(
+      "ES256",
+      true,
+      true,
+      Long.MAX_VALUE
+    ) );
+
+    Map<String, ?> jwk = jwtService.getJwks().get( 0 );
+
+    assertEquals( "EC", jwk.get( "kty" ) );
+    assertEquals( "ES256", jwk.get( "alg" ) );
+    assertNotNull( jwk.get( "kid" ) );
+    assertFalse( jwk.containsKey( "d" ) );
+  }
+
+  @Tag( "perf" )
+  @Test
+  public void testSignAndVerifyThroughput () throws Exception {
+    // Previous path: a new HS256 parser and key for every verification
+    JwtService baseline = newJwtService( newKeyring(
+      "HS256",
+      true,
+      true,
+      Long.MAX_VALUE
+    ) );
+    measure( baseline );
+    long[] baselineNanos = measure( baseline );
+    long start = System.nanoTime();
+    for ( int i = 0; i < ITERATIONS; i++ ) {
+      Jwts
+        .parser()
+        .verifyWith( Keys.hmacShaKeyFor( SECRET.getBytes() ) )
+        .build()
+        .parseSignedClaims( baseline.generateAccessToken(
+          (long) i,
+          "USER"
+        ) );
+    }
+    long perCallParser = System.nanoTime() - start - baselineNanos[ 0 ];
+    logger.info(
+      "HS256 with a parser per call: verify {} ops/s",
+      ITERATIONS * 1_000_000_000L / Math.max( 1, perCallParser )
+    );
+
+    for ( String algorithm : List.of( "HS256", "ES256", "EdDSA" ) ) {
+      JwtService jwtService = newJwtService( newKeyring(
+        algorithm,
+        true,
+        true,
+        Long.MAX_VALUE
+      ) );
+
+      // Warm up before measuring
+      measure( jwtService );
+      long[] nanos = measure( jwtService );
+
+      logger.info(
+        "{}: sign {} ops/s, verify {} ops/s",
+        algorithm,
+        ITERATIONS * 1_000_000_000L / nanos[ 0 ],
+        ITERATIONS * 1_000_000_000L / nanos[ 1 ]
+      );
+    }
+  }
+
+  private long[] measure ( JwtService jwtService ) {
+    String[] tokens = new String[ ITERATIONS ];
+
+    long start = System.nanoTime();
+    for ( int i = 0; i < ITERATIONS; i++ ) {
+      tokens[ i ] = jwtService.generateAccessToken(
+        (long) i,
+        "USER"
+      );
+    }
+    long signed = System.nanoTime();
+    for ( int i = 0; i < ITERATIONS; i++ ) {
+      assertEquals( i, jwtService.extractUserId( tokens[ i ] ) );
+    }
+    long verified = System.nanoTime();
+
+    return new long[] { signed - start, verified - signed };
+  }
+
+  private JwtKeyring newKeyring (
+    String algorithm, boolean acceptSharedSecret, boolean rotationEnabled, long rotationIntervalMillis
+  ) throws Exception {
+    JwtKeyring keyring = new JwtKeyring(
+      algorithm,
+      SECRET,
+      acceptSharedSecret,
+      directory.resolve( "keyring" ).toString(),
+      rotationEnabled,
+      rotationIntervalMillis,
+      604_800_000
+    );
+    keyring.load();
+    return keyring;
+  }
+
+  private static JwtService newJwtService ( JwtKeyring keyring ) {
+    return new JwtService(
+      keyring,
+      3_600_000,
+      604_800_000
+    );
+  }
+}
@@ -0,0 +1,107 @@
+package org.library.auth.service;
+
+import org.junit.jupiter.api.Test;
+import org.library.auth.RefreshTokenFamilyRepository;
+import org.library.auth.model.RefreshTokenFamily;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles( "test" )
+@Import( RefreshTokenStore.class )
+public class TestRefreshTokenStore {
+
+  @Autowired
+  private RefreshTokenStore store;
+
+  @Autowired
+  private RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+
+  @Test
+  public void testRotate_ReplacesCurrentToken () {
+    RefreshTokenId issued = store.issue();
+
+    RefreshTokenId rotated = store.rotate( issued );
+
+    assertNotNull( rotated );
+    assertEquals( issued.family(), rotated.family() );
+    assertFalse( store.isCurrent( issued ) );
+    assertTrue( store.isCurrent( rotated ) );
+  }
+
+  @Test
+  public void testRotate_ReuseRevokesFamily () {
+    RefreshTokenId issued = store.issue();
+    RefreshTokenId rotated = store.rotate( issued );
+
+    assertNull( store.rotate( issued ) );
+
+    assertFalse( store.isCurrent( rotated ) );
+    assertNull( store.rotate( rotated ) );
+  }
+
+  @Test
+  public void testRotate_ReuseOnAnotherReplicaRevokesFamily () {
+    RefreshTokenStore other = new RefreshTokenStore(
+      refreshTokenFamilyRepository,
+      60_000
+    );
+    RefreshTokenId issued = store.issue();
+    RefreshTokenId rotated = store.rotate( issued );
+
+    assertNull( other.rotate( issued ) );
+
+    assertFalse( store.isCurrent( rotated ) );
+    assertFalse( refreshTokenFamilyRepository.existsById( issued.family() ) );
+  }
+
+  @Test
+  public void testRotate_RejectsExpiredFamily () {
+    RefreshTokenId expired = expiredFamily( 1L );
+
+    assertNull( store.rotate( expired ) );
+    assertFalse( store.isCurrent( expired ) );
+  }
+
+  @Test
+  public void testRevoke_RejectsFamily () {
+    RefreshTokenId issued = store.issue();
+    RefreshTokenId other = store.issue();
+
+    store.revoke( issued.family() );
+
+    assertNull( store.rotate( issued ) );
+    assertTrue( store.isCurrent( other ) );
+  }
+
+  @Test
+  public void testRemoveExpired_KeepsLiveFamilies () {
+    RefreshTokenId live = store.issue();
+    expiredFamily( 1L );
+    expiredFamily( 2L );
+
+    assertEquals( 2, store.removeExpired() );
+
+    assertEquals( 1, refreshTokenFamilyRepository.count() );
+    assertTrue( store.isCurrent( live ) );
+  }
+
+  private RefreshTokenId expiredFamily ( long family ) {
+    refreshTokenFamilyRepository.save( RefreshTokenFamily
+      .builder()
+      .familyId( family )
+      .tokenId( family )
+      .expiresAt( Instant.now().minusSeconds( 1 ) )
+      .build() );
+    return new RefreshTokenId(
+      family,
+      family
+    );
+  }
+}
@@ -0,0 +1,87 @@
+package org.library.author;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.author.dto.AuthorBookDto;
+import org.library.author.dto.AuthorResponseDto;
+import org.library.author.model.Author;
+import org.library.book.model.Book;
+import org.library.order.enums.OrderStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles( "test" )
+public class TestAuthorRepository {
+
+  @Autowired
+  private AuthorRepository authorRepository;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  private Author prolific;
+  private Author debutant;
+
+  @BeforeEach
+  void setUp () {
+    prolific = entityManager.persist( buildAuthor( "Prolific" ) );
+    debutant = entityManager.persist( buildAuthor( "Debutant" ) );
+
+    for ( int i = 0; i < 3; i++ ) {
+      entityManager.persist( Book
+        .builder()
+        .title( "Book " + i )
+        .genre( "Genre" )
+        .year( 2000 + i )
+        .status( OrderStatus.RETURNED )
+        .author( prolific )
+        .build() );
+    }
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  @Test
+  public void testFindAllRows_ReturnsAllAuthors () {
+    List<AuthorResponseDto> authors = authorRepository.findAllRows();
+
+    assertEquals(
+      2,
+      authors.size()
+    );
+    assertNull( authors.get( 0 ).getBookCount() );
+  }
+
+  @Test
+  public void testFindBooksByAuthorId_ReturnsAuthorBooks () {
+    List<AuthorBookDto> books = authorRepository.findBooksByAuthorId( prolific.getId() );
+
+    assertEquals(
+      3,
+      books.size()
+    );
+    assertEquals(
+      "Book 0",
+      books.get( 0 ).getTitle()
+    );
+    assertTrue( authorRepository
+      .findBooksByAuthorId( debutant.getId() )
+      .isEmpty() );
+  }
+
+  private Author buildAuthor ( String lastName ) {
+    return Author
+      .builder()
+      .firstName( "Author" )
+      .lastName( lastName )
+      .age( 40 )
+      .build();
+  }
+}
@@ -1,12 +1,22 @@
 package org.library.author;
 
 import org.junit.jupiter.api.*;
+import org.library.author.dto.AuthorBookDto;
+import org.library.author.dto.AuthorDto;
 import org.library.author.dto.AuthorResponseDto;
 import org.library.author.dto.CreateAuthorDto;
 import org.library.author.dto.UpdateAuthorDto;
 import org.library.author.model.Author;
+import org.library.book.BookCatalog;
+import org.library.book.BookRepository;
+import org.library.book.dto.BookResponseDto;
+import org.library.coordination.CacheInvalidator;
+import org.library.coordination.InMemoryCoordinationStore;
+import org.library.order.enums.OrderStatus;
 import org.mockito.*;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
@@ -21,12 +31,20 @@ public class TestAuthorService {
   @Mock
   private AuthorRepository authorRepository;
 
+  @Mock
+  private BookRepository bookRepository;
+
   private AutoCloseable autoCloseable;
 
   @BeforeEach
   void setUp () {
     autoCloseable = MockitoAnnotations.openMocks( this );
-    authorService = new AuthorService( authorRepository );
+    authorService = new AuthorService(
+      authorRepository,
+      new BookCatalog(),
+      bookRepository,
+      new CacheInvalidator( new InMemoryCoordinationStore() )
+    );
   }
 
   @AfterEach
@@ -95,14 +113,14 @@ public class TestAuthorService {
 
   @Test
   public void testGetAll_ReturnsList () {
-    List<Author> authors = List.of(
-      buildAuthor(
+    List<AuthorResponseDto> authors = List.of(
+      new AuthorResponseDto(
         1L,
         "A",
         "B",
         20
       ),
-      buildAuthor(
+      new AuthorResponseDto(
         2L,
         "C",
         "D",
@@ -110,13 +128,17 @@ public class TestAuthorService {
       )
     );
 
-    when( authorRepository.findAll() ).thenReturn( authors );
+    when( authorRepository.findAllRows() ).thenReturn( authors );
 
     List<AuthorResponseDto> result = authorService.getAll();
     assertEquals(
       2,
       result.size()
     );
+    verify(
+      authorRepository,
+      never()
+    ).findAll();
   }
 
   @Test
@@ -161,6 +183,103 @@ public class TestAuthorService {
     assertTrue( ex.getReason().contains( "Author not found" ) );
   }
 
+  @Test
+  public void testGetAllWithBookCounts_CountsFromTheCatalog () {
+    BookCatalog bookCatalog = new BookCatalog();
+    authorService = new AuthorService(
+      authorRepository,
+      bookCatalog,
+      bookRepository,
+      new CacheInvalidator( new InMemoryCoordinationStore() )
+    );
+    AuthorDto prolific = new AuthorDto( 1L, "A", "B", 20 );
+    when( bookRepository.findAllRows() ).thenReturn( List.of(
+      new BookResponseDto( 1L, "First", null, "Genre", 2000, OrderStatus.RETURNED, prolific ),
+      new BookResponseDto( 2L, "Second", null, "Genre", 2000, OrderStatus.RETURNED, prolific )
+    ) );
+    when( authorRepository.findAllRows() ).thenAnswer( invocation -> List.of(
+      new AuthorResponseDto( 1L, "A", "B", 20 ),
+      new AuthorResponseDto( 2L, "C", "D", 30 )
+    ) );
+
+    List<AuthorResponseDto> result = authorService.getAllWithBookCounts();
+    assertEquals(
+      List.of( 2L, 0L ),
+      result.stream().map( AuthorResponseDto::getBookCount ).toList()
+    );
+
+    // A new book shows up in the counts without another query
+    bookCatalog.put( new BookResponseDto( 3L, "Third", null, "Genre", 2000, OrderStatus.RETURNED, new AuthorDto( 2L, "C", "D", 30 ) ) );
+    result = authorService.getAllWithBookCounts();
+    assertEquals(
+      List.of( 2L, 1L ),
+      result.stream().map( AuthorResponseDto::getBookCount ).toList()
+    );
+    verify( bookRepository ).findAllRows();
+  }
+
+  @Test
+  public void testGetByIdWithBooks_Success () {
+    Long id = new Random().nextLong();
+    Author author = buildAuthor(
+      id,
+      "A",
+      "B",
+      40
+    );
+    List<AuthorBookDto> books = List.of(
+      new AuthorBookDto(
+        1L,
+        "Book A",
+        "Genre",
+        2020,
+        null
+      ),
+      new AuthorBookDto(
+        2L,
+        "Book B",
+        "Genre",
+        2021,
+        null
+      )
+    );
+
+    when( authorRepository.findById( id ) ).thenReturn( Optional.of( author ) );
+    when( authorRepository.findBooksByAuthorId( id ) ).thenReturn( books );
+
+    AuthorResponseDto result = authorService.getByIdWithBooks( id );
+
+    assertEquals(
+      2L,
+      result.getBookCount()
+    );
+    assertEquals(
+      books,
+      result.getBooks()
+    );
+  }
+
+  @Test
+  public void testGetByIdWithBooks_NotFound () {
+    Long id = new Random().nextLong();
+
+    when( authorRepository.findById( id ) ).thenReturn( Optional.empty() );
+
+    ResponseStatusException ex = assertThrows(
+      ResponseStatusException.class,
+      () -> authorService.getByIdWithBooks( id )
+    );
+
+    assertEquals(
+      404,
+      ex.getStatusCode().value()
+    );
+    verify(
+      authorRepository,
+      never()
+    ).findBooksByAuthorId( any() );
+  }
+
   @Test
   public void testUpdate_Success () {
     Long id = new Random().nextLong();
@@ -234,6 +353,97 @@ public class TestAuthorService {
     ).delete( author );
   }
 
+  @Test
+  public void testDelete_DropsTheCatalogOnlyAfterCommit () {
+    Long id = 3L;
+    BookCatalog bookCatalog = new BookCatalog();
+    authorService = new AuthorService(
+      authorRepository,
+      bookCatalog,
+      bookRepository,
+      new CacheInvalidator( new InMemoryCoordinationStore() )
+    );
+    when( authorRepository.findById( id ) ).thenReturn( Optional.of( buildAuthor( id, "A", "B", 20 ) ) );
+    List<BookResponseDto> rows = List.of( new BookResponseDto( 1L, "Title", null, "Genre", 2000, OrderStatus.RETURNED, new AuthorDto( id, "A", "B", 20 ) ) );
+    assertEquals( rows, bookCatalog.findAll( () -> rows ) );
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      authorService.delete( id );
+      // A reader before the commit keeps the loaded catalog instead of reloading the old rows
+      assertEquals( rows, bookCatalog.findAll( List::of ) );
+      TransactionSynchronizationManager.getSynchronizations().forEach( TransactionSynchronization::afterCommit );
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertEquals( List.of(), bookCatalog.findAll( List::of ) );
+  }
+
+  @Test
+  public void testUpdate_RenamesTheAuthorInTheLoadedCatalog () {
+    Long id = 3L;
+    BookCatalog bookCatalog = new BookCatalog();
+    authorService = new AuthorService(
+      authorRepository,
+      bookCatalog,
+      bookRepository,
+      new CacheInvalidator( new InMemoryCoordinationStore() )
+    );
+    bookCatalog.findAll( () -> List.of(
+      new BookResponseDto( 1L, "First", null, "Genre", 2000, OrderStatus.RETURNED, new AuthorDto( id, "A", "B", 20 ) ),
+      new BookResponseDto( 2L, "Second", null, "Genre", 2000, OrderStatus.RETURNED, new AuthorDto( 4L, "D", "E", 30 ) )
+    ) );
+    Author author = buildAuthor( id, "A", "B", 20 );
+    when( authorRepository.findById( id ) ).thenReturn( Optional.of( author ) );
+    when( authorRepository.save( author ) ).thenReturn( author );
+    UpdateAuthorDto dto = new UpdateAuthorDto();
+    dto.setLastName( "C" );
+
+    authorService.update( id, dto );
+
+    List<BookResponseDto> books = bookCatalog.findAll( List::of );
+    assertEquals( "C", books.get( 0 ).getAuthor().getLastName() );
+    assertEquals( "E", books.get( 1 ).getAuthor().getLastName() );
+  }
+
+  @Test
+  public void testUpdate_RefreshesTheCatalogOfOtherReplicas () {
+    Long id = 3L;
+    InMemoryCoordinationStore coordinationStore = new InMemoryCoordinationStore();
+    AuthorService writer = new AuthorService(
+      authorRepository,
+      new BookCatalog(),
+      bookRepository,
+      new CacheInvalidator( coordinationStore )
+    );
+    BookCatalog otherCatalog = new BookCatalog();
+    AuthorService other = new AuthorService(
+      authorRepository,
+      otherCatalog,
+      bookRepository,
+      new CacheInvalidator( coordinationStore )
+    );
+    other.subscribeToInvalidations();
+    otherCatalog.findAll( () -> List.of( new BookResponseDto( 1L, "Title", null, "Genre", 2000, OrderStatus.RETURNED, new AuthorDto( id, "A", "B", 20 ) ) ) );
+
+    Author author = buildAuthor( id, "A", "B", 20 );
+    when( authorRepository.findById( id ) ).thenReturn( Optional.of( author ) );
+    when( authorRepository.save( author ) ).thenReturn( author );
+    UpdateAuthorDto dto = new UpdateAuthorDto();
+    dto.setLastName( "C" );
+    writer.update( id, dto );
+
+    assertEquals( "C", otherCatalog.findAll( List::of ).get( 0 ).getAuthor().getLastName() );
+
+    // The writer finds the author, the other replica no longer does
+    when( authorRepository.findById( id ) ).thenReturn( Optional.of( author ), Optional.empty() );
+    writer.delete( id );
+
+    // Deleted elsewhere, so the next read reloads
+    assertEquals( List.of(), otherCatalog.findAll( List::of ) );
+  }
+
   @Test
   public void testDelete_NotFound () {
     Long id = new Random().nextLong();
@@ -0,0 +1,281 @@
+package org.library.book;
+
+import org.junit.jupiter.api.Test;
+import org.library.coordination.CoordinationStore;
+import org.library.coordination.InMemoryCoordinationStore;
+import org.library.order.enums.OrderStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+public class TestAvailabilityFeed {
+
+  private static final String STREAM = "/api/v1/book/availability/stream";
+
+  private AvailabilityFeed feed;
+  private MockMvc mockMvc;
+
+  @Test
+  public void testStream_ReceivesStatusChanges () throws Exception {
+    setUp(
+      16,
+      Runnable::run
+    );
+    MvcResult result = subscribe( null );
+
+    feed.publish(
+      7L,
+      OrderStatus.ACTIVE
+    );
+    feed.publish(
+      7L,
+      OrderStatus.RETURNED
+    );
+
+    String body = result.getResponse().getContentAsString();
+    assertTrue( result.getRequest().isAsyncStarted() );
+    assertTrue( body.contains( "id:" + feed.eventId( 1 ) + "\nevent:availability\ndata:{\"bookId\":7,\"available\":false}" ) );
+    assertTrue( body.contains( "id:" + feed.eventId( 2 ) + "\nevent:availability\ndata:{\"bookId\":7,\"available\":true}" ) );
+  }
+
+  @Test
+  public void testStream_ResumesAfterLastEventId () throws Exception {
+    setUp(
+      16,
+      Runnable::run
+    );
+    for ( long bookId = 1; bookId <= 3; bookId++ ) {
+      feed.publish(
+        bookId,
+        OrderStatus.ACTIVE
+      );
+    }
+
+    String body = subscribe( feed.eventId( 1 ) ).getResponse().getContentAsString();
+
+    assertFalse( body.contains( feed.eventId( 1 ) + "\n" ) );
+    assertTrue( body.contains( feed.eventId( 2 ) + "\n" ) );
+    assertTrue( body.indexOf( feed.eventId( 2 ) + "\n" ) < body.indexOf( feed.eventId( 3 ) + "\n" ) );
+    assertFalse( body.contains( "event:reset" ) );
+  }
+
+  @Test
+  public void testStream_ResetsWhenEventsWereEvicted () throws Exception {
+    setUp(
+      4,
+      Runnable::run
+    );
+    for ( long bookId = 1; bookId <= 6; bookId++ ) {
+      feed.publish(
+        bookId,
+        OrderStatus.ACTIVE
+      );
+    }
+
+    String evicted = subscribe( feed.eventId( 1 ) ).getResponse().getContentAsString();
+    String ahead = subscribe( feed.eventId( 42 ) ).getResponse().getContentAsString();
+    // An id numbered by another replica or before a restart of this one
+    String foreign = subscribe( "0-3" ).getResponse().getContentAsString();
+    String buffered = subscribe( feed.eventId( 2 ) ).getResponse().getContentAsString();
+
+    String reset = "id:" + feed.eventId( 6 ) + "\nevent:reset\ndata:\n\n";
+    assertEquals( reset, evicted );
+    assertEquals( reset, ahead );
+    assertEquals( reset, foreign );
+    assertFalse( buffered.contains( "event:reset" ) );
+    assertTrue( buffered.contains( "id:" + feed.eventId( 3 ) + "\n" ) );
+  }
+
+  @Test
+  public void testStream_ReceivesChangesMadeOnOtherReplicas () throws Exception {
+    InMemoryCoordinationStore coordinationStore = new InMemoryCoordinationStore();
+    AvailabilityFeed other = newFeed(
+      16,
+      Runnable::run,
+      coordinationStore
+    );
+    feed = newFeed(
+      16,
+      Runnable::run,
+      coordinationStore
+    );
+    mockMvc = MockMvcBuilders
+      .standaloneSetup( new AvailabilityController( feed ) )
+      .build();
+    MvcResult result = subscribe( null );
+
+    other.publish(
+      7L,
+      OrderStatus.ACTIVE
+    );
+    feed.publish(
+      8L,
+      OrderStatus.ACTIVE
+    );
+
+    String body = result.getResponse().getContentAsString();
+    assertTrue( body.contains( "id:" + feed.eventId( 1 ) + "\nevent:availability\ndata:{\"bookId\":7,\"available\":false}" ) );
+    assertTrue( body.contains( "id:" + feed.eventId( 2 ) + "\nevent:availability\ndata:{\"bookId\":8,\"available\":false}" ) );
+
+    // Failing over to the other replica with this id starts the client over
+    mockMvc = MockMvcBuilders
+      .standaloneSetup( new AvailabilityController( other ) )
+      .build();
+    String failover = subscribe( feed.eventId( 2 ) ).getResponse().getContentAsString();
+    assertEquals( "id:" + other.eventId( 2 ) + "\nevent:reset\ndata:\n\n", failover );
+  }
+
+  @Test
+  public void testPublishAll_ReachesOtherReplicasInOneBroadcast () throws Exception {
+    InMemoryCoordinationStore coordinationStore = new InMemoryCoordinationStore();
+    AvailabilityFeed other = newFeed(
+      16,
+      Runnable::run,
+      coordinationStore
+    );
+    feed = newFeed(
+      16,
+      Runnable::run,
+      coordinationStore
+    );
+    mockMvc = MockMvcBuilders
+      .standaloneSetup( new AvailabilityController( feed ) )
+      .build();
+    MvcResult result = subscribe( null );
+
+    other.publishAll(
+      List.of( 7L, 8L ),
+      OrderStatus.ACTIVE
+    );
+
+    String body = result.getResponse().getContentAsString();
+    assertTrue( body.contains( "id:" + feed.eventId( 1 ) + "\nevent:availability\ndata:{\"bookId\":7,\"available\":false}" ) );
+    assertTrue( body.contains( "id:" + feed.eventId( 2 ) + "\nevent:availability\ndata:{\"bookId\":8,\"available\":false}" ) );
+  }
+
+  @Test
+  public void testPublish_SkipsUnchangedAvailability () throws Exception {
+    setUp(
+      16,
+      Runnable::run
+    );
+    MvcResult result = subscribe( null );
+
+    feed.publish(
+      7L,
+      OrderStatus.ACTIVE
+    );
+    feed.publish(
+      7L,
+      OrderStatus.ACTIVE
+    );
+    // Returned and cancelled both leave the book on the shelf
+    feed.publish(
+      7L,
+      OrderStatus.RETURNED
+    );
+    feed.publish(
+      7L,
+      OrderStatus.CANCELLED
+    );
+
+    String body = result.getResponse().getContentAsString();
+    assertEquals( 2, body.split( "event:availability" ).length - 1 );
+  }
+
+  @Test
+  public void testStream_ResetsSubscriberWhoseQueueOverflows () throws Exception {
+    List<Runnable> writes = new ArrayList<>();
+    setUp(
+      16,
+      writes::add
+    );
+    MvcResult slow = subscribe( null );
+
+    // Nothing is written until the tasks run, as if the client stopped reading
+    for ( long bookId = 1; bookId <= 6; bookId++ ) {
+      feed.publish(
+        bookId,
+        OrderStatus.ACTIVE
+      );
+    }
+    MvcResult fresh = subscribe( feed.eventId( 4 ) );
+    while ( !writes.isEmpty() ) {
+      writes.remove( 0 ).run();
+    }
+
+    String body = slow.getResponse().getContentAsString();
+    assertTrue( body.startsWith( "id:" + feed.eventId( 6 ) + "\nevent:reset\ndata:\n\n" ) );
+    assertFalse( body.contains( "event:availability" ) );
+    assertTrue( fresh.getResponse().getContentAsString().contains( "id:" + feed.eventId( 5 ) + "\n" ) );
+    assertEquals( 2, feed.subscriberCount() );
+  }
+
+  @Test
+  public void testStream_ThousandsOfIdleSubscribersShareOneThread () throws Exception {
+    ThreadPoolTaskExecutor broadcaster = new ThreadPoolTaskExecutor();
+    broadcaster.setCorePoolSize( 1 );
+    broadcaster.setMaxPoolSize( 1 );
+    broadcaster.initialize();
+    setUp(
+      16,
+      broadcaster
+    );
+    int threads = Thread.activeCount();
+
+    List<MvcResult> results = new ArrayList<>();
+    for ( int i = 0; i < 2_000; i++ ) {
+      results.add( subscribe( null ) );
+    }
+    long start = System.nanoTime();
+    feed.publish(
+      7L,
+      OrderStatus.ACTIVE
+    );
+    for ( MvcResult result : results ) {
+      while ( !result.getResponse().getContentAsString().contains( "\"bookId\":7" ) ) {
+        assertTrue( System.nanoTime() - start < 10_000_000_000L );
+        Thread.sleep( 1 );
+      }
+    }
+
+    assertEquals( 2_000, feed.subscriberCount() );
+    assertTrue( Thread.activeCount() <= threads + 1 );
+    broadcaster.shutdown();
+  }
+
+  private void setUp ( int bufferSize, Executor broadcaster ) {
+    feed = newFeed(
+      bufferSize,
+      broadcaster,
+      new InMemoryCoordinationStore()
+    );
+    mockMvc = MockMvcBuilders
+      .standaloneSetup( new AvailabilityController( feed ) )
+      .build();
+  }
+
+  private static AvailabilityFeed newFeed ( int bufferSize, Executor broadcaster, CoordinationStore coordinationStore ) {
+    return new AvailabilityFeed(
+      bufferSize,
+      4,
+      60_000,
+      broadcaster,
+      coordinationStore
+    );
+  }
+
+  private MvcResult subscribe ( String lastEventId ) throws Exception {
+    return mockMvc
+      .perform( lastEventId != null ? get( STREAM ).header( "Last-Event-ID", lastEventId ) : get( STREAM ) )
+      .andReturn();
+  }
+}
@@ -0,0 +1,127 @@
+package org.library.book;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.author.model.Author;
+import org.library.book.dto.BookResponseDto;
+import org.library.book.model.Book;
+import org.library.order.enums.OrderStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles( "test" )
+public class TestBookRepository {
+
+  private static final int ROWS = 10_000;
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  @BeforeEach
+  void setUp () {
+    Author[] authors = new Author[ 10 ];
+    for ( int i = 0; i < authors.length; i++ ) {
+      authors[ i ] = entityManager.persist( Author
+        .builder()
+        .firstName( "First " + i )
+        .lastName( "Last " + i )
+        .age( 30 + i )
+        .build() );
+    }
+
+    for ( int i = 0; i < ROWS; i++ ) {
+      entityManager.persist( Book
+        .builder()
+        .title( "Title " + i )
+        .description( "Description " + i )
+        .genre( "Genre " + ( i % 7 ) )
+        .year( 1900 + ( i % 100 ) )
+        .status( OrderStatus.RETURNED )
+        .author( authors[ i % authors.length ] )
+        .build() );
+    }
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  @Test
+  public void testFindAllRows_ReturnsJoinedRowsInIdOrder () {
+    List<BookResponseDto> rows = bookRepository.findAllRows();
+
+    assertEquals(
+      ROWS,
+      rows.size()
+    );
+    assertEquals(
+      "Title 0",
+      rows.get( 0 ).getTitle()
+    );
+    assertEquals(
+      "First 0",
+      rows.get( 0 ).getAuthor().getFirstName()
+    );
+    assertTrue( rows.get( 0 ).getId() < rows.get( ROWS - 1 ).getId() );
+    assertEquals(
+      0,
+      entityManager
+        .getEntityManager()
+        .unwrap( SessionImplementor.class )
+        .getPersistenceContextInternal()
+        .getNumberOfManagedEntities()
+    );
+  }
+
+  @Test
+  public void testFindAllRows_AllocatesLessThanEntityPath () {
+    Supplier<Object> entityPath = () -> bookRepository
+      .findAll()
+      .stream()
+      .map( book -> new BookResponseDto(
+        book.getId(),
+        book.getTitle(),
+        book.getDescription(),
+        book.getGenre(),
+        book.getYear(),
+        book.getStatus(),
+        book.getAuthor().getId(),
+        book.getAuthor().getFirstName(),
+        book.getAuthor().getLastName(),
+        book.getAuthor().getAge()
+      ) )
+      .toList();
+    Supplier<Object> projectionPath = () -> bookRepository.findAllRows();
+
+    // Warm up query plans and caches for both paths
+    allocatedBytes( entityPath );
+    allocatedBytes( projectionPath );
+
+    long entityBytes = allocatedBytes( entityPath );
+    long projectionBytes = allocatedBytes( projectionPath );
+
+    assertTrue( projectionBytes < entityBytes );
+  }
+
+  private long allocatedBytes ( Supplier<Object> path ) {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    entityManager.clear();
+    long before = threads.getCurrentThreadAllocatedBytes();
+    assertNotNull( path.get() );
+    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+    entityManager.clear();
+    return allocated;
+  }
+}
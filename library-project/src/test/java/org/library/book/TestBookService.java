@@ -8,6 +8,8 @@ import org.library.book.dto.BookResponseDto;
 import org.library.book.dto.CreateBookDto;
 import org.library.book.dto.UpdateBookDto;
 import org.library.book.model.Book;
+import org.library.coordination.CacheInvalidator;
+import org.library.coordination.InMemoryCoordinationStore;
 import org.library.order.enums.OrderStatus;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -30,14 +32,23 @@ public class TestBookService {
   @Mock
   private AuthorService authorService;
 
+  @Mock
+  private AvailabilityFeed availabilityFeed;
+
+  private InMemoryCoordinationStore coordinationStore;
+
   private AutoCloseable autoCloseable;
 
   @BeforeEach
   void setUp () {
     autoCloseable = MockitoAnnotations.openMocks( this );
+    coordinationStore = new InMemoryCoordinationStore();
     bookService = new BookService(
       bookRepository,
-      authorService
+      authorService,
+      new BookCatalog(),
+      new CacheInvalidator( coordinationStore ),
+      availabilityFeed
     );
   }
 
@@ -239,8 +250,7 @@ public class TestBookService {
       30
     );
 
-    when( bookRepository.findAll() ).thenReturn( books );
-    when( authorService.toAuthorDto( author ) ).thenReturn( authorDto );
+    when( bookRepository.findAllRows() ).thenReturn( toRows( books ) );
 
     // Act
     List<BookResponseDto> result = bookService.getAll();
@@ -259,11 +269,20 @@ public class TestBookService {
       result.get( 1 ).getTitle()
     );
 
-    verify( bookRepository ).findAll();
+    assertEquals(
+      authorDto,
+      result.get( 0 ).getAuthor()
+    );
+
+    verify( bookRepository ).findAllRows();
+    verify(
+      bookRepository,
+      never()
+    ).findAll();
     verify(
       authorService,
-      times( 2 )
-    ).toAuthorDto( author );
+      never()
+    ).toAuthorDto( any() );
   }
 
   @Test
@@ -298,8 +317,7 @@ public class TestBookService {
       30
     );
 
-    when( bookRepository.findById( id ) ).thenReturn( Optional.of( book ) );
-    when( authorService.toAuthorDto( author ) ).thenReturn( authorDto );
+    when( bookRepository.findAllRows() ).thenReturn( toRows( List.of( book ) ) );
 
     // Act
     BookResponseDto response = bookService.getById( id );
@@ -322,8 +340,12 @@ public class TestBookService {
       response.getAuthor().getId()
     );
 
-    verify( bookRepository ).findById( id );
-    verify( authorService ).toAuthorDto( author );
+    assertEquals(
+      authorDto,
+      response.getAuthor()
+    );
+
+    verify( bookRepository ).findAllRows();
   }
 
   @Test
@@ -331,7 +353,7 @@ public class TestBookService {
     // Arrange
     Long id = 1L;
 
-    when( bookRepository.findById( id ) ).thenReturn( Optional.empty() );
+    when( bookRepository.findAllRows() ).thenReturn( List.of() );
 
     // Act & Assert
     ResponseStatusException ex = assertThrows(
@@ -345,7 +367,7 @@ public class TestBookService {
     );
     assertTrue( ex.getReason().contains( "Book not found with id: " + id ) );
 
-    verify( bookRepository ).findById( id );
+    verify( bookRepository ).findAllRows();
   }
 
   @Test
@@ -756,4 +778,149 @@ public class TestBookService {
 
     verify( bookRepository ).existsById( id );
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testGetAll_ServedFromCatalogAfterFirstLoad () {
+    // Arrange
+    Book book = Book
+      .builder()
+      .id( 1L )
+      .title( "Book A" )
+      .genre( "Genre" )
+      .year( 2020 )
+      .build();
+
+    when( bookRepository.findAllRows() ).thenReturn( toRows( List.of( book ) ) );
+
+    // Act
+    bookService.getAll();
+    List<BookResponseDto> result = bookService.getAll();
+    BookResponseDto byId = bookService.getById( 1L );
+
+    // Assert
+    assertEquals(
+      1,
+      result.size()
+    );
+    assertEquals(
+      "Book A",
+      byId.getTitle()
+    );
+    verify(
+      bookRepository,
+      times( 1 )
+    ).findAllRows();
+    verify(
+      bookRepository,
+      never()
+    ).findById( anyLong() );
+  }
+
+  @Test
+  public void testUpdateStatus_UpdatesCatalog () {
+    // Arrange
+    Long id = 1L;
+    Book book = Book
+      .builder()
+      .id( id )
+      .title( "Book A" )
+      .genre( "Genre" )
+      .year( 2020 )
+      .build();
+
+    when( bookRepository.findAllRows() ).thenReturn( toRows( List.of( book ) ) );
+    when( bookRepository.findById( id ) ).thenReturn( Optional.of( book ) );
+    bookService.getAll();
+
+    // Act
+    bookService.updateStatus(
+      id,
+      OrderStatus.ACTIVE
+    );
+
+    // Assert
+    assertEquals(
+      OrderStatus.ACTIVE,
+      bookService.getById( id ).getStatus()
+    );
+    assertEquals(
+      OrderStatus.ACTIVE,
+      bookService.getAll().get( 0 ).getStatus()
+    );
+    verify( availabilityFeed ).publish(
+      id,
+      OrderStatus.ACTIVE
+    );
+  }
+
+  @Test
+  public void testUpdateStatus_RefreshesCatalogOfOtherReplicas () {
+    // Arrange
+    Long id = 1L;
+    Book book = Book
+      .builder()
+      .id( id )
+      .title( "Book A" )
+      .genre( "Genre" )
+      .year( 2020 )
+      .build();
+    BookRepository replicaRepository = mock( BookRepository.class );
+    AvailabilityFeed replicaFeed = mock( AvailabilityFeed.class );
+    BookService replica = new BookService(
+      replicaRepository,
+      authorService,
+      new BookCatalog(),
+      new CacheInvalidator( coordinationStore ),
+      replicaFeed
+    );
+    bookService.subscribeToInvalidations();
+    replica.subscribeToInvalidations();
+
+    when( replicaRepository.findAllRows() ).thenReturn( toRows( List.of( book ) ) );
+    when( bookRepository.findById( id ) ).thenReturn( Optional.of( book ) );
+    replica.getAll();
+
+    book.setStatus( OrderStatus.ACTIVE );
+    when( replicaRepository.findRowById( id ) ).thenReturn( Optional.of( toRows( List.of( book ) ).get( 0 ) ) );
+
+    // Act
+    bookService.updateStatus(
+      id,
+      OrderStatus.ACTIVE
+    );
+
+    // Assert
+    assertEquals(
+      OrderStatus.ACTIVE,
+      replica.getById( id ).getStatus()
+    );
+    verify(
+      replicaRepository,
+      times( 1 )
+    ).findAllRows();
+    verify(
+      bookRepository,
+      never()
+    ).findRowById( anyLong() );
+    // The change reaches the replica's subscribers on the availability channel
+    verifyNoInteractions( replicaFeed );
+  }
+
+  private List<BookResponseDto> toRows ( List<Book> books ) {
+    return books
+      .stream()
+      .map( book -> new BookResponseDto(
+        book.getId(),
+        book.getTitle(),
+        book.getDescription(),
+        book.getGenre(),
+        book.getYear(),
+        book.getStatus(),
+        book.getAuthor() != null ? book.getAuthor().getId() : null,
+        book.getAuthor() != null ? book.getAuthor().getFirstName() : null,
+        book.getAuthor() != null ? book.getAuthor().getLastName() : null,
+        book.getAuthor() != null ? book.getAuthor().getAge() : null
+      ) )
+      .toList();
+  }
+}
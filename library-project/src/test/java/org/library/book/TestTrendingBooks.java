@@ -0,0 +1,404 @@
+package org.library.book;
+
+import org.junit.jupiter.api.Test;
+import org.library.book.dto.BookResponseDto;
+import org.library.book.dto.TrendingBookDto;
+import org.library.book.enums.TrendingWindow;
+import org.library.order.OrderEventRepository;
+import org.library.order.dto.OrderEventRowDto;
+import org.library.order.enums.OrderEventType;
+import org.library.order.enums.OrderStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the sketches against exact counts of synthetic borrow streams.
+ */
+public class TestTrendingBooks {
+
+  private static final int WIDTH = 2048;
+  private static final int DEPTH = 4;
+  private static final int CANDIDATES = 256;
+  private static final long HOUR = Duration.ofHours( 1 ).toMillis();
+  // Aligned to a bucket of every window
+  private static final long START = Duration.ofDays( 7 ).toMillis() * 2_900;
+
+  @Test
+  public void testTopK_MatchesExactCountsOnAZipfWorkload () {
+    int books = 50_000;
+    int borrows = 500_000;
+    SlidingTopK sketch = sketch( TrendingWindow.DAY );
+    long[] exact = new long[ books + 1 ];
+    Random random = new Random( 42 );
+    double[] zipf = zipf(
+      books,
+      1.1
+    );
+
+    for ( int i = 0; i < borrows; i++ ) {
+      int bookId = sample(
+        zipf,
+        random
+      );
+      exact[ bookId ]++;
+      // Spread over the day, so every bucket holds a share
+      sketch.record(
+        bookId,
+        START + (long) i * 24 * HOUR / borrows
+      );
+    }
+    List<long[]> top = sketch.top(
+      20,
+      START + 24 * HOUR - 1
+    );
+
+    List<Long> exactTop = exactTop(
+      exact,
+      20
+    );
+    Set<Long> found = new HashSet<>();
+    long maxError = 0;
+    for ( long[] entry : top ) {
+      found.add( entry[ 0 ] );
+      long error = entry[ 1 ] - exact[ (int) entry[ 0 ] ];
+      assertTrue( error >= 0 );
+      maxError = Math.max(
+        maxError,
+        error
+      );
+    }
+    found.retainAll( exactTop );
+
+    assertTrue( found.size() >= 19 );
+    // e / width of all borrows, the Count-Min bound
+    assertTrue( maxError <= Math.E / WIDTH * borrows );
+    assertEquals(
+      exactTop.get( 0 ),
+      top.get( 0 )[ 0 ]
+    );
+  }
+
+  @Test
+  public void testWindow_ForgetsBorrowsOlderThanItsLength () {
+    TrendingBooks trending = trending( mock( BookService.class ) );
+    for ( int i = 0; i < 100; i++ ) {
+      trending.record(
+        1L,
+        START
+      );
+    }
+    for ( int i = 0; i < 10; i++ ) {
+      trending.record(
+        2L,
+        START + 59 * 60_000
+      );
+    }
+
+    long now = START + 61 * 60_000;
+    assertEquals(
+      List.of( 2L ),
+      ids( trending.ranking(
+        TrendingWindow.HOUR,
+        now
+      ) )
+    );
+    assertEquals(
+      List.of(
+        1L,
+        2L
+      ),
+      ids( trending.ranking(
+        TrendingWindow.DAY,
+        now
+      ) )
+    );
+    assertEquals(
+      List.of(),
+      ids( trending.ranking(
+        TrendingWindow.WEEK,
+        START + 8 * 24 * HOUR
+      ) )
+    );
+  }
+
+  @Test
+  public void testConcurrentBorrows_AreNeverLost () throws Exception {
+    int threads = 16;
+    int perThread = 20_000;
+    SlidingTopK sketch = sketch( TrendingWindow.HOUR );
+    CountDownLatch start = new CountDownLatch( 1 );
+    ExecutorService executor = Executors.newFixedThreadPool( threads );
+    List<Future<?>> tasks = new ArrayList<>();
+    for ( int thread = 0; thread < threads; thread++ ) {
+      int seed = thread;
+      tasks.add( executor.submit( () -> {
+        Random random = new Random( seed );
+        start.await();
+        for ( int i = 0; i < perThread; i++ ) {
+          // Every fourth borrow is of the same book, the rest spread over many
+          sketch.record(
+            i % 4 == 0 ? 7L : 1_000L + random.nextInt( 100_000 ),
+            START + i
+          );
+        }
+        return null;
+      } ) );
+    }
+    start.countDown();
+    for ( Future<?> task : tasks ) {
+      task.get();
+    }
+    executor.shutdown();
+
+    long[] hottest = sketch
+      .top(
+        1,
+        START + perThread
+      )
+      .get( 0 );
+    long exact = threads * perThread / 4;
+    assertEquals( 7L, hottest[ 0 ] );
+    assertTrue( hottest[ 1 ] >= exact );
+    assertTrue( hottest[ 1 ] - exact <= Math.E / WIDTH * threads * perThread );
+  }
+
+  @Test
+  public void testGetTrending_ReturnsCatalogBooksInOrder () {
+    BookService bookService = mock( BookService.class );
+    Map<Long, BookResponseDto> catalog = new HashMap<>();
+    for ( long id = 1; id <= 3; id++ ) {
+      catalog.put(
+        id,
+        new BookResponseDto(
+          id,
+          "Book " + id,
+          null,
+          "Genre",
+          2000,
+          OrderStatus.ACTIVE,
+          null
+        )
+      );
+    }
+    when( bookService.getAllByIds( any() ) ).thenAnswer( invocation -> {
+      Map<Long, BookResponseDto> found = new HashMap<>();
+      for ( Long id : invocation.<Collection<Long>>getArgument( 0 ) ) {
+        if ( catalog.containsKey( id ) ) {
+          found.put(
+            id,
+            catalog.get( id )
+          );
+        }
+      }
+      return found;
+    } );
+    TrendingBooks trending = trending( bookService );
+
+    // Book 9 was deleted since it was borrowed
+    trending.recordBorrows( List.of( 1L, 2L, 2L, 9L, 9L, 9L, 3L, 2L, 3L ) );
+
+    List<TrendingBookDto> result = trending.getTrending(
+      TrendingWindow.HOUR,
+      2
+    );
+    assertEquals(
+      List.of(
+        "Book 2",
+        "Book 3"
+      ),
+      result.stream().map( dto -> dto.getBook().getTitle() ).toList()
+    );
+    assertEquals(
+      List.of(
+        3L,
+        2L
+      ),
+      result.stream().map( TrendingBookDto::getBorrows ).toList()
+    );
+  }
+
+  @Test
+  public void testSeed_CountsRecentBorrowsFromTheEventLog () {
+    OrderEventRepository orderEventRepository = mock( OrderEventRepository.class );
+    Instant now = Instant.now();
+    when( orderEventRepository.findFirstIdSince( any() ) ).thenReturn( 11L );
+    when( orderEventRepository.findRowsAfter(
+      eq( 10L ),
+      any()
+    ) ).thenReturn( List.of(
+      event(
+        11L,
+        1L,
+        OrderEventType.BORROWED,
+        now.minus( Duration.ofDays( 2 ) )
+      ),
+      event(
+        12L,
+        2L,
+        OrderEventType.BORROWED,
+        now.minus( Duration.ofHours( 3 ) )
+      ),
+      event(
+        13L,
+        3L,
+        OrderEventType.BORROWED,
+        now.minus( Duration.ofMinutes( 10 ) )
+      ),
+      event(
+        14L,
+        3L,
+        OrderEventType.RETURNED,
+        now.minus( Duration.ofMinutes( 5 ) )
+      )
+    ) );
+    TrendingBooks trending = new TrendingBooks(
+      mock( BookService.class ),
+      orderEventRepository,
+      mock( PlatformTransactionManager.class ),
+      WIDTH,
+      DEPTH,
+      CANDIDATES,
+      0,
+      1_000
+    );
+
+    trending.seed();
+
+    long nowMillis = System.currentTimeMillis();
+    assertEquals(
+      Set.of( 3L ),
+      new HashSet<>( ids( trending.ranking(
+        TrendingWindow.HOUR,
+        nowMillis
+      ) ) )
+    );
+    assertEquals(
+      Set.of(
+        2L,
+        3L
+      ),
+      new HashSet<>( ids( trending.ranking(
+        TrendingWindow.DAY,
+        nowMillis
+      ) ) )
+    );
+    assertEquals(
+      Set.of(
+        1L,
+        2L,
+        3L
+      ),
+      new HashSet<>( ids( trending.ranking(
+        TrendingWindow.WEEK,
+        nowMillis
+      ) ) )
+    );
+    assertTrue( trending
+      .ranking(
+        TrendingWindow.WEEK,
+        nowMillis
+      )
+      .stream()
+      .allMatch( entry -> entry[ 1 ] == 1 ) );
+  }
+
+  private static OrderEventRowDto event ( Long id, Long bookId, OrderEventType type, Instant occurredAt ) {
+    return new OrderEventRowDto(
+      id,
+      id,
+      bookId,
+      1L,
+      type,
+      occurredAt
+    );
+  }
+
+  private static SlidingTopK sketch ( TrendingWindow window ) {
+    return new SlidingTopK(
+      window.length().toMillis(),
+      window.buckets(),
+      WIDTH,
+      DEPTH,
+      CANDIDATES
+    );
+  }
+
+  private static TrendingBooks trending ( BookService bookService ) {
+    return new TrendingBooks(
+      bookService,
+      mock( OrderEventRepository.class ),
+      mock( PlatformTransactionManager.class ),
+      WIDTH,
+      DEPTH,
+      CANDIDATES,
+      0,
+      1_000
+    );
+  }
+
+  private static List<Long> ids ( List<long[]> ranking ) {
+    return ranking.stream().map( entry -> entry[ 0 ] ).toList();
+  }
+
+  /**
+   * Cumulative probabilities of ids 1..n with weight 1 / id^s.
+   */
+  private static double[] zipf ( int n, double s ) {
+    double[] cdf = new double[ n ];
+    double sum = 0;
+    for ( int i = 0; i < n; i++ ) {
+      sum += 1 / Math.pow(
+        i + 1,
+        s
+      );
+      cdf[ i ] = sum;
+    }
+    for ( int i = 0; i < n; i++ ) {
+      cdf[ i ] /= sum;
+    }
+    return cdf;
+  }
+
+  private static int sample ( double[] cdf, Random random ) {
+    int index = Arrays.binarySearch(
+      cdf,
+      random.nextDouble()
+    );
+    return ( index >= 0 ? index : -index - 1 ) + 1;
+  }
+
+  private static List<Long> exactTop ( long[] counts, int k ) {
+    List<Long> ids = new ArrayList<>();
+    for ( long id = 1; id < counts.length; id++ ) {
+      ids.add( id );
+    }
+    ids.sort( ( a, b ) -> Long.compare(
+      counts[ b.intValue() ],
+      counts[ a.intValue() ]
+    ) );
+    return ids.subList(
+      0,
+      k
+    );
+  }
+}
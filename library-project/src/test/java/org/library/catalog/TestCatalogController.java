@@ -0,0 +1,102 @@
+package org.library.catalog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.author.AuthorService;
+import org.library.book.BookService;
+import org.library.book.dto.BookResponseDto;
+import org.library.order.enums.OrderStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+public class TestCatalogController {
+
+  private final CountDownLatch release = new CountDownLatch( 1 );
+  private ThreadPoolTaskExecutor catalogExecutor;
+  private BookService bookService;
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp () {
+    // One worker and no queue, so a second concurrent read saturates the pool
+    catalogExecutor = new ThreadPoolTaskExecutor();
+    catalogExecutor.setCorePoolSize( 1 );
+    catalogExecutor.setMaxPoolSize( 1 );
+    catalogExecutor.setQueueCapacity( 0 );
+    catalogExecutor.initialize();
+
+    bookService = mock( BookService.class );
+    mockMvc = MockMvcBuilders
+      .standaloneSetup( new CatalogController(
+        bookService,
+        mock( AuthorService.class ),
+        catalogExecutor
+      ) )
+      .build();
+  }
+
+  @AfterEach
+  void tearDown () {
+    release.countDown();
+    catalogExecutor.shutdown();
+  }
+
+  @Test
+  public void testGetBook_IsServedFromTheCatalogExecutor () throws Exception {
+    when( bookService.getById( 1L ) ).thenReturn( book( 1L ) );
+
+    MvcResult started = mockMvc.perform( get( "/api/v1/catalog/book/1" ) ).andReturn();
+    assertTrue( started.getRequest().isAsyncStarted() );
+
+    MvcResult result = mockMvc.perform( asyncDispatch( started ) ).andReturn();
+    assertEquals( 200, result.getResponse().getStatus() );
+    assertTrue( result.getResponse().getContentAsString().contains( "\"title\":\"Book 1\"" ) );
+  }
+
+  @Test
+  public void testGetBook_AnswersServiceUnavailableWhenThePoolIsSaturated () throws Exception {
+    CountDownLatch busy = new CountDownLatch( 1 );
+    when( bookService.getAll() ).thenAnswer( invocation -> {
+      busy.countDown();
+      release.await();
+      return List.of();
+    } );
+
+    // The servlet thread is released while the only worker is busy
+    MvcResult blocked = mockMvc.perform( get( "/api/v1/catalog/book" ) ).andReturn();
+    assertTrue( blocked.getRequest().isAsyncStarted() );
+    assertTrue( busy.await( 10, TimeUnit.SECONDS ) );
+
+    MvcResult rejected = mockMvc.perform( get( "/api/v1/catalog/book/1" ) ).andReturn();
+    MvcResult result = mockMvc.perform( asyncDispatch( rejected ) ).andReturn();
+    assertEquals( 503, result.getResponse().getStatus() );
+
+    release.countDown();
+    assertEquals( 200, mockMvc.perform( asyncDispatch( blocked ) ).andReturn().getResponse().getStatus() );
+  }
+
+  private static BookResponseDto book ( Long id ) {
+    return new BookResponseDto(
+      id,
+      "Book " + id,
+      null,
+      "Genre",
+      2000,
+      OrderStatus.RETURNED,
+      null
+    );
+  }
+}
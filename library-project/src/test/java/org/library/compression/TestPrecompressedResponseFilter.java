@@ -0,0 +1,201 @@
+package org.library.compression;
+
+import com.github.luben.zstd.Zstd;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPrecompressedResponseFilter {
+
+  private PrecompressedResponseFilter filter;
+  private String body;
+
+  @BeforeEach
+  void setUp () {
+    filter = new PrecompressedResponseFilter(
+      List.of( "/api/v1/book" ),
+      List.of( "include" ),
+      1024,
+      16
+    );
+    body = "[" + "{\"id\":1,\"title\":\"Book\"},".repeat( 200 ) + "{}]";
+  }
+
+  @Test
+  public void testGzip_CompressesOnceForRepeatedRequests () throws Exception {
+    MockHttpServletResponse first = perform( "gzip, deflate" );
+    MockHttpServletResponse second = perform( "gzip, deflate" );
+
+    assertEquals( "gzip", second.getHeader( "Content-Encoding" ) );
+    assertEquals( body, gunzip( second.getContentAsByteArray() ) );
+    assertArrayEquals( first.getContentAsByteArray(), second.getContentAsByteArray() );
+    assertEquals( 1, filter.compressions() );
+  }
+
+  @Test
+  public void testZstd_PreferredWhenAdvertised () throws Exception {
+    MockHttpServletResponse response = perform( "gzip, zstd, br" );
+
+    assertEquals( "zstd", response.getHeader( "Content-Encoding" ) );
+    byte[] compressed = response.getContentAsByteArray();
+    assertEquals( body, new String(
+      Zstd.decompress(
+        compressed,
+        (int) Zstd.getFrameContentSize( compressed )
+      ),
+      StandardCharsets.UTF_8
+    ) );
+  }
+
+  @Test
+  public void testChangedBody_IsCompressedAgain () throws Exception {
+    perform( "gzip" );
+    body = body.replace( "Book", "Novel" );
+
+    MockHttpServletResponse response = perform( "gzip" );
+
+    assertEquals( body, gunzip( response.getContentAsByteArray() ) );
+    assertEquals( 2, filter.compressions() );
+  }
+
+  @Test
+  public void testIdentity_WhenNothingAcceptableOrBodyTooSmall () throws Exception {
+    MockHttpServletResponse refused = perform( "gzip;q=0, zstd;q=0" );
+    assertNull( refused.getHeader( "Content-Encoding" ) );
+    assertEquals( body, refused.getContentAsString() );
+    assertEquals(
+      List.of(
+        "Accept",
+        "Accept-Encoding"
+      ),
+      refused.getHeaders( "Vary" )
+    );
+
+    body = "[]";
+    MockHttpServletResponse small = perform( "gzip" );
+    assertNull( small.getHeader( "Content-Encoding" ) );
+    assertEquals( "[]", small.getContentAsString() );
+    assertEquals( 0, filter.compressions() );
+  }
+
+  @Test
+  public void testUnknownParameters_ShareTheCachedVariant () throws Exception {
+    for ( int i = 0; i < 10; i++ ) {
+      perform(
+        "gzip",
+        Map.of(
+          "include",
+          "bookCount",
+          "nocache",
+          String.valueOf( i )
+        ),
+        () -> {
+        }
+      );
+    }
+    perform( "gzip" );
+
+    // One variant with the known parameter, one without it
+    assertEquals( 2, filter.compressions() );
+  }
+
+  @Test
+  public void testConcurrentMisses_CompressOnce () throws Exception {
+    int requests = 8;
+    CountDownLatch rendered = new CountDownLatch( requests );
+    ExecutorService executor = Executors.newFixedThreadPool( requests );
+    List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+
+    for ( int i = 0; i < requests; i++ ) {
+      responses.add( executor.submit( () -> perform(
+        "zstd",
+        Map.of(),
+        () -> {
+          // Every request has its body before any of them compresses it
+          rendered.countDown();
+          try {
+            rendered.await();
+          } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      ) ) );
+    }
+    for ( Future<MockHttpServletResponse> response : responses ) {
+      assertEquals( "zstd", response.get().getHeader( "Content-Encoding" ) );
+    }
+    executor.shutdown();
+
+    assertEquals( 1, filter.compressions() );
+  }
+
+  @Test
+  public void testNegotiate_HonoursQualityAndWildcard () {
+    assertEquals( ContentCoding.ZSTD, ContentCoding.negotiate( "*" ) );
+    assertEquals( ContentCoding.GZIP, ContentCoding.negotiate( "*, zstd;q=0" ) );
+    assertEquals( ContentCoding.GZIP, ContentCoding.negotiate( "br, GZIP;q=0.5" ) );
+    assertNull( ContentCoding.negotiate( "br" ) );
+    assertNull( ContentCoding.negotiate( null ) );
+  }
+
+  private MockHttpServletResponse perform ( String acceptEncoding ) throws Exception {
+    return perform(
+      acceptEncoding,
+      Map.of(),
+      () -> {
+      }
+    );
+  }
+
+  private MockHttpServletResponse perform (
+    String acceptEncoding, Map<String, String> parameters, Runnable rendering
+  ) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest(
+      "GET",
+      "/api/v1/book"
+    );
+    request.addHeader(
+      "Accept-Encoding",
+      acceptEncoding
+    );
+    request.setParameters( parameters );
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    String rendered = body;
+    FilterChain chain = ( req, res ) -> {
+      rendering.run();
+      res.setContentType( "application/json" );
+      res.getOutputStream().write( rendered.getBytes( StandardCharsets.UTF_8 ) );
+    };
+
+    filter.doFilter(
+      request,
+      response,
+      chain
+    );
+    return response;
+  }
+
+  private static String gunzip ( byte[] compressed ) throws Exception {
+    try ( GZIPInputStream in = new GZIPInputStream( new ByteArrayInputStream( compressed ) ) ) {
+      return new String(
+        in.readAllBytes(),
+        StandardCharsets.UTF_8
+      );
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package org.library.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.library.author.dto.AuthorDto;
+import org.library.book.BookController;
+import org.library.book.BookService;
+import org.library.book.dto.BookResponseDto;
+import org.library.order.dto.OrderResponseDto;
+import org.library.order.enums.OrderStatus;
+import org.library.user.dto.UserResponseDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+public class TestWireFormats {
+
+  private static final Logger logger = LoggerFactory.getLogger( TestWireFormats.class );
+
+  private static final MediaType CBOR = MediaType.parseMediaType( "application/cbor" );
+  private static final MediaType SMILE = MediaType.parseMediaType( "application/x-jackson-smile" );
+  private static final int ITERATIONS = 50;
+
+  private List<HttpMessageConverter<?>> converters;
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp () {
+    converters = new ConvertersOf( new WebConfig( null ) ).converters();
+
+    BookService bookService = mock( BookService.class );
+    when( bookService.getAll() ).thenReturn( books( 100 ) );
+
+    mockMvc = MockMvcBuilders
+      .standaloneSetup( new BookController( bookService ) )
+      .setMessageConverters( converters.toArray( HttpMessageConverter[]::new ) )
+      .build();
+  }
+
+  @Test
+  public void testGetAll_NegotiatesBinaryFormatsFromAcceptHeader () throws Exception {
+    JsonNode json = new ObjectMapper().readTree( fetch( MediaType.APPLICATION_JSON ) );
+
+    assertEquals( json, new CBORMapper().readTree( fetch( CBOR ) ) );
+    assertEquals( json, new SmileMapper().readTree( fetch( SMILE ) ) );
+  }
+
+  @Test
+  public void testConverters_UseGeneratedAccessors () {
+    long jackson = 0;
+    for ( HttpMessageConverter<?> converter : converters ) {
+      if ( converter instanceof AbstractJackson2HttpMessageConverter mapper ) {
+        assertTrue( mapper.getObjectMapper().getRegisteredModuleIds().contains( new BlackbirdModule().getTypeId() ) );
+        jackson++;
+      }
+    }
+    assertEquals( 3, jackson );
+  }
+
+  @Test
+  public void testBinaryFormats_AreSmallerThanJson () throws Exception {
+    List<ObjectMapper> mappers = mappers();
+    for ( Object payload : payloads() ) {
+      int jsonSize = mappers.get( 0 ).writeValueAsBytes( payload ).length;
+      // CBOR and Smile, Blackbird alone does not change the bytes
+      for ( int i = 2; i < mappers.size(); i++ ) {
+        assertTrue( mappers.get( i ).writeValueAsBytes( payload ).length < jsonSize );
+      }
+    }
+  }
+
+  @Tag( "perf" )
+  @Test
+  public void testPayloadSizeAndThroughput () throws Exception {
+    List<ObjectMapper> mappers = mappers();
+    List<String> names = List.of(
+      "JSON",
+      "JSON + Blackbird",
+      "CBOR + Blackbird",
+      "Smile + Blackbird"
+    );
+
+    List<Object> payloads = payloads();
+    for ( Object payload : payloads ) {
+      for ( int i = 0; i < mappers.size(); i++ ) {
+        ObjectMapper mapper = mappers.get( i );
+
+        // Warm up before measuring
+        for ( int j = 0; j < ITERATIONS; j++ ) {
+          mapper.writeValueAsBytes( payload );
+        }
+        long start = System.nanoTime();
+        int size = 0;
+        for ( int j = 0; j < ITERATIONS; j++ ) {
+          size = mapper.writeValueAsBytes( payload ).length;
+        }
+        long nanos = ( System.nanoTime() - start ) / ITERATIONS;
+
+        logger.info(
+          "{} of 10k {}: {} bytes, {} us per list",
+          names.get( i ),
+          payload == payloads.get( 0 ) ? "books" : "orders",
+          size,
+          nanos / 1_000
+        );
+      }
+    }
+  }
+
+  private static List<Object> payloads () {
+    return List.of(
+      books( 10_000 ),
+      orders( 10_000 )
+    );
+  }
+
+  private static List<ObjectMapper> mappers () {
+    return List.of(
+      Jackson2ObjectMapperBuilder.json().build(),
+      Jackson2ObjectMapperBuilder.json().modulesToInstall( new BlackbirdModule() ).build(),
+      Jackson2ObjectMapperBuilder.cbor().modulesToInstall( new BlackbirdModule() ).build(),
+      Jackson2ObjectMapperBuilder.smile().modulesToInstall( new BlackbirdModule() ).build()
+    );
+  }
+
+  private byte[] fetch ( MediaType mediaType ) throws Exception {
+    MvcResult result = mockMvc.perform( get( "/api/v1/book" ).accept( mediaType ) ).andReturn();
+    assertEquals( 200, result.getResponse().getStatus() );
+    assertTrue( mediaType.isCompatibleWith( MediaType.parseMediaType( result.getResponse().getContentType() ) ) );
+    return result.getResponse().getContentAsByteArray();
+  }
+
+  private static List<BookResponseDto> books ( int count ) {
+    List<BookResponseDto> books = new ArrayList<>( count );
+    for ( long id = 1; id <= count; id++ ) {
+      books.add( new BookResponseDto(
+        id,
+        "Book " + id,
+        "A description of book " + id + " long enough to look like real catalog copy",
+        "Genre " + id % 12,
+        1900 + (int) ( id % 120 ),
+        id % 3 == 0 ? OrderStatus.ACTIVE : null,
+        new AuthorDto(
+          id % 500,
+          "First" + id % 500,
+          "Last" + id % 500,
+          30 + (int) ( id % 50 )
+        )
+      ) );
+    }
+    return books;
+  }
+
+  private static List<OrderResponseDto> orders ( int count ) {
+    List<BookResponseDto> books = books( count );
+    List<OrderResponseDto> orders = new ArrayList<>( count );
+    Instant now = Instant.parse( "2026-01-01T00:00:00Z" );
+    for ( int i = 0; i < count; i++ ) {
+      orders.add( new OrderResponseDto(
+        (long) i + 1,
+        "Order " + ( i + 1 ),
+        now.plusSeconds( i ),
+        now.plusSeconds( i + 1_209_600L ),
+        now.plusSeconds( i + 1_209_600L ),
+        OrderStatus.ACTIVE,
+        new UserResponseDto(
+          (long) i % 1_000,
+          "reader" + i % 1_000 + "@example.com",
+          "USER"
+        ),
+        books.get( i )
+      ) );
+    }
+    return orders;
+  }
+
+  /**
+   * Builds the same converter list the application gets from {@code @EnableWebMvc}.
+   */
+  private static class ConvertersOf extends WebMvcConfigurationSupport {
+    private final WebConfig webConfig;
+
+    ConvertersOf ( WebConfig webConfig ) {
+      this.webConfig = webConfig;
+    }
+
+    List<HttpMessageConverter<?>> converters () {
+      return getMessageConverters();
+    }
+
+    @Override
+    protected void extendMessageConverters ( List<HttpMessageConverter<?>> converters ) {
+      webConfig.extendMessageConverters( converters );
+    }
+  }
+}
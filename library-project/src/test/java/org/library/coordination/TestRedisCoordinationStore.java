@@ -0,0 +1,300 @@
+package org.library.coordination;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.ratelimit.RateLimitGroup;
+import org.library.ratelimit.RateLimiter;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TestRedisCoordinationStore {
+
+  private StringRedisTemplate redis;
+  private RedisMessageListenerContainer container;
+  private RedisCoordinationStore store;
+
+  @BeforeEach
+  void setUp () {
+    redis = mock( StringRedisTemplate.class );
+    container = mock( RedisMessageListenerContainer.class );
+    store = new RedisCoordinationStore(
+      redis,
+      container
+    );
+  }
+
+  @Test
+  public void testIncrementWindow_RunsOneScriptForTheCountAndItsExpiry () {
+    when( redis.execute(
+      eq( RedisCoordinationStore.INCREMENT_WINDOW ),
+      eq( List.of( "counter" ) ),
+      eq( "60000" )
+    ) ).thenReturn( List.of( 2L, 59_500L ) );
+
+    CoordinationStore.WindowCount window = store.incrementWindow(
+      "counter",
+      60_000
+    );
+
+    assertEquals( 2, window.count() );
+    assertEquals( 59_500, window.resetMillis() );
+    verify( redis ).execute(
+      eq( RedisCoordinationStore.INCREMENT_WINDOW ),
+      eq( List.of( "counter" ) ),
+      eq( "60000" )
+    );
+    verifyNoMoreInteractions( redis );
+  }
+
+  @Test
+  public void testIncrementWindow_ScriptExpiresEveryCounterItCreates () {
+    String script = RedisCoordinationStore.INCREMENT_WINDOW.getScriptAsString();
+
+    assertTrue( script.indexOf( "INCR" ) < script.indexOf( "PEXPIRE" ) );
+    assertTrue( script.contains( "if ttl < 0 then" ) );
+  }
+
+  @Test
+  public void testDecrementWindow_LeavesExpiredCountersAlone () {
+    store.decrementWindow(
+      "counter",
+      2
+    );
+
+    verify( redis ).execute(
+      RedisCoordinationStore.DECREMENT_WINDOW,
+      List.of( "counter" ),
+      "2"
+    );
+    assertTrue( RedisCoordinationStore.DECREMENT_WINDOW.getScriptAsString().contains( "if not count then" ) );
+  }
+
+  @Test
+  public void testPublish_SendsToTheChannel () {
+    store.publish(
+      "channel",
+      "hello"
+    );
+
+    verify( redis ).convertAndSend(
+      "channel",
+      "hello"
+    );
+  }
+
+  @Test
+  public void testSubscribe_ListensOncePerChannel () {
+    List<String> received = new ArrayList<>();
+    store.subscribe(
+      "channel",
+      received::add
+    );
+    store.subscribe(
+      "channel",
+      message -> received.add( "second:" + message )
+    );
+
+    store.onMessage(
+      message(
+        "channel",
+        "hello"
+      ),
+      null
+    );
+    store.onMessage(
+      message(
+        "other",
+        "ignored"
+      ),
+      null
+    );
+
+    verify( container ).addMessageListener(
+      store,
+      new ChannelTopic( "channel" )
+    );
+    assertEquals( List.of( "hello", "second:hello" ), received );
+  }
+
+  @Test
+  public void testSubscribe_OneFailingListenerDoesNotStopTheOthers () {
+    List<String> received = new ArrayList<>();
+    store.subscribe(
+      "channel",
+      message -> {
+        throw new IllegalStateException( "boom" );
+      }
+    );
+    store.subscribe(
+      "channel",
+      received::add
+    );
+
+    store.onMessage(
+      message(
+        "channel",
+        "hello"
+      ),
+      null
+    );
+
+    assertEquals( List.of( "hello" ), received );
+  }
+
+  @Test
+  public void testCacheInvalidator_ResyncsEveryRegionOnceAllChannelsAreBack () {
+    List<CacheRegion> resynced = new ArrayList<>();
+    CacheInvalidator invalidator = new CacheInvalidator( store );
+    for ( CacheRegion region : List.of( CacheRegion.USER, CacheRegion.BOOK ) ) {
+      invalidator.register(
+        region,
+        id -> {
+        },
+        () -> resynced.add( region )
+      );
+    }
+    store.subscribe(
+      "availability",
+      message -> {
+      }
+    );
+
+    subscribed(
+      CacheInvalidator.CHANNEL,
+      1
+    );
+    subscribed(
+      "availability",
+      2
+    );
+    assertTrue( resynced.isEmpty() );
+
+    // The connection dropped and the driver subscribes to both channels again
+    subscribed(
+      CacheInvalidator.CHANNEL,
+      1
+    );
+    assertTrue( resynced.isEmpty() );
+    subscribed(
+      "availability",
+      2
+    );
+
+    assertEquals( 2, resynced.size() );
+    assertEquals( Set.of( CacheRegion.USER, CacheRegion.BOOK ), Set.copyOf( resynced ) );
+  }
+
+  @Test
+  public void testCacheInvalidator_NotifiesOnlyOtherReplicas () {
+    RedisCoordinationStore second = new RedisCoordinationStore(
+      redis,
+      mock( RedisMessageListenerContainer.class )
+    );
+    List<Long> firstReceived = new ArrayList<>();
+    List<Long> secondReceived = new ArrayList<>();
+    CacheInvalidator firstInvalidator = new CacheInvalidator( store );
+    CacheInvalidator secondInvalidator = new CacheInvalidator( second );
+    firstInvalidator.register(
+      CacheRegion.USER,
+      firstReceived::add,
+      () -> {
+      }
+    );
+    secondInvalidator.register(
+      CacheRegion.USER,
+      secondReceived::add,
+      () -> {
+      }
+    );
+    // Redis delivers every publication to the subscribers of both replicas
+    doAnswer( invocation -> {
+      for ( RedisCoordinationStore replica : List.of( store, second ) ) {
+        replica.onMessage(
+          message(
+            invocation.getArgument( 0 ),
+            invocation.getArgument( 1 )
+          ),
+          null
+        );
+      }
+      return 2L;
+    } ).when( redis ).convertAndSend(
+      any(),
+      any()
+    );
+
+    firstInvalidator.invalidate(
+      CacheRegion.USER,
+      7L
+    );
+
+    assertEquals( List.of( 7L ), secondReceived );
+    assertTrue( firstReceived.isEmpty() );
+  }
+
+  @Test
+  public void testRateLimiter_FallsBackToLocalLimitWhenStoreIsDown () throws Exception {
+    int port;
+    try ( ServerSocket socket = new ServerSocket( 0 ) ) {
+      port = socket.getLocalPort();
+    }
+    LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory( new RedisStandaloneConfiguration(
+      "localhost",
+      port
+    ) );
+    connectionFactory.afterPropertiesSet();
+    connectionFactory.start();
+    StringRedisTemplate template = new StringRedisTemplate( connectionFactory );
+    RedisCoordinationStore unreachable = new RedisCoordinationStore(
+      template,
+      connectionFactory
+    );
+    try {
+      RateLimiter limiter = new RateLimiter(
+        10,
+        2,
+        10,
+        2,
+        10,
+        2,
+        100,
+        true,
+        unreachable
+      );
+
+      assertEquals( 0, limiter.tryAcquire( RateLimitGroup.AUTH, "user:1" ) );
+    } finally {
+      unreachable.close();
+      connectionFactory.destroy();
+    }
+  }
+
+  private void subscribed ( String channel, long count ) {
+    store.onChannelSubscribed(
+      channel.getBytes( StandardCharsets.UTF_8 ),
+      count
+    );
+  }
+
+  private static DefaultMessage message ( String channel, String body ) {
+    return new DefaultMessage(
+      channel.getBytes( StandardCharsets.UTF_8 ),
+      body.getBytes( StandardCharsets.UTF_8 )
+    );
+  }
+}
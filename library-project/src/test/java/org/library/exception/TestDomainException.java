@@ -0,0 +1,116 @@
+package org.library.exception;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+public class TestDomainException {
+
+  private static final Logger logger = LoggerFactory.getLogger( TestDomainException.class );
+
+  private static final int ITERATIONS = 100_000;
+
+  private static final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+  private static final LongFunction<Object> DOMAIN_PATH = id -> handler.handleDomainException( ErrorCode.BOOK_NOT_FOUND.exception( id ) );
+  private static final LongFunction<Object> LEGACY_PATH = id -> handler.handleResponseStatusException( new ResponseStatusException(
+    NOT_FOUND,
+    "Book not found with id: " + id
+  ) );
+
+  @Test
+  public void testException_KeepsStatusAndReasonWithoutStackTrace () {
+    DomainException ex = ErrorCode.BOOK_NOT_FOUND.exception( 42L );
+
+    assertEquals(
+      404,
+      ex.getStatusCode().value()
+    );
+    assertEquals(
+      "Book not found with id: 42",
+      ex.getReason()
+    );
+    assertEquals(
+      0,
+      ex.getStackTrace().length
+    );
+  }
+
+  @Test
+  public void testFixedMessage_ReusesPreallocatedBody () {
+    ResponseEntity<ErrorResponseDto> first = handler.handleDomainException( ErrorCode.ORDER_NOT_FOUND.exception() );
+    ResponseEntity<ErrorResponseDto> second = handler.handleDomainException( ErrorCode.ORDER_NOT_FOUND.exception() );
+
+    assertSame(
+      first.getBody(),
+      second.getBody()
+    );
+    assertEquals(
+      404,
+      first.getBody().getStatus()
+    );
+    assertEquals(
+      "Order not found",
+      first.getBody().getMessage()
+    );
+  }
+
+  @Test
+  public void testNotFound_CheaperThanResponseStatusException () {
+    // Warm up both paths before measuring
+    measure( DOMAIN_PATH );
+    measure( LEGACY_PATH );
+
+    long[] domain = measure( DOMAIN_PATH );
+    long[] legacy = measure( LEGACY_PATH );
+
+    assertTrue( domain[ 0 ] < legacy[ 0 ] );
+  }
+
+  @Tag( "perf" )
+  @Test
+  public void testNotFound_AllocationsAndCpuPer404 () {
+    for ( int round = 0; round < 3; round++ ) {
+      measure( DOMAIN_PATH );
+      measure( LEGACY_PATH );
+    }
+
+    long[] domain = measure( DOMAIN_PATH );
+    long[] legacy = measure( LEGACY_PATH );
+
+    logger.info(
+      "Per 404: stackless {} bytes / {} ns CPU, ResponseStatusException {} bytes / {} ns CPU",
+      domain[ 0 ],
+      domain[ 1 ],
+      legacy[ 0 ],
+      legacy[ 1 ]
+    );
+    assertTrue( domain[ 0 ] < legacy[ 0 ] );
+    assertTrue( domain[ 1 ] < legacy[ 1 ] );
+  }
+
+  /**
+   * @return heap bytes allocated and CPU nanoseconds spent per call
+   */
+  private long[] measure ( LongFunction<Object> path ) {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+    long cpuBefore = threads.getCurrentThreadCpuTime();
+    for ( long id = 0; id < ITERATIONS; id++ ) {
+      assertNotNull( path.apply( id ) );
+    }
+    long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+    long cpu = threads.getCurrentThreadCpuTime() - cpuBefore;
+
+    return new long[] { bytes / ITERATIONS, cpu / ITERATIONS };
+  }
+}
@@ -0,0 +1,342 @@
+package org.library.graphql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.author.AuthorRepository;
+import org.library.author.AuthorService;
+import org.library.author.dto.AuthorDto;
+import org.library.author.dto.AuthorResponseDto;
+import org.library.book.AvailabilityFeed;
+import org.library.book.BookCatalog;
+import org.library.book.BookRepository;
+import org.library.book.BookService;
+import org.library.book.TrendingBooks;
+import org.library.book.dto.BookResponseDto;
+import org.library.coordination.CacheInvalidator;
+import org.library.coordination.InMemoryCoordinationStore;
+import org.library.order.OrderArchiveRepository;
+import org.library.order.OrderEventRepository;
+import org.library.order.OrderRepository;
+import org.library.order.LoanQuotas;
+import org.library.order.OrderService;
+import org.library.order.dto.OrderRowDto;
+import org.library.order.enums.OrderStatus;
+import org.library.reservation.ReservationService;
+import org.library.user.UserCache;
+import org.library.user.UserRepository;
+import org.library.user.UserService;
+import org.library.user.dto.UserResponseDto;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.graphql.data.method.annotation.support.AnnotatedControllerConfigurer;
+import org.springframework.graphql.execution.DefaultBatchLoaderRegistry;
+import org.springframework.graphql.execution.DefaultExecutionGraphQlService;
+import org.springframework.graphql.execution.GraphQlSource;
+import org.springframework.graphql.test.tester.ExecutionGraphQlServiceTester;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class TestLibraryGraphQl {
+
+  private static final int AUTHORS = 10;
+  private static final int BOOKS = 50;
+  private static final int ORDERS = 500;
+
+  @Mock
+  private BookRepository bookRepository;
+
+  @Mock
+  private AuthorRepository authorRepository;
+
+  @Mock
+  private UserRepository userRepository;
+
+  @Mock
+  private OrderRepository orderRepository;
+
+  private GraphQlTester graphQlTester;
+
+  private AutoCloseable autoCloseable;
+
+  @BeforeEach
+  void setUp () {
+    autoCloseable = MockitoAnnotations.openMocks( this );
+
+    BookCatalog bookCatalog = new BookCatalog();
+    CacheInvalidator cacheInvalidator = new CacheInvalidator( new InMemoryCoordinationStore() );
+    AuthorService authorService = new AuthorService(
+      authorRepository,
+      bookCatalog,
+      bookRepository,
+      cacheInvalidator
+    );
+    BookService bookService = new BookService(
+      bookRepository,
+      authorService,
+      bookCatalog,
+      cacheInvalidator,
+      mock( AvailabilityFeed.class )
+    );
+    UserService userService = new UserService(
+      mock( PasswordEncoder.class ),
+      userRepository,
+      new UserCache(
+        cacheInvalidator,
+        60_000,
+        100
+      )
+    );
+    OrderService orderService = new OrderService(
+      orderRepository,
+      mock( OrderArchiveRepository.class ),
+      mock( OrderEventRepository.class ),
+      bookService,
+      userService,
+      mock( ReservationService.class ),
+      mock( LoanQuotas.class ),
+      mock( TrendingBooks.class )
+    );
+
+    DefaultBatchLoaderRegistry batchLoaderRegistry = new DefaultBatchLoaderRegistry();
+    LibraryGraphQlController controller = new LibraryGraphQlController(
+      bookService,
+      authorService,
+      userService,
+      orderService,
+      batchLoaderRegistry
+    );
+
+    GenericApplicationContext context = new GenericApplicationContext();
+    context.registerBean(
+      LibraryGraphQlController.class,
+      () -> controller
+    );
+    context.refresh();
+
+    AnnotatedControllerConfigurer configurer = new AnnotatedControllerConfigurer();
+    configurer.setApplicationContext( context );
+    configurer.afterPropertiesSet();
+
+    GraphQlConfig limits = new GraphQlConfig();
+    ReflectionTestUtils.setField( limits, "maxDepth", 8 );
+    ReflectionTestUtils.setField( limits, "maxComplexity", 5000 );
+
+    GraphQlSource graphQlSource = GraphQlSource
+      .schemaResourceBuilder()
+      .schemaResources( new ClassPathResource( "graphql/schema.graphqls" ) )
+      .configureRuntimeWiring( configurer )
+      .instrumentation( List.of(
+        limits.maxQueryDepthInstrumentation(),
+        limits.maxQueryComplexityInstrumentation()
+      ) )
+      .build();
+
+    DefaultExecutionGraphQlService graphQlService = new DefaultExecutionGraphQlService( graphQlSource );
+    graphQlService.addDataLoaderRegistrar( batchLoaderRegistry );
+    graphQlTester = ExecutionGraphQlServiceTester.create( graphQlService );
+
+    when( bookRepository.findAllRows() ).thenReturn( books() );
+    when( authorRepository.findAllRows() ).thenReturn( authors( List.of() ) );
+    when( authorRepository.findRowsByIdIn( anyCollection() ) ).thenAnswer( invocation -> authors( invocation.getArgument( 0 ) ) );
+  }
+
+  @AfterEach
+  void tearDown () throws Exception {
+    SecurityContextHolder.clearContext();
+    autoCloseable.close();
+  }
+
+  @Test
+  public void testOrderBookAuthor_ForFiveHundredOrders_RunsThreeQueries () {
+    when( orderRepository.streamAllRows() ).thenAnswer( invocation -> orderRows( 7L ) );
+
+    graphQlTester
+      .document( "{ orders(first: 500) { id book { title author { lastName } } } }" )
+      .execute()
+      .path( "orders" )
+      .entityList( Object.class )
+      .hasSize( ORDERS )
+      .path( "orders[499].book.author.lastName" )
+      .entity( String.class )
+      .isEqualTo( "Last" + ( ( ORDERS - 1 ) % BOOKS % AUTHORS + 1 ) );
+
+    verify( orderRepository ).streamAllRows();
+    verify( bookRepository ).findAllRows();
+    verify( authorRepository ).findRowsByIdIn( anyCollection() );
+    verifyNoMoreInteractions(
+      orderRepository,
+      bookRepository,
+      authorRepository
+    );
+    verifyNoInteractions( userRepository );
+  }
+
+  @Test
+  public void testNestedAuthors_AreLoadedOncePerRequest () {
+    graphQlTester
+      .document( "{ books { author { books(first: 10) { author { lastName } } } } }" )
+      .execute()
+      .path( "books" )
+      .entityList( Object.class )
+      .hasSize( BOOKS );
+
+    // The second level asks for the same authors again and is served from the loader cache
+    verify( authorRepository ).findRowsByIdIn( anyCollection() );
+    verify( bookRepository ).findAllRows();
+  }
+
+  @Test
+  public void testMyOrders_ResolvesCurrentUser () {
+    UserResponseDto reader = new UserResponseDto(
+      7L,
+      "reader@example.com",
+      "USER"
+    );
+    SecurityContextHolder.getContext().setAuthentication( new UsernamePasswordAuthenticationToken(
+      reader,
+      null,
+      List.of()
+    ) );
+    when( userRepository.existsById( 7L ) ).thenReturn( true );
+    when( userRepository.findRowsByIdIn( anyCollection() ) ).thenReturn( List.of( reader ) );
+    when( orderRepository.streamRowsByUserId( 7L ) ).thenAnswer( invocation -> orderRows( 7L ) );
+
+    graphQlTester
+      .document( "{ myOrders { user { email } } }" )
+      .execute()
+      .path( "myOrders[0].user.email" )
+      .entity( String.class )
+      .isEqualTo( "reader@example.com" );
+
+    verify( userRepository ).findRowsByIdIn( anyCollection() );
+  }
+
+  @Test
+  public void testLists_ReturnTheFirstElements () {
+    when( orderRepository.streamAllRows() ).thenAnswer( invocation -> orderRows( 7L ) );
+    when( authorRepository.findAllRows() ).thenReturn( authors( List.of( 1L, 2L, 3L ) ) );
+
+    graphQlTester
+      .document( "{ orders(first: 3) { id } books { id } authors(first: 2) { books(first: 1) { title } } }" )
+      .execute()
+      .path( "orders" )
+      .entityList( Object.class )
+      .hasSize( 3 )
+      .path( "books" )
+      .entityList( Object.class )
+      .hasSize( BOOKS )
+      .path( "authors" )
+      .entityList( Object.class )
+      .hasSize( 2 )
+      .path( "authors[1].books" )
+      .entityList( Object.class )
+      .hasSize( 1 );
+  }
+
+  @Test
+  public void testLargePage_IsCostedByItsSize () {
+    graphQlTester
+      .document( "{ orders(first: 100000) { id } }" )
+      .execute()
+      .errors()
+      .expect( error -> error.getMessage().contains( "complexity" ) );
+
+    verifyNoInteractions( orderRepository );
+  }
+
+  @Test
+  public void testDeepQuery_IsRejectedBeforeExecution () {
+    graphQlTester
+      .document( "{ authors { books { author { books { author { books { author { books { author { id } } } } } } } } } }" )
+      .execute()
+      .errors()
+      .expect( error -> error.getMessage().contains( "depth" ) );
+
+    verifyNoInteractions(
+      authorRepository,
+      bookRepository
+    );
+  }
+
+  @Test
+  public void testWideQuery_IsRejectedBeforeExecution () {
+    graphQlTester
+      .document( "{ authors { books { author { books { id title genre } } } } }" )
+      .execute()
+      .errors()
+      .expect( error -> error.getMessage().contains( "complexity" ) );
+
+    verifyNoInteractions(
+      authorRepository,
+      bookRepository
+    );
+  }
+
+  private static Stream<OrderRowDto> orderRows ( Long userId ) {
+    List<OrderRowDto> rows = new ArrayList<>( ORDERS );
+    for ( long id = 0; id < ORDERS; id++ ) {
+      rows.add( new OrderRowDto(
+        id + 1,
+        "order-" + ( id + 1 ),
+        Instant.parse( "2026-01-01T00:00:00Z" ),
+        null,
+        Instant.parse( "2026-01-15T00:00:00Z" ),
+        OrderStatus.ACTIVE,
+        userId,
+        id % BOOKS + 1
+      ) );
+    }
+    return rows.stream();
+  }
+
+  private static List<BookResponseDto> books () {
+    List<BookResponseDto> books = new ArrayList<>( BOOKS );
+    for ( long id = 1; id <= BOOKS; id++ ) {
+      long authorId = ( id - 1 ) % AUTHORS + 1;
+      books.add( new BookResponseDto(
+        id,
+        "Book " + id,
+        null,
+        "Genre",
+        2000,
+        null,
+        new AuthorDto(
+          authorId,
+          "First" + authorId,
+          "Last" + authorId,
+          40
+        )
+      ) );
+    }
+    return books;
+  }
+
+  private static List<AuthorResponseDto> authors ( Collection<Long> ids ) {
+    List<AuthorResponseDto> authors = new ArrayList<>();
+    for ( Long id : ids ) {
+      authors.add( new AuthorResponseDto(
+        id,
+        "First" + id,
+        "Last" + id,
+        40
+      ) );
+    }
+    return authors;
+  }
+}
@@ -0,0 +1,350 @@
+package org.library.order;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.coordination.CacheInvalidator;
+import org.library.coordination.InMemoryCoordinationStore;
+import org.library.exception.ErrorCode;
+import org.library.order.dto.UserLoanCountDto;
+import org.library.user.UserRepository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class TestLoanQuotas {
+
+  private static final int THREADS = 16;
+  private static final int MAX_ACTIVE = 5;
+
+  // The ACTIVE_LOANS column of each user, as every replica sees it
+  private final Map<Long, Integer> activeLoans = new HashMap<>();
+  private Map<Long, Integer> committedLoans = Map.of();
+  private UserRepository userRepository;
+  private InMemoryCoordinationStore coordinationStore;
+  private LoanQuotas quotas;
+
+  @BeforeEach
+  void setUp () {
+    userRepository = mock( UserRepository.class );
+    when( userRepository.addActiveLoans(
+      anyLong(),
+      anyInt(),
+      anyInt()
+    ) ).thenAnswer( invocation -> {
+      synchronized ( activeLoans ) {
+        int loans = activeLoans.getOrDefault( invocation.getArgument( 0 ), 0 ) + (int) invocation.getArgument( 1 );
+        if ( loans > (int) invocation.getArgument( 2 ) ) {
+          return 0;
+        }
+        activeLoans.put(
+          invocation.getArgument( 0 ),
+          loans
+        );
+        return 1;
+      }
+    } );
+    when( userRepository.removeActiveLoans(
+      anyLong(),
+      anyInt()
+    ) ).thenAnswer( invocation -> {
+      synchronized ( activeLoans ) {
+        activeLoans.merge(
+          invocation.getArgument( 0 ),
+          0,
+          ( loans, zero ) -> Math.max(
+            0,
+            loans - (int) invocation.getArgument( 1 )
+          )
+        );
+        return 1;
+      }
+    } );
+    when( userRepository.findActiveLoansById( anyLong() ) ).thenAnswer( invocation -> {
+      synchronized ( activeLoans ) {
+        return Optional.of( activeLoans.getOrDefault( invocation.getArgument( 0 ), 0 ) );
+      }
+    } );
+    coordinationStore = new InMemoryCoordinationStore();
+    quotas = quotas( 1_000 );
+  }
+
+  @AfterEach
+  void tearDown () {
+    if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void testAcquire_GrantsUpToTheRoleLimit () {
+    LoanQuotas.Grant first = quotas.acquire(
+      1L,
+      "USER",
+      3
+    );
+    LoanQuotas.Grant second = quotas.acquire(
+      1L,
+      "USER",
+      3
+    );
+    LoanQuotas.Grant admin = quotas.acquire(
+      2L,
+      "ADMIN",
+      20
+    );
+
+    assertEquals( 3, first.granted() );
+    assertNull( first.refusal() );
+    assertEquals( 2, second.granted() );
+    assertEquals( ErrorCode.LOAN_LIMIT_REACHED, second.refusal() );
+    assertEquals( 20, admin.granted() );
+    assertEquals( MAX_ACTIVE, quotas.activeLoans( 1L ) );
+  }
+
+  @Test
+  public void testAcquire_StartsFromTheActiveOrdersInTheDatabase () {
+    activeLoans.put(
+      1L,
+      4
+    );
+    when( userRepository.findActiveLoanCounts() ).thenReturn( List.of( new UserLoanCountDto(
+      1L,
+      4
+    ) ) );
+
+    assertEquals( 1, quotas.acquire( 1L, "USER", 3 ).granted() );
+    assertEquals( 3, quotas.acquire( 2L, "USER", 3 ).granted() );
+    verify( userRepository ).findActiveLoanCounts();
+  }
+
+  @Test
+  public void testAcquire_RefusesWhenBorrowingTooOften () {
+    LoanQuotas limited = quotas( 2 );
+
+    LoanQuotas.Grant grant = limited.acquire(
+      1L,
+      "USER",
+      3
+    );
+    limited.release(
+      1L,
+      2
+    );
+
+    assertEquals( 2, grant.granted() );
+    assertEquals( ErrorCode.BORROW_RATE_EXCEEDED, grant.refusal() );
+    // Returning the books frees the slots but not the rate
+    assertEquals( ErrorCode.BORROW_RATE_EXCEEDED, limited.acquire( 1L, "USER", 1 ).refusal() );
+  }
+
+  @Test
+  public void testAcquire_ChecksTheLoansCommittedOnEveryReplica () {
+    // Loaded before another replica committed four loans of the user
+    assertEquals( 0, quotas.activeLoans( 1L ) );
+    activeLoans.put(
+      1L,
+      4
+    );
+
+    LoanQuotas.Grant grant = quotas.acquire(
+      1L,
+      "USER",
+      3
+    );
+
+    assertEquals( 1, grant.granted() );
+    assertEquals( ErrorCode.LOAN_LIMIT_REACHED, grant.refusal() );
+    assertEquals( 1, quotas.activeLoans( 1L ) );
+    assertEquals( 5, activeLoans.get( 1L ) );
+  }
+
+  @Test
+  public void testAcquire_SharesTheBorrowRateAcrossReplicas () {
+    LoanQuotas first = quotas( 2 );
+    LoanQuotas second = quotas( 2 );
+
+    assertEquals( 2, first.acquire( 1L, "USER", 2 ).granted() );
+    LoanQuotas.Grant grant = second.acquire(
+      1L,
+      "USER",
+      1
+    );
+
+    assertEquals( 0, grant.granted() );
+    assertEquals( ErrorCode.BORROW_RATE_EXCEEDED, grant.refusal() );
+  }
+
+  @Test
+  public void testAcquire_CountsOnlyTheBorrowsMadeInTheSharedRate () {
+    activeLoans.put(
+      1L,
+      4
+    );
+    LoanQuotas limited = quotas( 3 );
+
+    // One borrow fits under the loan limit, and the two refused ones are taken back
+    assertEquals( 1, limited.acquire( 1L, "USER", 3 ).granted() );
+    assertEquals( 2, sharedBorrows( 1L ) );
+
+    // Another replica made two, so one fits under the rate and the increment past it is taken back
+    assertEquals( 2, quotas( 3 ).acquire( 2L, "USER", 2 ).granted() );
+    assertEquals( 1, quotas( 3 ).acquire( 2L, "USER", 3 ).granted() );
+    assertEquals( 4, sharedBorrows( 2L ) );
+  }
+
+  @Test
+  public void testGrant_RollbackGivesBackTheBorrowRate () {
+    LoanQuotas limited = quotas( 2 );
+
+    begin();
+    assertEquals( 2, limited.acquire( 1L, "USER", 2 ).granted() );
+    complete( TransactionSynchronization.STATUS_ROLLED_BACK );
+
+    begin();
+    LoanQuotas.Grant grant = limited.acquire(
+      1L,
+      "USER",
+      2
+    );
+    grant.giveBack( 1 );
+    complete( TransactionSynchronization.STATUS_COMMITTED );
+
+    assertEquals( 1, grant.granted() );
+    assertNull( grant.refusal() );
+    assertEquals( 1, limited.acquire( 1L, "USER", 2 ).granted() );
+    assertEquals( 3, sharedBorrows( 1L ) );
+    assertEquals( 2, activeLoans.get( 1L ) );
+  }
+
+  @Test
+  public void testGrant_BecomesLoansOnlyWhenTheTransactionCommits () {
+    begin();
+    LoanQuotas.Grant rolledBack = quotas.acquire(
+      1L,
+      "USER",
+      MAX_ACTIVE
+    );
+    // Reserved slots count against the limit while the transaction runs
+    assertEquals( 0, quotas.acquire( 1L, "USER", 1 ).granted() );
+    complete( TransactionSynchronization.STATUS_ROLLED_BACK );
+
+    begin();
+    LoanQuotas.Grant committed = quotas.acquire(
+      1L,
+      "USER",
+      3
+    );
+    committed.giveBack( 1 );
+    complete( TransactionSynchronization.STATUS_COMMITTED );
+
+    assertEquals( 0, rolledBack.granted() );
+    assertEquals( 2, committed.granted() );
+    assertEquals( 2, quotas.activeLoans( 1L ) );
+    assertEquals( 3, quotas.acquire( 1L, "USER", 10 ).granted() );
+  }
+
+  @Test
+  public void testRelease_UpdatesOtherReplicasAfterCommit () {
+    LoanQuotas other = quotas( 1_000 );
+    other.subscribeToInvalidations();
+    assertEquals( 0, other.activeLoans( 1L ) );
+
+    quotas.acquire(
+      1L,
+      "USER",
+      2
+    );
+    begin();
+    quotas.release(
+      1L,
+      1
+    );
+    assertEquals( 2, quotas.activeLoans( 1L ) );
+    assertEquals( 2, other.activeLoans( 1L ) );
+    complete( TransactionSynchronization.STATUS_COMMITTED );
+
+    assertEquals( 1, quotas.activeLoans( 1L ) );
+    assertEquals( 1, other.activeLoans( 1L ) );
+  }
+
+  @Test
+  public void testConcurrentBorrows_NeverExceedTheLimit () throws Exception {
+    AtomicInteger granted = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch( 1 );
+    ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+    List<Future<?>> tasks = new ArrayList<>();
+    for ( int thread = 0; thread < THREADS; thread++ ) {
+      tasks.add( executor.submit( () -> {
+        start.await();
+        for ( int i = 0; i < 100; i++ ) {
+          granted.addAndGet( quotas.acquire( 1L, "USER", 1 ).granted() );
+        }
+        return null;
+      } ) );
+    }
+    start.countDown();
+    for ( Future<?> task : tasks ) {
+      task.get();
+    }
+    executor.shutdown();
+
+    assertEquals( MAX_ACTIVE, granted.get() );
+    assertEquals( MAX_ACTIVE, quotas.activeLoans( 1L ) );
+  }
+
+  private LoanQuotas quotas ( long borrowsPerDay ) {
+    return new LoanQuotas(
+      userRepository,
+      new CacheInvalidator( coordinationStore ),
+      coordinationStore,
+      MAX_ACTIVE,
+      borrowsPerDay,
+      50,
+      borrowsPerDay
+    );
+  }
+
+  /**
+   * The borrows of the user counted in the shared window, plus the one this adds.
+   */
+  private long sharedBorrows ( Long userId ) {
+    return coordinationStore.incrementWindow(
+      "loan-rate:" + userId,
+      60_000
+    ).count();
+  }
+
+  private void begin () {
+    TransactionSynchronizationManager.initSynchronization();
+    committedLoans = Map.copyOf( activeLoans );
+  }
+
+  private void complete ( int status ) {
+    List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+    TransactionSynchronizationManager.clearSynchronization();
+    if ( status == TransactionSynchronization.STATUS_ROLLED_BACK ) {
+      activeLoans.clear();
+      activeLoans.putAll( committedLoans );
+    }
+    if ( status == TransactionSynchronization.STATUS_COMMITTED ) {
+      synchronizations.forEach( TransactionSynchronization::afterCommit );
+    }
+    synchronizations.forEach( synchronization -> synchronization.afterCompletion( status ) );
+  }
+}
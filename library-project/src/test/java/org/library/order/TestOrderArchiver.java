@@ -0,0 +1,157 @@
+package org.library.order;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.order.dto.OrderRowDto;
+import org.library.order.enums.OrderStatus;
+import org.library.order.model.Order;
+import org.library.user.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles( "test" )
+public class TestOrderArchiver {
+
+  private static final long AGE = 30L * 24 * 60 * 60 * 1000;
+
+  @Autowired
+  private OrderRepository orderRepository;
+
+  @Autowired
+  private OrderArchiveRepository orderArchiveRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  private OrderArchiver archiver;
+  private User reader;
+  private final List<Long> closedIds = new ArrayList<>();
+
+  @BeforeEach
+  void setUp () {
+    archiver = new OrderArchiver(
+      orderRepository,
+      orderArchiveRepository,
+      transactionManager,
+      AGE,
+      2
+    );
+    reader = entityManager.persist( User
+      .builder()
+      .email( "reader@example.com" )
+      .password( "secret" )
+      .role( "USER" )
+      .build() );
+
+    Instant old = Instant.now().minus(
+      60,
+      ChronoUnit.DAYS
+    );
+    for ( int i = 0; i < 5; i++ ) {
+      closedIds.add( persistOrder(
+        OrderStatus.RETURNED,
+        old
+      ) );
+    }
+    closedIds.add( persistOrder(
+      OrderStatus.CANCELLED,
+      old
+    ) );
+    persistOrder(
+      OrderStatus.ACTIVE,
+      old
+    );
+    persistOrder(
+      OrderStatus.RETURNED,
+      Instant.now()
+    );
+    entityManager.clear();
+  }
+
+  @Test
+  public void testArchive_MovesOldClosedOrdersInChunks () {
+    assertEquals(
+      closedIds.size(),
+      archiver.archive()
+    );
+    entityManager.clear();
+
+    assertEquals(
+      2,
+      orderRepository.count()
+    );
+    assertEquals(
+      closedIds.size(),
+      orderArchiveRepository.count()
+    );
+    assertTrue( orderArchiveRepository
+      .findAllById( closedIds )
+      .stream()
+      .allMatch( order -> reader.getId().equals( order.getUserId() ) && order.getArchivedAt() != null ) );
+    assertEquals(
+      0,
+      archiver.archive()
+    );
+  }
+
+  @Test
+  public void testArchivedRows_KeepTheirIds () {
+    archiver.archive();
+
+    try ( Stream<OrderRowDto> rows = orderArchiveRepository.streamRowsByUserId( reader.getId() ) ) {
+      assertEquals(
+        closedIds
+          .stream()
+          .sorted()
+          .toList(),
+        rows
+          .map( OrderRowDto::getId )
+          .sorted()
+          .toList()
+      );
+    }
+  }
+
+  /**
+   * Saves an order and backdates its last change, which the timestamp annotation
+   * would otherwise set to now.
+   */
+  private Long persistOrder ( OrderStatus status, Instant updatedAt ) {
+    Order order = entityManager.persist( Order
+      .builder()
+      .name( "order-" + status )
+      .borrowDate( updatedAt )
+      .status( status )
+      .user( reader )
+      .build() );
+    entityManager.flush();
+    entityManager
+      .getEntityManager()
+      .createQuery( "update Order o set o.updatedAt = :updatedAt where o.id = :id" )
+      .setParameter(
+        "updatedAt",
+        updatedAt
+      )
+      .setParameter(
+        "id",
+        order.getId()
+      )
+      .executeUpdate();
+    return order.getId();
+  }
+}
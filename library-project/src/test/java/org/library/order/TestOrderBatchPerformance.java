@@ -0,0 +1,256 @@
+package org.library.order;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.library.author.AuthorRepository;
+import org.library.author.AuthorService;
+import org.library.author.model.Author;
+import org.library.book.AvailabilityFeed;
+import org.library.book.BookCatalog;
+import org.library.book.BookRepository;
+import org.library.book.BookService;
+import org.library.book.TrendingBooks;
+import org.library.book.model.Book;
+import org.library.coordination.CacheInvalidator;
+import org.library.coordination.InMemoryCoordinationStore;
+import org.library.order.dto.OrderBatchResultDto;
+import org.library.order.dto.OrderRowDto;
+import org.library.order.enums.OrderStatus;
+import org.library.reservation.ReservationQueues;
+import org.library.reservation.ReservationRepository;
+import org.library.reservation.ReservationService;
+import org.library.user.UserCache;
+import org.library.user.UserRepository;
+import org.library.user.UserService;
+import org.library.user.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compares the batch borrow and return endpoints with the same number of
+ * single-item calls. Every call commits its own transaction, as it would over HTTP.
+ * The batch endpoints must be at least {@value #TARGET_SPEEDUP}x faster per item.
+ * <p>
+ * Timing assertions are unreliable on shared machines, so this only runs with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag( "perf" )
+@DataJpaTest
+@ActiveProfiles( "test" )
+@Transactional( propagation = Propagation.NOT_SUPPORTED )
+public class TestOrderBatchPerformance {
+
+  private static final Logger logger = LoggerFactory.getLogger( TestOrderBatchPerformance.class );
+  private static final int ITEMS = 100;
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int ROUNDS = 5;
+  private static final int TARGET_SPEEDUP = 10;
+
+  @Autowired
+  private OrderRepository orderRepository;
+
+  @Autowired
+  private OrderArchiveRepository orderArchiveRepository;
+
+  @Autowired
+  private OrderEventRepository orderEventRepository;
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private AuthorRepository authorRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private ReservationRepository reservationRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate transaction;
+  private OrderService orderService;
+  private Long userId;
+  private List<Long> bookIds;
+
+  @BeforeEach
+  void setUp () {
+    transaction = new TransactionTemplate( transactionManager );
+
+    BookCatalog bookCatalog = new BookCatalog();
+    CacheInvalidator cacheInvalidator = new CacheInvalidator( new InMemoryCoordinationStore() );
+    AuthorService authorService = new AuthorService(
+      authorRepository,
+      bookCatalog,
+      bookRepository,
+      cacheInvalidator
+    );
+    BookService bookService = new BookService(
+      bookRepository,
+      authorService,
+      bookCatalog,
+      cacheInvalidator,
+      mock( AvailabilityFeed.class )
+    );
+    orderService = new OrderService(
+      orderRepository,
+      orderArchiveRepository,
+      orderEventRepository,
+      bookService,
+      new UserService(
+        mock( PasswordEncoder.class ),
+        userRepository,
+        new UserCache(
+          cacheInvalidator,
+          60_000,
+          100
+        )
+      ),
+      new ReservationService(
+        reservationRepository,
+        orderRepository,
+        bookService,
+        new ReservationQueues(),
+        cacheInvalidator
+      ),
+      new LoanQuotas(
+        userRepository,
+        cacheInvalidator,
+        new InMemoryCoordinationStore(),
+        ITEMS,
+        1_000_000,
+        ITEMS,
+        1_000_000
+      ),
+      mock( TrendingBooks.class )
+    );
+
+    transaction.executeWithoutResult( status -> {
+      userId = userRepository.save( User
+        .builder()
+        .email( "staff@example.com" )
+        .password( "secret" )
+        .role( "USER" )
+        .build() ).getId();
+      Author author = authorRepository.save( Author
+        .builder()
+        .firstName( "John" )
+        .lastName( "Doe" )
+        .age( 40 )
+        .build() );
+      bookIds = new ArrayList<>( ITEMS );
+      for ( int i = 0; i < ITEMS; i++ ) {
+        bookIds.add( bookRepository.save( Book
+          .builder()
+          .title( "Book " + i )
+          .genre( "Genre" )
+          .year( 2000 )
+          .status( OrderStatus.RETURNED )
+          .author( author )
+          .build() ).getId() );
+      }
+    } );
+  }
+
+  @AfterEach
+  void tearDown () {
+    transaction.executeWithoutResult( status -> {
+      orderEventRepository.deleteAllInBatch();
+      orderRepository.deleteAllInBatch();
+      bookRepository.deleteAllInBatch();
+      authorRepository.deleteAllInBatch();
+      userRepository.deleteAllInBatch();
+    } );
+  }
+
+  @Test
+  public void testBatchBorrowAndReturn_AreFasterPerItemThanSingleCalls () {
+    long single = 0;
+    long batch = 0;
+    // Each batch call runs once per round, so it needs several rounds to be compiled
+    for ( int round = -WARMUP_ROUNDS; round < ROUNDS; round++ ) {
+      // The order ids are looked up between the timed parts, staff scan them off the books
+      long start = System.nanoTime();
+      for ( Long bookId : bookIds ) {
+        transaction.executeWithoutResult( status -> orderService.borrowBook(
+          userId,
+          bookId
+        ) );
+      }
+      long singleNanos = System.nanoTime() - start;
+      List<Long> orderIds = activeOrderIds();
+      start = System.nanoTime();
+      for ( Long orderId : orderIds ) {
+        transaction.executeWithoutResult( status -> orderService.returnBook( orderId ) );
+      }
+      singleNanos += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      List<OrderBatchResultDto> borrowed = transaction.execute( status -> orderService.borrowBooks(
+        userId,
+        bookIds
+      ) );
+      long batchNanos = System.nanoTime() - start;
+      List<Long> batchOrderIds = activeOrderIds();
+      start = System.nanoTime();
+      List<OrderBatchResultDto> returned = transaction.execute( status -> orderService.returnBooks( batchOrderIds ) );
+      batchNanos += System.nanoTime() - start;
+
+      assertTrue( borrowed.stream().allMatch( result -> result.getStatus() == 200 ) );
+      assertEquals(
+        ITEMS,
+        returned.size()
+      );
+      assertTrue( returned.stream().allMatch( result -> result.getStatus() == 200 ) );
+      if ( round >= 0 ) {
+        single += singleNanos;
+        batch += batchNanos;
+      }
+    }
+
+    double singlePerItem = single / (double) ( ROUNDS * ITEMS );
+    double batchPerItem = batch / (double) ( ROUNDS * ITEMS );
+    String summary = String.format(
+      "Borrow + return of %d books: %.1f us per item one by one, %.1f us per item in batches (%.1fx)",
+      ITEMS,
+      singlePerItem / 1_000,
+      batchPerItem / 1_000,
+      singlePerItem / batchPerItem
+    );
+    logger.info( summary );
+    assertTrue(
+      singlePerItem >= batchPerItem * TARGET_SPEEDUP,
+      summary
+    );
+  }
+
+  private List<Long> activeOrderIds () {
+    return transaction.execute( status -> {
+      try ( Stream<OrderRowDto> rows = orderRepository.streamRowsByUserId( userId ) ) {
+        return rows
+          .filter( row -> row.getStatus() == OrderStatus.ACTIVE )
+          .map( OrderRowDto::getId )
+          .toList();
+      }
+    } );
+  }
+}
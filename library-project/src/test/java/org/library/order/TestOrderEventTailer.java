@@ -0,0 +1,346 @@
+package org.library.order;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.author.AuthorRepository;
+import org.library.author.model.Author;
+import org.library.book.BookRepository;
+import org.library.book.model.Book;
+import org.library.order.dto.OrderEventRowDto;
+import org.library.order.enums.OrderEventType;
+import org.library.order.enums.OrderStatus;
+import org.library.order.model.Order;
+import org.library.order.model.OrderEvent;
+import org.library.user.UserRepository;
+import org.library.user.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Appends events through the repository as OrderService does and tails them
+ * against the embedded database. The tailer reads in its own transactions, so
+ * the test does not run in one.
+ */
+@DataJpaTest
+@ActiveProfiles( "test" )
+@Transactional( propagation = Propagation.NOT_SUPPORTED )
+public class TestOrderEventTailer {
+
+  private static final int BOOKS = 5;
+
+  @Autowired
+  private OrderEventRepository orderEventRepository;
+
+  @Autowired
+  private OrderRepository orderRepository;
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private AuthorRepository authorRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private TransactionTemplate transaction;
+  private Long userId;
+  private List<Long> bookIds;
+
+  @BeforeEach
+  void setUp () {
+    transaction = new TransactionTemplate( transactionManager );
+    transaction.executeWithoutResult( status -> {
+      userId = userRepository.save( User
+        .builder()
+        .email( "reader@example.com" )
+        .password( "secret" )
+        .role( "USER" )
+        .build() ).getId();
+      Author author = authorRepository.save( Author
+        .builder()
+        .firstName( "John" )
+        .lastName( "Doe" )
+        .age( 40 )
+        .build() );
+      bookIds = new ArrayList<>( BOOKS );
+      for ( int i = 0; i < BOOKS; i++ ) {
+        bookIds.add( bookRepository.save( Book
+          .builder()
+          .title( "Book " + i )
+          .genre( "Genre" )
+          .year( 2000 )
+          .status( OrderStatus.RETURNED )
+          .author( author )
+          .build() ).getId() );
+      }
+    } );
+  }
+
+  @AfterEach
+  void tearDown () {
+    transaction.executeWithoutResult( status -> {
+      orderEventRepository.deleteAllInBatch();
+      orderRepository.deleteAllInBatch();
+      bookRepository.deleteAllInBatch();
+      authorRepository.deleteAllInBatch();
+      userRepository.deleteAllInBatch();
+    } );
+  }
+
+  @Test
+  public void testBulkAppend_RecordsOneEventPerOrder () {
+    Instant now = Instant.now().truncatedTo( ChronoUnit.MILLIS );
+    List<Long> orderIds = transaction.execute( status -> {
+      orderRepository.insertOrders(
+        userId,
+        bookIds,
+        "order-",
+        OrderStatus.ACTIVE,
+        now,
+        now
+      );
+      assertEquals(
+        BOOKS,
+        orderEventRepository.appendForBooks(
+          bookIds,
+          OrderStatus.ACTIVE,
+          OrderEventType.BORROWED,
+          now
+        )
+      );
+      return orderRepository
+        .findAll()
+        .stream()
+        .map( Order::getId )
+        .toList();
+    } );
+    transaction.executeWithoutResult( status -> assertEquals(
+      2,
+      orderEventRepository.appendForOrders(
+        orderIds.subList(
+          0,
+          2
+        ),
+        OrderEventType.RETURNED,
+        now
+      )
+    ) );
+
+    List<OrderEventRowDto> history = orderEventRepository.findRowsByOrderId( orderIds.get( 0 ) );
+    assertEquals(
+      List.of(
+        OrderEventType.BORROWED,
+        OrderEventType.RETURNED
+      ),
+      history.stream().map( OrderEventRowDto::getType ).toList()
+    );
+    assertEquals(
+      userId,
+      history.get( 1 ).getUserId()
+    );
+  }
+
+  @Test
+  public void testAdvance_PassesOnlyNewEvents () {
+    OrderEventTailer tailer = tailer(
+      2,
+      0
+    );
+    append(
+      1L,
+      bookIds.get( 0 ),
+      OrderEventType.BORROWED
+    );
+    append(
+      2L,
+      bookIds.get( 1 ),
+      OrderEventType.BORROWED
+    );
+    append(
+      3L,
+      bookIds.get( 2 ),
+      OrderEventType.BORROWED
+    );
+
+    List<OrderEventRowDto> seen = new ArrayList<>();
+    assertEquals(
+      3,
+      tailer.advance(
+        0,
+        Long.MAX_VALUE,
+        seen::add
+      )
+    );
+    long last = seen.get( 2 ).getId();
+
+    append(
+      1L,
+      bookIds.get( 0 ),
+      OrderEventType.RETURNED
+    );
+    assertEquals(
+      1,
+      tailer.advance(
+        last,
+        Long.MAX_VALUE,
+        seen::add
+      )
+    );
+    assertEquals(
+      List.of( 1L, 2L, 3L, 1L ),
+      seen.stream().map( OrderEventRowDto::getOrderId ).toList()
+    );
+  }
+
+  @Test
+  public void testAdvance_LeavesUnsettledEventsForLater () {
+    OrderEventTailer tailer = tailer(
+      10,
+      60_000
+    );
+    append(
+      1L,
+      bookIds.get( 0 ),
+      OrderEventType.BORROWED
+    );
+    transaction.executeWithoutResult( status -> orderEventRepository.save( OrderEvent
+      .builder()
+      .orderId( 2L )
+      .bookId( bookIds.get( 1 ) )
+      .userId( userId )
+      .type( OrderEventType.BORROWED )
+      .occurredAt( Instant.now() )
+      .build() ) );
+
+    List<OrderEventRowDto> seen = new ArrayList<>();
+    assertEquals(
+      1,
+      tailer.advance(
+        0,
+        Long.MAX_VALUE,
+        seen::add
+      )
+    );
+    assertEquals(
+      1L,
+      seen.get( 0 ).getOrderId()
+    );
+  }
+
+  @Test
+  public void testAdvance_PassesEventsThatCommitAfterLaterOnes () {
+    OrderEventTailer tailer = tailer(
+      10,
+      0
+    );
+    OrderEventTailer.Gaps gaps = new OrderEventTailer.Gaps();
+    OrderEvent first = append(
+      1L,
+      bookIds.get( 0 ),
+      OrderEventType.BORROWED
+    );
+    OrderEvent late = append(
+      2L,
+      bookIds.get( 1 ),
+      OrderEventType.BORROWED
+    );
+    append(
+      3L,
+      bookIds.get( 2 ),
+      OrderEventType.BORROWED
+    );
+    // The second event has its id but has not committed yet
+    transaction.executeWithoutResult( status -> orderEventRepository.deleteById( late.getId() ) );
+
+    List<OrderEventRowDto> seen = new ArrayList<>();
+    assertEquals(
+      2,
+      tailer.advance(
+        first.getId() - 1,
+        Long.MAX_VALUE,
+        gaps,
+        seen::add
+      )
+    );
+    long last = seen.get( 1 ).getId();
+    assertEquals( 1, gaps.size() );
+
+    jdbcTemplate.update(
+      "insert into ORDER_EVENT ( ID, ORDER_ID, BOOK_ID, USER_ID, TYPE, OCCURRED_AT ) values ( ?, ?, ?, ?, ?, ? )",
+      late.getId(),
+      late.getOrderId(),
+      late.getBookId(),
+      late.getUserId(),
+      late.getType().name(),
+      late.getOccurredAt().atOffset( ZoneOffset.UTC )
+    );
+    assertEquals(
+      1,
+      tailer.advance(
+        last,
+        Long.MAX_VALUE,
+        gaps,
+        seen::add
+      )
+    );
+    assertEquals(
+      0,
+      tailer.advance(
+        last,
+        Long.MAX_VALUE,
+        gaps,
+        seen::add
+      )
+    );
+    assertEquals(
+      List.of( 1L, 3L, 2L ),
+      seen.stream().map( OrderEventRowDto::getOrderId ).toList()
+    );
+    assertEquals( 0, gaps.size() );
+  }
+
+  private OrderEventTailer tailer ( int batchSize, long settle ) {
+    return new OrderEventTailer(
+      orderEventRepository,
+      transactionManager,
+      batchSize,
+      settle
+    );
+  }
+
+  private OrderEvent append ( Long orderId, Long bookId, OrderEventType type ) {
+    return transaction.execute( status -> orderEventRepository.save( OrderEvent
+      .builder()
+      .orderId( orderId )
+      .bookId( bookId )
+      .userId( userId )
+      .type( type )
+      .occurredAt( Instant.now().minus(
+        2,
+        ChronoUnit.MINUTES
+      ) )
+      .build() ) );
+  }
+}
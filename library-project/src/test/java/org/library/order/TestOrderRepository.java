@@ -0,0 +1,261 @@
+package org.library.order;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.author.model.Author;
+import org.library.book.model.Book;
+import org.library.order.dto.BookAvailabilityDto;
+import org.library.order.dto.OrderRowDto;
+import org.library.order.enums.OrderStatus;
+import org.library.order.model.Order;
+import org.library.user.UserRepository;
+import org.library.user.dto.UserResponseDto;
+import org.library.user.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles( "test" )
+public class TestOrderRepository {
+
+  @Autowired
+  private OrderRepository orderRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  private User reader;
+  private User otherReader;
+  private Book book;
+
+  @BeforeEach
+  void setUp () {
+    reader = entityManager.persist( User
+      .builder()
+      .email( "reader@example.com" )
+      .password( "secret" )
+      .role( "USER" )
+      .build() );
+    otherReader = entityManager.persist( User
+      .builder()
+      .email( "other@example.com" )
+      .password( "secret" )
+      .role( "USER" )
+      .build() );
+    Author author = entityManager.persist( Author
+      .builder()
+      .firstName( "John" )
+      .lastName( "Doe" )
+      .age( 40 )
+      .build() );
+    book = entityManager.persist( Book
+      .builder()
+      .title( "Book" )
+      .genre( "Genre" )
+      .year( 2000 )
+      .status( OrderStatus.ACTIVE )
+      .author( author )
+      .build() );
+
+    persistOrder(
+      "order-1",
+      reader,
+      OrderStatus.RETURNED
+    );
+    persistOrder(
+      "order-2",
+      otherReader,
+      OrderStatus.ACTIVE
+    );
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  @Test
+  public void testStreamAllRows_ReturnsForeignKeysWithoutJoins () {
+    List<OrderRowDto> rows;
+    try ( Stream<OrderRowDto> stream = orderRepository.streamAllRows() ) {
+      rows = stream.toList();
+    }
+
+    assertEquals(
+      2,
+      rows.size()
+    );
+    assertTrue( rows
+      .stream()
+      .allMatch( row -> book.getId().equals( row.getBookId() ) ) );
+  }
+
+  @Test
+  public void testStreamRowsByUserId_ReturnsOnlyUserOrders () {
+    List<OrderRowDto> rows;
+    try ( Stream<OrderRowDto> stream = orderRepository.streamRowsByUserId( reader.getId() ) ) {
+      rows = stream.toList();
+    }
+
+    assertEquals(
+      1,
+      rows.size()
+    );
+    assertEquals(
+      "order-1",
+      rows.get( 0 ).getName()
+    );
+    assertEquals(
+      OrderStatus.RETURNED,
+      rows.get( 0 ).getStatus()
+    );
+  }
+
+  @Test
+  public void testFindUserRowsByIdIn_ReturnsRequestedUsers () {
+    List<UserResponseDto> users = userRepository.findRowsByIdIn( List.of(
+      reader.getId(),
+      otherReader.getId()
+    ) );
+
+    assertEquals(
+      2,
+      users.size()
+    );
+  }
+
+  @Test
+  public void testFindBookAvailability_CountsActiveOrdersOfExistingBooks () {
+    Book free = persistFreeBook();
+
+    Map<Long, Long> availability = new HashMap<>();
+    for ( BookAvailabilityDto row : orderRepository.findBookAvailability(
+      List.of(
+        book.getId(),
+        free.getId(),
+        -1L
+      ),
+      OrderStatus.ACTIVE
+    ) ) {
+      availability.put(
+        row.getBookId(),
+        row.getActiveOrders()
+      );
+    }
+
+    assertEquals(
+      Map.of(
+        book.getId(),
+        1L,
+        free.getId(),
+        0L
+      ),
+      availability
+    );
+  }
+
+  @Test
+  public void testInsertOrders_SkipsBooksWithActiveOrders () {
+    Book free = persistFreeBook();
+    Instant now = Instant.now();
+
+    int inserted = orderRepository.insertOrders(
+      reader.getId(),
+      List.of(
+        book.getId(),
+        free.getId()
+      ),
+      "order-batch-",
+      OrderStatus.ACTIVE,
+      now,
+      now.plusSeconds( 1_209_600L )
+    );
+
+    assertEquals(
+      1,
+      inserted
+    );
+    List<OrderRowDto> rows;
+    try ( Stream<OrderRowDto> stream = orderRepository.streamRowsByUserId( reader.getId() ) ) {
+      rows = stream.toList();
+    }
+    OrderRowDto created = rows
+      .stream()
+      .filter( row -> free.getId().equals( row.getBookId() ) )
+      .findFirst()
+      .orElseThrow();
+    assertEquals(
+      "order-batch-" + free.getId(),
+      created.getName()
+    );
+    assertEquals(
+      OrderStatus.ACTIVE,
+      created.getStatus()
+    );
+  }
+
+  @Test
+  public void testCompleteOrders_ChangesOnlyOrdersInExpectedStatus () {
+    List<Long> ids;
+    try ( Stream<OrderRowDto> stream = orderRepository.streamAllRows() ) {
+      ids = stream.map( OrderRowDto::getId ).toList();
+    }
+
+    int updated = orderRepository.completeOrders(
+      ids,
+      OrderStatus.ACTIVE,
+      OrderStatus.RETURNED,
+      Instant.now()
+    );
+
+    assertEquals(
+      1,
+      updated
+    );
+    List<OrderRowDto> rows = orderRepository.findRowsByIdIn( ids );
+    assertTrue( rows
+      .stream()
+      .allMatch( row -> row.getStatus() == OrderStatus.RETURNED ) );
+    assertEquals(
+      1,
+      rows
+        .stream()
+        .filter( row -> row.getReturnDate() != null )
+        .count()
+    );
+  }
+
+  private Book persistFreeBook () {
+    Book free = entityManager.persist( Book
+      .builder()
+      .title( "Free book" )
+      .genre( "Genre" )
+      .year( 2001 )
+      .status( OrderStatus.RETURNED )
+      .author( book.getAuthor() )
+      .build() );
+    entityManager.flush();
+    return free;
+  }
+
+  private void persistOrder ( String name, User user, OrderStatus status ) {
+    entityManager.persist( Order
+      .builder()
+      .name( name )
+      .borrowDate( Instant.now() )
+      .status( status )
+      .user( user )
+      .book( book )
+      .build() );
+  }
+}
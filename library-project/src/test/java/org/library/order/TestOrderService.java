@@ -5,26 +5,44 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.library.author.dto.AuthorDto;
 import org.library.book.BookService;
+import org.library.book.TrendingBooks;
 import org.library.book.dto.BookResponseDto;
 import org.library.book.model.Book;
+import org.library.coordination.CacheInvalidator;
+import org.library.coordination.InMemoryCoordinationStore;
+import org.library.order.dto.BookAvailabilityDto;
+import org.library.order.dto.OrderBatchResultDto;
+import org.library.order.dto.OrderEventRowDto;
 import org.library.order.dto.OrderResponseDto;
+import org.library.order.dto.OrderRowDto;
+import org.library.order.enums.OrderEventType;
 import org.library.order.enums.OrderStatus;
 import org.library.order.model.Order;
+import org.library.reservation.ReservationService;
+import org.library.user.UserRepository;
 import org.library.user.UserService;
 import org.library.user.dto.UserResponseDto;
 import org.library.user.model.User;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.http.HttpStatus.*;
 
@@ -33,12 +51,36 @@ public class TestOrderService {
   @Mock
   private OrderRepository orderRepository;
 
+  @Mock
+  private OrderArchiveRepository orderArchiveRepository;
+
+  @Mock
+  private OrderEventRepository orderEventRepository;
+
   @Mock
   private BookService bookService;
 
   @Mock
   private UserService userService;
 
+  @Mock
+  private ReservationService reservationService;
+
+  @Mock
+  private TrendingBooks trendingBooks;
+
+  // Real counters, with room for two active loans per user
+  @Spy
+  private LoanQuotas loanQuotas = new LoanQuotas(
+    acceptingLoans(),
+    new CacheInvalidator( new InMemoryCoordinationStore() ),
+    new InMemoryCoordinationStore(),
+    2,
+    100,
+    2,
+    100
+  );
+
   @InjectMocks
   private OrderService orderService;
 
@@ -86,6 +128,7 @@ public class TestOrderService {
       OrderStatus.ACTIVE
     );
     verify( orderRepository ).save( any( Order.class ) );
+    verify( trendingBooks ).recordBorrows( List.of( bookId ) );
   }
 
   @Test
@@ -131,6 +174,81 @@ public class TestOrderService {
     );
   }
 
+  @Test
+  void borrowBook_ShouldThrowException_WhenBookIsReservedForAnotherReader () {
+    // Given
+    Long userId = 1L;
+    Long bookId = 1L;
+
+    when( orderRepository.existsByBookIdAndStatus(
+      bookId,
+      OrderStatus.ACTIVE
+    ) ).thenReturn( false );
+    when( reservationService.claim(
+      userId,
+      List.of( bookId )
+    ) ).thenReturn( Set.of( bookId ) );
+
+    // When & Then
+    ResponseStatusException exception = assertThrows(
+      ResponseStatusException.class,
+      () -> orderService.borrowBook(
+        userId,
+        bookId
+      )
+    );
+
+    assertEquals(
+      "This book is reserved by another reader",
+      exception.getReason()
+    );
+    verify(
+      orderRepository,
+      never()
+    ).save( any( Order.class ) );
+  }
+
+  @Test
+  void borrowBook_ShouldThrowException_WhenLoanLimitIsReached () {
+    // Given
+    Long userId = 1L;
+
+    orderService.borrowBook(
+      userId,
+      1L
+    );
+    orderService.borrowBook(
+      userId,
+      2L
+    );
+
+    // When & Then
+    ResponseStatusException exception = assertThrows(
+      ResponseStatusException.class,
+      () -> orderService.borrowBook(
+        userId,
+        3L
+      )
+    );
+
+    assertEquals(
+      BAD_REQUEST,
+      exception.getStatusCode()
+    );
+    assertEquals(
+      "You have reached your limit of active loans",
+      exception.getReason()
+    );
+    verify(
+      orderRepository,
+      times( 2 )
+    ).save( any( Order.class ) );
+    assertEquals(
+      2,
+      loanQuotas.activeLoans( userId )
+    );
+  }
+
   @Test
   void borrowBook_ShouldThrowException_WhenUserDoesNotExist () {
     // Given
@@ -205,7 +323,7 @@ public class TestOrderService {
   }
 
   @Test
-  void getAllOrders_ShouldReturnAllOrdersOrderedByCreatedAtDesc () {
+  void streamAllOrders_ShouldReturnAllOrdersOrderedByCreatedAtDesc () {
     // Given
     Order order1 = createTestOrder(
       1L,
@@ -222,12 +340,22 @@ public class TestOrderService {
       order2
     );
 
-    when( orderRepository.findAllByOrderByCreatedAtDesc() ).thenReturn( orders );
-    when( userService.getById( 1L ) ).thenReturn( createTestUserResponseDto( 1L ) );
-    when( bookService.getById( 1L ) ).thenReturn( createTestBookResponseDto( 1L ) );
+    when( orderRepository.streamAllRows() ).thenReturn( toRows( orders ).stream() );
+    when( userService.getAllByIds( Set.of( 1L ) ) ).thenReturn( Map.of(
+      1L,
+      createTestUserResponseDto( 1L )
+    ) );
+    when( bookService.getAllByIds( Set.of( 1L ) ) ).thenReturn( Map.of(
+      1L,
+      createTestBookResponseDto( 1L )
+    ) );
 
     // When
-    List<OrderResponseDto> result = orderService.getAllOrders();
+    List<OrderResponseDto> result = new ArrayList<>();
+    orderService.streamAllOrders(
+      false,
+      result::add
+    );
 
     // Then
     assertNotNull( result );
@@ -235,11 +363,80 @@ public class TestOrderService {
       2,
       result.size()
     );
-    verify( orderRepository ).findAllByOrderByCreatedAtDesc();
+    assertEquals(
+      "order-1",
+      result.get( 0 ).getName()
+    );
+    assertEquals(
+      1L,
+      result.get( 1 ).getUser().getId()
+    );
+    assertEquals(
+      1L,
+      result.get( 1 ).getBook().getId()
+    );
+    verify( orderRepository ).streamAllRows();
+    verify( userService ).getAllByIds( Set.of( 1L ) );
+    verify(
+      userService,
+      never()
+    ).getById( anyLong() );
+    verify(
+      bookService,
+      never()
+    ).getById( anyLong() );
+  }
+
+  @Test
+  void streamAllOrders_ShouldResolveUsersAndBooksOncePerPage () {
+    // Given
+    List<Order> orders = new ArrayList<>();
+    for ( long id = 1; id <= OrderService.PAGE_SIZE * 2 + 1; id++ ) {
+      orders.add( createTestOrder(
+        id,
+        "order-" + id,
+        OrderStatus.RETURNED
+      ) );
+    }
+
+    when( orderRepository.streamAllRows() ).thenReturn( toRows( orders ).stream() );
+    when( userService.getAllByIds( Set.of( 1L ) ) ).thenReturn( Map.of(
+      1L,
+      createTestUserResponseDto( 1L )
+    ) );
+    when( bookService.getAllByIds( Set.of( 1L ) ) ).thenReturn( Map.of(
+      1L,
+      createTestBookResponseDto( 1L )
+    ) );
+
+    // When
+    List<OrderResponseDto> result = new ArrayList<>();
+    orderService.streamAllOrders(
+      false,
+      result::add
+    );
+
+    // Then
+    assertEquals(
+      orders.size(),
+      result.size()
+    );
+    assertEquals(
+      "order-" + orders.size(),
+      result.get( orders.size() - 1 ).getName()
+    );
+    verify(
+      userService,
+      times( 3 )
+    ).getAllByIds( Set.of( 1L ) );
+    verify(
+      bookService,
+      times( 3 )
+    ).getAllByIds( Set.of( 1L ) );
   }
 
   @Test
-  void getOrdersByUserId_ShouldReturnUserOrdersOrderedByCreatedAtDesc () {
+  void streamOrdersByUserId_ShouldReturnUserOrdersOrderedByCreatedAtDesc () {
     // Given
     Long userId = 1L;
     Order order1 = createTestOrder(
@@ -258,12 +455,23 @@ public class TestOrderService {
     );
 
     doNothing().when( userService ).checkUserExists( userId );
-    when( orderRepository.findByUserIdOrderByCreatedAtDesc( userId ) ).thenReturn( orders );
-    when( userService.getById( 1L ) ).thenReturn( createTestUserResponseDto( 1L ) );
-    when( bookService.getById( 1L ) ).thenReturn( createTestBookResponseDto( 1L ) );
+    when( orderRepository.streamRowsByUserId( userId ) ).thenReturn( toRows( orders ).stream() );
+    when( userService.getAllByIds( Set.of( 1L ) ) ).thenReturn( Map.of(
+      1L,
+      createTestUserResponseDto( 1L )
+    ) );
+    when( bookService.getAllByIds( Set.of( 1L ) ) ).thenReturn( Map.of(
+      1L,
+      createTestBookResponseDto( 1L )
+    ) );
 
     // When
-    List<OrderResponseDto> result = orderService.getOrdersByUserId( userId );
+    List<OrderResponseDto> result = new ArrayList<>();
+    orderService.streamOrdersByUserId(
+      userId,
+      false,
+      result::add
+    );
 
     // Then
     assertNotNull( result );
@@ -272,11 +480,59 @@ public class TestOrderService {
       result.size()
     );
     verify( userService ).checkUserExists( userId );
-    verify( orderRepository ).findByUserIdOrderByCreatedAtDesc( userId );
+    verify( orderRepository ).streamRowsByUserId( userId );
+    verifyNoInteractions( orderArchiveRepository );
   }
 
   @Test
-  void getOrdersByUserId_ShouldThrowException_WhenUserDoesNotExist () {
+  void streamOrdersByUserId_ShouldAppendArchivedOrders_WhenAsked () {
+    // Given
+    Long userId = 1L;
+    Order current = createTestOrder(
+      2L,
+      "order-2",
+      OrderStatus.ACTIVE
+    );
+    Order archived = createTestOrder(
+      1L,
+      "order-1",
+      OrderStatus.RETURNED
+    );
+
+    when( orderRepository.streamRowsByUserId( userId ) ).thenReturn( toRows( List.of( current ) ).stream() );
+    when( orderArchiveRepository.streamRowsByUserId( userId ) ).thenReturn( toRows( List.of( archived ) ).stream() );
+    when( userService.getAllByIds( Set.of( 1L ) ) ).thenReturn( Map.of(
+      1L,
+      createTestUserResponseDto( 1L )
+    ) );
+    when( bookService.getAllByIds( Set.of( 1L ) ) ).thenReturn( Map.of(
+      1L,
+      createTestBookResponseDto( 1L )
+    ) );
+
+    // When
+    List<OrderResponseDto> result = new ArrayList<>();
+    orderService.streamOrdersByUserId(
+      userId,
+      true,
+      result::add
+    );
+
+    // Then
+    assertEquals(
+      List.of(
+        "order-2",
+        "order-1"
+      ),
+      result
+        .stream()
+        .map( OrderResponseDto::getName )
+        .toList()
+    );
+  }
+
+  @Test
+  void streamOrdersByUserId_ShouldThrowException_WhenUserDoesNotExist () {
     // Given
     Long userId = 1L;
 
@@ -288,7 +544,12 @@ public class TestOrderService {
     // When & Then
     ResponseStatusException exception = assertThrows(
       ResponseStatusException.class,
-      () -> orderService.getOrdersByUserId( userId )
+      () -> orderService.streamOrdersByUserId(
+        userId,
+        false,
+        order -> {
+        }
+      )
     );
 
     assertEquals(
@@ -302,7 +563,7 @@ public class TestOrderService {
     verify(
       orderRepository,
       never()
-    ).findByUserIdOrderByCreatedAtDesc( anyLong() );
+    ).streamRowsByUserId( anyLong() );
   }
 
   @Test
@@ -327,6 +588,14 @@ public class TestOrderService {
       OrderStatus.RETURNED
     );
     verify( orderRepository ).save( order );
+    verify( orderEventRepository ).save( argThat( event -> event.getOrderId().equals( orderId ) &&
+                                                           event.getBookId().equals( order.getBook().getId() ) &&
+                                                           event.getType() == OrderEventType.RETURNED ) );
+    verify( reservationService ).promoteNext( order.getBook().getId() );
+    verify( loanQuotas ).release(
+      order.getUser().getId(),
+      1
+    );
     assertEquals(
       OrderStatus.RETURNED,
       order.getStatus()
@@ -508,6 +777,8 @@ public class TestOrderService {
       null
     );
     verify( orderRepository ).deleteById( orderId );
+    verify( orderEventRepository ).save( argThat( event -> event.getOrderId().equals( orderId ) &&
+                                                           event.getType() == OrderEventType.DELETED ) );
   }
 
   @Test
@@ -597,6 +868,341 @@ public class TestOrderService {
       .build();
   }
 
+  @Test
+  void borrowBooks_ShouldReportPerItemResults_AndInsertAvailableBooksAtOnce () {
+    // Given
+    Long userId = 1L;
+    List<Long> bookIds = List.of(
+      1L,
+      2L,
+      3L,
+      1L
+    );
+
+    when( orderRepository.findBookAvailability(
+      Set.of(
+        1L,
+        2L,
+        3L
+      ),
+      OrderStatus.ACTIVE
+    ) ).thenReturn( List.of(
+      new BookAvailabilityDto(
+        1L,
+        0L
+      ),
+      new BookAvailabilityDto(
+        2L,
+        1L
+      )
+    ) );
+    when( orderRepository.insertOrders(
+      eq( userId ),
+      eq( Set.of( 1L ) ),
+      anyString(),
+      eq( OrderStatus.ACTIVE ),
+      any( Instant.class ),
+      any( Instant.class )
+    ) ).thenReturn( 1 );
+
+    // When
+    List<OrderBatchResultDto> results = orderService.borrowBooks(
+      userId,
+      bookIds
+    );
+
+    // Then
+    assertEquals(
+      List.of(
+        200,
+        400,
+        404,
+        400
+      ),
+      results.stream().map( OrderBatchResultDto::getStatus ).toList()
+    );
+    assertEquals(
+      "Book not found with id: 3",
+      results.get( 2 ).getMessage()
+    );
+    verify( userService ).checkUserExists( userId );
+    verify( bookService ).updateStatuses(
+      Set.of( 1L ),
+      OrderStatus.ACTIVE
+    );
+    verify( trendingBooks ).recordBorrows( Set.of( 1L ) );
+    verify( orderEventRepository ).appendForBooks(
+      eq( Set.of( 1L ) ),
+      eq( OrderStatus.ACTIVE ),
+      eq( OrderEventType.BORROWED ),
+      any( Instant.class )
+    );
+    verify(
+      orderRepository,
+      never()
+    ).save( any( Order.class ) );
+  }
+
+  @Test
+  void borrowBooks_ShouldReportBooksOverTheLoanLimit () {
+    // Given
+    Long userId = 1L;
+    List<Long> bookIds = List.of(
+      1L,
+      2L,
+      3L
+    );
+
+    when( orderRepository.findBookAvailability(
+      Set.of(
+        1L,
+        2L,
+        3L
+      ),
+      OrderStatus.ACTIVE
+    ) ).thenReturn( List.of(
+      new BookAvailabilityDto(
+        1L,
+        0L
+      ),
+      new BookAvailabilityDto(
+        2L,
+        0L
+      ),
+      new BookAvailabilityDto(
+        3L,
+        0L
+      )
+    ) );
+    when( reservationService.claim(
+      userId,
+      Set.of(
+        1L,
+        2L
+      )
+    ) ).thenReturn( Set.of( 1L ) );
+    when( orderRepository.insertOrders(
+      eq( userId ),
+      eq( Set.of( 2L ) ),
+      anyString(),
+      eq( OrderStatus.ACTIVE ),
+      any( Instant.class ),
+      any( Instant.class )
+    ) ).thenReturn( 1 );
+
+    // When
+    List<OrderBatchResultDto> results = orderService.borrowBooks(
+      userId,
+      bookIds
+    );
+
+    // Then
+    assertEquals(
+      List.of(
+        400,
+        200,
+        400
+      ),
+      results.stream().map( OrderBatchResultDto::getStatus ).toList()
+    );
+    assertEquals(
+      "This book is reserved by another reader",
+      results.get( 0 ).getMessage()
+    );
+    assertEquals(
+      "You have reached your limit of active loans",
+      results.get( 2 ).getMessage()
+    );
+    // The slot of the reserved book is given back
+    assertEquals(
+      1,
+      loanQuotas.activeLoans( userId )
+    );
+  }
+
+  @Test
+  void returnBooks_ShouldReportPerItemResults_AndUpdateInBulk () {
+    // Given
+    Order active = createTestOrder(
+      1L,
+      "order-1",
+      OrderStatus.ACTIVE
+    );
+    Order returned = createTestOrder(
+      2L,
+      "order-2",
+      OrderStatus.RETURNED
+    );
+
+    when( orderRepository.findRowsByIdIn( Set.of(
+      1L,
+      2L,
+      3L
+    ) ) ).thenReturn( toRows( List.of(
+      active,
+      returned
+    ) ) );
+    when( orderRepository.completeOrders(
+      eq( Set.of( 1L ) ),
+      eq( OrderStatus.ACTIVE ),
+      eq( OrderStatus.RETURNED ),
+      any( Instant.class )
+    ) ).thenReturn( 1 );
+
+    // When
+    List<OrderBatchResultDto> results = orderService.returnBooks( List.of(
+      1L,
+      2L,
+      3L
+    ) );
+
+    // Then
+    assertEquals(
+      List.of(
+        200,
+        400,
+        404
+      ),
+      results.stream().map( OrderBatchResultDto::getStatus ).toList()
+    );
+    verify( bookService ).updateStatuses(
+      Set.of( active.getBook().getId() ),
+      OrderStatus.RETURNED
+    );
+    verify( orderEventRepository ).appendForOrders(
+      eq( Set.of( 1L ) ),
+      eq( OrderEventType.RETURNED ),
+      any( Instant.class )
+    );
+    verify(
+      bookService,
+      never()
+    ).updateStatus(
+      anyLong(),
+      any( OrderStatus.class )
+    );
+  }
+
+  @Test
+  void returnBooks_ShouldRollBack_WhenOrdersChangedConcurrently () {
+    // Given
+    Order active = createTestOrder(
+      1L,
+      "order-1",
+      OrderStatus.ACTIVE
+    );
+
+    when( orderRepository.findRowsByIdIn( Set.of( 1L ) ) ).thenReturn( toRows( List.of( active ) ) );
+    when( orderRepository.completeOrders(
+      eq( Set.of( 1L ) ),
+      eq( OrderStatus.ACTIVE ),
+      eq( OrderStatus.RETURNED ),
+      any( Instant.class )
+    ) ).thenReturn( 0 );
+
+    // When & Then
+    ResponseStatusException exception = assertThrows(
+      ResponseStatusException.class,
+      () -> orderService.returnBooks( List.of( 1L ) )
+    );
+
+    assertEquals(
+      CONFLICT,
+      exception.getStatusCode()
+    );
+    verify(
+      bookService,
+      never()
+    ).updateStatuses(
+      any(),
+      any()
+    );
+    verifyNoInteractions( orderEventRepository );
+  }
+
+  @Test
+  void getHistory_ShouldReturnEveryTransitionInOrder () {
+    // Given
+    Long orderId = 1L;
+    List<OrderEventRowDto> events = List.of(
+      new OrderEventRowDto(
+        10L,
+        orderId,
+        5L,
+        7L,
+        OrderEventType.BORROWED,
+        Instant.parse( "2026-01-01T00:00:00Z" )
+      ),
+      new OrderEventRowDto(
+        42L,
+        orderId,
+        5L,
+        7L,
+        OrderEventType.RETURNED,
+        Instant.parse( "2026-01-10T00:00:00Z" )
+      )
+    );
+
+    when( orderEventRepository.findRowsByOrderId( orderId ) ).thenReturn( events );
+
+    // When
+    List<OrderEventRowDto> result = orderService.getHistory( orderId );
+
+    // Then
+    assertEquals(
+      events,
+      result
+    );
+    verifyNoInteractions( orderRepository );
+  }
+
+  @Test
+  void getHistory_ShouldThrowException_WhenOrderHasNoEvents () {
+    // Given
+    when( orderEventRepository.findRowsByOrderId( 1L ) ).thenReturn( List.of() );
+
+    // When & Then
+    ResponseStatusException exception = assertThrows(
+      ResponseStatusException.class,
+      () -> orderService.getHistory( 1L )
+    );
+
+    assertEquals(
+      NOT_FOUND,
+      exception.getStatusCode()
+    );
+  }
+
+  private List<OrderRowDto> toRows ( List<Order> orders ) {
+    return orders
+      .stream()
+      .map( order -> new OrderRowDto(
+        order.getId(),
+        order.getName(),
+        order.getBorrowDate(),
+        order.getReturnDate(),
+        order.getDueDate(),
+        order.getStatus(),
+        order.getUser().getId(),
+        order.getBook().getId()
+      ) )
+      .toList();
+  }
+
+  /**
+   * The loan limit of these tests is the one counted in memory, so the user's
+   * row accepts every loan.
+   */
+  private static UserRepository acceptingLoans () {
+    UserRepository userRepository = mock( UserRepository.class );
+    when( userRepository.addActiveLoans(
+      anyLong(),
+      anyInt(),
+      anyInt()
+    ) ).thenReturn( 1 );
+    return userRepository;
+  }
+
   private UserResponseDto createTestUserResponseDto ( Long id ) {
     return new UserResponseDto(
       id,
@@ -0,0 +1,214 @@
+package org.library.order;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.order.dto.OrderRowDto;
+import org.library.order.enums.OrderStatus;
+import org.library.order.model.Order;
+import org.library.order.model.SweepMark;
+import org.library.user.UserRepository;
+import org.library.user.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the sweep against the embedded database. Batches are flagged on other
+ * threads in their own transactions, so the test does not run in one.
+ */
+@DataJpaTest
+@ActiveProfiles( "test" )
+@Transactional( propagation = Propagation.NOT_SUPPORTED )
+public class TestOverdueOrderScanner {
+
+  private static final int OVERDUE = 25;
+
+  @Autowired
+  private OrderRepository orderRepository;
+
+  @Autowired
+  private SweepMarkRepository sweepMarkRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private ExecutorService executor;
+  private TransactionTemplate transaction;
+  private OverdueOrderScanner scanner;
+  private User reader;
+  private Instant now;
+
+  @BeforeEach
+  void setUp () {
+    executor = Executors.newFixedThreadPool( 2 );
+    transaction = new TransactionTemplate( transactionManager );
+    scanner = new OverdueOrderScanner(
+      orderRepository,
+      sweepMarkRepository,
+      transactionManager,
+      executor,
+      4,
+      2
+    );
+    now = Instant.now().truncatedTo( ChronoUnit.MILLIS );
+
+    transaction.executeWithoutResult( status -> {
+      reader = userRepository.save( User
+        .builder()
+        .email( "reader@example.com" )
+        .password( "secret" )
+        .role( "USER" )
+        .build() );
+      for ( int i = 0; i < OVERDUE; i++ ) {
+        // Pairs of orders share a due date, the id breaks the tie
+        persistOrder(
+          OrderStatus.ACTIVE,
+          now.minus(
+            30 - i / 2,
+            ChronoUnit.DAYS
+          )
+        );
+      }
+      persistOrder(
+        OrderStatus.RETURNED,
+        now.minus(
+          40,
+          ChronoUnit.DAYS
+        )
+      );
+      persistOrder(
+        OrderStatus.ACTIVE,
+        now.plus(
+          1,
+          ChronoUnit.DAYS
+        )
+      );
+    } );
+  }
+
+  @AfterEach
+  void tearDown () {
+    executor.shutdown();
+    transaction.executeWithoutResult( status -> {
+      sweepMarkRepository.deleteAllInBatch();
+      orderRepository.deleteAllInBatch();
+      userRepository.deleteAllInBatch();
+    } );
+  }
+
+  @Test
+  public void testSweep_FlagsEveryOverdueActiveOrderOnce () {
+    assertEquals(
+      OVERDUE,
+      scanner.sweep()
+    );
+
+    long flagged = orderRepository
+      .findAll()
+      .stream()
+      .filter( order -> order.getOverdueAt() != null )
+      .peek( order -> assertEquals(
+        OrderStatus.ACTIVE,
+        order.getStatus()
+      ) )
+      .count();
+    assertEquals(
+      OVERDUE,
+      flagged
+    );
+    assertEquals(
+      0,
+      scanner.sweep()
+    );
+  }
+
+  @Test
+  public void testSweep_ContinuesFromTheMark () {
+    scanner.sweep();
+    SweepMark mark = sweepMarkRepository
+      .findById( OverdueOrderScanner.SWEEP )
+      .orElseThrow();
+    assertEquals(
+      now.minus(
+        30 - ( OVERDUE - 1 ) / 2,
+        ChronoUnit.DAYS
+      ),
+      mark.getDueDate()
+    );
+
+    transaction.executeWithoutResult( status -> persistOrder(
+      OrderStatus.ACTIVE,
+      Instant.now().minusMillis( 1 )
+    ) );
+
+    assertEquals(
+      1,
+      scanner.sweep()
+    );
+  }
+
+  @Test
+  public void testFlag_LeavesOutOrdersReturnedSinceThePageWasRead () {
+    List<OrderRowDto> batch = orderRepository.findDueRowsAfter(
+      OrderStatus.ACTIVE,
+      now,
+      Instant.EPOCH,
+      0L,
+      Limit.of( 3 )
+    );
+    Long returned = batch.get( 1 ).getId();
+    transaction.executeWithoutResult( status -> {
+      Order order = orderRepository.findById( returned ).orElseThrow();
+      order.setStatus( OrderStatus.RETURNED );
+    } );
+
+    assertEquals(
+      List.of(
+        batch.get( 0 ).getId(),
+        batch.get( 2 ).getId()
+      ),
+      scanner.flag(
+        batch,
+        now
+      )
+    );
+    assertEquals(
+      List.of(),
+      scanner.flag(
+        batch,
+        now.plusMillis( 1 )
+      )
+    );
+  }
+
+  private void persistOrder ( OrderStatus status, Instant dueDate ) {
+    orderRepository.save( Order
+      .builder()
+      .name( "order-" + dueDate.toEpochMilli() )
+      .borrowDate( dueDate.minus(
+        14,
+        ChronoUnit.DAYS
+      ) )
+      .dueDate( dueDate )
+      .status( status )
+      .user( reader )
+      .build() );
+  }
+}
@@ -0,0 +1,181 @@
+package org.library.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.library.coordination.InMemoryCoordinationStore;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestRateLimiter {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos( 1 );
+
+  @Test
+  public void testTryAcquire_AllowsBurstThenReportsWait () {
+    TokenBucket bucket = new TokenBucket(
+      3,
+      SECOND
+    );
+    long now = 1_000 * SECOND;
+
+    assertEquals( 0, bucket.tryAcquire( now ) );
+    assertEquals( 0, bucket.tryAcquire( now ) );
+    assertEquals( 0, bucket.tryAcquire( now ) );
+    assertEquals( SECOND, bucket.tryAcquire( now ) );
+    assertEquals( 0, bucket.tryAcquire( now + SECOND ) );
+  }
+
+  @Test
+  public void testIsIdle_OnlyOnceFullyRefilled () {
+    TokenBucket bucket = new TokenBucket(
+      2,
+      SECOND
+    );
+    long now = 1_000 * SECOND;
+    assertTrue( bucket.isIdle( now ) );
+
+    bucket.tryAcquire( now );
+    bucket.tryAcquire( now );
+    assertFalse( bucket.isIdle( now + SECOND ) );
+    assertTrue( bucket.isIdle( now + 2 * SECOND ) );
+  }
+
+  @Test
+  public void testTryAcquire_ConcurrentCallersNeverExceedCapacity () throws Exception {
+    TokenBucket bucket = new TokenBucket(
+      100,
+      TimeUnit.HOURS.toNanos( 1 )
+    );
+    long now = System.nanoTime();
+    AtomicInteger granted = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch( 1 );
+    ExecutorService executor = Executors.newFixedThreadPool( 8 );
+
+    for ( int i = 0; i < 8; i++ ) {
+      executor.submit( () -> {
+        start.await();
+        for ( int j = 0; j < 1_000; j++ ) {
+          if ( bucket.tryAcquire( now ) == 0 ) {
+            granted.incrementAndGet();
+          }
+        }
+        return null;
+      } );
+    }
+    start.countDown();
+    executor.shutdown();
+    assertTrue( executor.awaitTermination( 10, TimeUnit.SECONDS ) );
+
+    assertEquals( 100, granted.get() );
+  }
+
+  @Test
+  public void testTryAcquire_LimitsClientsIndependently () {
+    RateLimiter rateLimiter = newRateLimiter( 100 );
+
+    assertEquals( 0, rateLimiter.tryAcquire( RateLimitGroup.AUTH, "ip:1" ) );
+    assertTrue( rateLimiter.tryAcquire( RateLimitGroup.AUTH, "ip:1" ) > 0 );
+    assertEquals( 0, rateLimiter.tryAcquire( RateLimitGroup.AUTH, "ip:2" ) );
+    assertEquals( 0, rateLimiter.tryAcquire( RateLimitGroup.ORDER_WRITE, "ip:1" ) );
+  }
+
+  @Test
+  public void testTryAcquire_SpreadsNewClientsOverOverflowBucketsWhenFull () {
+    RateLimiter rateLimiter = newRateLimiter( 2 );
+
+    rateLimiter.tryAcquire( RateLimitGroup.AUTH, "ip:1" );
+    rateLimiter.tryAcquire( RateLimitGroup.AUTH, "ip:2" );
+    assertEquals( 0, rateLimiter.tryAcquire( RateLimitGroup.AUTH, "ip:3" ) );
+    assertTrue( rateLimiter.tryAcquire( RateLimitGroup.AUTH, "ip:3" ) > 0 );
+
+    // A noisy client past the limit leaves the other new clients alone
+    int granted = 0;
+    for ( int i = 4; i < 104; i++ ) {
+      if ( rateLimiter.tryAcquire( RateLimitGroup.AUTH, "ip:10.0.0." + i ) == 0 ) {
+        granted++;
+      }
+    }
+    assertTrue( granted >= 95, "Granted " + granted );
+    assertEquals( 2, rateLimiter.size( RateLimitGroup.AUTH ) );
+  }
+
+  @Test
+  public void testClientKey_UsesForwardedForOnlyFromTrustedProxies () {
+    RateLimitFilter filter = new RateLimitFilter(
+      newRateLimiter( 100 ),
+      null,
+      new ObjectMapper(),
+      true,
+      List.of( "10.0.0.0/8", " 192.168.1.5" )
+    );
+
+    assertEquals( "ip:203.0.113.7", filter.clientKey( request( "10.1.2.3", "203.0.113.7" ) ) );
+    // The client made up the first hop, the balancer appended the real address
+    assertEquals( "ip:203.0.113.7", filter.clientKey( request( "10.1.2.3", "198.51.100.1, 203.0.113.7, 192.168.1.5" ) ) );
+    assertEquals( "ip:10.1.2.3", filter.clientKey( request( "10.1.2.3", null ) ) );
+    // Untrusted clients cannot choose their own key
+    assertEquals( "ip:203.0.113.9", filter.clientKey( request( "203.0.113.9", "198.51.100.1" ) ) );
+    assertEquals( "ip:not-an-ip", filter.clientKey( request( "10.1.2.3", "not-an-ip" ) ) );
+  }
+
+  @Test
+  public void testEvictIdle_KeepsBucketsStillRefilling () {
+    RateLimiter rateLimiter = newRateLimiter( 100 );
+
+    rateLimiter.tryAcquire( RateLimitGroup.AUTH, "ip:1" );
+    rateLimiter.evictIdle();
+
+    assertEquals( 1, rateLimiter.size( RateLimitGroup.AUTH ) );
+  }
+
+  @Test
+  public void testEvictIdle_RemovesRefilledBuckets () throws Exception {
+    RateLimiter rateLimiter = new RateLimiter(
+      1,
+      60_000,
+      1,
+      60_000,
+      1,
+      60_000,
+      100,
+      false,
+      new InMemoryCoordinationStore()
+    );
+
+    rateLimiter.tryAcquire( RateLimitGroup.CATALOG_READ, "ip:1" );
+    Thread.sleep( 5 );
+    rateLimiter.evictIdle();
+
+    assertEquals( 0, rateLimiter.size( RateLimitGroup.CATALOG_READ ) );
+  }
+
+  private static MockHttpServletRequest request ( String remoteAddress, String forwardedFor ) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setRemoteAddr( remoteAddress );
+    if ( forwardedFor != null ) {
+      request.addHeader( "X-Forwarded-For", forwardedFor );
+    }
+    return request;
+  }
+
+  private static RateLimiter newRateLimiter ( int maxBuckets ) {
+    return new RateLimiter(
+      1,
+      1,
+      1,
+      1,
+      1,
+      1,
+      maxBuckets,
+      false,
+      new InMemoryCoordinationStore()
+    );
+  }
+}
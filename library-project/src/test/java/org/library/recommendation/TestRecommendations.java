@@ -0,0 +1,404 @@
+package org.library.recommendation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.library.book.BookService;
+import org.library.book.dto.BookResponseDto;
+import org.library.exception.ErrorCode;
+import org.library.order.OrderEventRepository;
+import org.library.order.dto.OrderEventRowDto;
+import org.library.order.enums.OrderEventType;
+import org.library.order.enums.OrderStatus;
+import org.library.order.model.OrderEvent;
+import org.library.recommendation.dto.RelatedBookDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Builds the co-borrow graph from synthetic histories and from the order
+ * event log of the embedded database. The projector reads in its own
+ * transactions, so the test does not run in one.
+ */
+@DataJpaTest
+@ActiveProfiles( "test" )
+@Transactional( propagation = Propagation.NOT_SUPPORTED )
+public class TestRecommendations {
+
+  private static final Logger logger = LoggerFactory.getLogger( TestRecommendations.class );
+
+  private static final Instant BORROWED_AT = Instant.parse( "2026-01-15T10:00:00Z" );
+
+  @Autowired
+  private OrderEventRepository orderEventRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate transaction;
+  private long nextEventId;
+
+  @BeforeEach
+  void setUp () {
+    transaction = new TransactionTemplate( transactionManager );
+  }
+
+  @AfterEach
+  void tearDown () {
+    transaction.executeWithoutResult( status -> orderEventRepository.deleteAllInBatch() );
+  }
+
+  @Test
+  public void testGraph_RelatesBooksBorrowedCloseTogetherByOneReader () {
+    CoBorrowGraph graph = new CoBorrowGraph(
+      2,
+      10
+    );
+    borrow( graph, 1L, 10L, 20L, 30L, 40L );
+    borrow( graph, 2L, 10L, 20L );
+    // Borrowing a book again adds nothing
+    borrow( graph, 1L, 10L );
+    graph.rebuild( 2 );
+
+    // Book 40 is three of reader 1's books away from book 10
+    assertEquals(
+      List.of(
+        List.of( 20L, 2L ),
+        List.of( 30L, 1L )
+      ),
+      entries( graph.related( 10L, 10 ) )
+    );
+    // Book 20 has two readers, so one co-borrow with book 30 ranks higher
+    assertEquals(
+      List.of(
+        List.of( 30L, 1L ),
+        List.of( 20L, 1L )
+      ),
+      entries( graph.related( 40L, 10 ) )
+    );
+    assertEquals(
+      List.of( List.of( 20L, 2L ) ),
+      entries( graph.related( 10L, 1 ) )
+    );
+    assertEquals(
+      List.of(),
+      graph.related( 99L, 10 )
+    );
+
+    // After the build, new borrows update the rows in place
+    borrow( graph, 3L, 40L, 10L );
+    assertEquals(
+      List.of(
+        List.of( 20L, 2L ),
+        List.of( 30L, 1L ),
+        List.of( 40L, 1L )
+      ),
+      entries( graph.related( 10L, 10 ) )
+    );
+  }
+
+  @Test
+  public void testIncrementalUpdates_MatchTheParallelBuild () {
+    CoBorrowGraph incremental = new CoBorrowGraph(
+      5,
+      1_000
+    );
+    incremental.rebuild( 1 );
+    CoBorrowGraph rebuilt = new CoBorrowGraph(
+      5,
+      1_000
+    );
+    Random random = new Random( 7 );
+    for ( int i = 0; i < 20_000; i++ ) {
+      OrderEventRowDto event = event(
+        1L + random.nextInt( 2_000 ),
+        1L + random.nextInt( 500 )
+      );
+      incremental.apply( event );
+      rebuilt.apply( event );
+    }
+    rebuilt.rebuild( 4 );
+
+    for ( long bookId = 1; bookId <= 500; bookId++ ) {
+      assertEquals(
+        entries( incremental.related( bookId, 1_000 ) ),
+        entries( rebuilt.related( bookId, 1_000 ) )
+      );
+    }
+  }
+
+  @Tag( "perf" )
+  @Test
+  public void testParallelBuild_CountsMillionsOfBorrowsInSeconds () {
+    int users = 200_000;
+    int books = 50_000;
+    int borrows = 2_000_000;
+    Random random = new Random( 42 );
+    CoBorrowGraph graph = new CoBorrowGraph(
+      20,
+      50
+    );
+
+    long start = System.nanoTime();
+    for ( int i = 0; i < borrows; i++ ) {
+      // Readers favour the low ids, a few books are borrowed by many
+      long bookId = 1L + (long) ( books * Math.pow(
+        random.nextDouble(),
+        3
+      ) );
+      graph.apply( event(
+        1L + random.nextInt( users ),
+        bookId
+      ) );
+    }
+    long loaded = System.nanoTime();
+    graph.rebuild( 4 );
+    long built = System.nanoTime();
+
+    logger.info(
+      "Co-borrow graph of {} borrows by {} readers over {} books: {} ms to load, {} ms to count on 4 threads",
+      borrows,
+      users,
+      graph.books(),
+      ( loaded - start ) / 1_000_000,
+      ( built - loaded ) / 1_000_000
+    );
+    assertEquals(
+      50,
+      graph.related( 1L, 100 ).size()
+    );
+    assertTrue( built - start < 60_000_000_000L );
+  }
+
+  @Test
+  public void testProjector_BuildsFromTheLogAndThenCatchesUp () {
+    CoBorrowProjector projector = projector();
+    assertEquals(
+      List.of(),
+      projector.related( 10L, 10 )
+    );
+    append( 1L, 1L, 10L );
+    append( 2L, 1L, 20L );
+    append( 3L, 2L, 10L );
+    append( 4L, 2L, 30L );
+    append( 5L, 3L, 20L );
+    append( 6L, 3L, 10L );
+
+    assertEquals( 0, projector.catchUp() );
+    assertEquals(
+      List.of(
+        List.of( 20L, 2L ),
+        List.of( 30L, 1L )
+      ),
+      entries( projector.related( 10L, 10 ) )
+    );
+
+    append( 7L, 4L, 30L );
+    append( 8L, 4L, 10L );
+    // Book 30 has a third reader now, so as many co-borrows rank it lower
+    append( 9L, 5L, 30L );
+    assertEquals( 3, projector.catchUp() );
+    assertEquals(
+      List.of(
+        List.of( 20L, 2L ),
+        List.of( 30L, 2L )
+      ),
+      entries( projector.related( 10L, 10 ) )
+    );
+
+    projector.rebuild();
+    assertEquals(
+      List.of(
+        List.of( 20L, 2L ),
+        List.of( 30L, 2L )
+      ),
+      entries( projector.related( 10L, 10 ) )
+    );
+    assertEquals(
+      orderEventRepository
+        .findAll()
+        .stream()
+        .mapToLong( OrderEvent::getId )
+        .max()
+        .orElseThrow(),
+      projector.position()
+    );
+  }
+
+  @Test
+  public void testProjector_BuildsOnItsOwnExecutor () {
+    List<Runnable> builds = new ArrayList<>();
+    CoBorrowProjector projector = projector( builds::add );
+    append( 1L, 1L, 10L );
+    append( 2L, 1L, 20L );
+
+    // The scheduler thread only hands the build over, once
+    assertEquals( 0, projector.catchUp() );
+    assertEquals( 0, projector.catchUp() );
+    projector.rebuild();
+    assertEquals( 1, builds.size() );
+    assertEquals( List.of(), projector.related( 10L, 10 ) );
+
+    builds.remove( 0 ).run();
+    assertEquals(
+      List.of( List.of( 20L, 1L ) ),
+      entries( projector.related( 10L, 10 ) )
+    );
+    projector.rebuild();
+    assertEquals( 1, builds.size() );
+  }
+
+  @Test
+  public void testGetRelated_ReturnsCatalogBooksInOrder () {
+    CoBorrowProjector projector = mock( CoBorrowProjector.class );
+    when( projector.related( eq( 10L ), anyInt() ) ).thenReturn( List.of(
+      new long[] { 20L, 5L },
+      new long[] { 40L, 4L },
+      new long[] { 30L, 3L },
+      new long[] { 50L, 2L }
+    ) );
+    Map<Long, BookResponseDto> catalog = new HashMap<>();
+    for ( long id : new long[] { 10L, 20L, 30L, 50L } ) {
+      catalog.put(
+        id,
+        new BookResponseDto(
+          id,
+          "Book " + id,
+          null,
+          "Genre",
+          2000,
+          OrderStatus.RETURNED,
+          null
+        )
+      );
+    }
+    BookService bookService = mock( BookService.class );
+    when( bookService.getById( any() ) ).thenAnswer( invocation -> {
+      Long id = invocation.getArgument( 0 );
+      if ( !catalog.containsKey( id ) ) {
+        throw ErrorCode.BOOK_NOT_FOUND.exception( id );
+      }
+      return catalog.get( id );
+    } );
+    when( bookService.getAllByIds( any() ) ).thenAnswer( invocation -> {
+      Map<Long, BookResponseDto> found = new HashMap<>();
+      for ( Long id : invocation.<Collection<Long>>getArgument( 0 ) ) {
+        if ( catalog.containsKey( id ) ) {
+          found.put(
+            id,
+            catalog.get( id )
+          );
+        }
+      }
+      return found;
+    } );
+    RecommendationService recommendationService = new RecommendationService(
+      projector,
+      bookService
+    );
+
+    // Book 40 was deleted since it was borrowed
+    List<RelatedBookDto> related = recommendationService.getRelated( 10L, 2 );
+    assertEquals(
+      List.of(
+        "Book 20",
+        "Book 30"
+      ),
+      related.stream().map( dto -> dto.getBook().getTitle() ).toList()
+    );
+    assertEquals(
+      List.of(
+        5L,
+        3L
+      ),
+      related.stream().map( RelatedBookDto::getCoBorrowers ).toList()
+    );
+    assertThrows(
+      ResponseStatusException.class,
+      () -> recommendationService.getRelated( 99L, 2 )
+    );
+  }
+
+  private CoBorrowProjector projector () {
+    return projector( Runnable::run );
+  }
+
+  private CoBorrowProjector projector ( Executor builder ) {
+    return new CoBorrowProjector(
+      orderEventRepository,
+      transactionManager,
+      2,
+      0,
+      20,
+      50,
+      2,
+      builder
+    );
+  }
+
+  private void borrow ( CoBorrowGraph graph, Long userId, Long... bookIds ) {
+    for ( Long bookId : bookIds ) {
+      graph.apply( event(
+        userId,
+        bookId
+      ) );
+    }
+  }
+
+  private OrderEventRowDto event ( Long userId, Long bookId ) {
+    nextEventId++;
+    return new OrderEventRowDto(
+      nextEventId,
+      nextEventId,
+      bookId,
+      userId,
+      OrderEventType.BORROWED,
+      BORROWED_AT
+    );
+  }
+
+  private static List<List<Long>> entries ( List<long[]> related ) {
+    return related
+      .stream()
+      .map( entry -> List.of(
+        entry[ 0 ],
+        entry[ 1 ]
+      ) )
+      .toList();
+  }
+
+  private void append ( Long orderId, Long userId, Long bookId ) {
+    transaction.executeWithoutResult( status -> orderEventRepository.save( OrderEvent
+      .builder()
+      .orderId( orderId )
+      .bookId( bookId )
+      .userId( userId )
+      .type( OrderEventType.BORROWED )
+      .occurredAt( BORROWED_AT )
+      .build() ) );
+  }
+}
@@ -0,0 +1,216 @@
+package org.library.reservation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.reservation.dto.ReservationRowDto;
+import org.library.reservation.enums.ReservationStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestReservationQueues {
+
+  private static final int THREADS = 16;
+  private static final int RESERVATIONS = 5_000;
+  private static final long BOOKS = 7;
+
+  private ReservationQueues queues;
+
+  @BeforeEach
+  void setUp () {
+    queues = new ReservationQueues();
+    // Nothing persisted yet
+    queues.head(
+      1L,
+      List::of
+    );
+  }
+
+  @Test
+  public void testConcurrentReservations_ArePromotedInReservationOrder () throws Exception {
+    AtomicLong ids = new AtomicLong();
+    CountDownLatch start = new CountDownLatch( 1 );
+    ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+    List<Future<?>> tasks = new ArrayList<>();
+    for ( int thread = 0; thread < THREADS; thread++ ) {
+      tasks.add( executor.submit( () -> {
+        start.await();
+        for ( int i = 0; i < RESERVATIONS / THREADS; i++ ) {
+          // Ids are handed out in one order and may reach the queue in another,
+          // like reservations committing out of order
+          long id = ids.incrementAndGet();
+          queues.add( row(
+            id,
+            id % BOOKS + 1,
+            id
+          ) );
+        }
+        return null;
+      } ) );
+    }
+    start.countDown();
+    for ( Future<?> task : tasks ) {
+      task.get();
+    }
+    executor.shutdown();
+
+    int promoted = 0;
+    for ( long bookId = 1; bookId <= BOOKS; bookId++ ) {
+      long previous = 0;
+      ReservationRowDto head;
+      while ( ( head = queues.head(
+        bookId,
+        List::of
+      ) ) != null ) {
+        assertTrue(
+          head.getId() > previous,
+          "Reservation " + head.getId() + " was promoted after " + previous
+        );
+        assertEquals(
+          bookId,
+          head.getBookId()
+        );
+        previous = head.getId();
+        queues.remove(
+          bookId,
+          head.getId()
+        );
+        promoted++;
+      }
+    }
+    assertEquals(
+      ids.get(),
+      promoted
+    );
+  }
+
+  @Test
+  public void testHold_KeepsPositionAndMarksHead () {
+    queues.add( row( 1L, 1L, 10L ) );
+    queues.add( row( 2L, 1L, 20L ) );
+    Instant holdUntil = Instant.parse( "2026-01-02T00:00:00Z" );
+
+    queues.hold(
+      1L,
+      1L,
+      holdUntil
+    );
+
+    ReservationRowDto head = queues.head(
+      1L,
+      List::of
+    );
+    assertEquals(
+      ReservationStatus.HELD,
+      head.getStatus()
+    );
+    assertEquals(
+      holdUntil,
+      head.getHoldUntil()
+    );
+    assertEquals(
+      2,
+      queues.position(
+        1L,
+        2L,
+        List::of
+      )
+    );
+    assertEquals(
+      2L,
+      queues.head(
+        1L,
+        1L,
+        List::of
+      ).getId()
+    );
+  }
+
+  @Test
+  public void testRefresh_ReplacesQueueAndIgnoresDuplicates () {
+    queues.add( row( 1L, 1L, 10L ) );
+    queues.add( row( 1L, 1L, 10L ) );
+    assertEquals(
+      1,
+      queues.size(
+        1L,
+        List::of
+      )
+    );
+
+    queues.refresh(
+      1L,
+      List.of(
+        row( 3L, 1L, 30L ),
+        row( 2L, 1L, 20L )
+      )
+    );
+
+    assertEquals(
+      2L,
+      queues.head(
+        1L,
+        List::of
+      ).getId()
+    );
+    assertTrue( queues.contains(
+      1L,
+      30L,
+      List::of
+    ) );
+    assertFalse( queues.contains(
+      1L,
+      10L,
+      List::of
+    ) );
+  }
+
+  @Test
+  public void testChanges_BeforeFirstRead_AreLeftToTheLoad () {
+    ReservationQueues fresh = new ReservationQueues();
+    fresh.add( row( 1L, 1L, 10L ) );
+
+    assertEquals(
+      2L,
+      fresh.head(
+        1L,
+        () -> List.of( row( 2L, 1L, 20L ) )
+      ).getId()
+    );
+  }
+
+  @Test
+  public void testInvalidate_ReloadsOnNextRead () {
+    queues.add( row( 1L, 1L, 10L ) );
+
+    queues.invalidate();
+
+    // A reservation another replica made while this one was not listening
+    assertEquals(
+      20L,
+      queues.head(
+        1L,
+        () -> List.of( row( 2L, 1L, 20L ) )
+      ).getUserId()
+    );
+    assertEquals( 1, queues.size( 1L, List::of ) );
+  }
+
+  private static ReservationRowDto row ( Long id, Long bookId, Long userId ) {
+    return new ReservationRowDto(
+      id,
+      bookId,
+      userId,
+      ReservationStatus.WAITING,
+      null
+    );
+  }
+}
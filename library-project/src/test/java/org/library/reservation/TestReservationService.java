@@ -0,0 +1,339 @@
+package org.library.reservation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.book.BookService;
+import org.library.coordination.CacheInvalidator;
+import org.library.coordination.InMemoryCoordinationStore;
+import org.library.exception.DomainException;
+import org.library.order.OrderRepository;
+import org.library.order.enums.OrderStatus;
+import org.library.reservation.dto.ReservationResponseDto;
+import org.library.reservation.dto.ReservationRowDto;
+import org.library.reservation.enums.ReservationStatus;
+import org.library.reservation.model.Reservation;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.http.HttpStatus.*;
+
+public class TestReservationService {
+
+  @Mock
+  private ReservationRepository reservationRepository;
+
+  @Mock
+  private OrderRepository orderRepository;
+
+  @Mock
+  private BookService bookService;
+
+  private ReservationQueues reservationQueues;
+
+  private ReservationService reservationService;
+
+  private AutoCloseable closeable;
+
+  @BeforeEach
+  void setUp () {
+    closeable = MockitoAnnotations.openMocks( this );
+    reservationQueues = new ReservationQueues();
+    reservationService = new ReservationService(
+      reservationRepository,
+      orderRepository,
+      bookService,
+      reservationQueues,
+      new CacheInvalidator( new InMemoryCoordinationStore() )
+    );
+    ReflectionTestUtils.setField(
+      reservationService,
+      "holdWindow",
+      60_000L
+    );
+  }
+
+  @AfterEach
+  void tearDown () throws Exception {
+    closeable.close();
+  }
+
+  @Test
+  void reserve_ShouldQueueAtTheEnd_WhenBookIsTaken () {
+    when( reservationRepository.findQueuedRows() ).thenReturn( List.of( row( 1L, 10L, ReservationStatus.WAITING ) ) );
+    when( reservationRepository.save( any( Reservation.class ) ) ).thenAnswer( invocation -> {
+      Reservation reservation = invocation.getArgument( 0 );
+      reservation.setId( 2L );
+      return reservation;
+    } );
+
+    ReservationResponseDto result = reservationService.reserve(
+      20L,
+      1L
+    );
+
+    assertEquals(
+      2,
+      result.getPosition()
+    );
+    assertEquals(
+      2,
+      reservationQueues.position(
+        1L,
+        2L,
+        List::of
+      )
+    );
+  }
+
+  @Test
+  void reserve_ShouldThrowException_WhenBookIsAvailable () {
+    when( orderRepository.existsByBookIdAndStatus(
+      1L,
+      OrderStatus.ACTIVE
+    ) ).thenReturn( false );
+
+    ResponseStatusException exception = assertThrows(
+      ResponseStatusException.class,
+      () -> reservationService.reserve(
+        20L,
+        1L
+      )
+    );
+
+    assertEquals(
+      BAD_REQUEST,
+      exception.getStatusCode()
+    );
+    verify(
+      reservationRepository,
+      never()
+    ).save( any( Reservation.class ) );
+  }
+
+  @Test
+  void reserve_ShouldThrowException_WhenUserIsAlreadyQueued () {
+    when( reservationRepository.findQueuedRows() ).thenReturn( List.of( row( 1L, 10L, ReservationStatus.WAITING ) ) );
+
+    DomainException exception = assertThrows(
+      DomainException.class,
+      () -> reservationService.reserve(
+        10L,
+        1L
+      )
+    );
+
+    assertEquals(
+      CONFLICT,
+      exception.getStatusCode()
+    );
+  }
+
+  @Test
+  void reserve_ShouldThrowException_WhenAnotherReplicaQueuedTheUserFirst () {
+    when( orderRepository.existsByBookIdAndStatus( 1L, OrderStatus.ACTIVE ) ).thenReturn( true );
+    when( reservationRepository.save( any( Reservation.class ) ) ).thenThrow( new DataIntegrityViolationException( "UX_RESERVATION_OPEN" ) );
+
+    DomainException exception = assertThrows(
+      DomainException.class,
+      () -> reservationService.reserve(
+        10L,
+        1L
+      )
+    );
+
+    assertEquals(
+      CONFLICT,
+      exception.getStatusCode()
+    );
+    assertFalse( reservationQueues.contains(
+      1L,
+      10L,
+      List::of
+    ) );
+  }
+
+  @Test
+  void promoteNext_ShouldRunNoQuery_WhenNobodyWaits () {
+    reservationService.promoteNext( 1L );
+    reservationService.promoteNext( 2L );
+
+    // Only the initial load of the mirror
+    verify( reservationRepository ).findQueuedRows();
+    verifyNoMoreInteractions( reservationRepository );
+  }
+
+  @Test
+  void promoteNext_ShouldHoldTheHeadOfTheQueue () {
+    when( reservationRepository.findQueuedRows() ).thenReturn( List.of(
+      row( 1L, 10L, ReservationStatus.WAITING ),
+      row( 2L, 20L, ReservationStatus.WAITING )
+    ) );
+    when( reservationRepository.updateStatus(
+      eq( List.of( 1L ) ),
+      eq( List.of( ReservationStatus.WAITING ) ),
+      eq( ReservationStatus.HELD ),
+      any( Instant.class ),
+      any( Instant.class )
+    ) ).thenReturn( 1 );
+
+    reservationService.promoteNext( 1L );
+
+    ReservationRowDto head = reservationQueues.head(
+      1L,
+      List::of
+    );
+    assertEquals(
+      1L,
+      head.getId()
+    );
+    assertEquals(
+      ReservationStatus.HELD,
+      head.getStatus()
+    );
+    assertNotNull( head.getHoldUntil() );
+  }
+
+  @Test
+  void promoteNext_ShouldReloadTheQueue_WhenHeadWasTakenElsewhere () {
+    when( reservationRepository.findQueuedRows() ).thenReturn( List.of(
+      row( 1L, 10L, ReservationStatus.WAITING ),
+      row( 2L, 20L, ReservationStatus.WAITING )
+    ) );
+    when( reservationRepository.findQueuedRowsByBookId( 1L ) ).thenReturn( List.of( row( 2L, 20L, ReservationStatus.WAITING ) ) );
+    when( reservationRepository.updateStatus(
+      eq( List.of( 2L ) ),
+      anyCollection(),
+      eq( ReservationStatus.HELD ),
+      any( Instant.class ),
+      any( Instant.class )
+    ) ).thenReturn( 1 );
+
+    reservationService.promoteNext( 1L );
+
+    assertEquals(
+      ReservationStatus.HELD,
+      reservationQueues.head(
+        1L,
+        List::of
+      ).getStatus()
+    );
+    assertEquals(
+      2L,
+      reservationQueues.head(
+        1L,
+        List::of
+      ).getId()
+    );
+  }
+
+  @Test
+  void claim_ShouldFulfillOwnHold_AndBlockBooksHeldForOthers () {
+    when( reservationRepository.findQueuedRows() ).thenReturn( List.of(
+      row( 1L, 10L, ReservationStatus.HELD ),
+      new ReservationRowDto(
+        2L,
+        2L,
+        20L,
+        ReservationStatus.HELD,
+        null
+      )
+    ) );
+    when( reservationRepository.updateStatus(
+      eq( List.of( 1L ) ),
+      anyCollection(),
+      eq( ReservationStatus.FULFILLED ),
+      isNull(),
+      any( Instant.class )
+    ) ).thenReturn( 1 );
+
+    Set<Long> blocked = reservationService.claim(
+      10L,
+      List.of( 1L, 2L, 3L )
+    );
+
+    assertEquals(
+      Set.of( 2L ),
+      blocked
+    );
+    assertNull( reservationQueues.head(
+      1L,
+      List::of
+    ) );
+  }
+
+  @Test
+  void cancel_ShouldPassTheHoldOn () {
+    reservationQueues.head(
+      1L,
+      () -> List.of(
+        row( 1L, 10L, ReservationStatus.HELD ),
+        row( 2L, 20L, ReservationStatus.WAITING )
+      )
+    );
+    when( reservationRepository.findRowById( 1L ) ).thenReturn( Optional.of( row( 1L, 10L, ReservationStatus.HELD ) ) );
+    when( reservationRepository.updateStatus(
+      anyCollection(),
+      anyCollection(),
+      any( ReservationStatus.class ),
+      any(),
+      any( Instant.class )
+    ) ).thenReturn( 1 );
+
+    reservationService.cancel(
+      10L,
+      1L
+    );
+
+    verify( reservationRepository ).updateStatus(
+      eq( List.of( 2L ) ),
+      eq( List.of( ReservationStatus.WAITING ) ),
+      eq( ReservationStatus.HELD ),
+      any( Instant.class ),
+      any( Instant.class )
+    );
+    assertEquals(
+      2L,
+      reservationQueues.head(
+        1L,
+        List::of
+      ).getId()
+    );
+  }
+
+  @Test
+  void cancel_ShouldThrowException_WhenReservationBelongsToAnotherUser () {
+    when( reservationRepository.findRowById( 1L ) ).thenReturn( Optional.of( row( 1L, 10L, ReservationStatus.WAITING ) ) );
+
+    assertThrows(
+      DomainException.class,
+      () -> reservationService.cancel(
+        20L,
+        1L
+      )
+    );
+  }
+
+  private static ReservationRowDto row ( Long id, Long userId, ReservationStatus status ) {
+    return new ReservationRowDto(
+      id,
+      1L,
+      userId,
+      status,
+      null
+    );
+  }
+}
@@ -0,0 +1,367 @@
+package org.library.stats;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.library.author.dto.AuthorDto;
+import org.library.book.BookService;
+import org.library.book.dto.BookResponseDto;
+import org.library.order.OrderEventRepository;
+import org.library.order.dto.OrderEventRowDto;
+import org.library.order.enums.OrderEventType;
+import org.library.order.enums.OrderStatus;
+import org.library.order.model.OrderEvent;
+import org.library.stats.dto.BookBorrowsDto;
+import org.library.stats.dto.GenreBorrowsDto;
+import org.library.stats.dto.MonthBorrowsDto;
+import org.library.stats.model.BorrowStat;
+import org.library.stats.model.StatsMark;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Rolls order events up against the embedded database. The projector reads and
+ * writes in its own transactions, so the test does not run in one.
+ */
+@DataJpaTest
+@ActiveProfiles( "test" )
+@Transactional( propagation = Propagation.NOT_SUPPORTED )
+public class TestBorrowStats {
+
+  private static final Logger logger = LoggerFactory.getLogger( TestBorrowStats.class );
+
+  private static final Instant JANUARY = Instant.parse( "2026-01-15T10:00:00Z" );
+  private static final Instant FEBRUARY = Instant.parse( "2026-02-03T10:00:00Z" );
+
+  @Autowired
+  private OrderEventRepository orderEventRepository;
+
+  @Autowired
+  private BorrowStatRepository borrowStatRepository;
+
+  @Autowired
+  private StatsMarkRepository statsMarkRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate transaction;
+
+  @BeforeEach
+  void setUp () {
+    transaction = new TransactionTemplate( transactionManager );
+  }
+
+  @AfterEach
+  void tearDown () {
+    transaction.executeWithoutResult( status -> {
+      statsMarkRepository.deleteAllInBatch();
+      borrowStatRepository.deleteAllInBatch();
+      orderEventRepository.deleteAllInBatch();
+    } );
+  }
+
+  @Test
+  public void testCatchUp_CountsBorrowsPerBookAndMonth () {
+    BorrowStatsProjector projector = projector();
+    append( 1L, 10L, OrderEventType.BORROWED, JANUARY );
+    append( 1L, 10L, OrderEventType.RETURNED, JANUARY );
+    append( 2L, 10L, OrderEventType.BORROWED, JANUARY );
+    append( 3L, 20L, OrderEventType.BORROWED, JANUARY );
+    append( 3L, 20L, OrderEventType.CANCELLED, FEBRUARY );
+    append( 4L, 10L, OrderEventType.BORROWED, FEBRUARY );
+
+    assertEquals( 6, projector.catchUp() );
+
+    assertEquals(
+      Map.of(
+        202601,
+        3L,
+        202602,
+        1L
+      ),
+      projector.borrowsByMonth()
+    );
+    assertEquals(
+      Map.of(
+        10L,
+        3L,
+        20L,
+        1L
+      ),
+      projector.borrowsByBook( null )
+    );
+    assertEquals(
+      Map.of( 10L, 1L ),
+      projector.borrowsByBook( 202602 )
+    );
+    // One row per book and month, current to the mark
+    assertEquals( 3, borrowStatRepository.count() );
+    assertEquals(
+      projector.position(),
+      statsMarkRepository.findById( StatsMark.BORROWS ).orElseThrow().getEventId()
+    );
+    assertEquals( 0, projector.catchUp() );
+  }
+
+  @Test
+  public void testNewReplica_StartsFromThePersistedRows () {
+    BorrowStatsProjector first = projector();
+    append( 1L, 10L, OrderEventType.BORROWED, JANUARY );
+    append( 2L, 10L, OrderEventType.BORROWED, JANUARY );
+    first.catchUp();
+
+    append( 3L, 10L, OrderEventType.BORROWED, JANUARY );
+    BorrowStatsProjector second = projector();
+
+    // Only the event after the mark is read from the log
+    assertEquals( 1, second.catchUp() );
+    assertEquals(
+      Map.of( 10L, 3L ),
+      second.borrowsByBook( 202601 )
+    );
+
+    // The first replica is behind the mark now and catches up without writing over it
+    assertEquals( 1, first.catchUp() );
+    assertEquals(
+      Map.of( 10L, 3L ),
+      first.borrowsByBook( null )
+    );
+    assertEquals(
+      3L,
+      borrowStatRepository.findAll().get( 0 ).getBorrows()
+    );
+  }
+
+  @Test
+  public void testReconcile_RepairsDriftedRows () {
+    BorrowStatsProjector first = projector();
+    append( 1L, 10L, OrderEventType.BORROWED, JANUARY );
+    append( 2L, 20L, OrderEventType.BORROWED, FEBRUARY );
+    first.catchUp();
+    transaction.executeWithoutResult( status -> borrowStatRepository.setBorrows(
+      10L,
+      202601,
+      99L
+    ) );
+
+    BorrowStatsProjector restarted = projector();
+    assertEquals(
+      99L,
+      restarted.borrowsByBook( null ).get( 10L )
+    );
+
+    assertEquals( 1, restarted.reconcile() );
+    assertEquals(
+      1L,
+      restarted.borrowsByBook( null ).get( 10L )
+    );
+    assertEquals(
+      List.of(
+        1L,
+        1L
+      ),
+      borrowStatRepository
+        .findAll()
+        .stream()
+        .map( BorrowStat::getBorrows )
+        .toList()
+    );
+  }
+
+  @Test
+  public void testStats_GroupByGenreAndAuthor_AndRankTheTopBooks () {
+    BorrowStatsProjector projector = projector();
+    append( 1L, 10L, OrderEventType.BORROWED, JANUARY );
+    append( 2L, 10L, OrderEventType.BORROWED, JANUARY );
+    append( 3L, 20L, OrderEventType.BORROWED, JANUARY );
+    append( 4L, 30L, OrderEventType.BORROWED, FEBRUARY );
+    // A book deleted since still counts among the top books
+    append( 5L, 40L, OrderEventType.BORROWED, FEBRUARY );
+    projector.catchUp();
+
+    AuthorDto tolkien = new AuthorDto( 1L, "John", "Tolkien", 81 );
+    AuthorDto christie = new AuthorDto( 2L, "Agatha", "Christie", 85 );
+    StatsService statsService = statsService(
+      projector,
+      book( 10L, "Fantasy", tolkien ),
+      book( 20L, "Fantasy", tolkien ),
+      book( 30L, "Crime", christie )
+    );
+
+    assertEquals(
+      List.of(
+        new GenreBorrowsDto( "Fantasy", 3 ),
+        new GenreBorrowsDto( "Crime", 1 )
+      ),
+      statsService.getBorrowsByGenre( null )
+    );
+    assertEquals(
+      List.of( new GenreBorrowsDto( "Crime", 1 ) ),
+      statsService.getBorrowsByGenre( YearMonth.of( 2026, 2 ) )
+    );
+    assertEquals(
+      List.of(
+        1L,
+        2L
+      ),
+      statsService
+        .getBorrowsByAuthor( null )
+        .stream()
+        .map( dto -> dto.getAuthor().getId() )
+        .toList()
+    );
+    assertEquals(
+      List.of(
+        new MonthBorrowsDto( "2026-01", 3 ),
+        new MonthBorrowsDto( "2026-02", 2 )
+      ),
+      statsService.getBorrowsByMonth()
+    );
+    assertEquals(
+      List.of(
+        new BookBorrowsDto( 10L, "Book 10", 2 ),
+        new BookBorrowsDto( 20L, "Book 20", 1 )
+      ),
+      statsService.getTopBooks( null, 2 )
+    );
+    assertEquals(
+      List.of(
+        new BookBorrowsDto( 30L, "Book 30", 1 ),
+        new BookBorrowsDto( 40L, null, 1 )
+      ),
+      statsService.getTopBooks( YearMonth.of( 2026, 2 ), 10 )
+    );
+  }
+
+  @Tag( "perf" )
+  @Test
+  public void testStats_AreServedFromMemoryWhateverTheHistorySize () {
+    int books = 10_000;
+    int events = 1_000_000;
+    BorrowRollup rollup = new BorrowRollup();
+    Instant start = Instant.parse( "2024-01-01T00:00:00Z" );
+    // Two years of borrows over the whole catalog
+    for ( long id = 1; id <= events; id++ ) {
+      rollup.apply( new OrderEventRowDto(
+        id,
+        id,
+        id * 7 % books + 1,
+        id % 1_000,
+        OrderEventType.BORROWED,
+        start.plusSeconds( id * 63 )
+      ) );
+    }
+    BorrowStatsProjector projector = mock( BorrowStatsProjector.class );
+    when( projector.borrowsByBook( any() ) ).thenAnswer( invocation -> rollup.byBook( invocation.getArgument( 0 ) ) );
+    when( projector.borrowsByMonth() ).thenAnswer( invocation -> rollup.byMonth() );
+
+    AuthorDto author = new AuthorDto( 1L, "John", "Doe", 40 );
+    BookResponseDto[] catalog = new BookResponseDto[ books ];
+    for ( int i = 0; i < books; i++ ) {
+      catalog[ i ] = book( i + 1L, "Genre " + i % 20, author );
+    }
+    StatsService statsService = statsService(
+      projector,
+      catalog
+    );
+
+    long startNanos = System.nanoTime();
+    int rounds = 20;
+    for ( int round = 0; round < rounds; round++ ) {
+      assertEquals( 10, statsService.getTopBooks( null, 10 ).size() );
+      assertEquals( 20, statsService.getBorrowsByGenre( null ).size() );
+      assertEquals( 1, statsService.getBorrowsByAuthor( YearMonth.of( 2025, 6 ) ).size() );
+      assertEquals( 24, statsService.getBorrowsByMonth().size() );
+    }
+    long millis = ( System.nanoTime() - startNanos ) / 1_000_000 / rounds;
+
+    logger.info(
+      "Borrow statistics over {} events and {} books: {} ms for all four reports",
+      events,
+      books,
+      millis
+    );
+    assertTrue( millis < 200 );
+  }
+
+  private BorrowStatsProjector projector () {
+    return new BorrowStatsProjector(
+      orderEventRepository,
+      borrowStatRepository,
+      statsMarkRepository,
+      transactionManager,
+      2,
+      0
+    );
+  }
+
+  private static StatsService statsService ( BorrowStatsProjector projector, BookResponseDto... books ) {
+    Map<Long, BookResponseDto> catalog = new HashMap<>();
+    for ( BookResponseDto book : books ) {
+      catalog.put(
+        book.getId(),
+        book
+      );
+    }
+    BookService bookService = mock( BookService.class );
+    when( bookService.getAllByIds( any() ) ).thenAnswer( invocation -> {
+      Map<Long, BookResponseDto> found = new HashMap<>();
+      for ( Long id : invocation.<Collection<Long>>getArgument( 0 ) ) {
+        if ( catalog.containsKey( id ) ) {
+          found.put(
+            id,
+            catalog.get( id )
+          );
+        }
+      }
+      return found;
+    } );
+    return new StatsService(
+      projector,
+      bookService
+    );
+  }
+
+  private static BookResponseDto book ( Long id, String genre, AuthorDto author ) {
+    return new BookResponseDto(
+      id,
+      "Book " + id,
+      null,
+      genre,
+      2000,
+      OrderStatus.RETURNED,
+      author
+    );
+  }
+
+  private void append ( Long orderId, Long bookId, OrderEventType type, Instant occurredAt ) {
+    transaction.executeWithoutResult( status -> orderEventRepository.save( OrderEvent
+      .builder()
+      .orderId( orderId )
+      .bookId( bookId )
+      .userId( 1L )
+      .type( type )
+      .occurredAt( occurredAt )
+      .build() ) );
+  }
+}
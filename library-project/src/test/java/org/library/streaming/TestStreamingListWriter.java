@@ -0,0 +1,249 @@
+package org.library.streaming;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestStreamingListWriter {
+
+  private static final Logger logger = LoggerFactory.getLogger( TestStreamingListWriter.class );
+
+  private static final int PAGE_SIZE = 100;
+
+  private StreamingListWriter writer;
+
+  @BeforeEach
+  void setUp () {
+    List<HttpMessageConverter<?>> converters = List.of(
+      new MappingJackson2HttpMessageConverter(),
+      new MappingJackson2SmileHttpMessageConverter(),
+      new MappingJackson2CborHttpMessageConverter()
+    );
+    writer = new StreamingListWriter(
+      () -> converters,
+      PAGE_SIZE
+    );
+  }
+
+  @Test
+  public void testWrite_ProducesSameDocumentAsList () throws Exception {
+    List<Map<String, Object>> items = items( 250 );
+
+    ResponseEntity<StreamingResponseBody> response = writer.write(
+      null,
+      items::forEach
+    );
+
+    assertEquals(
+      MediaType.APPLICATION_JSON_VALUE,
+      response.getHeaders().getFirst( HttpHeaders.CONTENT_TYPE )
+    );
+    assertEquals(
+      new ObjectMapper().readTree( new ObjectMapper().writeValueAsBytes( items ) ),
+      new ObjectMapper().readTree( body( response ).toByteArray() )
+    );
+  }
+
+  @Test
+  public void testWrite_NegotiatesFormatFromAcceptHeader () throws Exception {
+    List<Map<String, Object>> items = items( 10 );
+
+    ResponseEntity<StreamingResponseBody> response = writer.write(
+      "application/json;q=0.5, application/cbor",
+      items::forEach
+    );
+
+    assertEquals(
+      "application/cbor",
+      response.getHeaders().getFirst( HttpHeaders.CONTENT_TYPE )
+    );
+    assertEquals(
+      new CBORMapper().readTree( new CBORMapper().writeValueAsBytes( items ) ),
+      new CBORMapper().readTree( body( response ).toByteArray() )
+    );
+  }
+
+  @Test
+  public void testWrite_FlushesOncePerPage () throws Exception {
+    CountingOutputStream out = new CountingOutputStream();
+    List<Map<String, Object>> items = items( PAGE_SIZE * 5 + 1 );
+
+    writer.<Map<String, Object>>write(
+      null,
+      items::forEach
+    ).getBody().writeTo( out );
+
+    assertEquals(
+      6,
+      out.flushes
+    );
+    assertTrue( out.writtenAtFirstFlush < out.written / 5 );
+  }
+
+  @Test
+  public void testWrite_EndsWithAnErrorElementWhenProducerFails () {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    StreamingResponseBody body = writer.<Map<String, Object>>write(
+      null,
+      sink -> {
+        items( PAGE_SIZE * 2 + 1 ).forEach( sink );
+        throw new IllegalStateException( "cursor closed" );
+      }
+    ).getBody();
+
+    assertThrows(
+      IllegalStateException.class,
+      () -> body.writeTo( out )
+    );
+    String written = out.toString( StandardCharsets.UTF_8 );
+    assertTrue( written.contains( "\"name\":\"order-" + ( PAGE_SIZE * 2 + 1 ) + "\"" ) );
+    assertTrue( written.endsWith( ",{\"error\":{\"status\":500,\"message\":\"The list could not be completed\"}}" ) );
+    // The array is left open, so the partial list does not parse as a whole one
+    assertThrows(
+      IOException.class,
+      () -> new ObjectMapper().readTree( out.toByteArray() )
+    );
+  }
+
+  @Tag( "perf" )
+  @Test
+  public void testTimeToFirstByteAndBufferedBytes () throws Exception {
+    int count = 200_000;
+    Consumer<Consumer<Map<String, Object>>> producer = sink -> LongStream
+      .rangeClosed(
+        1,
+        count
+      )
+      .forEach( id -> sink.accept( item( id ) ) );
+
+    // Warm up both paths before measuring
+    for ( int i = 0; i < 3; i++ ) {
+      writer.write(
+        null,
+        producer
+      ).getBody().writeTo( new CountingOutputStream() );
+      materialized( producer );
+    }
+
+    CountingOutputStream streamed = new CountingOutputStream();
+    long start = System.nanoTime();
+    writer.write(
+      null,
+      producer
+    ).getBody().writeTo( streamed );
+    long streamedNanos = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    byte[] buffered = materialized( producer );
+    long materializedNanos = System.nanoTime() - start;
+
+    assertEquals(
+      buffered.length,
+      streamed.written
+    );
+    logger.info(
+      "Streamed {} items: first byte after {} us, {} us total, largest write {} bytes",
+      count,
+      ( streamed.firstFlushNanos - streamed.createdNanos ) / 1_000,
+      streamedNanos / 1_000,
+      streamed.largestWrite
+    );
+    logger.info(
+      "Materialized {} items: first byte after {} us, {} bytes buffered",
+      count,
+      materializedNanos / 1_000,
+      buffered.length
+    );
+  }
+
+  private static byte[] materialized ( Consumer<Consumer<Map<String, Object>>> producer ) {
+    List<Map<String, Object>> items = new ArrayList<>();
+    producer.accept( items::add );
+    try {
+      return new ObjectMapper().writeValueAsBytes( items );
+    } catch ( IOException e ) {
+      throw new IllegalStateException( e );
+    }
+  }
+
+  private static ByteArrayOutputStream body ( ResponseEntity<StreamingResponseBody> response ) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    response.getBody().writeTo( out );
+    return out;
+  }
+
+  private static List<Map<String, Object>> items ( int count ) {
+    List<Map<String, Object>> items = new ArrayList<>( count );
+    for ( long id = 1; id <= count; id++ ) {
+      items.add( item( id ) );
+    }
+    return items;
+  }
+
+  private static Map<String, Object> item ( long id ) {
+    return Map.of(
+      "id",
+      id,
+      "name",
+      "order-" + id,
+      "status",
+      "ACTIVE"
+    );
+  }
+
+  private static class CountingOutputStream extends OutputStream {
+    private final long createdNanos = System.nanoTime();
+    private long written;
+    private long writtenAtFirstFlush;
+    private long firstFlushNanos;
+    private int largestWrite;
+    private int flushes;
+
+    @Override
+    public void write ( int b ) {
+      written++;
+    }
+
+    @Override
+    public void write ( byte[] b, int off, int len ) {
+      written += len;
+      largestWrite = Math.max(
+        largestWrite,
+        len
+      );
+    }
+
+    @Override
+    public void flush () {
+      if ( flushes++ == 0 ) {
+        writtenAtFirstFlush = written;
+        firstFlushNanos = System.nanoTime();
+      }
+    }
+  }
+}
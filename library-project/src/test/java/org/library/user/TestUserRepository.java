@@ -0,0 +1,97 @@
+package org.library.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.order.dto.UserLoanCountDto;
+import org.library.user.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles( "test" )
+public class TestUserRepository {
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  private User reader;
+
+  @BeforeEach
+  void setUp () {
+    reader = entityManager.persist( User
+      .builder()
+      .email( "reader@example.com" )
+      .password( "secret" )
+      .role( "USER" )
+      .build() );
+    entityManager.persist( User
+      .builder()
+      .email( "idle@example.com" )
+      .password( "secret" )
+      .role( "USER" )
+      .build() );
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  @Test
+  public void testAddActiveLoans_RefusesToGoPastTheLimit () {
+    assertEquals( 1, userRepository.addActiveLoans( reader.getId(), 3, 5 ) );
+    assertEquals( 0, userRepository.addActiveLoans( reader.getId(), 3, 5 ) );
+    assertEquals( 1, userRepository.addActiveLoans( reader.getId(), 2, 5 ) );
+
+    assertEquals( Optional.of( 5 ), userRepository.findActiveLoansById( reader.getId() ) );
+  }
+
+  @Test
+  public void testRemoveActiveLoans_StopsAtZero () {
+    userRepository.addActiveLoans(
+      reader.getId(),
+      2,
+      5
+    );
+
+    userRepository.removeActiveLoans(
+      reader.getId(),
+      3
+    );
+
+    assertEquals( Optional.of( 0 ), userRepository.findActiveLoansById( reader.getId() ) );
+  }
+
+  @Test
+  public void testSave_LeavesActiveLoansAlone () {
+    userRepository.addActiveLoans(
+      reader.getId(),
+      2,
+      5
+    );
+    entityManager.clear();
+
+    User stale = User
+      .builder()
+      .id( reader.getId() )
+      .email( "renamed@example.com" )
+      .password( "secret" )
+      .role( "USER" )
+      .build();
+    userRepository.saveAndFlush( stale );
+    entityManager.clear();
+
+    assertEquals( Optional.of( 2 ), userRepository.findActiveLoansById( reader.getId() ) );
+    List<UserLoanCountDto> counts = userRepository.findActiveLoanCounts();
+    assertEquals( 1, counts.size() );
+    assertEquals( reader.getId(), counts.get( 0 ).getUserId() );
+    assertEquals( 2, counts.get( 0 ).getActiveLoans() );
+  }
+}
@@ -3,6 +3,8 @@ package org.library.user;
 import org.junit.jupiter.api.*;
 import org.library.auth.dto.RegisterDto;
 import org.library.auth.enums.Role;
+import org.library.coordination.CacheInvalidator;
+import org.library.coordination.InMemoryCoordinationStore;
 import org.library.user.dto.UpdateUserDto;
 import org.library.user.dto.UserResponseDto;
 import org.library.user.model.User;
@@ -14,6 +16,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,14 +31,22 @@ public class TestUserService {
   @Mock
   private PasswordEncoder passwordEncoder;
 
+  private UserCache userCache;
+
   private AutoCloseable autoCloseable;
 
   @BeforeEach
   void setUp () {
     autoCloseable = MockitoAnnotations.openMocks( this );
+    userCache = new UserCache(
+      new CacheInvalidator( new InMemoryCoordinationStore() ),
+      60_000,
+      100
+    );
     userService = new UserService(
       passwordEncoder,
-      userRepository
+      userRepository,
+      userCache
     );
   }
 
@@ -381,6 +392,97 @@ public class TestUserService {
     ).save( any() );
   }
 
+  @Test
+  public void testUpdate_EvictsCachedUser () {
+    // Arrange
+    Long userId = 1L;
+    User user = User
+      .builder()
+      .id( userId )
+      .email( "old@example.com" )
+      .role( Role.USER.toString() )
+      .build();
+    UpdateUserDto dto = new UpdateUserDto();
+    dto.setEmail( "new@example.com" );
+
+    when( userRepository.findById( userId ) ).thenReturn( Optional.of( user ) );
+    when( userRepository.save( user ) ).thenReturn( user );
+    userCache.get(
+      userId,
+      userService::getById
+    );
+
+    // Act
+    userService.update(
+      userId,
+      dto
+    );
+    UserResponseDto cached = userCache.get(
+      userId,
+      userService::getById
+    );
+
+    // Assert
+    assertEquals(
+      "new@example.com",
+      cached.getEmail()
+    );
+    verify(
+      userRepository,
+      times( 3 )
+    ).findById( userId );
+  }
+
+  @Test
+  public void testUserCache_DoesNotCacheAUserEvictedWhileLoading () {
+    AtomicInteger loads = new AtomicInteger();
+
+    // The update commits between the read and the put of the stale row
+    userCache.get(
+      1L,
+      userId -> {
+        loads.incrementAndGet();
+        UserResponseDto stale = principal( userId );
+        userCache.evict( userId );
+        return stale;
+      }
+    );
+    userCache.get(
+      1L,
+      userId -> {
+        loads.incrementAndGet();
+        return principal( userId );
+      }
+    );
+
+    assertEquals( 2, loads.get() );
+  }
+
+  @Test
+  public void testUserCache_KeepsCachingWhenFull () {
+    for ( long id = 1; id <= 250; id++ ) {
+      userCache.get(
+        id,
+        TestUserService::principal
+      );
+    }
+    AtomicInteger loads = new AtomicInteger();
+
+    // The latest users stay cached once the cache has filled up
+    for ( long id = 241; id <= 250; id++ ) {
+      userCache.get(
+        id,
+        userId -> {
+          loads.incrementAndGet();
+          return principal( userId );
+        }
+      );
+    }
+
+    assertEquals( 0, loads.get() );
+    assertTrue( userCache.size() <= 100 );
+  }
+
   @Test
   public void testCheckUserExists_Success () {
     // Arrange
@@ -716,4 +818,12 @@ public class TestUserService {
       result.getRole()
     );
   }
-}
\ No newline at end of file
+
+  private static UserResponseDto principal ( Long id ) {
+    return new UserResponseDto(
+      id,
+      "user" + id + "@example.com",
+      Role.USER.toString()
+    );
+  }
+}